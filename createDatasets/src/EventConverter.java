@@ -0,0 +1,116 @@
+import java.io.*;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Converts event files (XML, N-Triples, both optionally gzipped) into each other, one event at a time.
+ * The format is chosen by the file name: .xml or .nt, followed by .gz for gzipped files.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public class EventConverter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Read all events, filter them and write them to all writers
+     * @param reader
+     * @param filter events to write, null for all events
+     * @param writers
+     * @return number of written events
+     */
+    public static int convert(EventReader reader, Predicate<Event> filter, EventWriter... writers) throws IOException {
+        int read = 0;
+        int written = 0;
+        Event event;
+        while ((event = reader.read()) != null) {
+            read++;
+            if (filter == null || filter.test(event)) {
+                for (EventWriter writer : writers) {
+                    writer.write(event);
+                }
+                written++;
+            }
+            if (read % 10000 == 0) {
+                System.out.println(read + " events read, " + written + " written.");
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Convert the input file to all output files
+     * @param k 0:DBpedia, 1:YAGO (for N-Triples)
+     * @param inputFileName
+     * @param filter events to write, null for all events
+     * @param outputFileNames
+     * @return number of written events
+     */
+    public static int convert(int k, String inputFileName, Predicate<Event> filter, String... outputFileNames) throws IOException {
+        EventWriter[] writers = new EventWriter[outputFileNames.length];
+        try (EventReader reader = openReader(k, inputFileName)) {
+            for (int i = 0; i < outputFileNames.length; i++) {
+                writers[i] = openWriter(k, outputFileNames[i]);
+            }
+            int written = convert(reader, filter, writers);
+            System.out.println(written + " events written to " + String.join(", ", outputFileNames));
+            return written;
+        } finally {
+            for (EventWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    public static EventReader openReader(int k, String fileName) throws IOException {
+        if (getFormat(fileName).equals(".nt")) {
+            return new EventNTReader(k, fileName);
+        }
+        return new EventXMLReader(fileName);
+    }
+
+    public static EventWriter openWriter(int k, String fileName) throws IOException {
+        if (getFormat(fileName).equals(".nt")) {
+            return new EventNTFormatter(k, fileName);
+        }
+        return new EventXMLWriter(fileName);
+    }
+
+    private static String getFormat(String fileName) {
+        String name = fileName.endsWith(".gz") ? fileName.substring(0, fileName.length() - 3) : fileName;
+        if (name.endsWith(".nt")) {
+            return ".nt";
+        } else if (name.endsWith(".xml")) {
+            return ".xml";
+        }
+        throw new IllegalArgumentException("unknown format of " + fileName);
+    }
+
+    /**
+     * Filter for events with an owl:sameAs link to the other KG
+     * @param k 0:DBpedia (links to YAGO), 1:YAGO (links to DBpedia)
+     * @return Predicate
+     */
+    public static Predicate<Event> directSameAsLinksOnly(int k) {
+        String otherURI = k == 0 ? "http://yago-knowledge.org/resource/" : "http://dbpedia.org/resource/";
+        return event -> event.getSames().stream().anyMatch(same -> same.contains(otherURI));
+    }
+
+    static InputStream openInput(String fileName) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE);
+        if (fileName.endsWith(".gz")) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    static OutputStream openOutput(String fileName) throws IOException {
+        if (fileName.endsWith(".gz")) {
+            return new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(fileName), BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(new FileOutputStream(fileName), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,315 @@
+import org.apache.jena.query.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gets the properties of events and their locations from a SPARQL endpoint.
+ * Instead of one query per URI the URIs are sent in batches (VALUES ?event { ... }) by several threads.
+ * The batch size adapts to the endpoint: it grows after successful queries and is halved if a query fails
+ * or its results were possibly cut off by the result limit of the endpoint.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public class EventExtractor {
+
+    //retries of a query for a single URI before the URI is skipped
+    private static final int MAX_URI_RETRIES = 5;
+
+    private final int k;
+    private final QueryObject queryObject;
+    private final KGVariableNames varNames;
+
+    private int threads = 4;
+    private int initialBatchSize = 50;
+    private int maxBatchSize = 500;
+    private int maxResultRows = 10000;
+    private boolean partitioned = false;
+
+    private final AtomicInteger batchSize = new AtomicInteger();
+
+    /**
+     * @param k 0:DBpedia, 1:YAGO
+     * @param queryObject endpoint (or local dataset), its rate limit applies to all threads
+     * @param varNames
+     */
+    public EventExtractor(int k, QueryObject queryObject, KGVariableNames varNames) {
+        this.k = k;
+        this.queryObject = queryObject;
+        this.varNames = varNames;
+    }
+
+    /**
+     * @param threads number of concurrent queries
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setInitialBatchSize(int initialBatchSize) {
+        this.initialBatchSize = initialBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @param maxResultRows maximum number of rows the endpoint returns for one query (DBpedia: 10000)
+     */
+    public void setMaxResultRows(int maxResultRows) {
+        this.maxResultRows = maxResultRows;
+    }
+
+    /**
+     * @param partitioned true: every thread queries the URIs of its own hash range (for a local dataset),
+     *                    false: the threads take the next batch from a shared queue
+     */
+    public void setPartitioned(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+
+    /**
+     * Get the properties of all events, including the properties of their locations
+     * @param eventURIs
+     * @return Map (k: eventURI, v: Event)
+     */
+    public Map<String, Event> getEvents(Collection<String> eventURIs) {
+        //events are added as soon as their batch is done
+        Map<String, Event> eventMap = new ConcurrentHashMap<>(eventURIs.size() * 4 / 3 + 1);
+        //k: locationURI, v: Set of eventURIs
+        Map<String, Set<String>> locationWithEventsMap = new ConcurrentHashMap<>();
+
+        run(eventURIs, true, (uris, results) -> addEvents(uris, results, eventMap, locationWithEventsMap));
+        System.out.println(eventMap.size() + " events added to eventMap");
+
+        run(locationWithEventsMap.keySet(), false,
+                (uris, results) -> addLocations(uris, results, eventMap, locationWithEventsMap));
+        System.out.println(locationWithEventsMap.size() + " locations processed.");
+        return eventMap;
+    }
+
+    private interface BatchHandler {
+        void handle(List<String> uris, ResultSet results);
+    }
+
+    /**
+     * Query the properties of all URIs in batches, with a pool of threads
+     * @param isEvent true for events, false for locations
+     */
+    private void run(Collection<String> uris, boolean isEvent, BatchHandler handler) {
+        List<Deque<String>> partitions = partition(uris);
+        AtomicInteger done = new AtomicInteger();
+        batchSize.set(initialBatchSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Deque<String> pending = partitions.get(i % partitions.size());
+            workers.add(executor.submit(() -> {
+                List<String> batch;
+                while (!Thread.currentThread().isInterrupted() && !(batch = nextBatch(pending)).isEmpty()) {
+                    if (query(batch, isEvent, pending, handler)) {
+                        printProgress(done.addAndGet(batch.size()), batch.size(), uris.size(), isEvent);
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Split the URIs into one partition per thread by ranges of their hash codes, or one partition for all threads
+     */
+    private List<Deque<String>> partition(Collection<String> uris) {
+        List<Deque<String>> partitions = new ArrayList<>();
+        if (!partitioned) {
+            partitions.add(new ConcurrentLinkedDeque<>(uris));
+            return partitions;
+        }
+        for (int i = 0; i < threads; i++) {
+            partitions.add(new ConcurrentLinkedDeque<>());
+        }
+        for (String uri : uris) {
+            //the unsigned hash code scaled to [0, threads)
+            int i = (int) (((uri.hashCode() & 0xffffffffL) * threads) >>> 32);
+            partitions.get(i).add(uri);
+        }
+        return partitions;
+    }
+
+    private List<String> nextBatch(Deque<String> pending) {
+        int size = batchSize.get();
+        List<String> batch = new ArrayList<>(size);
+        String uri;
+        while (batch.size() < size && (uri = pending.pollFirst()) != null) {
+            batch.add(uri);
+        }
+        return batch;
+    }
+
+    /**
+     * Query one batch. If the query fails the URIs are put back to be queried in smaller batches.
+     * @return false if the URIs were put back
+     */
+    private boolean query(List<String> batch, boolean isEvent, Deque<String> pending, BatchHandler handler) {
+        String queryString = isEvent ? getEventQuery(batch) : getLocationQuery(batch);
+        ResultSetRewindable results;
+        try {
+            results = queryObject.execute(queryString);
+        } catch (QueryException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            if (batch.size() > 1) {
+                retryInSmallerBatches(batch, pending);
+                return false;
+            }
+            //single URI: retry a few times (null if the URI can not be parsed or the query still fails)
+            try {
+                results = queryObject.queryEndpoint(queryString, MAX_URI_RETRIES);
+            } catch (QueryException single) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw single;
+                }
+                System.out.println("error for " + batch.get(0) + ": " + single);
+                results = null;
+            }
+            if (results == null) {
+                System.out.println("results==null for " + batch.get(0));
+                return true;
+            }
+        }
+        if (results.size() >= maxResultRows && batch.size() > 1) {
+            //the endpoint might have cut off the results
+            retryInSmallerBatches(batch, pending);
+            return false;
+        }
+        batchSize.updateAndGet(size -> Math.min(maxBatchSize, size + size / 4 + 1));
+        handler.handle(batch, results);
+        return true;
+    }
+
+    private void retryInSmallerBatches(List<String> batch, Deque<String> pending) {
+        batchSize.updateAndGet(size -> Math.max(1, Math.min(size, batch.size()) / 2));
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            pending.addFirst(batch.get(i));
+        }
+    }
+
+    private void addEvents(List<String> uris, ResultSet results, Map<String, Event> eventMap,
+                           Map<String, Set<String>> locationWithEventsMap) {
+        Map<String, Event> batchEvents = new HashMap<>();
+        for (String uri : uris) {
+            batchEvents.put(uri, new Event(uri));
+        }
+        while (results.hasNext()) {
+            QuerySolution qs = results.next();
+            Event event = batchEvents.get(qs.get("event").toString());
+            if (event == null) {
+                continue;
+            }
+            //english label always present
+            event.addLabel(qs.get("label").toString());
+            //others are optional
+            if (qs.contains("date"))
+                event.addDate(qs.get("date").toString());
+            if (qs.contains("lat") && qs.contains(("long")))
+                event.addCoordinatePair(qs.get("lat").toString() + "," + qs.get("long").toString());
+            if (qs.contains("same"))
+                event.addSame(qs.get("same").toString());
+            if (qs.contains("location")) {
+                locationWithEventsMap.computeIfAbsent(qs.get("location").toString(),
+                        location -> ConcurrentHashMap.newKeySet()).add(event.getUri());
+            }
+        }
+        eventMap.putAll(batchEvents);
+    }
+
+    private void addLocations(List<String> uris, ResultSet results, Map<String, Event> eventMap,
+                              Map<String, Set<String>> locationWithEventsMap) {
+        Map<String, Location> batchLocations = new HashMap<>();
+        for (String uri : uris) {
+            batchLocations.put(uri, new Location(uri));
+        }
+        while (results.hasNext()) {
+            QuerySolution qs = results.next();
+            Location location = batchLocations.get(qs.get("location").toString());
+            if (location == null) {
+                continue;
+            }
+            //english label always present
+            location.addLabel(qs.get("label").toString());
+            //add optional properties
+            if (qs.contains("lat") && qs.contains(("long")))
+                location.addCoordinatePair(qs.get("lat").toString() + "," + qs.get("long").toString());
+            if (qs.contains("same"))
+                location.addSame(qs.get("same").toString());
+        }
+
+        //add location to all events with this location
+        for (Location location : batchLocations.values()) {
+            for (String eventURI : locationWithEventsMap.get(location.getUri())) {
+                Event event = eventMap.get(eventURI);
+                //other threads add other locations to the same event
+                synchronized (event) {
+                    event.addLocation(location);
+                }
+            }
+        }
+    }
+
+    private String getEventQuery(List<String> uris) {
+        return createDatasetsMain.getQueryPrefix(k) +
+                "SELECT ?event ?label ?date ?lat ?long ?same ?location WHERE {\n" +
+                getValues("event", uris) +
+                " ?event rdfs:label ?label .\n" +
+                " OPTIONAL { ?event " + varNames.getDateVar() + " ?date }\n" +
+                " OPTIONAL { ?event " + varNames.getLatVar() + " ?lat }\n" +
+                " OPTIONAL { ?event " + varNames.getLongVar() + " ?long }\n" +
+                " OPTIONAL { ?event owl:sameAs ?same }\n" +
+                " OPTIONAL { ?event " + varNames.getLocationVar() + " ?location }\n" +
+                " FILTER langMatches( lang(?label), \'" + varNames.getEnVar() + "\' )\n" +
+                "}";
+    }
+
+    private String getLocationQuery(List<String> uris) {
+        return createDatasetsMain.getQueryPrefix(k) +
+                "SELECT ?location ?label ?lat ?long ?same WHERE {\n" +
+                getValues("location", uris) +
+                " ?location rdfs:label ?label .\n" +
+                " OPTIONAL { ?location " + varNames.getLatVar() + " ?lat }\n" +
+                " OPTIONAL { ?location " + varNames.getLongVar() + " ?long }\n" +
+                " OPTIONAL { ?location owl:sameAs ?same }\n" +
+                " FILTER langMatches( lang(?label), \'" + varNames.getEnVar() + "\' )\n" +
+                "}";
+    }
+
+    private String getValues(String variable, List<String> uris) {
+        StringBuilder values = new StringBuilder(" VALUES ?").append(variable).append(" {");
+        for (String uri : uris) {
+            values.append(" <").append(uri).append(">");
+        }
+        return values.append(" }\n").toString();
+    }
+
+    private void printProgress(int counter, int added, int size, boolean isEvent) {
+        int step = Math.max(1, size / 100);
+        //batches do not end on the steps, print when a step was passed
+        if (counter / step != (counter - added) / step) {
+            System.out.println(((float) counter / size) + " of " + (isEvent ? "events" : "locations") + " processed.");
+        }
+    }
+}
@@ -1,18 +1,19 @@
 import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Created by Daniel on 28/01/17.
  */
-public class EventNTFormatter {
+public class EventNTFormatter implements EventWriter {
     private BufferedWriter writer;
     //general properties
-    private String rdfType = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
-    private String rdfsLabel = "<http://www.w3.org/2000/01/rdf-schema#label>";
-    private String owlSameAs = "<http://www.w3.org/2002/07/owl#sameAs>";
+    private static final String rdfType = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    private static final String rdfsLabel = "<http://www.w3.org/2000/01/rdf-schema#label>";
+    private static final String owlSameAs = "<http://www.w3.org/2002/07/owl#sameAs>";
 
     //event class & properties
     private String eventClass = "";
@@ -21,27 +22,45 @@ public class EventNTFormatter {
     private String longProperty = "";
     private String locationProperty = "";
 
+    /**
+     * @param k 0:DBpedia, 1:YAGO
+     * @param fileName gzipped if it ends with .gz
+     */
     public EventNTFormatter(int k, String fileName) {
         try {
-            this.writer = new BufferedWriter(new FileWriter(fileName));
+            this.writer = new BufferedWriter(new OutputStreamWriter(EventConverter.openOutput(fileName), StandardCharsets.UTF_8));
         } catch (IOException e) {
             e.printStackTrace();
         }
-        if (k==0) {//dbpedia
-            this.eventClass = "http://dbpedia.org/ontology/Event";
-            this.dateProperty = "<http://dbpedia.org/ontology/date>";
-            this.latProperty = "<http://www.w3.org/2003/01/geo/wgs84_pos#lat>";
-            this.longProperty = "<http://www.w3.org/2003/01/geo/wgs84_pos#long>";
-            this.locationProperty = "<http://dbpedia.org/ontology/place>";
+        String[] properties = getProperties(k);
+        this.eventClass = properties[3];
+        this.dateProperty = properties[4];
+        this.latProperty = properties[5];
+        this.longProperty = properties[6];
+        this.locationProperty = properties[7];
+    };
 
+    /**
+     * @param k 0:DBpedia, 1:YAGO
+     * @return rdf:type, rdfs:label, owl:sameAs, event class, date, lat, long and location property (also used by the reader)
+     */
+    static String[] getProperties(int k) {
+        if (k==0) {//dbpedia
+            return new String[] {rdfType, rdfsLabel, owlSameAs,
+                    "http://dbpedia.org/ontology/Event",
+                    "<http://dbpedia.org/ontology/date>",
+                    "<http://www.w3.org/2003/01/geo/wgs84_pos#lat>",
+                    "<http://www.w3.org/2003/01/geo/wgs84_pos#long>",
+                    "<http://dbpedia.org/ontology/place>"};
         } else {//yago
-            this.eventClass = "http://yago-knowledge.org/resource/wordnet_event_100029378";
-            this.dateProperty = "<http://yago-knowledge.org/resource/happenedOnDate>";
-            this.latProperty = "<http://yago-knowledge.org/resource/hasLatitude>";
-            this.longProperty = "<http://yago-knowledge.org/resource/hasLongitude>";
-            this.locationProperty = "<http://yago-knowledge.org/resource/isLocatedIn>";
+            return new String[] {rdfType, rdfsLabel, owlSameAs,
+                    "http://yago-knowledge.org/resource/wordnet_event_100029378",
+                    "<http://yago-knowledge.org/resource/happenedOnDate>",
+                    "<http://yago-knowledge.org/resource/hasLatitude>",
+                    "<http://yago-knowledge.org/resource/hasLongitude>",
+                    "<http://yago-knowledge.org/resource/isLocatedIn>"};
         }
-    };
+    }
 
     public boolean writeNTFromMap(Map<String, Event> eventMap) {
 
@@ -58,10 +77,20 @@ public class EventNTFormatter {
         return true;
     }
 
+    @Override
+    public void write(Event event) throws IOException {
+        writeEventToNT(event);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
     public void writeEventToNT(Event event) {
         String eventURI = event.getUri();
         //event class
-        writeNTLine(eventURI, this.rdfType, this.eventClass);
+        writeNTLine(eventURI, rdfType, this.eventClass);
         //labels
         if (event.hasLabel())
             writeLabels(eventURI, event.getLabels());
@@ -96,7 +125,7 @@ public class EventNTFormatter {
 
     private void writeSames(String uri, Set<String> sames) {
         for (String same : sames) {
-            writeNTLine(uri, this.owlSameAs, same);
+            writeNTLine(uri, owlSameAs, same);
         }
     }
 
@@ -118,7 +147,7 @@ public class EventNTFormatter {
 
     private void writeLabels(String uri, Set<String> labels) {
         for (String label : labels) {
-            writeNTLine(uri, this.rdfsLabel, label);
+            writeNTLine(uri, rdfsLabel, label);
         }
     }
 
@@ -0,0 +1,128 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the events of an N-Triples file written by {@link EventNTFormatter} one at a time.
+ * Relies on the order of that file: every event starts with its rdf:type triple, followed by the triples of
+ * the event and its locations, and the longitude of a coordinate pair follows its latitude.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public class EventNTReader implements EventReader {
+
+    private final BufferedReader reader;
+    private final String rdfType;
+    private final String rdfsLabel;
+    private final String owlSameAs;
+    private final String dateProperty;
+    private final String latProperty;
+    private final String longProperty;
+    private final String locationProperty;
+
+    //the event that is currently read and its locations
+    private Event event;
+    private Map<String, Location> locations = new HashMap<>();
+    //latitude of the subject, until the longitude is read
+    private String latSubject;
+    private String lat;
+
+    /**
+     * @param k 0:DBpedia, 1:YAGO
+     * @param fileName gzipped if it ends with .gz
+     */
+    public EventNTReader(int k, String fileName) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(EventConverter.openInput(fileName), StandardCharsets.UTF_8));
+        String[] properties = EventNTFormatter.getProperties(k);
+        this.rdfType = properties[0];
+        this.rdfsLabel = properties[1];
+        this.owlSameAs = properties[2];
+        this.dateProperty = properties[4];
+        this.latProperty = properties[5];
+        this.longProperty = properties[6];
+        this.locationProperty = properties[7];
+    }
+
+    @Override
+    public Event read() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            //<s> <p> <o> .
+            int subjectEnd = line.indexOf("> <");
+            int predicateEnd = line.indexOf("> <", subjectEnd + 3);
+            if (!line.startsWith("<") || !line.endsWith("> .") || subjectEnd < 0 || predicateEnd < 0) {
+                continue;
+            }
+            String s = line.substring(1, subjectEnd);
+            String p = line.substring(subjectEnd + 2, predicateEnd + 1);
+            String o = line.substring(predicateEnd + 3, line.length() - 3);
+
+            if (p.equals(rdfType)) {
+                Event previous = event;
+                event = new Event(s);
+                locations.clear();
+                latSubject = null;
+                if (previous != null) {
+                    return previous;
+                }
+            } else if (event != null) {
+                add(s, p, o);
+            }
+        }
+        Event last = event;
+        event = null;
+        return last;
+    }
+
+    private void add(String s, String p, String o) {
+        if (s.equals(event.getUri())) {
+            if (p.equals(rdfsLabel)) {
+                event.addLabel(o);
+            } else if (p.equals(dateProperty)) {
+                event.addDate(o);
+            } else if (p.equals(owlSameAs)) {
+                event.addSame(o);
+            } else if (p.equals(locationProperty)) {
+                Location location = locations.computeIfAbsent(o, Location::new);
+                event.addLocation(location);
+            } else {
+                addCoordinate(s, p, o);
+            }
+            return;
+        }
+        Location location = locations.get(s);
+        if (location == null) {
+            return;
+        }
+        if (p.equals(rdfsLabel)) {
+            location.addLabel(o);
+        } else if (p.equals(owlSameAs)) {
+            location.addSame(o);
+        } else {
+            addCoordinate(s, p, o);
+        }
+    }
+
+    private void addCoordinate(String s, String p, String o) {
+        if (p.equals(latProperty)) {
+            latSubject = s;
+            lat = o;
+        } else if (p.equals(longProperty) && s.equals(latSubject)) {
+            String coordinatePair = lat + "," + o;
+            if (s.equals(event.getUri())) {
+                event.addCoordinatePair(coordinatePair);
+            } else {
+                locations.get(s).addCoordinatePair(coordinatePair);
+            }
+            latSubject = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
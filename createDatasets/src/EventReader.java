@@ -0,0 +1,15 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads events one at a time.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public interface EventReader extends Closeable {
+
+    /**
+     * @return the next event, null if there are no more events
+     */
+    Event read() throws IOException;
+}
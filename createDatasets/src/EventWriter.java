@@ -0,0 +1,12 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes events one at a time.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public interface EventWriter extends Closeable {
+
+    void write(Event event) throws IOException;
+}
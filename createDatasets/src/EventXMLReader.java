@@ -0,0 +1,107 @@
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the events of an XML file one at a time (StAX), only the current event is kept in memory.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public class EventXMLReader implements EventReader {
+
+    private final InputStream in;
+    private final XMLStreamReader reader;
+
+    /**
+     * @param fileName gzipped if it ends with .gz
+     */
+    public EventXMLReader(String fileName) throws IOException {
+        this.in = EventConverter.openInput(fileName);
+        try {
+            this.reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            in.close();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public Event read() throws IOException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("event")) {
+                    return readEvent();
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Event readEvent() throws XMLStreamException {
+        Event event = new Event(reader.getAttributeValue(null, "uri"));
+        while (reader.hasNext()) {
+            int next = reader.next();
+            if (next == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "label":
+                        event.addLabel(reader.getElementText());
+                        break;
+                    case "date":
+                        event.addDate(reader.getElementText());
+                        break;
+                    case "coordinates":
+                        event.addCoordinatePair(reader.getElementText());
+                        break;
+                    case "same":
+                        event.addSame(reader.getElementText());
+                        break;
+                    case "location":
+                        event.addLocation(readLocation());
+                        break;
+                }
+            } else if (next == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("event")) {
+                break;
+            }
+        }
+        return event;
+    }
+
+    private Location readLocation() throws XMLStreamException {
+        Location location = new Location(reader.getAttributeValue(null, "uri"));
+        while (reader.hasNext()) {
+            int next = reader.next();
+            if (next == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "label":
+                        location.addLabel(reader.getElementText());
+                        break;
+                    case "coordinates":
+                        location.addCoordinatePair(reader.getElementText());
+                        break;
+                    case "same":
+                        location.addSame(reader.getElementText());
+                        break;
+                }
+            } else if (next == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("location")) {
+                break;
+            }
+        }
+        return location;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            in.close();
+        }
+    }
+}
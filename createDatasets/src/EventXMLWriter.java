@@ -0,0 +1,104 @@
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Writes events to an XML file one at a time (StAX), in the same format as the DOM based writer before:
+ * events/event(uri) with label, date, coordinates, same and locations/location(uri).
+ * Only locations with a label are written.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public class EventXMLWriter implements EventWriter {
+
+    private final OutputStream out;
+    private final XMLStreamWriter writer;
+
+    /**
+     * @param fileName gzipped if it ends with .gz
+     */
+    public EventXMLWriter(String fileName) throws IOException {
+        this.out = EventConverter.openOutput(fileName);
+        try {
+            this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("events");
+        } catch (XMLStreamException e) {
+            out.close();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void write(Event event) throws IOException {
+        try {
+            indent(1);
+            writer.writeStartElement("event");
+            writer.writeAttribute("uri", event.getUri());
+            writeElements(2, "label", event.getLabels());
+            writeElements(2, "date", event.getDates());
+            writeElements(2, "coordinates", event.getCoordinatePairs());
+            writeElements(2, "same", event.getSames());
+
+            indent(2);
+            if (event.getLocations().stream().anyMatch(Location::hasLabel)) {
+                writer.writeStartElement("locations");
+                for (Location location : event.getLocations()) {
+                    if (location.hasLabel()) {
+                        indent(3);
+                        writer.writeStartElement("location");
+                        writer.writeAttribute("uri", location.getUri());
+                        writeElements(4, "label", location.getLabels());
+                        writeElements(4, "coordinates", location.getCoordinatePairs());
+                        writeElements(4, "same", location.getSames());
+                        indent(3);
+                        writer.writeEndElement();
+                    }
+                }
+                indent(2);
+                writer.writeEndElement();
+            } else {
+                writer.writeEmptyElement("locations");
+            }
+            indent(1);
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void writeElements(int depth, String elementName, Set<String> values) throws XMLStreamException {
+        for (String value : values) {
+            indent(depth);
+            writer.writeStartElement(elementName);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+
+    private void indent(int depth) throws XMLStreamException {
+        writer.writeCharacters("\n");
+        for (int i = 0; i < depth; i++) {
+            writer.writeCharacters("  ");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import org.apache.jena.query.Dataset;
+import org.apache.jena.tdb.TDB;
+import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.tdb.TDBLoader;
+import org.apache.jena.tdb.base.file.Location;
+import org.apache.jena.tdb.sys.TDBInternal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Local TDB store of a knowledge graph dump, to extract the events without the SPARQL endpoint.
+ * The dump files (e.g. N-Triples of DBpedia or YAGO) are bulk loaded once into the TDB directory,
+ * later runs open the existing store. A marker file is written after a complete load, a store without it
+ * (e.g. after a crash while loading) is deleted and loaded again.
+ *
+ * Created by Daniel on 18/10/26.
+ */
+public class LocalTDB {
+
+    private static final String LOADED_MARKER = "loaded";
+
+    /**
+     * Open the TDB store in the directory, load the dump files first if the store was not loaded completely
+     * @param directory of the TDB store
+     * @param dumpFiles RDF files to load (N-Triples, Turtle, ... also gzipped)
+     * @return Dataset
+     */
+    public static Dataset getDataset(String directory, List<String> dumpFiles) {
+        Location location = Location.create(directory);
+        File marker = new File(directory, LOADED_MARKER);
+        boolean load = !marker.exists();
+        if (load) {
+            //check before the (empty) store is created
+            for (String dumpFile : dumpFiles) {
+                if (!new File(dumpFile).exists()) {
+                    throw new IllegalArgumentException(dumpFile + " does not exist");
+                }
+            }
+            if (!TDBInternal.isNewDatabaseArea(location)) {
+                System.out.println("the TDB store in " + directory + " was not loaded completely, loading it again");
+                deleteStore(new File(directory));
+            }
+        }
+        Dataset dataset = TDBFactory.createDataset(location);
+        if (load) {
+            System.out.println("loading " + dumpFiles + " into " + directory);
+            long start = System.currentTimeMillis();
+            //bulk loader, only possible before the store is used in transactions
+            TDBLoader.load(TDBInternal.getBaseDatasetGraphTDB(dataset.asDatasetGraph()), dumpFiles, true, true);
+            TDB.sync(dataset);
+            try {
+                marker.createNewFile();
+            } catch (IOException e) {
+                System.out.println("could not write " + marker + ", the store will be loaded again in the next run");
+                e.printStackTrace();
+            }
+            System.out.println("loaded in " + (System.currentTimeMillis() - start) / 1000 + " seconds.");
+        } else {
+            System.out.println("using the TDB store in " + directory);
+        }
+        return dataset;
+    }
+
+    /**
+     * Delete the files of the TDB store (the directory itself is kept)
+     * @param directory
+     */
+    private static void deleteStore(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isFile() && !file.delete()) {
+                throw new IllegalStateException("could not delete " + file);
+            }
+        }
+    }
+}
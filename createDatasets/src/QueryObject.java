@@ -2,6 +2,7 @@ import org.apache.jena.query.*;
 import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -9,7 +10,18 @@ import java.util.concurrent.TimeUnit;
  */
 public class QueryObject {
 
+    //first wait after an error, doubled after every further error (up to the maximum)
+    private static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF = TimeUnit.SECONDS.toNanos(60);
+
     private String service;
+    private Dataset dataset;
+    private long timeout = -1;
+
+    //rate limit and backoff of the endpoint, shared by all threads using this object
+    private long minQueryInterval = 0;
+    private long nextQueryTime = System.nanoTime();
+    private long backoff = 0;
 
     public String getService() {
         return this.service;
@@ -23,41 +35,154 @@ public class QueryObject {
         this.service = service;
     }
 
+    /**
+     * QueryObject for a local dataset (e.g. an in-memory model instead of the SPARQL endpoint)
+     * @param dataset
+     */
+    public QueryObject(Dataset dataset) {
+        this.service = "local dataset";
+        this.dataset = dataset;
+    }
+
+    /**
+     * @return true if the queries run against a local dataset
+     */
+    public boolean isLocal() {
+        return this.dataset != null;
+    }
+
+    /**
+     * Maximum number of queries per second sent to the endpoint (by all threads)
+     * @param maxQueriesPerSecond
+     */
+    public void setMaxQueriesPerSecond(double maxQueriesPerSecond) {
+        this.minQueryInterval = (long) (TimeUnit.SECONDS.toNanos(1) / maxQueriesPerSecond);
+    }
 
     /**
-     * Query the SPARQL endpoint
+     * @param timeout of a query in milliseconds, -1 for no timeout
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Query the SPARQL endpoint. Retries the query until the endpoint answers (see {@link #queryEndpoint(String, int)}).
      * @param queryString  query to send to the endpoint
-     * @return ResultSet
+     * @return ResultSet (null if the query can not be parsed)
      */
-    public ResultSet queryEndpoint(String queryString) {
+    public ResultSetRewindable queryEndpoint(String queryString) {
+        return queryEndpoint(queryString, -1);
+    }
+
+    /**
+     * Query the SPARQL endpoint. Retries the query if the endpoint returns an error or the query times out,
+     * waiting longer after each error. Other errors are thrown, as well as the cancellation if the thread is
+     * interrupted.
+     * @param queryString  query to send to the endpoint
+     * @param maxRetries maximum number of retries, -1 to retry until the endpoint answers
+     * @return ResultSet (null if the query can not be parsed or still fails after maxRetries)
+     */
+    public ResultSetRewindable queryEndpoint(String queryString, int maxRetries) {
+        int retries = 0;
         while (true) {
             try {
-                Query query = QueryFactory.create(queryString);
-                QueryExecution qe = QueryExecutionFactory.sparqlService(this.service, query);
+                return execute(queryString);
+            } catch (QueryParseException e) {
+                System.out.println("Exception for : " + queryString);
+                return null;
+            } catch (QueryExceptionHTTP | QueryCancelledException e) {
+                //cancelled: the query timed out or the thread was interrupted
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                if (maxRetries >= 0 && retries++ >= maxRetries) {
+                    System.out.println("query failed " + retries + " times, giving up. " + LocalDateTime.now());
+                    System.out.println(queryString);
+                    return null;
+                }
+                System.out.println("error while executing query. waiting for " + TimeUnit.NANOSECONDS.toSeconds(backoff) +
+                        " seconds. " + LocalDateTime.now());
+                System.out.println(queryString);
+            }
+        }
+    }
 
+    /**
+     * Execute the query once, after waiting for the rate limit and the backoff of earlier errors.
+     * Can be called by several threads at the same time.
+     * @param queryString query to send to the endpoint
+     * @return ResultSet (a copy, so the execution is already closed)
+     * @throws QueryException if the query can not be parsed, times out or the endpoint returns an error
+     */
+    public ResultSetRewindable execute(String queryString) {
+        Query query = QueryFactory.create(queryString);
+        waitForSlot();
+        try (QueryExecution qe = createExecution(query)) {
+            if (timeout > 0) {
+                qe.setTimeout(timeout);
+            }
+            ResultSetRewindable results;
+            if (dataset != null && dataset.supportsTransactions()) {
+                dataset.begin(ReadWrite.READ);
                 try {
-                    ResultSet results = qe.execSelect();
-                    ResultSet resultsCopy = ResultSetFactory.copyResults(results);
-                    qe.close();
-                    if (resultsCopy != null)
-                        return resultsCopy;
-                } catch (QueryExceptionHTTP http) {
-                    try {
-                        System.out.println("error while executing query. waiting for 60 seconds. " + LocalDateTime.now());
-                        System.out.println(queryString);
-                        TimeUnit.SECONDS.sleep(60);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    qe.close();
+                    results = ResultSetFactory.copyResults(qe.execSelect());
+                } finally {
+                    dataset.end();
                 }
+            } else {
+                results = ResultSetFactory.copyResults(qe.execSelect());
+            }
+            succeeded();
+            return results;
+        } catch (QueryException e) {
+            failed();
+            throw e;
+        }
+    }
 
-            } catch (QueryParseException e) {
-                System.out.println("Exception for : " + queryString);
-                return null;
+    private QueryExecution createExecution(Query query) {
+        if (dataset != null) {
+            return QueryExecutionFactory.create(query, dataset);
+        }
+        return QueryExecutionFactory.sparqlService(this.service, query);
+    }
+
+    /**
+     * Wait until the next query may be sent
+     */
+    private void waitForSlot() {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextQueryTime);
+            nextQueryTime = start + minQueryInterval;
+            wait = start - now;
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QueryCancelledException();
             }
         }
     }
+
+    private synchronized void succeeded() {
+        backoff = 0;
+    }
+
+    /**
+     * Exponential backoff: no query is sent to the endpoint before the backoff is over
+     */
+    private synchronized void failed() {
+        backoff = backoff == 0 ? INITIAL_BACKOFF : Math.min(backoff * 2, MAX_BACKOFF);
+        //some jitter, so that waiting threads do not retry at the same time
+        long jitter = ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+        nextQueryTime = Math.max(nextQueryTime, System.nanoTime() + backoff + jitter);
+    }
+
     /**
      * Test the service connection
      * @return boolean (true if service is up)
@@ -66,7 +191,8 @@ public class QueryObject {
         boolean isUp = false;
         String queryTest = "ASK {}";
 
-        QueryExecution qeTest = QueryExecutionFactory.sparqlService(this.service, queryTest);
+        QueryExecution qeTest = dataset != null ? QueryExecutionFactory.create(queryTest, dataset)
+                : QueryExecutionFactory.sparqlService(this.service, queryTest);
 
         try {
             if(qeTest.execAsk()) {
@@ -35,7 +35,25 @@ public class createDatasetsMain {
         //header = "uri\tlabel\tdate\tlat\tlong\tsame\tlocation\tlocationLat\tlocationLong\tlocationsame";//\tlocation\tcity\tterritory";
 
         boolean returnMap = true;
+
+        //local: extract the events from TDB stores of the dumps instead of the SPARQL endpoints
+        //(the dumps are loaded into the TDB directory in the first run)
+        boolean local = false;
+        List<String> dbpediaDumps = Arrays.asList(
+                "dumps/dbpedia/labels_en.ttl",
+                "dumps/dbpedia/mappingbased_literals_en.ttl", //dbo:date
+                "dumps/dbpedia/mappingbased_objects_en.ttl", //dbo:place
+                "dumps/dbpedia/geo_coordinates_en.ttl",
+                "dumps/dbpedia/interlanguage_links_en.ttl", //owl:sameAs (other DBpedia languages)
+                "dumps/dbpedia/yago_links.ttl"); //owl:sameAs (YAGO, from links/yago_links)
+        List<String> yagoDumps = Arrays.asList(
+                "dumps/yago/yagoLabels.ttl",
+                "dumps/yago/yagoDateFacts.ttl", //yago:happenedOnDate
+                "dumps/yago/yagoFacts.ttl", //yago:isLocatedIn
+                "dumps/yago/yagoLiteralFacts.ttl", //yago:hasLatitude, yago:hasLongitude
+                "dumps/yago/yagoDBpediaInstances.ttl"); //owl:sameAs
         boolean filterDirectSameAsLinksOnly = true;
+        boolean gzip = false; //gzip the converted files
 
         if (dbpedia) {
             k=0;
@@ -52,7 +70,14 @@ public class createDatasetsMain {
 
         */
 
-            QueryObject dQ = new QueryObject("http://dbpedia.org/sparql");
+            QueryObject dQ;
+            if (local) {
+                dQ = new QueryObject(LocalTDB.getDataset("tdb/dbpedia", dbpediaDumps));
+            } else {
+                dQ = new QueryObject("http://dbpedia.org/sparql");
+                dQ.setMaxQueriesPerSecond(10);
+                dQ.setTimeout(120000);
+            }
 
             if (dQ.testConnection()) {
                 //specify fileNames and csv header
@@ -101,13 +126,17 @@ public class createDatasetsMain {
 
             //Map<String, Event> yEvents = getEventInstancePropertiesFromXML(k, fileName, yagoVarNames, testing);
 
-            Map<String, Event> yEvents = getEventInstancePropertiesFromXMLAndWriteNT(k, fileName, returnMap, filterDirectSameAsLinksOnly);
+            //stream the events from the XML file to N-Triples (and XML), one event at a time
+            convertXML(k, fileName, returnMap, filterDirectSameAsLinksOnly, gzip);
 
-            if (returnMap) {
-                writeXML(yEvents, fileName + "_directLinks");
+            QueryObject yQ;
+            if (local) {
+                yQ = new QueryObject(LocalTDB.getDataset("tdb/yago", yagoDumps));
+            } else {
+                yQ = new QueryObject("https://linkeddata1.calcul.u-psud.fr/sparql");
+                yQ.setMaxQueriesPerSecond(5);
+                yQ.setTimeout(120000);
             }
-
-            QueryObject yQ = new QueryObject("https://linkeddata1.calcul.u-psud.fr/sparql");
             if (yQ.testConnection()) {
                 //specify fileNames and csv header
                 //header = "uri\tlabel\tdate\tlat\tlong\tsame\tplace";
@@ -165,6 +194,23 @@ public class createDatasetsMain {
 
     }
 
+    private static void convertXML(int k, String fileName, boolean writeXML, boolean filterDirectSameAsLinksOnly, boolean gzip) {
+        String suffix = gzip ? ".gz" : "";
+        List<String> outputFileNames = new ArrayList<>();
+        outputFileNames.add(fileName + "_directLinks.nt" + suffix);
+        if (writeXML) {
+            outputFileNames.add(fileName + "_directLinks.xml" + suffix);
+        }
+        try {
+            EventConverter.convert(k, fileName + ".xml",
+                    filterDirectSameAsLinksOnly ? EventConverter.directSameAsLinksOnly(k) : null,
+                    outputFileNames.toArray(new String[outputFileNames.size()]));
+        } catch (IOException e) {
+            System.out.println("error while converting " + fileName + ".xml");
+            e.printStackTrace();
+        }
+    }
+
     private static void writeNT(int k, Map<String, Event> eventMap, String fileName) {
         fileName = fileName + ".nt";
         EventNTFormatter ntFormatter = new EventNTFormatter(k, fileName);
@@ -235,115 +281,31 @@ public class createDatasetsMain {
                                                           KGVariableNames varNames,
                                                          HashSet<String> eventInstances,
                                                                  boolean testing) {
-        float loadFactor = 0.9f;
-        //init set capacity: distinct URIS / loadFactor (little bit more)
-        int eventSetCapacity = 63035; //dbpedia: 56729 distinct events
-        int placeURICapacity = 10755; //dbpedia: 9677 distinct places
-
-        if (k==1) {
-            eventSetCapacity = 463640; //yago: 417272 distinct events
-            placeURICapacity = 11850; //yago: 10657 distinct places
+        if (!testing) {
+            // get properties of the events and their locations in batches of URIs
+            EventExtractor extractor = new EventExtractor(k, queryObject, varNames);
+            if (queryObject.isLocal()) {
+                //no result limit, each thread queries its own partition of the URIs
+                extractor.setThreads(Runtime.getRuntime().availableProcessors());
+                extractor.setMaxResultRows(Integer.MAX_VALUE);
+                extractor.setPartitioned(true);
+            } else {
+                extractor.setThreads(4);
+            }
+            return extractor.getEvents(eventInstances);
         }
 
-        //set of all events
-        Map<String, Event> eventMap = new HashMap<>(eventSetCapacity, loadFactor);
-
-        //set of all distinct locationURIs
-        HashSet<String> locationURIs = new HashSet<>(placeURICapacity, loadFactor);
-
-        //k: placeURI, v: Set of eventURIs
-        HashMap<String, Set<String>> locationWithEventsMap= new HashMap<>(placeURICapacity, loadFactor);
-
         int counter = 0;
-        // get properties for each event and add event to eventSet
         for (String eventURI : eventInstances) {
-            if (!testing) {
-                //create new event object
-                Event event = new Event(eventURI);
-                //get event properties
-                ResultSet results = getEventInstancePropertiesResultSet(k, queryObject, varNames, eventURI);
-                if (results != null) {
-                    while (results.hasNext()) {
-                        QuerySolution qs = results.next();
-                        //english label always present
-                        event.addLabel(qs.get("label").toString());
-                        //others are optional
-                        if (qs.contains("date"))
-                            event.addDate(qs.get("date").toString());
-                        if (qs.contains("lat") && qs.contains(("long")))
-                            event.addCoordinatePair(qs.get("lat").toString() + "," + qs.get("long").toString());
-                        if (qs.contains("same"))
-                            event.addSame(qs.get("same").toString());
-                        if (qs.contains("location")) {
-                            String locationString = qs.get("location").toString();
-                            locationURIs.add(locationString);
-                            if (locationWithEventsMap.containsKey(locationString)) {
-                                locationWithEventsMap.get(locationString).add(eventURI);
-                            } else {
-                                //create new k,v pair
-                                HashSet<String> locationEvents = new HashSet<>();
-                                locationEvents.add(eventURI);
-                                locationWithEventsMap.put(locationString, locationEvents);
-                            }
-                        }
-                    }
-                    eventMap.put(eventURI, event);
-
-
-                } else {
-                    System.out.println("results==null for " + eventURI);
-                }
-            } else {
-                //testing
-                ResultSet results = testURI(k, queryObject, eventURI);
-                if (results == null) {
-                    System.out.println(eventURI + " returns no results");
-                }
+            //testing
+            ResultSet results = testURI(k, queryObject, eventURI);
+            if (results == null) {
+                System.out.println(eventURI + " returns no results");
             }
             counter++;
             printProgress(counter, eventInstances);
         }
-        //done adding all direct properties to the events
-        System.out.println(eventMap.size() + " events added to eventMap");
-
-
-        // for each location
-        counter = 0;
-        for (String locationURI : locationURIs) {
-            if (!testing) {
-                Location location = new Location(locationURI);
-                //get location properties
-                ResultSet results = getLocationInstancePropertiesResultSet(k, queryObject, varNames, locationURI);
-                //process all results
-                if (results != null) {
-                    while (results.hasNext()) {
-                        QuerySolution qs = results.next();
-                        //english label always present
-                        location.addLabel(qs.get("label").toString());
-                        //add optional properties
-                        if (qs.contains("lat") && qs.contains(("long")))
-                            location.addCoordinatePair(qs.get("lat").toString() + "," + qs.get("long").toString());
-                        if (qs.contains("same"))
-                            location.addSame(qs.get("same").toString());
-                    }
-                }
-
-                //add location to all events with this location
-                for (String eventURI : locationWithEventsMap.get(locationURI)) {
-                    eventMap.get(eventURI).addLocation(location);
-                }
-            } else {
-                //testing
-                ResultSet results = testURI(k, queryObject, locationURI);
-                if (results == null) {
-                    System.out.println(locationURI + " returns no results");
-                }
-            }
-            counter++;
-            printProgress(counter, locationURIs);
-        }
-        System.out.println(locationURIs.size() + " locations processed.");
-        return eventMap;
+        return new HashMap<>();
 
     }
 
@@ -737,7 +699,7 @@ public class createDatasetsMain {
      * @param k 0:DBpedia, 1:YAGO, 2:Wikidata
      * @return String of the query prefix
      */
-    private static String getQueryPrefix(int k) {
+    static String getQueryPrefix(int k) {
         String p = "";
         if (k==0) {
             p =     "PREFIX owl: <http://www.w3.org/2002/07/owl#>\n" +
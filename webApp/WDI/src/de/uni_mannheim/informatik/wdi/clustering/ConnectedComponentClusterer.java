@@ -17,21 +17,29 @@
  */
 package de.uni_mannheim.informatik.wdi.clustering;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import de.uni_mannheim.informatik.wdi.model.Triple;
 
 /**
+ * Finds the connected components of a similarity graph. The nodes are numbered
+ * and merged in a {@link DisjointSet}, the clusters are created once in
+ * {@link #createResult()}.
+ * 
  * @author Oliver Lehmberg (oli@dwslab.de)
  *
  */
 public class ConnectedComponentClusterer<T> extends GraphBasedClusteringAlgorithm<T> {
 
-	HashMap<T, Set<T>> clusterAssignment = new HashMap<>();
+	private HashMap<T, Integer> nodeIds = new HashMap<>();
+	private List<T> nodes = new ArrayList<>();
+	private DisjointSet components = new DisjointSet();
 	
 	/* (non-Javadoc)
 	 * @see de.uni_mannheim.informatik.wdi.clustering.GraphBasedClusteringAlgorithm#cluster(java.util.Collection)
@@ -40,7 +48,9 @@ public class ConnectedComponentClusterer<T> extends GraphBasedClusteringAlgorith
 	public Map<Collection<T>, T> cluster(
 			Collection<Triple<T, T, Double>> similarityGraph) {
 		
-		clusterAssignment = new HashMap<>();
+		nodeIds = new HashMap<>();
+		nodes = new ArrayList<>();
+		components = new DisjointSet(similarityGraph.size());
 		
 		// iterate over all edges
 		for(Triple<T, T, Double> edge : similarityGraph) {
@@ -52,53 +62,37 @@ public class ConnectedComponentClusterer<T> extends GraphBasedClusteringAlgorith
 		return createResult();
 	}
 
-	public void addEdge(Triple<T, T, Double> edge) {
-		// get the clusters to which the nodes belong
-		Set<T> first = clusterAssignment.get(edge.getFirst());
-		Set<T> second = clusterAssignment.get(edge.getSecond());
-		
-		if(first==null && second==null) {
-			// none of the nodes belongs to an existing cluster, create a new cluster
-			Set<T> clu = new HashSet<>();
-			clu.add(edge.getFirst());
-			clu.add(edge.getSecond());
-			
-			clusterAssignment.put(edge.getFirst(), clu);
-			clusterAssignment.put(edge.getSecond(), clu);
-		} else if(first!=null && second==null) {
-			// first node already belongs to a cluster, add second node
-			first.add(edge.getSecond());
-			
-			clusterAssignment.put(edge.getSecond(), first);
-		} else if(first==null && second!=null) {
-			// second node already belongs to a cluster, add first node
-			second.add(edge.getFirst());
-			
-			clusterAssignment.put(edge.getFirst(), second);
-		} else {
-			// both nodes belong to a cluster
-			if(!first.equals(second)) {
-				// if those are two different clusters, merge them
-				for(T node : second) {
-					clusterAssignment.put(node, first);
-				}
-				first.addAll(second);
-			}
+	private int getNodeId(T node) {
+		Integer id = nodeIds.get(node);
+		if(id==null) {
+			id = components.add();
+			nodeIds.put(node, id);
+			nodes.add(node);
 		}
+		return id;
+	}
+
+	public void addEdge(Triple<T, T, Double> edge) {
+		// merge the clusters to which the nodes belong (a node without a cluster is a cluster of its own)
+		components.union(getNodeId(edge.getFirst()), getNodeId(edge.getSecond()));
 	}
 	
 	public boolean isEdgeAlreadyInCluster(T firstNode, T secondNode) {
 		// get the clusters to which the nodes belong
-		Set<T> first = clusterAssignment.get(firstNode);
-		Set<T> second = clusterAssignment.get(secondNode);
+		Integer first = nodeIds.get(firstNode);
+		Integer second = nodeIds.get(secondNode);
 		
-		return first!=null && second!=null && first.equals(second);
+		return first!=null && second!=null && components.isConnected(first, second);
 	}
 	
 	public Map<Collection<T>, T> createResult() {
 		// format result
 		Map<Collection<T>, T> result = new HashMap<>();
-		for(Collection<T> cluster : clusterAssignment.values()) {
+		for(int[] component : components.getSets()) {
+			Set<T> cluster = new HashSet<>();
+			for(int id : component) {
+				cluster.add(nodes.get(id));
+			}
 			result.put(cluster, null);
 		}
 		return result;
@@ -0,0 +1,147 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.clustering;
+
+import java.util.Arrays;
+
+/**
+ * Union-find structure over the elements 0, 1, 2, ... (with path compression
+ * and union by rank), used to compute connected components. Merging two sets
+ * takes almost constant time, independent of the size of the sets.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class DisjointSet {
+
+	private int[] parent;
+	private byte[] rank;
+	private int size;
+	private int numberOfSets;
+
+	public DisjointSet() {
+		this(16);
+	}
+
+	/**
+	 * @param capacity
+	 *            the expected number of elements
+	 */
+	public DisjointSet(int capacity) {
+		parent = new int[Math.max(capacity, 1)];
+		rank = new byte[parent.length];
+	}
+
+	/**
+	 * Adds a new element in its own set
+	 *
+	 * @return the new element
+	 */
+	public int add() {
+		if (size == parent.length) {
+			parent = Arrays.copyOf(parent, size * 2);
+			rank = Arrays.copyOf(rank, size * 2);
+		}
+		parent[size] = size;
+		numberOfSets++;
+		return size++;
+	}
+
+	/**
+	 * @return the representative of the set that contains the element
+	 */
+	public int find(int element) {
+		int x = element;
+		while (parent[x] != x) {
+			// path halving: point every other node on the path to its grandparent
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Merges the sets of both elements
+	 *
+	 * @return false if the elements were already in the same set
+	 */
+	public boolean union(int first, int second) {
+		int r1 = find(first);
+		int r2 = find(second);
+		if (r1 == r2) {
+			return false;
+		}
+		if (rank[r1] < rank[r2]) {
+			parent[r1] = r2;
+		} else if (rank[r1] > rank[r2]) {
+			parent[r2] = r1;
+		} else {
+			parent[r2] = r1;
+			rank[r1]++;
+		}
+		numberOfSets--;
+		return true;
+	}
+
+	public boolean isConnected(int first, int second) {
+		return find(first) == find(second);
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getNumberOfSets() {
+		return numberOfSets;
+	}
+
+	/**
+	 * @return the elements of all sets, ordered by their smallest element (the
+	 *         elements of every set are sorted)
+	 */
+	public int[][] getSets() {
+		// number the sets in the order of their smallest element
+		int[] setOfRoot = new int[size];
+		Arrays.fill(setOfRoot, -1);
+		int[] setOfElement = new int[size];
+		int[] setSizes = new int[numberOfSets];
+		int numbered = 0;
+		for (int x = 0; x < size; x++) {
+			int root = find(x);
+			if (setOfRoot[root] == -1) {
+				setOfRoot[root] = numbered++;
+			}
+			setOfElement[x] = setOfRoot[root];
+			setSizes[setOfElement[x]]++;
+		}
+
+		int[][] sets = new int[numberOfSets][];
+		for (int s = 0; s < numberOfSets; s++) {
+			sets[s] = new int[setSizes[s]];
+			setSizes[s] = 0;
+		}
+		for (int x = 0; x < size; x++) {
+			int s = setOfElement[x];
+			sets[s][setSizes[s]++] = x;
+		}
+		return sets;
+	}
+}
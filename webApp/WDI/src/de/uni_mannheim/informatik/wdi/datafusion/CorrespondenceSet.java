@@ -21,19 +21,25 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
+import de.uni_mannheim.informatik.wdi.clustering.DisjointSet;
 import de.uni_mannheim.informatik.wdi.model.*;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 
 /**
  * Represents a set of correspondences (from the identity resolution)
  * 
+ * The records are numbered and the transitive closure of the correspondences
+ * is computed with a {@link DisjointSet}, the record groups are created when
+ * they are requested.
+ * 
  * @author Oliver Lehmberg (oli@dwslab.de)
  * @author Robert Meusel (robert@dwslab.de)
  * 
@@ -41,14 +47,23 @@ import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
  */
 public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElementType>, SchemaElementType> {
 
+	// null if the groups must be created again
 	private Collection<RecordGroup<RecordType, SchemaElementType>> groups;
-	private Map<String, RecordGroup<RecordType, SchemaElementType>> recordIndex;
+
+	// record id -> number of the record, and per number: the record id and its data set
+	// (null if the id is only used to group records)
+	private Map<String, Integer> recordIndex;
+	private List<String> recordIds;
+	private List<FusableDataSet<RecordType, SchemaElementType>> recordDataSets;
+	private DisjointSet recordGroups;
 
 	private RecordGroupFactory<RecordType, SchemaElementType> groupFactory;
 	
 	public CorrespondenceSet() {
-		groups = new LinkedList<>();
 		recordIndex = new HashMap<>();
+		recordIds = new ArrayList<>();
+		recordDataSets = new ArrayList<>();
+		recordGroups = new DisjointSet();
 		groupFactory = new RecordGroupFactory<>();
 	}
 	
@@ -58,6 +73,29 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 	public void setGroupFactory(
 			RecordGroupFactory<RecordType, SchemaElementType> groupFactory) {
 		this.groupFactory = groupFactory;
+		groups = null;
+	}
+
+	private int getRecordNumber(String id, FusableDataSet<RecordType, SchemaElementType> dataset) {
+		Integer number = recordIndex.get(id);
+		if (number == null) {
+			number = recordGroups.add();
+			recordIndex.put(id, number);
+			recordIds.add(id);
+			recordDataSets.add(dataset);
+		} else if (dataset != null) {
+			recordDataSets.set(number, dataset);
+		}
+		return number;
+	}
+
+	/**
+	 * Puts both records in the same group
+	 */
+	private void addCorrespondence(String id1, FusableDataSet<RecordType, SchemaElementType> dataset1, String id2,
+			FusableDataSet<RecordType, SchemaElementType> dataset2) {
+		recordGroups.union(getRecordNumber(id1, dataset1), getRecordNumber(id2, dataset2));
+		groups = null;
 	}
 
 	/**
@@ -89,34 +127,7 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 				continue;
 			}
 
-			// check if the ids already belong to any groups
-			RecordGroup<RecordType, SchemaElementType> grp1 = recordIndex.get(values[0]);
-			RecordGroup<RecordType, SchemaElementType> grp2 = recordIndex.get(values[1]);
-
-			if (grp1 == null && grp2 == null) {
-				// no existing groups, create a new one
-				RecordGroup<RecordType, SchemaElementType> grp = groupFactory.createRecordGroup();
-				grp.addRecord(values[0], first);
-				grp.addRecord(values[1], second);
-				recordIndex.put(values[0], grp);
-				recordIndex.put(values[1], grp);
-				groups.add(grp);
-			} else if (grp1 != null && grp2 == null) {
-				// one existing group, add to this group
-				grp1.addRecord(values[1], second);
-				recordIndex.put(values[1], grp1);
-			} else if (grp1 == null && grp2 != null) {
-				// one existing group, add to this group
-				grp2.addRecord(values[0], first);
-				recordIndex.put(values[0], grp2);
-			} else {
-				// two existing groups, merge
-				grp1.mergeWith(grp2);
-
-				for (String id : grp2.getRecordIds()) {
-					recordIndex.put(id, grp1);
-				}
-			}
+			addCorrespondence(values[0], first, values[1], second);
 		}
 
 		reader.close();
@@ -152,37 +163,8 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 //				continue;
 //			}
 
-			// check if the ids already belong to any groups
-//			RecordGroup<RecordType, SchemaElementType> grp1 = recordIndex.get(values[0]);
-			
 			// we only have the records from the source datasets, so we group by the id in the target dataset
-			RecordGroup<RecordType, SchemaElementType> grp2 = recordIndex.get(values[1]);
-
-			if (grp2 == null) {
-				// no existing groups, create a new one
-				RecordGroup<RecordType, SchemaElementType> grp = groupFactory.createRecordGroup();
-				grp.addRecord(values[0], first);
-//				grp.addRecord(values[1], second);
-//				recordIndex.put(values[0], grp);
-				recordIndex.put(values[1], grp);
-				groups.add(grp);
-//			} else if (grp1 != null && grp2 == null) {
-//				// one existing group, add to this group
-//				grp1.addRecord(values[1], second);
-//				recordIndex.put(values[1], grp1);
-			} else {
-				// one existing group, add to this group
-				grp2.addRecord(values[0], first);
-				recordIndex.put(values[0], grp2);
-			}
-//			} else {
-//				// two existing groups, merge
-//				grp1.mergeWith(grp2);
-//
-//				for (String id : grp2.getRecordIds()) {
-//					recordIndex.put(id, grp1);
-//				}
-//			}
+			addCorrespondence(values[0], first, values[1], null);
 		}
 
 		reader.close();
@@ -213,34 +195,8 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 				continue;
 			}
 
-			// check if the ids already belong to any groups
-			RecordGroup<RecordType, SchemaElementType> grp1 = recordIndex.get(correspondence.getFirstRecord().getIdentifier());
-			RecordGroup<RecordType, SchemaElementType> grp2 = recordIndex.get(correspondence.getSecondRecord().getIdentifier());
-
-			if (grp1 == null && grp2 == null) {
-				// no existing groups, create a new one
-				RecordGroup<RecordType, SchemaElementType> grp = groupFactory.createRecordGroup();
-				grp.addRecord(correspondence.getFirstRecord().getIdentifier(), first);
-				grp.addRecord(correspondence.getSecondRecord().getIdentifier(), second);
-				recordIndex.put(correspondence.getFirstRecord().getIdentifier(), grp);
-				recordIndex.put(correspondence.getSecondRecord().getIdentifier(), grp);
-				groups.add(grp);
-			} else if (grp1 != null && grp2 == null) {
-				// one existing group, add to this group
-				grp1.addRecord(correspondence.getSecondRecord().getIdentifier(), second);
-				recordIndex.put(correspondence.getSecondRecord().getIdentifier(), grp1);
-			} else if (grp1 == null && grp2 != null) {
-				// one existing group, add to this group
-				grp2.addRecord(correspondence.getFirstRecord().getIdentifier(), first);
-				recordIndex.put(correspondence.getFirstRecord().getIdentifier(), grp2);
-			} else {
-				// two existing groups, merge
-				grp1.mergeWith(grp2);
-
-				for (String id : grp2.getRecordIds()) {
-					recordIndex.put(id, grp1);
-				}
-			}
+			addCorrespondence(correspondence.getFirstRecord().getIdentifier(), first,
+					correspondence.getSecondRecord().getIdentifier(), second);
 		}
 
 	}
@@ -252,6 +208,20 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 	 * @return
 	 */
 	public Collection<RecordGroup<RecordType, SchemaElementType>> getRecordGroups() {
+		if (groups == null) {
+			groups = new ArrayList<>(recordGroups.getNumberOfSets());
+			for (int[] members : recordGroups.getSets()) {
+				RecordGroup<RecordType, SchemaElementType> grp = groupFactory.createRecordGroup();
+				for (int number : members) {
+					if (recordDataSets.get(number) != null) {
+						grp.addRecord(recordIds.get(number), recordDataSets.get(number));
+					}
+				}
+				if (grp.getSize() > 0) {
+					groups.add(grp);
+				}
+			}
+		}
 		return groups;
 	}
 
@@ -265,7 +235,7 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 	public void writeGroupSizeDistribution(File outputFile) throws IOException {
 		Map<Integer, Integer> sizeDist = new HashMap<>();
 
-		for (RecordGroup<RecordType, SchemaElementType> grp : groups) {
+		for (RecordGroup<RecordType, SchemaElementType> grp : getRecordGroups()) {
 			int size = grp.getSize();
 
 			Integer count = sizeDist.get(size);
@@ -297,7 +267,7 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 	public void printGroupSizeDistribution() throws IOException {
 		Map<Integer, Integer> sizeDist = new HashMap<>();
 
-		for (RecordGroup<RecordType, SchemaElementType> grp : groups) {
+		for (RecordGroup<RecordType, SchemaElementType> grp : getRecordGroups()) {
 			int size = grp.getSize();
 
 			Integer count = sizeDist.get(size);
@@ -308,7 +278,7 @@ public class CorrespondenceSet<RecordType extends Matchable & Fusable<SchemaElem
 
 			sizeDist.put(size, ++count);
 		}
-		System.out.println("Group Size Distribtion of " + groups.size() + " groups:");
+		System.out.println("Group Size Distribtion of " + getRecordGroups().size() + " groups:");
 		System.out.println("	Group Size | Frequency ");
 		System.out.println("	———————————————————————");
 
@@ -17,13 +17,19 @@
  */
 package de.uni_mannheim.informatik.wdi.datafusion;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import de.uni_mannheim.informatik.wdi.model.Correspondence;
 import de.uni_mannheim.informatik.wdi.model.Fusable;
 import de.uni_mannheim.informatik.wdi.model.FusableDataSet;
 import de.uni_mannheim.informatik.wdi.model.Matchable;
+import de.uni_mannheim.informatik.wdi.model.Pair;
 import de.uni_mannheim.informatik.wdi.model.RecordGroup;
 import de.uni_mannheim.informatik.wdi.model.ResultSet;
 import de.uni_mannheim.informatik.wdi.utils.ProgressReporter;
@@ -39,6 +45,7 @@ import de.uni_mannheim.informatik.wdi.utils.ProgressReporter;
 public class DataFusionEngine<RecordType extends Matchable & Fusable<SchemaElementType>, SchemaElementType extends Matchable> {
 
 	private DataFusionStrategy<RecordType, SchemaElementType> strategy;
+	private boolean parallel = false;
 
 	/**
 	 * @return the strategy
@@ -56,6 +63,31 @@ public class DataFusionEngine<RecordType extends Matchable & Fusable<SchemaEleme
 		this.strategy = strategy;
 	}
 
+	/**
+	 * @return true if the record groups are processed on multiple threads
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * If set to true, the record groups are fused and evaluated on multiple
+	 * threads. The fusers, evaluation rules and the record factory of the
+	 * strategy must be thread-safe then. The result is the same as for the
+	 * sequential mode.
+	 * 
+	 * @param parallel
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	private Stream<RecordGroup<RecordType, SchemaElementType>> getRecordGroups(
+			CorrespondenceSet<RecordType, SchemaElementType> correspondences) {
+		List<RecordGroup<RecordType, SchemaElementType>> groups = new ArrayList<>(correspondences.getRecordGroups());
+		return parallel ? groups.parallelStream() : groups.stream();
+	}
+
 	/**
 	 * Runs the data fusion process on the provided set of correspondences
 	 * 
@@ -68,11 +100,16 @@ public class DataFusionEngine<RecordType extends Matchable & Fusable<SchemaEleme
 			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
 		FusableDataSet<RecordType, SchemaElementType> fusedDataSet = new FusableDataSet<>();
 
-		for (RecordGroup<RecordType, SchemaElementType> clu : correspondences.getRecordGroups()) {
-			RecordType fusedRecord = strategy.apply(clu, schemaCorrespondences);
+		// fuse the groups (in parallel), then add the fused records to the data set in the order of the groups
+		List<Pair<RecordGroup<RecordType, SchemaElementType>, RecordType>> fused = getRecordGroups(correspondences)
+				.map((clu) -> new Pair<>(clu, strategy.apply(clu, schemaCorrespondences)))
+				.collect(Collectors.toList());
+
+		for (Pair<RecordGroup<RecordType, SchemaElementType>, RecordType> p : fused) {
+			RecordType fusedRecord = p.getSecond();
 			fusedDataSet.addRecord(fusedRecord);
 
-			for (RecordType record : clu.getRecords()) {
+			for (RecordType record : p.getFirst().getRecords()) {
 				fusedDataSet.addOriginalId(fusedRecord, record.getIdentifier());
 			}
 		}
@@ -90,9 +127,6 @@ public class DataFusionEngine<RecordType extends Matchable & Fusable<SchemaEleme
 	public Map<String, Double> getAttributeConsistencies(
 			CorrespondenceSet<RecordType, SchemaElementType> correspondences,
 			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
-		Map<String, Double> consistencySums = new HashMap<>(); // = sum of consistency values
-		Map<String, Integer> consistencyCounts = new HashMap<>(); // = number of instances
-
 		ProgressReporter progress = new ProgressReporter(correspondences.getRecordGroups().size(), "Calculating consistencies");
 		
 		// changed to calculation as follows:
@@ -100,32 +134,21 @@ public class DataFusionEngine<RecordType extends Matchable & Fusable<SchemaEleme
 		// consistency = average of degree of consistency per instance
 		
 		// for each record group (=instance in the target dataset), calculate the degree of consistency for each attribute
-		for (RecordGroup<RecordType, SchemaElementType> clu : correspondences.getRecordGroups()) {
-
-			Map<String, Double> values = strategy
-					.getAttributeConsistency(clu, schemaCorrespondences);
-
-			for (String att : values.keySet()) {
-				Double consistencyValue = values.get(att);
-				
-				if(consistencyValue!=null) {
-					Integer cnt = consistencyCounts.get(att);
-					if (cnt == null) {
-						cnt = 0;
+		// the sums are built per thread and merged
+		ConsistencySums sums = getRecordGroups(correspondences)
+				.map((clu) -> {
+					Map<String, Double> values = strategy.getAttributeConsistency(clu, schemaCorrespondences);
+
+					synchronized (progress) {
+						progress.incrementProgress();
+						progress.report();
 					}
-					consistencyCounts.put(att, cnt + 1);
-					
-					Double sum = consistencySums.get(att);
-					if(sum == null) {
-						sum = 0.0;
-					}
-					consistencySums.put(att, sum + consistencyValue);
-				}
-			}
 
-			progress.incrementProgress();
-			progress.report();
-		}
+					return values;
+				})
+				.collect(Collector.of(ConsistencySums::new, ConsistencySums::add, ConsistencySums::merge));
+		Map<String, Double> consistencySums = sums.sums; // = sum of consistency values
+		Map<String, Integer> consistencyCounts = sums.counts; // = number of instances
 
 		Map<String, Double> result = new HashMap<>();
 		for (String att : consistencySums.keySet()) {
@@ -141,6 +164,32 @@ public class DataFusionEngine<RecordType extends Matchable & Fusable<SchemaEleme
 		return result;
 	}
 
+	/**
+	 * Sums and counts of the consistency values per attribute
+	 */
+	private static class ConsistencySums {
+
+		private Map<String, Double> sums = new HashMap<>();
+		private Map<String, Integer> counts = new HashMap<>();
+
+		public void add(Map<String, Double> values) {
+			for (String att : values.keySet()) {
+				Double consistencyValue = values.get(att);
+
+				if(consistencyValue!=null) {
+					counts.merge(att, 1, Integer::sum);
+					sums.merge(att, consistencyValue, Double::sum);
+				}
+			}
+		}
+
+		public ConsistencySums merge(ConsistencySums other) {
+			other.counts.forEach((att, cnt) -> counts.merge(att, cnt, Integer::sum));
+			other.sums.forEach((att, sum) -> sums.merge(att, sum, Double::sum));
+			return this;
+		}
+	}
+
 	/**
 	 * Calculates the consistencies of the attributes of the records in the
 	 * given correspondence set according to the data fusion strategy and prints
@@ -45,4 +45,25 @@ public abstract class Comparator<RecordType, SchemaElementType> implements Seria
 	//public abstract double compare(RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences);
 	public abstract double compare(RecordType record1, RecordType record2, Correspondence<SchemaElementType, RecordType> schemaCorrespondences);
 
+	/**
+	 * Returns the relative cost of a call to compare. Matching rules that
+	 * evaluate their comparators cost-aware call cheap comparators first.
+	 * 
+	 * @return the cost, 1.0 by default
+	 */
+	public double getCost() {
+		return 1.0;
+	}
+
+	/**
+	 * Returns a description of the comparator and its parameters. Stored
+	 * results (e.g. of a resolution index) are only reused by a comparator
+	 * with the same description.
+	 * 
+	 * @return the name of the class by default
+	 */
+	public String getDescription() {
+		return getClass().getName();
+	}
+
 }
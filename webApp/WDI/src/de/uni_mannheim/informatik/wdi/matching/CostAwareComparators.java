@@ -0,0 +1,137 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+import de.uni_mannheim.informatik.wdi.model.Pair;
+
+/**
+ * The comparators of a matching rule in the order in which they are evaluated
+ * when the rule stops early, and the number of comparisons that were skipped
+ * for every comparator.
+ *
+ * @author Daniel Ringler
+ *
+ * @param <RecordType>
+ * @param <SchemaElementType>
+ */
+class CostAwareComparators<RecordType, SchemaElementType> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The maximum similarity a comparator can return, used to calculate the
+	 * best score that is still achievable.
+	 */
+	static final double MAXIMUM_SIMILARITY = 1.0;
+
+	private List<Comparator<RecordType, SchemaElementType>> comparators;
+	private double[] weights;
+	private int[] order;
+	private double[] remainingWeights;
+	private AtomicLongArray skipped;
+
+	/**
+	 * @param comparators
+	 *            the comparators and weights of the rule
+	 * @param byWeight
+	 *            if true, comparators with a high weight per cost are evaluated
+	 *            first, otherwise the cheapest comparators are evaluated first
+	 */
+	CostAwareComparators(List<Pair<Comparator<RecordType, SchemaElementType>, Double>> comparators, boolean byWeight) {
+		int n = comparators.size();
+		this.comparators = new ArrayList<>(n);
+		this.weights = new double[n];
+		int i = 0;
+		for (Pair<Comparator<RecordType, SchemaElementType>, Double> pair : comparators) {
+			this.comparators.add(pair.getFirst());
+			this.weights[i] = pair.getSecond();
+			i++;
+		}
+
+		double[] priority = new double[n];
+		for (i = 0; i < n; i++) {
+			double cost = Math.max(this.comparators.get(i).getCost(), Double.MIN_VALUE);
+			priority[i] = byWeight ? -weights[i] / cost : cost;
+		}
+		order = IntStream.range(0, n).boxed()
+				.sorted((i1, i2) -> Double.compare(priority[i1], priority[i2]))
+				.mapToInt(Integer::intValue).toArray();
+
+		remainingWeights = new double[n];
+		for (int p = n - 2; p >= 0; p--) {
+			remainingWeights[p] = remainingWeights[p + 1] + weights[order[p + 1]];
+		}
+
+		skipped = new AtomicLongArray(n);
+	}
+
+	int size() {
+		return order.length;
+	}
+
+	/**
+	 * @return the index (in the order the comparators were added) of the
+	 *         comparator that is evaluated at the given position
+	 */
+	int getIndex(int position) {
+		return order[position];
+	}
+
+	Comparator<RecordType, SchemaElementType> getComparator(int index) {
+		return comparators.get(index);
+	}
+
+	double getWeight(int index) {
+		return weights[index];
+	}
+
+	/**
+	 * @return the sum of the weights of the comparators that are evaluated
+	 *         after the given position
+	 */
+	double getRemainingWeight(int position) {
+		return remainingWeights[position];
+	}
+
+	/**
+	 * Counts the comparators after the given position as skipped.
+	 */
+	void skipAfter(int position) {
+		for (int p = position + 1; p < order.length; p++) {
+			skipped.incrementAndGet(order[p]);
+		}
+	}
+
+	/**
+	 * @return the number of skipped comparisons for every comparator, in the
+	 *         order the comparators were added
+	 */
+	long[] getSkippedComparisons() {
+		long[] result = new long[skipped.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = skipped.get(i);
+		}
+		return result;
+	}
+}
@@ -44,6 +44,8 @@ public class LinearCombinationMatchingRule<RecordType extends Matchable, SchemaE
 	private static final long serialVersionUID = 1L;
 	private List<Pair<Comparator<RecordType, SchemaElementType>, Double>> comparators;
 	private double offset;
+	private boolean costAware;
+	private CostAwareComparators<RecordType, SchemaElementType> costAwareComparators;
 
 	/**
 	 * Initialises the rule. The finalThreshold determines the matching
@@ -81,6 +83,7 @@ public class LinearCombinationMatchingRule<RecordType extends Matchable, SchemaE
 		if (weight > 0.0) {
 			comparators.add(new Pair<Comparator<RecordType, SchemaElementType>, Double>(
 					comparator, weight));
+			updateCostAwareComparators();
 		} else {
 			throw new Exception("Weight cannot be 0.0 or smaller");
 		}
@@ -100,10 +103,61 @@ public class LinearCombinationMatchingRule<RecordType extends Matchable, SchemaE
 					.getFirst(), (pair.getSecond() / sum)));
 		}
 		comparators = normComparators;
+		updateCostAwareComparators();
+	}
+
+	/**
+	 * Enables or disables the cost-aware evaluation of the comparators. The comparators with the highest weight per
+	 * cost ({@link Comparator#getCost()}) are evaluated first and the
+	 * evaluation stops as soon as the final threshold cannot be reached
+	 * anymore, even if all remaining comparators return 1.0. The matching
+	 * decisions and similarities do not change, as long as all comparators
+	 * return similarities of at most 1.0 (or -1.0 for missing values).
+	 * 
+	 * @param costAware
+	 */
+	public void setCostAware(boolean costAware) {
+		this.costAware = costAware;
+		updateCostAwareComparators();
+	}
+
+	public boolean isCostAware() {
+		return costAware;
+	}
+
+	/**
+	 * @return for every comparator (in the order they were added) the number of
+	 *         comparisons that were skipped by the cost-aware evaluation
+	 */
+	public long[] getSkippedComparisons() {
+		CostAwareComparators<RecordType, SchemaElementType> c = costAwareComparators;
+		return c == null ? new long[comparators.size()] : c.getSkippedComparisons();
+	}
+
+	/**
+	 * @return the offset, the weighted comparators and the final threshold
+	 */
+	@Override
+	public String getDescription() {
+		StringBuilder description = new StringBuilder();
+		description.append(offset);
+		for (Pair<Comparator<RecordType, SchemaElementType>, Double> pair : comparators) {
+			description.append(" + ").append(pair.getSecond()).append(" * ").append(pair.getFirst().getDescription());
+		}
+		return description.append(" >= ").append(getFinalThreshold()).toString();
+	}
+
+	private void updateCostAwareComparators() {
+		costAwareComparators = costAware ? new CostAwareComparators<>(comparators, true) : null;
 	}
 
 	@Override
 	public Correspondence<RecordType, SchemaElementType> apply(RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
+		CostAwareComparators<RecordType, SchemaElementType> costAware = costAwareComparators;
+		if (costAware != null) {
+			return applyCostAware(costAware, record1, record2, schemaCorrespondences);
+		}
+
 		double sum = 0.0;
 		double wSum = 0.0;
 		for (int i = 0; i < comparators.size(); i++) {
@@ -133,17 +187,66 @@ public class LinearCombinationMatchingRule<RecordType extends Matchable, SchemaE
 		}
 	}
 
+	/**
+	 * Evaluates the comparators in cost-aware order and stops as soon as the
+	 * best achievable score is below the final threshold. The final score is
+	 * summed up in the original order of the comparators, so it is exactly the
+	 * same as without cost-aware evaluation.
+	 */
+	private Correspondence<RecordType, SchemaElementType> applyCostAware(CostAwareComparators<RecordType, SchemaElementType> costAware, RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
+		double[] similarities = new double[costAware.size()];
+		double sum = 0.0;
+		double wSum = 0.0;
+		for (int p = 0; p < costAware.size(); p++) {
+			int i = costAware.getIndex(p);
+			double similarity = costAware.getComparator(i).compare(record1, record2, null);
+			double weight = costAware.getWeight(i);
+			similarities[i] = similarity;
+
+			if (similarity != -1.0) {
+				wSum += weight;
+				sum += (similarity * weight);
+			}
+
+			// the best score if all remaining comparators return the maximum similarity
+			double remaining = costAware.getRemainingWeight(p);
+			if (remaining > 0.0) {
+				double best = offset + (sum + remaining * CostAwareComparators.MAXIMUM_SIMILARITY) / (wSum + remaining);
+				// small tolerance for rounding errors
+				if (best + 1e-9 < getFinalThreshold()) {
+					costAware.skipAfter(p);
+					return null;
+				}
+			}
+		}
+
+		sum = 0.0;
+		wSum = 0.0;
+		for (int i = 0; i < similarities.length; i++) {
+			if (similarities[i] != -1.0) {
+				wSum += costAware.getWeight(i);
+				sum += (similarities[i] * costAware.getWeight(i));
+			}
+		}
+
+		double similarity = offset + (sum / wSum);
+
+		if (similarity >= getFinalThreshold() && similarity > 0.0) {
+			return createCorrespondence(record1, record2, schemaCorrespondences, similarity);
+		} else {
+			return null;
+		}
+	}
+
 	@Override
 	public DefaultRecord generateFeatures(RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences, FeatureVectorDataSet features) {
-		DefaultRecord model = new DefaultRecord(String.format("%s-%s",
-				record1.getIdentifier(), record2.getIdentifier()), this
+		DefaultRecord model = new DefaultRecord(record1.getIdentifier() + "-" + record2.getIdentifier(), this
 				.getClass().getSimpleName());
 
 		double sum = offset;
 
-		for (int i = 0; i < comparators.size(); i++) {
-			Pair<Comparator<RecordType, SchemaElementType>, Double> pair = comparators.get(i);
-
+		int i = 0;
+		for (Pair<Comparator<RecordType, SchemaElementType>, Double> pair : comparators) {
 			Comparator<RecordType, SchemaElementType> comp = pair.getFirst();
 
 			//double similarity = comp.compare(record1, record2, schemaCorrespondences);
@@ -152,18 +255,9 @@ public class LinearCombinationMatchingRule<RecordType extends Matchable, SchemaE
 
 			sum += (similarity * weight);
 
-			String name = String.format("[%d] %s", i, comp.getClass()
-					.getSimpleName());
-			DefaultSchemaElement att = null;
-			for(DefaultSchemaElement elem : features.getAttributes()) {
-				if(elem.toString().equals(name)) {
-					att = elem;
-				}
-			}
-			if(att==null) {
-				att = new DefaultSchemaElement(name);
-			}
+			DefaultSchemaElement att = features.getAttribute("[" + i + "] " + comp.getClass().getSimpleName());
 			model.setValue(att, Double.toString(similarity));
+			i++;
 		}
 
 		model.setValue(FeatureVectorDataSet.ATTRIBUTE_FINAL_VALUE, Double.toString(sum));
@@ -33,13 +33,18 @@ import de.uni_mannheim.informatik.wdi.model.Correspondence;
 import de.uni_mannheim.informatik.wdi.model.DataSet;
 import de.uni_mannheim.informatik.wdi.model.DefaultDataSet;
 import de.uni_mannheim.informatik.wdi.model.DefaultRecord;
+import de.uni_mannheim.informatik.wdi.model.FeatureVectorCSVWriter;
 import de.uni_mannheim.informatik.wdi.model.FeatureVectorDataSet;
 import de.uni_mannheim.informatik.wdi.model.Matchable;
 import de.uni_mannheim.informatik.wdi.model.MatchingGoldStandard;
 import de.uni_mannheim.informatik.wdi.model.Pair;
 import de.uni_mannheim.informatik.wdi.model.Record;
 import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.model.Triple;
 import de.uni_mannheim.informatik.wdi.processing.DataProcessingEngine;
+import de.uni_mannheim.informatik.wdi.processing.DatasetIterator;
+import de.uni_mannheim.informatik.wdi.processing.RecordMapper;
+import de.uni_mannheim.informatik.wdi.processing.ResultSetCollector;
 import de.uni_mannheim.informatik.wdi.similarity.string.LevenshteinSimilarity;
 import de.uni_mannheim.informatik.wdi.similarity.string.TokenizingJaccardSimilarity;
 import de.uni_mannheim.informatik.wdi.utils.ProgressReporter;
@@ -102,7 +107,7 @@ public class MatchingEngine<RecordType extends Matchable, SchemaElementType exte
 
 		System.out.println(String.format("Blocking %,d x %,d elements", dataset.getSize(), dataset.getSize()));
 		// use the blocker to generate pairs
-		//TODO don't generate pairs here! just generate blocks, then generate pairs from the blocks inside the next loop (otherwise number of pairs can be too large to handle)
+		// (blockers returning BlockedPairs only create the blocks here, the pairs are generated inside the next loop)
 		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> allPairs = blocker.runBlocking(dataset, symmetric, schemaCorrespondences, getProcessingEngine());
 
 		System.out
@@ -114,20 +119,7 @@ public class MatchingEngine<RecordType extends Matchable, SchemaElementType exte
 		// compare the pairs using the Duplicate Detection rule
 		ProgressReporter progress = new ProgressReporter(allPairs.size(),
 				"Duplicate Detection");
-		for(BlockedMatchable<RecordType, SchemaElementType> task : allPairs.get()) {
-
-			// apply the Duplicate Detection rule
-			Correspondence<RecordType, SchemaElementType> cor = rule.apply(task.getFirstRecord(), task.getSecondRecord(), task.getSchemaCorrespondences());
-			if (cor != null) {
-
-				// add the correspondences to the result
-				result.add(cor);
-			}
-
-			// increment and report status
-			progress.incrementProgress();
-			progress.report();
-		}
+		result = applyMatchingRule(allPairs, rule, progress);
 
 		// report total Duplicate Detection time
 		long end = System.currentTimeMillis();
@@ -180,22 +172,13 @@ public class MatchingEngine<RecordType extends Matchable, SchemaElementType exte
 								allPairs.size(), Double.toString(blocker.getReductionRatio())));
 
 		// compare the pairs using the matching rule
+		// (runs on multiple threads if the processing engine is a ParallelDataProcessingEngine)
 		ProgressReporter progress = new ProgressReporter(allPairs.size(), "Identity Resolution");
-		Set<Correspondence<RecordType, SchemaElementType>> corList = new HashSet<Correspondence<RecordType, SchemaElementType>>(allPairs.size()+1000, 0.99999f);
+		ResultSet<Correspondence<RecordType, SchemaElementType>> matched = applyMatchingRule(allPairs, rule, progress);
 
-		for(BlockedMatchable<RecordType, SchemaElementType> task : allPairs.get()) {
-
-			// apply the matching rule
-			Correspondence<RecordType, SchemaElementType> cor = rule.apply(task.getFirstRecord(), task.getSecondRecord(), task.getSchemaCorrespondences());
-			if (cor != null) {
-				// add the correspondences to the result
-				//result.add(cor);
-				corList.add(cor);
-			}
-			// increment and report status
-			progress.incrementProgress();
-			progress.report();
-		}
+		//use set to add distinct correspondences only
+		Set<Correspondence<RecordType, SchemaElementType>> corList = new HashSet<Correspondence<RecordType, SchemaElementType>>(matched.get());
+		matched = null;
 
 		/*int allPairsSize = allPairs.size();
         //use set to add distinct correspondences only
@@ -227,6 +210,40 @@ public class MatchingEngine<RecordType extends Matchable, SchemaElementType exte
 		return result;
 	}
 	
+	/**
+	 * Applies the matching rule to all blocked pairs using the processing
+	 * engine. The rule (including its comparators) must be thread-safe if the
+	 * processing engine executes the transformation in parallel.
+	 * 
+	 * @param allPairs
+	 *            the blocked pairs
+	 * @param rule
+	 *            the matching rule
+	 * @param progress
+	 *            reports the number of compared pairs
+	 * @return the correspondences created by the rule
+	 */
+	protected ResultSet<Correspondence<RecordType, SchemaElementType>> applyMatchingRule(
+			ResultSet<BlockedMatchable<RecordType, SchemaElementType>> allPairs,
+			final MatchingRule<RecordType, SchemaElementType> rule,
+			ProgressReporter progress) {
+		return getProcessingEngine().transform(allPairs, new RecordMapper<BlockedMatchable<RecordType, SchemaElementType>, Correspondence<RecordType, SchemaElementType>>() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void mapRecord(BlockedMatchable<RecordType, SchemaElementType> task,
+					DatasetIterator<Correspondence<RecordType, SchemaElementType>> resultCollector) {
+				// apply the matching rule
+				Correspondence<RecordType, SchemaElementType> cor = rule.apply(task.getFirstRecord(), task.getSecondRecord(), task.getSchemaCorrespondences());
+				if (cor != null) {
+					// add the correspondences to the result
+					resultCollector.next(cor);
+				}
+			}
+		}, progress);
+	}
+
 //	public ResultSet<BlockedMatchable<SchemaElementType, RecordType>> runSchemaBlocking(
 //			DataSet<SchemaElementType, SchemaElementType> dataset1, 
 //			DataSet<SchemaElementType, SchemaElementType> dataset2, 
@@ -321,49 +338,17 @@ public class MatchingEngine<RecordType extends Matchable, SchemaElementType exte
 				.getPositiveExamples().size()
 				+ goldStandard.getNegativeExamples().size(), "GenerateFeatures");
 
-		// create positive examples
-		for (Pair<String, String> correspondence : goldStandard
-				.getPositiveExamples()) {
-			RecordType record1 = dataset1.getRecord(correspondence.getFirst());
-			RecordType record2 = dataset2.getRecord(correspondence.getSecond());
-
-			// we don't know which id is from which data set
-			if (record1 == null && record2 == null) {
-				// so if we didn't find anything, we probably had it wrong ...
-				record1 = dataset2.getRecord(correspondence.getFirst());
-				record2 = dataset1.getRecord(correspondence.getSecond());
-			}
+		ResultSetCollector<DefaultRecord> collector = new ResultSetCollector<DefaultRecord>() {
 
-			DefaultRecord features = rule.generateFeatures(record1, record2, schemaCorrespondences, result);
-			features.setValue(FeatureVectorDataSet.ATTRIBUTE_LABEL, "1");
-			result.addRecord(features);
+			private static final long serialVersionUID = 1L;
 
-			// increment and report status
-			progress.incrementProgress();
-			progress.report();
-		}
-
-		// create negative examples
-		for (Pair<String, String> correspondence : goldStandard
-				.getNegativeExamples()) {
-			RecordType record1 = dataset1.getRecord(correspondence.getFirst());
-			RecordType record2 = dataset2.getRecord(correspondence.getSecond());
-
-			// we don't know which id is from which data set
-			if (record1 == null && record2 == null) {
-				// so if we didn't find anything, we probably had it wrong ...
-				record1 = dataset2.getRecord(correspondence.getFirst());
-				record2 = dataset1.getRecord(correspondence.getSecond());
+			@Override
+			public void next(DefaultRecord record) {
+				result.addRecord(record);
 			}
+		};
 
-			DefaultRecord features = rule.generateFeatures(record1, record2, schemaCorrespondences, result);
-			features.setValue(FeatureVectorDataSet.ATTRIBUTE_LABEL, "0");
-			result.addRecord(features);
-
-			// increment and report status
-			progress.incrementProgress();
-			progress.report();
-		}
+		generateFeatures(dataset1, dataset2, getLabeledExamples(goldStandard), rule, schemaCorrespondences, result, collector, progress);
 
 		// report total time
 		long end = System.currentTimeMillis();
@@ -376,6 +361,165 @@ public class MatchingEngine<RecordType extends Matchable, SchemaElementType exte
 								result.getSize()));
 	}
 
+	/**
+	 * Generates the features of all examples in the gold standard (like
+	 * {@link #generateTrainingDataForLearning(DataSet, DataSet, MatchingGoldStandard, MatchingRule, ResultSet, FeatureVectorDataSet)})
+	 * and writes them to a tab separated file while they are generated.
+	 * 
+	 * @return the number of written examples
+	 */
+	public int writeTrainingDataForLearning(
+			DataSet<RecordType, SchemaElementType> dataset1, 
+			DataSet<RecordType, SchemaElementType> dataset2,
+			MatchingGoldStandard goldStandard,
+			MatchingRule<RecordType, SchemaElementType> rule,
+			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
+			File file) throws IOException {
+		goldStandard.printBalanceReport();
+
+		ProgressReporter progress = new ProgressReporter(goldStandard
+				.getPositiveExamples().size()
+				+ goldStandard.getNegativeExamples().size(), "GenerateFeatures");
+
+		FeatureVectorDataSet features = new FeatureVectorDataSet();
+		try (FeatureVectorCSVWriter writer = new FeatureVectorCSVWriter(file, features)) {
+			generateFeatures(dataset1, dataset2, getLabeledExamples(goldStandard), rule, schemaCorrespondences, features, writer, progress);
+			return writer.getSize();
+		}
+	}
+
+	/**
+	 * Generates the features of all pairs created by the blocker (not only of
+	 * the examples in the gold standard) and writes them to a tab separated
+	 * file while they are generated. Pairs in the gold standard are labeled
+	 * with 1 or 0, all other pairs are labeled with 0 if the gold standard is
+	 * complete and have an empty label otherwise. Every pair is written once,
+	 * also if the blocker creates it for several blocking keys.
+	 * 
+	 * @return the number of written pairs
+	 */
+	public int writeFeaturesForBlockedPairs(
+			DataSet<RecordType, SchemaElementType> dataset1, 
+			DataSet<RecordType, SchemaElementType> dataset2,
+			final MatchingGoldStandard goldStandard,
+			final MatchingRule<RecordType, SchemaElementType> rule,
+			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
+			Blocker<RecordType, SchemaElementType> blocker,
+			boolean runBlockFiltering,
+			double r,
+			File file) throws IOException {
+		long start = System.currentTimeMillis();
+
+		System.out.println(String.format("[%s] Starting GenerateFeatures for blocked pairs",
+				new DateTime(start).toString()));
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> allPairs = blocker.runBlocking(dataset1, dataset2, schemaCorrespondences, getProcessingEngine(), runBlockFiltering, r);
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> pairs = new ResultSet<>(allPairs.size());
+		Set<String> ids = new HashSet<>();
+		for (BlockedMatchable<RecordType, SchemaElementType> pair : allPairs.get()) {
+			if (ids.add(pair.getFirstRecord().getIdentifier() + " " + pair.getSecondRecord().getIdentifier())) {
+				pairs.add(pair);
+			}
+		}
+		ids = null;
+		allPairs = null;
+
+		ProgressReporter progress = new ProgressReporter(pairs.size(), "GenerateFeatures");
+
+		final FeatureVectorDataSet features = new FeatureVectorDataSet();
+		int size;
+		try (FeatureVectorCSVWriter writer = new FeatureVectorCSVWriter(file, features)) {
+			getProcessingEngine().transform(pairs, new RecordMapper<BlockedMatchable<RecordType, SchemaElementType>, DefaultRecord>() {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void mapRecord(BlockedMatchable<RecordType, SchemaElementType> task,
+						DatasetIterator<DefaultRecord> resultCollector) {
+					DefaultRecord record = rule.generateFeatures(task.getFirstRecord(), task.getSecondRecord(), task.getSchemaCorrespondences(), features);
+
+					if (goldStandard.containsPositive(task.getFirstRecord(), task.getSecondRecord())) {
+						record.setValue(FeatureVectorDataSet.ATTRIBUTE_LABEL, "1");
+					} else if (goldStandard.isComplete() || goldStandard.containsNegative(task.getFirstRecord(), task.getSecondRecord())) {
+						record.setValue(FeatureVectorDataSet.ATTRIBUTE_LABEL, "0");
+					} else {
+						record.setValue(FeatureVectorDataSet.ATTRIBUTE_LABEL, "");
+					}
+
+					resultCollector.next(record);
+				}
+			}, writer, progress);
+			size = writer.getSize();
+		}
+
+		long end = System.currentTimeMillis();
+		System.out.println(String.format(
+				"[%s] GenerateFeatures finished after %s; wrote %,d of %,d blocked pairs.",
+				new DateTime(end).toString(),
+				DurationFormatUtils.formatDurationHMS(end - start), size, pairs.size()));
+
+		return size;
+	}
+
+	/**
+	 * Returns the examples of the gold standard as (id1, id2, label), first the
+	 * positive examples (label 1), then the negative examples (label 0).
+	 */
+	protected ResultSet<Triple<String, String, String>> getLabeledExamples(MatchingGoldStandard goldStandard) {
+		ResultSet<Triple<String, String, String>> examples = new ResultSet<>(goldStandard
+				.getPositiveExamples().size()
+				+ goldStandard.getNegativeExamples().size());
+
+		for (Pair<String, String> correspondence : goldStandard.getPositiveExamples()) {
+			examples.add(new Triple<>(correspondence.getFirst(), correspondence.getSecond(), "1"));
+		}
+		for (Pair<String, String> correspondence : goldStandard.getNegativeExamples()) {
+			examples.add(new Triple<>(correspondence.getFirst(), correspondence.getSecond(), "0"));
+		}
+
+		return examples;
+	}
+
+	/**
+	 * Generates the labeled feature vectors of the examples using the
+	 * processing engine and passes them to the collector in the order of the
+	 * examples. The rule (including its comparators) must be thread-safe if
+	 * the processing engine executes the transformation in parallel.
+	 */
+	protected void generateFeatures(
+			final DataSet<RecordType, SchemaElementType> dataset1, 
+			final DataSet<RecordType, SchemaElementType> dataset2,
+			ResultSet<Triple<String, String, String>> examples,
+			final MatchingRule<RecordType, SchemaElementType> rule,
+			final ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
+			final FeatureVectorDataSet features,
+			DatasetIterator<DefaultRecord> collector,
+			ProgressReporter progress) {
+		getProcessingEngine().transform(examples, new RecordMapper<Triple<String, String, String>, DefaultRecord>() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void mapRecord(Triple<String, String, String> example,
+					DatasetIterator<DefaultRecord> resultCollector) {
+				RecordType record1 = dataset1.getRecord(example.getFirst());
+				RecordType record2 = dataset2.getRecord(example.getSecond());
+
+				// we don't know which id is from which data set
+				if (record1 == null && record2 == null) {
+					// so if we didn't find anything, we probably had it wrong ...
+					record1 = dataset2.getRecord(example.getFirst());
+					record2 = dataset1.getRecord(example.getSecond());
+				}
+
+				DefaultRecord record = rule.generateFeatures(record1, record2, schemaCorrespondences, features);
+				record.setValue(FeatureVectorDataSet.ATTRIBUTE_LABEL, example.getThird());
+				resultCollector.next(record);
+			}
+		}, collector, progress);
+	}
+
 	public <A extends Matchable, B> void writeCorrespondences(
 			Collection<Correspondence<A, B>> correspondences, File file)
 			throws IOException {
@@ -46,6 +46,14 @@ public abstract class MatchingRule<RecordType, SchemaElementType> extends Compar
 		this.finalThreshold = finalThreshold;
 	}
 
+	/**
+	 * @return the name of the class and the final threshold
+	 */
+	@Override
+	public String getDescription() {
+		return getClass().getName() + " >= " + finalThreshold;
+	}
+
 	protected Correspondence<RecordType, SchemaElementType> createCorrespondence(RecordType record1,
 			RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences, double similarity) {
 		return new Correspondence<>(record1, record2, similarity, schemaCorrespondences);
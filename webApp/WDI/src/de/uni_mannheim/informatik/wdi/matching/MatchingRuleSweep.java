@@ -0,0 +1,548 @@
+/** 
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.joda.time.DateTime;
+
+import com.opencsv.CSVWriter;
+
+import de.uni_mannheim.informatik.wdi.matching.blocking.BlockedMatchable;
+import de.uni_mannheim.informatik.wdi.matching.blocking.Blocker;
+import de.uni_mannheim.informatik.wdi.model.DataSet;
+import de.uni_mannheim.informatik.wdi.model.Matchable;
+import de.uni_mannheim.informatik.wdi.model.MatchingGoldStandard;
+import de.uni_mannheim.informatik.wdi.model.Pair;
+import de.uni_mannheim.informatik.wdi.model.Performance;
+import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.processing.DataProcessingEngine;
+import de.uni_mannheim.informatik.wdi.processing.DatasetIterator;
+import de.uni_mannheim.informatik.wdi.processing.RecordMapper;
+import de.uni_mannheim.informatik.wdi.utils.ProgressReporter;
+
+/**
+ * Evaluates many matching rules on the same blocked pairs in one run. The
+ * pairs are blocked once and the similarity of every comparator is computed
+ * once per pair and stored in a column. Every configuration (a combination
+ * of {@link LinearCombinationMatchingRule},
+ * {@link MaximumCombinationMatchingRule} or
+ * {@link MinimumCombinationMatchingRule} with weights for the comparators)
+ * is then evaluated for all thresholds with one pass over the columns,
+ * against a {@link MatchingGoldStandard} like the {@link MatchingEvaluator}.
+ * 
+ * The comparators should calculate exact similarities (no internal
+ * threshold), otherwise only thresholds above their internal thresholds are
+ * meaningful.
+ * 
+ * @author Daniel Ringler
+ * 
+ */
+public class MatchingRuleSweep<RecordType extends Matchable, SchemaElementType extends Matchable> {
+
+	public enum Combination {
+		LINEAR, MAXIMUM, MINIMUM
+	}
+
+	/**
+	 * A matching rule: the combination and the weight of every comparator (0
+	 * if the comparator is not used). Like in the matching rules,
+	 * {@link Combination#MINIMUM} uses the lowest weighted similarity and
+	 * {@link Combination#MAXIMUM} only uses the weights to select the
+	 * comparators.
+	 */
+	public static class Configuration {
+
+		private String name;
+		private Combination combination;
+		private double[] weights;
+
+		public Configuration(String name, Combination combination, double[] weights) {
+			this.name = name;
+			this.combination = combination;
+			this.weights = weights;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Combination getCombination() {
+			return combination;
+		}
+
+		public double[] getWeights() {
+			return weights;
+		}
+	}
+
+	/**
+	 * The evaluation of a configuration with one threshold
+	 */
+	public static class Result {
+
+		private Configuration configuration;
+		private double threshold;
+		private int correspondences;
+		private Performance performance;
+
+		public Result(Configuration configuration, double threshold, int correspondences, Performance performance) {
+			this.configuration = configuration;
+			this.threshold = threshold;
+			this.correspondences = correspondences;
+			this.performance = performance;
+		}
+
+		public Configuration getConfiguration() {
+			return configuration;
+		}
+
+		public double getThreshold() {
+			return threshold;
+		}
+
+		/**
+		 * @return the number of correspondences the rule creates (including
+		 *         pairs that are not in the gold standard)
+		 */
+		public int getNumberOfCorrespondences() {
+			return correspondences;
+		}
+
+		public Performance getPerformance() {
+			return performance;
+		}
+	}
+
+	private static final byte LABEL_UNKNOWN = -1;
+	private static final byte LABEL_NEGATIVE = 0;
+	private static final byte LABEL_POSITIVE = 1;
+
+	private DataProcessingEngine processingEngine;
+	private List<Comparator<RecordType, SchemaElementType>> comparators = new ArrayList<>();
+	private List<String> comparatorNames = new ArrayList<>();
+	private List<Configuration> configurations = new ArrayList<>();
+	private double[] thresholds = new double[0];
+
+	// the column store: one similarity column per comparator and the label of every pair
+	private double[][] columns;
+	private byte[] labels;
+	private int size;
+	private int correctTotal;
+
+	public MatchingRuleSweep() {
+		this(new DataProcessingEngine());
+	}
+
+	/**
+	 * @param processingEngine
+	 *            computes the similarities, in parallel if it is a
+	 *            {@link de.uni_mannheim.informatik.wdi.processing.ParallelDataProcessingEngine}
+	 */
+	public MatchingRuleSweep(DataProcessingEngine processingEngine) {
+		this.processingEngine = processingEngine;
+	}
+
+	/**
+	 * Adds a comparator (a column). Must be called before
+	 * {@link #computeColumns(DataSet, DataSet, Blocker, boolean, double, MatchingGoldStandard)}.
+	 * 
+	 * @return the index of the comparator in the weights of a configuration
+	 */
+	public int addComparator(String name, Comparator<RecordType, SchemaElementType> comparator) {
+		comparators.add(comparator);
+		comparatorNames.add(name);
+		return comparators.size() - 1;
+	}
+
+	/**
+	 * @param weights
+	 *            one weight per comparator (in the order they were added), 0
+	 *            if the comparator is not used
+	 */
+	public void addConfiguration(String name, Combination combination, double... weights) {
+		if (weights.length != comparators.size()) {
+			throw new IllegalArgumentException("Expected " + comparators.size() + " weights, got " + weights.length);
+		}
+		configurations.add(new Configuration(name, combination, weights.clone()));
+	}
+
+	/**
+	 * Adds a configuration for every combination of the candidate weights of
+	 * the comparators (except all weights 0). Combinations with the same
+	 * scores as an earlier one are skipped: for {@link Combination#LINEAR}
+	 * multiples of earlier weights (the scores are normalised by the weights),
+	 * for {@link Combination#MAXIMUM} the same selection of comparators.
+	 * 
+	 * @param candidateWeights
+	 *            the weights every comparator can have, e.g. 0 and 1 for all
+	 *            subsets of the comparators
+	 */
+	public void addWeightGrid(Combination combination, double... candidateWeights) {
+		int[] index = new int[comparators.size()];
+		Set<List<Double>> added = new HashSet<>();
+		while (true) {
+			double[] weights = new double[index.length];
+			boolean used = false;
+			for (int i = 0; i < index.length; i++) {
+				weights[i] = candidateWeights[index[i]];
+				used |= weights[i] > 0.0;
+			}
+			if (used && added.add(getScoreKey(combination, weights))) {
+				addConfiguration(combination + Arrays.toString(weights), combination, weights);
+			}
+
+			// next combination
+			int i = 0;
+			while (i < index.length && ++index[i] == candidateWeights.length) {
+				index[i++] = 0;
+			}
+			if (i == index.length) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return the weights that determine the scores of the combination
+	 */
+	private List<Double> getScoreKey(Combination combination, double[] weights) {
+		double sum = 0.0;
+		for (double weight : weights) {
+			sum += weight;
+		}
+		List<Double> key = new ArrayList<>(weights.length);
+		for (double weight : weights) {
+			if (combination == Combination.LINEAR) {
+				// rounded, so e.g. [1,2] and [2,4] have the same key
+				key.add(Math.round(weight / sum * 1e9) / 1e9);
+			} else if (combination == Combination.MAXIMUM) {
+				key.add(weight > 0.0 ? 1.0 : 0.0);
+			} else {
+				key.add(weight);
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * Sets the final thresholds that are evaluated for every configuration
+	 */
+	public void setThresholds(double... thresholds) {
+		this.thresholds = thresholds.clone();
+		Arrays.sort(this.thresholds);
+	}
+
+	/**
+	 * Sets the thresholds from, from + step, ..., to
+	 */
+	public void setThresholds(double from, double to, double step) {
+		int steps = (int) Math.round((to - from) / step);
+		double[] thresholds = new double[steps + 1];
+		for (int i = 0; i <= steps; i++) {
+			// rounded, so the thresholds are not 0.30000000000000004
+			thresholds[i] = Math.round((from + i * step) * 1e10) / 1e10;
+		}
+		setThresholds(thresholds);
+	}
+
+	/**
+	 * Blocks the data sets and computes the similarities of all comparators
+	 * for every blocked pair (every pair once, even if the blocker creates it
+	 * multiple times). The comparators must be thread-safe if the processing
+	 * engine runs in parallel.
+	 */
+	public void computeColumns(DataSet<RecordType, SchemaElementType> dataset1,
+			DataSet<RecordType, SchemaElementType> dataset2,
+			Blocker<RecordType, SchemaElementType> blocker,
+			boolean runBlockFiltering,
+			double r,
+			final MatchingGoldStandard goldStandard) {
+		long start = System.currentTimeMillis();
+
+		System.out.println(String.format("[%s] Starting Sweep: computing %d comparators",
+				new DateTime(start).toString(), comparators.size()));
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> allPairs = blocker.runBlocking(dataset1, dataset2, null, processingEngine, runBlockFiltering, r);
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> pairs = new ResultSet<>(allPairs.size());
+		Set<String> ids = new HashSet<>();
+		for (BlockedMatchable<RecordType, SchemaElementType> pair : allPairs.get()) {
+			if (ids.add(pair.getFirstRecord().getIdentifier() + " " + pair.getSecondRecord().getIdentifier())) {
+				pairs.add(pair);
+			}
+		}
+		ids = null;
+		allPairs = null;
+
+		size = 0;
+		columns = new double[comparators.size()][pairs.size()];
+		labels = new byte[pairs.size()];
+		correctTotal = goldStandard.getPositiveExamples().size();
+
+		ProgressReporter progress = new ProgressReporter(pairs.size(), "Sweep");
+
+		final List<Comparator<RecordType, SchemaElementType>> comparators = this.comparators;
+		processingEngine.transform(pairs, new RecordMapper<BlockedMatchable<RecordType, SchemaElementType>, Pair<Byte, double[]>>() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void mapRecord(BlockedMatchable<RecordType, SchemaElementType> pair,
+					DatasetIterator<Pair<Byte, double[]>> resultCollector) {
+				RecordType record1 = pair.getFirstRecord();
+				RecordType record2 = pair.getSecondRecord();
+
+				double[] similarities = new double[comparators.size()];
+				for (int i = 0; i < similarities.length; i++) {
+					similarities[i] = comparators.get(i).compare(record1, record2, null);
+				}
+
+				byte label;
+				if (goldStandard.containsPositive(record1, record2)) {
+					label = LABEL_POSITIVE;
+				} else if (goldStandard.isComplete() || goldStandard.containsNegative(record1, record2)) {
+					label = LABEL_NEGATIVE;
+				} else {
+					label = LABEL_UNKNOWN;
+				}
+
+				resultCollector.next(new Pair<>(label, similarities));
+			}
+		}, new DatasetIterator<Pair<Byte, double[]>>() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void initialise() {
+			}
+
+			@Override
+			public void next(Pair<Byte, double[]> row) {
+				double[] similarities = row.getSecond();
+				for (int i = 0; i < similarities.length; i++) {
+					columns[i][size] = similarities[i];
+				}
+				labels[size++] = row.getFirst();
+			}
+
+			@Override
+			public void finalise() {
+			}
+		}, progress);
+
+		long end = System.currentTimeMillis();
+		System.out.println(String.format("[%s] Sweep computed %,d pairs after %s",
+				new DateTime(end).toString(), size,
+				DurationFormatUtils.formatDurationHMS(end - start)));
+	}
+
+	/**
+	 * Evaluates all configurations with all thresholds on the computed
+	 * columns. A pair is a correspondence if its score is at least the
+	 * threshold and larger than 0, like in the matching rules.
+	 * 
+	 * @return the results ordered by configuration and threshold
+	 */
+	public List<Result> evaluate() {
+		if (columns == null) {
+			throw new IllegalStateException("The columns have not been computed");
+		}
+
+		// every configuration is one pass over the columns, so they are
+		// evaluated in parallel (there are usually fewer configurations than
+		// the chunk size of the processing engine)
+		return configurations.parallelStream()
+				.map(this::evaluate)
+				.flatMap(List::stream)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Evaluates one configuration with all thresholds: the scores of all pairs
+	 * are computed column by column, then every pair is counted for all
+	 * thresholds that are not above its score.
+	 */
+	protected List<Result> evaluate(Configuration configuration) {
+		double[] scores = score(configuration);
+
+		// number of correspondences, correct and evaluated (correct or wrong)
+		// correspondences per threshold, first counted for the highest
+		// threshold a pair reaches, then summed up
+		int[] found = new int[thresholds.length + 1];
+		int[] correct = new int[thresholds.length + 1];
+		int[] matched = new int[thresholds.length + 1];
+		for (int p = 0; p < size; p++) {
+			double score = scores[p];
+			if (score > 0.0) {
+				int reached = countThresholdsReached(score);
+				found[reached]++;
+				if (labels[p] == LABEL_POSITIVE) {
+					correct[reached]++;
+					matched[reached]++;
+				} else if (labels[p] == LABEL_NEGATIVE) {
+					matched[reached]++;
+				}
+			}
+		}
+		for (int t = thresholds.length - 1; t >= 0; t--) {
+			found[t] += found[t + 1];
+			correct[t] += correct[t + 1];
+			matched[t] += matched[t + 1];
+		}
+
+		List<Result> results = new ArrayList<>(thresholds.length);
+		for (int t = 0; t < thresholds.length; t++) {
+			// pairs that reach threshold t reach at least t + 1 thresholds
+			results.add(new Result(configuration, thresholds[t], found[t + 1],
+					new Performance(correct[t + 1], matched[t + 1], correctTotal)));
+		}
+		return results;
+	}
+
+	/**
+	 * @return the score of every pair, NaN if no comparator returned a
+	 *         similarity (linear combination)
+	 */
+	protected double[] score(Configuration configuration) {
+		double[] weights = configuration.getWeights();
+		double[] scores = new double[size];
+
+		if (configuration.getCombination() == Combination.LINEAR) {
+			// comparators that return -1 are ignored, like in the LinearCombinationMatchingRule
+			double[] weightSums = new double[size];
+			for (int c = 0; c < weights.length; c++) {
+				double weight = weights[c];
+				if (weight > 0.0) {
+					double[] column = columns[c];
+					for (int p = 0; p < size; p++) {
+						if (column[p] != -1.0) {
+							scores[p] += column[p] * weight;
+							weightSums[p] += weight;
+						}
+					}
+				}
+			}
+			for (int p = 0; p < size; p++) {
+				scores[p] /= weightSums[p];
+			}
+		} else {
+			// the maximum ignores the weights, the minimum uses the weighted
+			// similarities, like the MaximumCombinationMatchingRule and the
+			// MinimumCombinationMatchingRule
+			boolean maximum = configuration.getCombination() == Combination.MAXIMUM;
+			boolean isFirst = true;
+			for (int c = 0; c < weights.length; c++) {
+				if (weights[c] > 0.0) {
+					double[] column = columns[c];
+					double weight = maximum ? 1.0 : weights[c];
+					if (isFirst) {
+						for (int p = 0; p < size; p++) {
+							scores[p] = column[p] * weight;
+						}
+						isFirst = false;
+					} else if (maximum) {
+						for (int p = 0; p < size; p++) {
+							scores[p] = Math.max(scores[p], column[p]);
+						}
+					} else {
+						for (int p = 0; p < size; p++) {
+							scores[p] = Math.min(scores[p], column[p] * weight);
+						}
+					}
+				}
+			}
+		}
+
+		return scores;
+	}
+
+	/**
+	 * @return the number of (sorted) thresholds that are not above the score
+	 */
+	private int countThresholdsReached(double score) {
+		int low = 0;
+		int high = thresholds.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (thresholds[mid] <= score) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return the names of the comparators, in the order they were added
+	 */
+	public List<String> getComparatorNames() {
+		return comparatorNames;
+	}
+
+	/**
+	 * @return the number of pairs in the column store
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Writes the precision/recall/F1 surface to a CSV file, one line per
+	 * configuration and threshold
+	 */
+	public void writeCSV(List<Result> results, File file) throws IOException {
+		CSVWriter writer = new CSVWriter(new FileWriter(file));
+		List<String> header = new ArrayList<>(Arrays.asList("configuration", "combination"));
+		header.addAll(comparatorNames);
+		header.addAll(Arrays.asList("t", "foundCorrespondences", "p", "r", "f1", "truePositives",
+				"declaredDuplicates", "trueDuplicates"));
+		writer.writeNext(header.toArray(new String[header.size()]));
+
+		for (Result result : results) {
+			Configuration configuration = result.getConfiguration();
+			Performance performance = result.getPerformance();
+			List<String> values = new ArrayList<>(header.size());
+			values.add(configuration.getName());
+			values.add(configuration.getCombination().toString());
+			for (double weight : configuration.getWeights()) {
+				values.add(Double.toString(weight));
+			}
+			values.add(Double.toString(result.getThreshold()));
+			values.add(Integer.toString(result.getNumberOfCorrespondences()));
+			values.add(Double.toString(performance.getPrecision()));
+			values.add(Double.toString(performance.getRecall()));
+			values.add(Double.toString(performance.getF1()));
+			values.add(Integer.toString(performance.getNumberOfCorrectlyPredicted()));
+			values.add(Integer.toString(performance.getNumberOfPredicted()));
+			values.add(Integer.toString(performance.getNumberOfCorrectTotal()));
+			writer.writeNext(values.toArray(new String[values.size()]));
+		}
+		writer.close();
+	}
+}
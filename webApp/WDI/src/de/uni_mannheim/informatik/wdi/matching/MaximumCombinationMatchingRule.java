@@ -29,6 +29,8 @@ public class MaximumCombinationMatchingRule<RecordType extends Matchable, Schema
     private static final long serialVersionUID = 1L;
     private List<Pair<Comparator<RecordType, SchemaElementType>, Double>> comparators;
     private double offset;
+    private boolean costAware;
+    private CostAwareComparators<RecordType, SchemaElementType> costAwareComparators;
 
     /**
      * Initialises the rule. The finalThreshold determines the matching
@@ -66,6 +68,7 @@ public class MaximumCombinationMatchingRule<RecordType extends Matchable, Schema
         if (weight > 0.0) {
             comparators.add(new Pair<Comparator<RecordType, SchemaElementType>, Double>(
                     comparator, weight));
+            updateCostAwareComparators();
         } else {
             throw new Exception("Weight cannot be 0.0 or smaller");
         }
@@ -85,10 +88,63 @@ public class MaximumCombinationMatchingRule<RecordType extends Matchable, Schema
                     .getFirst(), (pair.getSecond() / sum)));
         }
         comparators = normComparators;
+        updateCostAwareComparators();
+    }
+
+    /**
+     * Enables or disables the cost-aware evaluation of the comparators. The cheapest comparators ({@link Comparator#getCost()})
+     * are evaluated first and the evaluation stops as soon as the match is
+     * certain. The similarity of the correspondence is then the highest
+     * similarity found until this point, which can be lower than the highest
+     * similarity of all comparators.
+     * 
+     * @param costAware
+     */
+    public void setCostAware(boolean costAware) {
+        this.costAware = costAware;
+        updateCostAwareComparators();
+    }
+
+    public boolean isCostAware() {
+        return costAware;
+    }
+
+    /**
+     * @return for every comparator (in the order they were added) the number of
+     *         comparisons that were skipped by the cost-aware evaluation
+     */
+    public long[] getSkippedComparisons() {
+        CostAwareComparators<RecordType, SchemaElementType> c = costAwareComparators;
+        return c == null ? new long[comparators.size()] : c.getSkippedComparisons();
+    }
+
+    /**
+     * @return the offset, the comparators and the final threshold
+     */
+    @Override
+    public String getDescription() {
+        StringBuilder description = new StringBuilder();
+        description.append(offset).append(" + max(");
+        for (int i = 0; i < comparators.size(); i++) {
+            if (i > 0) {
+                description.append(", ");
+            }
+            description.append(comparators.get(i).getFirst().getDescription());
+        }
+        return description.append(") >= ").append(getFinalThreshold()).toString();
+    }
+
+    private void updateCostAwareComparators() {
+        costAwareComparators = costAware ? new CostAwareComparators<>(comparators, false) : null;
     }
 
     @Override
     public Correspondence<RecordType, SchemaElementType> apply(RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
+        CostAwareComparators<RecordType, SchemaElementType> costAware = costAwareComparators;
+        if (costAware != null) {
+            return applyCostAware(costAware, record1, record2, schemaCorrespondences);
+        }
+
         double highest = 0.0;
         //double wHighest = 0.0;
         boolean isFirst = true;
@@ -124,17 +180,44 @@ public class MaximumCombinationMatchingRule<RecordType extends Matchable, Schema
         }
     }
 
+    /**
+     * Evaluates the comparators in cost-aware order and stops as soon as the
+     * highest similarity reaches the final threshold.
+     */
+    private Correspondence<RecordType, SchemaElementType> applyCostAware(CostAwareComparators<RecordType, SchemaElementType> costAware, RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
+        double highest = 0.0;
+        for (int p = 0; p < costAware.size(); p++) {
+            int i = costAware.getIndex(p);
+            double similarity = costAware.getComparator(i).compare(record1, record2, null);
+            if (p == 0 || similarity > highest) {
+                highest = similarity;
+            }
+
+            // the remaining comparators cannot lower the highest similarity
+            if (offset + highest >= getFinalThreshold() && offset + highest > 0.0) {
+                costAware.skipAfter(p);
+                break;
+            }
+        }
+
+        double similarity = offset + highest;
+
+        if (similarity >= getFinalThreshold() && similarity > 0.0) {
+            return createCorrespondence(record1, record2, schemaCorrespondences, similarity);
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public DefaultRecord generateFeatures(RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences, FeatureVectorDataSet features) {
-        DefaultRecord model = new DefaultRecord(String.format("%s-%s",
-                record1.getIdentifier(), record2.getIdentifier()), this
+        DefaultRecord model = new DefaultRecord(record1.getIdentifier() + "-" + record2.getIdentifier(), this
                 .getClass().getSimpleName());
 
         double sum = offset;
 
-        for (int i = 0; i < comparators.size(); i++) {
-            Pair<Comparator<RecordType, SchemaElementType>, Double> pair = comparators.get(i);
-
+        int i = 0;
+        for (Pair<Comparator<RecordType, SchemaElementType>, Double> pair : comparators) {
             Comparator<RecordType, SchemaElementType> comp = pair.getFirst();
 
             //double similarity = comp.compare(record1, record2, schemaCorrespondences);
@@ -143,18 +226,9 @@ public class MaximumCombinationMatchingRule<RecordType extends Matchable, Schema
 
             sum += (similarity * weight);
 
-            String name = String.format("[%d] %s", i, comp.getClass()
-                    .getSimpleName());
-            DefaultSchemaElement att = null;
-            for(DefaultSchemaElement elem : features.getAttributes()) {
-                if(elem.toString().equals(name)) {
-                    att = elem;
-                }
-            }
-            if(att==null) {
-                att = new DefaultSchemaElement(name);
-            }
+            DefaultSchemaElement att = features.getAttribute("[" + i + "] " + comp.getClass().getSimpleName());
             model.setValue(att, Double.toString(similarity));
+            i++;
         }
 
         model.setValue(FeatureVectorDataSet.ATTRIBUTE_FINAL_VALUE, Double.toString(sum));
@@ -29,6 +29,8 @@ public class MinimumCombinationMatchingRule<RecordType extends Matchable, Schema
     private static final long serialVersionUID = 1L;
     private List<Pair<Comparator<RecordType, SchemaElementType>, Double>> comparators;
     private double offset;
+    private boolean costAware;
+    private CostAwareComparators<RecordType, SchemaElementType> costAwareComparators;
 
     /**
      * Initialises the rule. The finalThreshold determines the matching
@@ -66,6 +68,7 @@ public class MinimumCombinationMatchingRule<RecordType extends Matchable, Schema
         if (weight > 0.0) {
             comparators.add(new Pair<Comparator<RecordType, SchemaElementType>, Double>(
                     comparator, weight));
+            updateCostAwareComparators();
         } else {
             throw new Exception("Weight cannot be 0.0 or smaller");
         }
@@ -85,10 +88,46 @@ public class MinimumCombinationMatchingRule<RecordType extends Matchable, Schema
                     .getFirst(), (pair.getSecond() / sum)));
         }
         comparators = normComparators;
+        updateCostAwareComparators();
+    }
+
+    /**
+     * Enables or disables the cost-aware evaluation of the comparators. The cheapest comparators ({@link Comparator#getCost()})
+     * are evaluated first and the evaluation stops as soon as the final
+     * threshold cannot be reached anymore. The matching decisions and
+     * similarities do not change.
+     * 
+     * @param costAware
+     */
+    public void setCostAware(boolean costAware) {
+        this.costAware = costAware;
+        updateCostAwareComparators();
+    }
+
+    public boolean isCostAware() {
+        return costAware;
+    }
+
+    /**
+     * @return for every comparator (in the order they were added) the number of
+     *         comparisons that were skipped by the cost-aware evaluation
+     */
+    public long[] getSkippedComparisons() {
+        CostAwareComparators<RecordType, SchemaElementType> c = costAwareComparators;
+        return c == null ? new long[comparators.size()] : c.getSkippedComparisons();
+    }
+
+    private void updateCostAwareComparators() {
+        costAwareComparators = costAware ? new CostAwareComparators<>(comparators, false) : null;
     }
 
     @Override
     public Correspondence<RecordType, SchemaElementType> apply(RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
+        CostAwareComparators<RecordType, SchemaElementType> costAware = costAwareComparators;
+        if (costAware != null) {
+            return applyCostAware(costAware, record1, record2, schemaCorrespondences);
+        }
+
         double lowest = 0.0;
         //double wLowest = 0.0;
         boolean isFirst = true;
@@ -124,17 +163,45 @@ public class MinimumCombinationMatchingRule<RecordType extends Matchable, Schema
         }
     }
 
+    /**
+     * Evaluates the comparators in cost-aware order and stops as soon as the
+     * lowest similarity is below the final threshold.
+     */
+    private Correspondence<RecordType, SchemaElementType> applyCostAware(CostAwareComparators<RecordType, SchemaElementType> costAware, RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
+        double lowest = 0.0;
+        for (int p = 0; p < costAware.size(); p++) {
+            int i = costAware.getIndex(p);
+            double similarity = costAware.getComparator(i).compare(record1, record2, null);
+            double weight = costAware.getWeight(i);
+            if (p == 0 || (similarity * weight) < lowest) {
+                lowest = similarity * weight;
+            }
+
+            // the remaining comparators cannot raise the lowest similarity
+            if (!(offset + lowest >= getFinalThreshold() && offset + lowest > 0.0)) {
+                costAware.skipAfter(p);
+                return null;
+            }
+        }
+
+        double similarity = offset + lowest;
+
+        if (similarity >= getFinalThreshold() && similarity > 0.0) {
+            return createCorrespondence(record1, record2, schemaCorrespondences, similarity);
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public DefaultRecord generateFeatures(RecordType record1, RecordType record2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences, FeatureVectorDataSet features) {
-        DefaultRecord model = new DefaultRecord(String.format("%s-%s",
-                record1.getIdentifier(), record2.getIdentifier()), this
+        DefaultRecord model = new DefaultRecord(record1.getIdentifier() + "-" + record2.getIdentifier(), this
                 .getClass().getSimpleName());
 
         double sum = offset;
 
-        for (int i = 0; i < comparators.size(); i++) {
-            Pair<Comparator<RecordType, SchemaElementType>, Double> pair = comparators.get(i);
-
+        int i = 0;
+        for (Pair<Comparator<RecordType, SchemaElementType>, Double> pair : comparators) {
             Comparator<RecordType, SchemaElementType> comp = pair.getFirst();
 
             //double similarity = comp.compare(record1, record2, schemaCorrespondences);
@@ -143,18 +210,9 @@ public class MinimumCombinationMatchingRule<RecordType extends Matchable, Schema
 
             sum += (similarity * weight);
 
-            String name = String.format("[%d] %s", i, comp.getClass()
-                    .getSimpleName());
-            DefaultSchemaElement att = null;
-            for(DefaultSchemaElement elem : features.getAttributes()) {
-                if(elem.toString().equals(name)) {
-                    att = elem;
-                }
-            }
-            if(att==null) {
-                att = new DefaultSchemaElement(name);
-            }
+            DefaultSchemaElement att = features.getAttribute("[" + i + "] " + comp.getClass().getSimpleName());
             model.setValue(att, Double.toString(similarity));
+            i++;
         }
 
         model.setValue(FeatureVectorDataSet.ATTRIBUTE_FINAL_VALUE, Double.toString(sum));
@@ -3,243 +3,225 @@ package de.uni_mannheim.informatik.wdi.matching.blocking;
 import de.uni_mannheim.informatik.wdi.model.ResultSet;
 import de.uni_mannheim.informatik.wdi.processing.Group;
 
-import java.lang.reflect.Array;
-import java.security.Key;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Created by Daniel Ringler on 20/03/17.
  * Based on BlockFiltering by http://l3s.de/~papadakis/erFramework.html
+ *
+ * The records are interned to int ids (see {@link RecordIndex}), blocks are int arrays of record ids and the
+ * block assignments of all entities are stored in two flat int arrays, so no objects are created per block membership.
+ * The blocks to keep are selected in parallel for all entities.
  */
 public class BlockFiltering  {
 
     public static <RecordType, KeyType> List<Map<KeyType, List<RecordType>>> runBlockFiltering(double r, Map<KeyType, List<RecordType>> joinKeys1, Map<KeyType, List<RecordType>> joinKeys2) {
         List<Map<KeyType, List<RecordType>>> resultList = new ArrayList<>();
 
-        HashMap<KeyType, Long> blockCardinalities = new HashMap<>();
-        HashMap<RecordType, List<KeyType>> entityBlockAssignments1 =  new HashMap<>();
-        HashMap<RecordType, List<KeyType>> entityBlockAssignments2 = new HashMap<>();
-
-
+        // all block keys, blocks from joinKeys2 that do not exist in joinKeys1 are added at the end
+        List<KeyType> keys = new ArrayList<>(joinKeys1.keySet());
+        for (KeyType key2 : joinKeys2.keySet()) {
+            if (!joinKeys1.containsKey(key2)) {
+                keys.add(key2);
+            }
+        }
 
-        /*
-        countEntities(blocks);
-        sortBlocks(blocks);
-        getLimits(blocks);
-        initializeCounters();
-        restructureBlocks(blocks);
-    */
+        // intern the records, blockMembers[b] contains the record ids of block b (null if the block does not exist)
+        RecordIndex<RecordType> index1 = new RecordIndex<>();
+        RecordIndex<RecordType> index2 = new RecordIndex<>();
+        int[][] blockMembers1 = getBlockMembers(keys, joinKeys1, index1);
+        int[][] blockMembers2 = getBlockMembers(keys, joinKeys2, index2);
 
         //get block cardinalities(=number of comparisons in block)
-        getBlockCardinalities(joinKeys1, joinKeys2, blockCardinalities);
-
-        //sort blocks in desc order of cardinality
-       /* HashMap<String, Long> sortedBlockCardinalities = blockCardinalities.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue(Collections.reverseOrder()))
-                .collect(Collectors.toMap(Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1,e2)->e1,
-                        LinkedHashMap::new));
-        */
+        long[] blockCardinalities = getBlockCardinalities(blockMembers1, blockMembers2);
+
+        //sort blocks on cardinality, blocksByRank[i] is the block with rank i
+        int[] blocksByRank = sortBlocks(blockCardinalities);
 
         // get entities with all block assignments
-        getEntityBlockAssignment(joinKeys1, joinKeys2, entityBlockAssignments1, entityBlockAssignments2);
+        EntityBlockAssignment entityBlockAssignments1 = new EntityBlockAssignment(blockMembers1, index1.size());
+        EntityBlockAssignment entityBlockAssignments2 = new EntityBlockAssignment(blockMembers2, index2.size());
         System.out.println(String.format("Entity block assignments received. Removing entities from largest blocks..."));
 
-
         //delete entities from largest blocks
-        removeEntitiesFromBlocks(r, blockCardinalities, entityBlockAssignments1, joinKeys1);
+        removeEntitiesFromBlocks(r, blocksByRank, entityBlockAssignments1, blockMembers1);
+        updateBlocks(keys, blockMembers1, joinKeys1, index1);
         System.out.println(String.format("Entities removed from blocks for first dataset"));
-        removeEntitiesFromBlocks(r, blockCardinalities, entityBlockAssignments2, joinKeys2);
+        removeEntitiesFromBlocks(r, blocksByRank, entityBlockAssignments2, blockMembers2);
+        updateBlocks(keys, blockMembers2, joinKeys2, index2);
         System.out.println(String.format("Entities removed from blocks for second dataset. Done with block filtering"));
 
-        //get new block cardinality
-        //getBlockCardinalities(joinKeys1, joinKeys2, blockCardinalities);
-
         resultList.add(joinKeys1);
         resultList.add(joinKeys2);
 
         return resultList;
     }
 
-    private static <KeyType, RecordType> void getEntityBlockAssignment(Map<KeyType, List<RecordType>> joinKeys1,
-                                                                       Map<KeyType, List<RecordType>> joinKeys2,
-                                                                       HashMap<RecordType, List<KeyType>> entityBlockAssignments1,
-                                                                       HashMap<RecordType, List<KeyType>> entityBlockAssignments2) {
-        for (KeyType key1 : joinKeys1.keySet()) {
-            List<RecordType> block1 = joinKeys1.get(key1);
-            List<RecordType> block2 = joinKeys2.get(key1);
-            if (block2 != null) {
-                //cast objects
-                ResultSet<RecordType> rs1 = (ResultSet) ((Group) block1.get(0)).getRecords();
-                ResultSet<RecordType> rs2 = (ResultSet) ((Group) block2.get(0)).getRecords();
-                // get block assignments for the entities
-                addRecordsToBlockAssignement(key1, rs1, entityBlockAssignments1);
-                addRecordsToBlockAssignement(key1, rs2, entityBlockAssignments2);
-            } else {
-                addEntitiesFromSingleKG(key1, block1, entityBlockAssignments1);
-
+    /**
+     * The entities of a data set with the blocks they are assigned to, stored in compressed sparse row format:
+     * the blocks of entity e are blocks[offsets[e]] to blocks[offsets[e+1]-1].
+     */
+    static class EntityBlockAssignment {
+
+        int[] offsets;
+        int[] blocks;
+
+        public EntityBlockAssignment(int[][] blockMembers, int numberOfEntities) {
+            offsets = new int[numberOfEntities + 1];
+            for (int[] members : blockMembers) {
+                if (members != null) {
+                    for (int entity : members) {
+                        offsets[entity + 1]++;
+                    }
+                }
             }
-        }
-        //add single blocks from joinKeys2
-        for (KeyType key2 : joinKeys2.keySet()) {
-            List<RecordType> block1 = joinKeys1.get(key2);
-            List<RecordType> block2 = joinKeys2.get(key2);
-            if (block1 == null) {
-                addEntitiesFromSingleKG(key2, block2, entityBlockAssignments2);
+            for (int e = 0; e < numberOfEntities; e++) {
+                offsets[e + 1] += offsets[e];
             }
-        }
-    }
 
-    private static <KeyType, RecordType> void getBlockCardinalities(Map<KeyType, List<RecordType>> joinKeys1, Map<KeyType, List<RecordType>> joinKeys2, HashMap<KeyType, Long> blockCardinalities) {
-        long totalCardinality = 0;
-        for (KeyType key1 : joinKeys1.keySet()) {
-            List<RecordType> block1 = joinKeys1.get(key1);
-            List<RecordType> block2 = joinKeys2.get(key1);
-            if (block2 != null) {
-                //cast objects
-                ResultSet<RecordType> rs1 = (ResultSet) ((Group) block1.get(0)).getRecords();
-                ResultSet<RecordType> rs2 = (ResultSet) ((Group) block2.get(0)).getRecords();
-                // get block cardinalities
-                long blockCardinality = (long) rs1.size() * (long) rs2.size();
-                blockCardinalities.put(key1, blockCardinality);
-                totalCardinality = totalCardinality + blockCardinality;
-            } else {
-                blockCardinalities.put(key1, (long) 0);
-            }
-        }
-        //add single blocks from joinKeys2
-        for (KeyType key2 : joinKeys2.keySet()) {
-            List<RecordType> block1 = joinKeys1.get(key2);
-            List<RecordType> block2 = joinKeys2.get(key2);
-            if (block1 == null) {
-                blockCardinalities.put(key2, (long) 0);
+            blocks = new int[offsets[numberOfEntities]];
+            int[] next = Arrays.copyOf(offsets, numberOfEntities);
+            for (int b = 0; b < blockMembers.length; b++) {
+                if (blockMembers[b] != null) {
+                    for (int entity : blockMembers[b]) {
+                        blocks[next[entity]++] = b;
+                    }
+                }
             }
         }
-        System.out.println(String.format("Block cardinality: %,d", totalCardinality));
-    }
-
-    private static <KeyType, RecordType> void removeEntitiesFromBlocks(double r,
-                                                                       HashMap<KeyType, Long> blockCardinalities,
-                                                                       HashMap<RecordType, List<KeyType>> entityBlockAssignments,
-                                                                       Map<KeyType, List<RecordType>> joinKeys) {
 
-        //gather blocks to delete
-        HashMap<KeyType, HashSet<RecordType>> blocksToRemove  = new HashMap<>();
-        int s = entityBlockAssignments.entrySet().size() / 10;
-        if (s==0) {
-            s=1;
-        }
-        int p = 0;
-        for (Map.Entry<RecordType, List<KeyType>> entry : entityBlockAssignments.entrySet()) {
-            //HashSet<KeyType> blocksToRemoveForEntity = removeEntityFromBlocks(entry, r, blockCardinalities, joinKeys);
-            addBlocksToRemove(entry.getKey(), blocksToRemove, removeEntityFromBlocks(entry, r, blockCardinalities, joinKeys));
-            p++;
-            if (p % s == 0) {
-                System.out.println(String.format("%,d entities processed", p));
-            }
+        public int getNumberOfEntities() {
+            return offsets.length - 1;
         }
 
-        /*entityBlockAssignments.entrySet().stream()
-            .forEach(
-                entry -> addBlocksToRemove(entry.getKey(), blocksToRemove, removeEntityFromBlocks(entry, r, blockCardinalities, joinKeys)
-        ));*/
+        /**
+         * Replaces the block ids by the ranks of the blocks and sorts the ranks of every entity (in parallel), so the
+         * blocks of an entity are ordered from smallest to largest cardinality.
+         */
+        public void replaceBlocksByRanks(int[] blocksByRank) {
+            int[] rank = new int[blocksByRank.length];
+            for (int i = 0; i < blocksByRank.length; i++) {
+                rank[blocksByRank[i]] = i;
+            }
 
-        //delete blocks
-        deleteEntitiesFromBlocks(joinKeys, blocksToRemove);
+            IntStream.range(0, getNumberOfEntities()).parallel().forEach(e -> {
+                for (int i = offsets[e]; i < offsets[e + 1]; i++) {
+                    blocks[i] = rank[blocks[i]];
+                }
+                Arrays.sort(blocks, offsets[e], offsets[e + 1]);
+            });
+        }
+    }
 
+    /**
+     * @return the number of blocks an entity with the given number of blocks is kept in, ceil(r * numberOfBlocks)
+     */
+    public static int getNumberOfKeptBlocks(int numberOfBlocks, double r) {
+        // r * number of blocks can be slightly above an integer because of rounding errors
+        return Math.min(numberOfBlocks, (int) Math.ceil(numberOfBlocks * r - 1e-9));
     }
 
-    private static <KeyType, RecordType> void deleteEntitiesFromBlocks(Map<KeyType, List<RecordType>> joinKeys, HashMap<KeyType, HashSet<RecordType>> blocksToRemove) {
-        for (Map.Entry<KeyType, HashSet<RecordType>> entry : blocksToRemove.entrySet()) {
-            for (RecordType recordToDelete : entry.getValue()) {
-                if (joinKeys.containsKey(entry.getKey())) {
-                    //if (((Group) joinKeys.get(entry.getKey()).get(0)).getRecords().contains(recordToDelete)) {
-                        ((Group) joinKeys.get(entry.getKey()).get(0)).getRecords().remove(recordToDelete);
-                    //}
-                }
+    private static <KeyType, RecordType> int[][] getBlockMembers(List<KeyType> keys, Map<KeyType, List<RecordType>> joinKeys, RecordIndex<RecordType> index) {
+        int[][] blockMembers = new int[keys.size()][];
+        for (int b = 0; b < keys.size(); b++) {
+            List<RecordType> block = joinKeys.get(keys.get(b));
+            if (block != null) {
+                //cast objects
+                ResultSet<RecordType> rs = (ResultSet) ((Group) block.get(0)).getRecords();
+                blockMembers[b] = index.intern(rs.get());
             }
         }
+        return blockMembers;
     }
 
-    private static <RecordType, KeyType> void addBlocksToRemove(RecordType entity, HashMap<KeyType, HashSet<RecordType>> blocksToRemove, HashSet<KeyType> blocksToRemoveForEntity) {
-        for (KeyType block : blocksToRemoveForEntity) {
-            if (blocksToRemove.containsKey(block)) {
-                blocksToRemove.get(block).add(entity);
-            } else {
-                HashSet<RecordType> entities = new HashSet<>();
-                entities.add(entity);
-                blocksToRemove.put(block, entities);
+    private static long[] getBlockCardinalities(int[][] blockMembers1, int[][] blockMembers2) {
+        long totalCardinality = 0;
+        long[] blockCardinalities = new long[blockMembers1.length];
+        for (int b = 0; b < blockMembers1.length; b++) {
+            // blocks that only exist in one data set have cardinality 0
+            if (blockMembers1[b] != null && blockMembers2[b] != null) {
+                blockCardinalities[b] = (long) blockMembers1[b].length * (long) blockMembers2[b].length;
+                totalCardinality = totalCardinality + blockCardinalities[b];
             }
         }
+        System.out.println(String.format("Block cardinality: %,d", totalCardinality));
+        return blockCardinalities;
     }
 
+    /**
+     * Sorts the blocks in ascending order of cardinality, ties are broken by block id so all entities use the same
+     * order.
+     *
+     * @return the block ids in sorted order, i.e. the block with rank i is at position i
+     */
+    static int[] sortBlocks(long[] blockCardinalities) {
+        return IntStream.range(0, blockCardinalities.length)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer block) -> blockCardinalities[block]).thenComparingInt(block -> block))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
 
-
-    private static <RecordType, KeyType> HashSet<KeyType> removeEntityFromBlocks(Map.Entry<RecordType, List<KeyType>> entry,
-                                                                    double r,
-                                                                    HashMap<KeyType, Long> blockCardinalities,
-                                                                    Map<KeyType, List<RecordType>> joinKeys) {
-        int numberOfBlocks = entry.getValue().size();
-        int limitOfBlocks = (int) Math.floor(numberOfBlocks * r);
-
-        // get block cardinalities of entity
-        HashMap<KeyType, Long> entityBlocks = new HashMap<>();
-        for (KeyType block : entry.getValue()) {
-            entityBlocks.put(block, blockCardinalities.get(block));
+    /**
+     * Removes every entity from its largest blocks, only the ceil(r * |blocks of the entity|) blocks with the lowest
+     * rank are kept. The blocks to keep are selected in parallel for all entities by sorting the ranks of their blocks,
+     * then all blocks are rebuilt in a single pass over the kept assignments. The blocks in blockMembers are replaced
+     * by the filtered blocks.
+     */
+    private static void removeEntitiesFromBlocks(double r, int[] blocksByRank, EntityBlockAssignment assignment, int[][] blockMembers) {
+        int[] offsets = assignment.offsets;
+        int[] blocks = assignment.blocks;
+        int numberOfEntities = assignment.getNumberOfEntities();
+
+        // the ranks of the blocks that are kept for entity e are blocks[offsets[e]] to blocks[keptUntil[e]-1]
+        assignment.replaceBlocksByRanks(blocksByRank);
+        int[] keptUntil = new int[numberOfEntities];
+        for (int e = 0; e < numberOfEntities; e++) {
+            keptUntil[e] = offsets[e] + getNumberOfKeptBlocks(offsets[e + 1] - offsets[e], r);
         }
+        System.out.println(String.format("%,d entities processed", numberOfEntities));
 
-        //sort blocks on cardinality
-        HashMap<KeyType, Long> sortedEntityBlocks = entityBlocks.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue())
-                .collect(Collectors.toMap(Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1,e2)->e1,
-                        LinkedHashMap::new));
-
-
-        //remove entity from largest blocks
-        HashSet<KeyType> blocksToRemove = new HashSet<KeyType>();
-        int processedBlocks = 0;
-        for (KeyType block : sortedEntityBlocks.keySet()) {
-            if (processedBlocks >= limitOfBlocks) {
-                //delete entity from blocks
-                //((Group) joinKeys.get(block).get(0)).getRecords().remove(entry.getKey());
-                blocksToRemove.add(block);
+        // rebuild the blocks from the kept assignments
+        int[] blockSizes = new int[blockMembers.length];
+        for (int e = 0; e < numberOfEntities; e++) {
+            for (int i = offsets[e]; i < keptUntil[e]; i++) {
+                blockSizes[blocksByRank[blocks[i]]]++;
             }
-            processedBlocks++;
         }
-        return blocksToRemove;
-    }
-
-
-    private static <KeyType, RecordType> void addEntitiesFromSingleKG(KeyType key, List<RecordType> block, HashMap<RecordType, List<KeyType>> entityBlockAssignments) {
-        Group<KeyType, RecordType> b = (Group) block.get(0);
-        ResultSet<RecordType> rs = (ResultSet) ((Group) block.get(0)).getRecords();
-        //sortedBlockCardinalities.put(blockCardinality, key.toString());
-        addRecordsToBlockAssignement(key, rs, entityBlockAssignments);
-    }
-
-    private static <KeyType, RecordType> void addRecordsToBlockAssignement(KeyType blockKey, ResultSet<RecordType> rs, HashMap<RecordType, List<KeyType>> entityBlockAssignments) {
-        for (RecordType r : rs.get()) {
-            //Record r  = (Record) rt;
-            //String eventIdentifier = e.getIdentifier();
-            addRecordToBlockAssignement(r, blockKey, entityBlockAssignments);
+        for (int b = 0; b < blockMembers.length; b++) {
+            if (blockMembers[b] != null && blockSizes[b] != blockMembers[b].length) {
+                blockMembers[b] = new int[blockSizes[b]];
+            } else {
+                // block is unchanged or does not exist in this data set
+                blockSizes[b] = -1;
+            }
+        }
+        int[] next = new int[blockMembers.length];
+        for (int e = 0; e < numberOfEntities; e++) {
+            for (int i = offsets[e]; i < keptUntil[e]; i++) {
+                int block = blocksByRank[blocks[i]];
+                if (blockSizes[block] >= 0) {
+                    blockMembers[block][next[block]++] = e;
+                }
+            }
         }
     }
 
-    private static <KeyType, RecordType> void addRecordToBlockAssignement(RecordType r, KeyType blockKey, HashMap<RecordType, List<KeyType>> entityBlockAssignments) {
-        if (entityBlockAssignments.containsKey(r)) {
-            List<KeyType> blockKeys = entityBlockAssignments.get(r);
-            blockKeys.add(blockKey);
-        } else {
-            // create new entry
-            ArrayList<KeyType> blockKeys = new ArrayList<>();
-            blockKeys.add(blockKey);
-            entityBlockAssignments.put(r, blockKeys);
+    /**
+     * Writes the filtered blocks back to the groups in joinKeys.
+     */
+    private static <KeyType, RecordType> void updateBlocks(List<KeyType> keys, int[][] blockMembers, Map<KeyType, List<RecordType>> joinKeys, RecordIndex<RecordType> index) {
+        for (int b = 0; b < keys.size(); b++) {
+            if (blockMembers[b] != null) {
+                ResultSet<RecordType> rs = (ResultSet) ((Group) joinKeys.get(keys.get(b)).get(0)).getRecords();
+                if (rs.size() != blockMembers[b].length) {
+                    rs.get().clear();
+                    for (int entity : blockMembers[b]) {
+                        rs.add(index.getRecord(entity));
+                    }
+                }
+            }
         }
     }
 
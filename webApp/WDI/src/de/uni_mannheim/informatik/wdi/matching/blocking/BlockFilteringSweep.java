@@ -0,0 +1,281 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import java.util.stream.IntStream;
+
+import de.uni_mannheim.informatik.wdi.model.IndexPairResultSet;
+
+/**
+ * Evaluates the Block Filtering of the blocking framework
+ * (http://l3s.de/~papadakis/erFramework.html, BlockProcessing.BlockRefinement.BlockFiltering) for many ratios on the
+ * same blocks, so the blocks are built once instead of once per ratio.
+ *
+ * Like the framework, the blocks are sorted by cardinality (ties keep the order of the blocks), every entity may stay
+ * in round(r * |blocks of the entity|) blocks and the blocks are processed in sorted order: an entity stays in a block
+ * while it is below its limit, and the block is only kept (and counted for its entities) if entities of both data
+ * sets stay in it. So the results are the same as applying the framework's Block Filtering to the blocks. This
+ * differs from {@link BlockFiltering}, which keeps ceil(r * |blocks|) blocks per entity independently of the other
+ * entities.
+ *
+ * The sorting and the block assignments are computed once, every ratio is then one pass over the sorted blocks (the
+ * ratios are evaluated in parallel).
+ *
+ * Blocks are given as arrays of entity ids (one array per data set, null if a block does not exist in a data set),
+ * duplicates as packed pairs of entity ids (see {@link IndexPairResultSet#pack(int, int)}).
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class BlockFilteringSweep {
+	/**
+	 * The performance of block filtering with one ratio.
+	 */
+	public static class Result {
+
+		private double ratio;
+		private int numberOfBlocks;
+		private long comparisons;
+		private int detectedDuplicates;
+		private double pairCompleteness;
+		private double pairQuality;
+		private double reductionRatio;
+
+		public double getRatio() {
+			return ratio;
+		}
+
+		/**
+		 * @return the number of blocks that still contain at least one comparison
+		 */
+		public int getNumberOfBlocks() {
+			return numberOfBlocks;
+		}
+
+		public long getComparisons() {
+			return comparisons;
+		}
+
+		public int getDetectedDuplicates() {
+			return detectedDuplicates;
+		}
+
+		/**
+		 * @return PC, the fraction of duplicates that share at least one block
+		 */
+		public double getPairCompleteness() {
+			return pairCompleteness;
+		}
+
+		/**
+		 * @return PQ, detected duplicates per comparison
+		 */
+		public double getPairQuality() {
+			return pairQuality;
+		}
+
+		/**
+		 * @return RR, compared to all pairs of the two data sets
+		 */
+		public double getReductionRatio() {
+			return reductionRatio;
+		}
+	}
+
+	private int[][] blockMembers1;
+	private int[][] blockMembers2;
+	private int numberOfEntities1;
+	private int numberOfEntities2;
+
+	/**
+	 * @param blockMembers1
+	 *            the ids of the entities of the first data set in every block
+	 * @param blockMembers2
+	 *            the ids of the entities of the second data set in every block
+	 * @param numberOfEntities1
+	 *            the number of entities in the first data set (ids must be
+	 *            smaller)
+	 * @param numberOfEntities2
+	 *            the number of entities in the second data set (ids must be
+	 *            smaller)
+	 */
+	public BlockFilteringSweep(int[][] blockMembers1, int[][] blockMembers2, int numberOfEntities1, int numberOfEntities2) {
+		this.blockMembers1 = blockMembers1;
+		this.blockMembers2 = blockMembers2;
+		this.numberOfEntities1 = numberOfEntities1;
+		this.numberOfEntities2 = numberOfEntities2;
+	}
+
+	/**
+	 * Evaluates block filtering for all given ratios.
+	 *
+	 * @param ratios
+	 *            the ratios, in any order
+	 * @param duplicates
+	 *            the duplicates from the gold standard, packed pairs of (id in
+	 *            first data set, id in second data set)
+	 * @return the results in the order of the ratios
+	 */
+	public Result[] run(double[] ratios, long[] duplicates) {
+		int numberOfBlocks = blockMembers1.length;
+
+		// sort the blocks once for all ratios
+		long[] blockCardinalities = new long[numberOfBlocks];
+		for (int b = 0; b < numberOfBlocks; b++) {
+			int size1 = blockMembers1[b] == null ? 0 : blockMembers1[b].length;
+			int size2 = blockMembers2[b] == null ? 0 : blockMembers2[b].length;
+			blockCardinalities[b] = (long) size1 * (long) size2;
+		}
+		int[] blocksByRank = BlockFiltering.sortBlocks(blockCardinalities);
+
+		// offsets[e] is the position of the first kept block of entity e in the
+		// kept blocks of a ratio (the number of blocks of e are the limit for r = 1)
+		int[] offsets1 = getOffsets(blockMembers1, numberOfEntities1);
+		int[] offsets2 = getOffsets(blockMembers2, numberOfEntities2);
+
+		Result[] results = new Result[ratios.length];
+		IntStream.range(0, ratios.length).parallel().forEach(
+				i -> results[i] = run(ratios[i], blocksByRank, offsets1, offsets2, duplicates));
+		return results;
+	}
+
+	/**
+	 * Applies block filtering with one ratio.
+	 */
+	private Result run(double r, int[] blocksByRank, int[] offsets1, int[] offsets2, long[] duplicates) {
+		int[] limits1 = getLimits(offsets1, r);
+		int[] limits2 = getLimits(offsets2, r);
+
+		// counters[e] is the number of kept blocks of entity e, their ranks are
+		// keptBlocks[offsets[e]] to keptBlocks[offsets[e] + counters[e] - 1] (in
+		// ascending order)
+		int[] counters1 = new int[numberOfEntities1];
+		int[] counters2 = new int[numberOfEntities2];
+		int[] keptBlocks1 = new int[offsets1[numberOfEntities1]];
+		int[] keptBlocks2 = new int[offsets2[numberOfEntities2]];
+
+		int[] retained1 = new int[numberOfEntities1];
+		int[] retained2 = new int[numberOfEntities2];
+		long comparisons = 0;
+		int keptBlocks = 0;
+		for (int rank = 0; rank < blocksByRank.length; rank++) {
+			int b = blocksByRank[rank];
+			int size1 = retain(blockMembers1[b], counters1, limits1, retained1);
+			int size2 = retain(blockMembers2[b], counters2, limits2, retained2);
+			if (size1 > 0 && size2 > 0) {
+				for (int j = 0; j < size1; j++) {
+					int e = retained1[j];
+					keptBlocks1[offsets1[e] + counters1[e]++] = rank;
+				}
+				for (int j = 0; j < size2; j++) {
+					int e = retained2[j];
+					keptBlocks2[offsets2[e] + counters2[e]++] = rank;
+				}
+				comparisons += (long) size1 * (long) size2;
+				keptBlocks++;
+			}
+		}
+
+		int detected = 0;
+		for (long duplicate : duplicates) {
+			int e1 = IndexPairResultSet.first(duplicate);
+			int e2 = IndexPairResultSet.second(duplicate);
+			if (haveCommonBlock(keptBlocks1, offsets1[e1], counters1[e1], keptBlocks2, offsets2[e2], counters2[e2])) {
+				detected++;
+			}
+		}
+
+		Result result = new Result();
+		result.ratio = r;
+		result.numberOfBlocks = keptBlocks;
+		result.comparisons = comparisons;
+		result.detectedDuplicates = detected;
+		result.pairCompleteness = duplicates.length == 0 ? 0.0 : (double) detected / duplicates.length;
+		result.pairQuality = comparisons == 0 ? 0.0 : (double) detected / comparisons;
+		result.reductionRatio = 1.0 - (double) comparisons / ((double) numberOfEntities1 * (double) numberOfEntities2);
+		return result;
+	}
+
+	/**
+	 * @return the offsets of the entities in an array with one element per block
+	 *         assignment
+	 */
+	private int[] getOffsets(int[][] blockMembers, int numberOfEntities) {
+		int[] offsets = new int[numberOfEntities + 1];
+		for (int[] members : blockMembers) {
+			if (members != null) {
+				for (int entity : members) {
+					offsets[entity + 1]++;
+				}
+			}
+		}
+		for (int e = 0; e < numberOfEntities; e++) {
+			offsets[e + 1] += offsets[e];
+		}
+		return offsets;
+	}
+
+	/**
+	 * @return the number of blocks every entity may stay in, rounded like the
+	 *         framework's Block Filtering
+	 */
+	private int[] getLimits(int[] offsets, double r) {
+		int[] limits = new int[offsets.length - 1];
+		for (int e = 0; e < limits.length; e++) {
+			limits[e] = (int) Math.round(r * (offsets[e + 1] - offsets[e]));
+		}
+		return limits;
+	}
+
+	/**
+	 * Writes the members of the block that are below their limit to retained.
+	 *
+	 * @return the number of retained members
+	 */
+	private int retain(int[] members, int[] counters, int[] limits, int[] retained) {
+		int size = 0;
+		if (members != null) {
+			for (int entity : members) {
+				if (counters[entity] < limits[entity]) {
+					retained[size++] = entity;
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return true if the two sorted rank lists have a common element
+	 */
+	private boolean haveCommonBlock(int[] blocks1, int from1, int length1, int[] blocks2, int from2, int length2) {
+		int i = from1;
+		int end1 = from1 + length1;
+		int j = from2;
+		int end2 = from2 + length2;
+		while (i < end1 && j < end2) {
+			if (blocks1[i] < blocks2[j]) {
+				i++;
+			} else if (blocks1[i] > blocks2[j]) {
+				j++;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+}
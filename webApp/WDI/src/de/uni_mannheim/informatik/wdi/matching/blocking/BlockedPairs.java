@@ -0,0 +1,227 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import de.uni_mannheim.informatik.wdi.matching.MatchingTask;
+import de.uni_mannheim.informatik.wdi.model.Correspondence;
+import de.uni_mannheim.informatik.wdi.model.Matchable;
+import de.uni_mannheim.informatik.wdi.model.Pair;
+import de.uni_mannheim.informatik.wdi.model.ResultSet;
+
+/**
+ * A {@link ResultSet} of {@link BlockedMatchable}s that only stores the blocks
+ * created by a {@link Blocker}. The pairs of a block are generated while the
+ * result set is iterated, so the memory needed for blocking is bounded by the
+ * blocks and not by the number of comparisons. The number of pairs is
+ * calculated from the block sizes.
+ *
+ * A block either consists of two collections (records from the first and the
+ * second data set, all combinations are generated) or of a single list (records
+ * from one data set, every unordered pair is generated once).
+ *
+ * @author Daniel Ringler
+ *
+ * @param <RecordType>
+ * @param <SchemaElementType>
+ */
+public class BlockedPairs<RecordType extends Matchable, SchemaElementType> extends ResultSet<BlockedMatchable<RecordType, SchemaElementType>> {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<Pair<Collection<RecordType>, Collection<RecordType>>> blocks = new ArrayList<>();
+	private ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences;
+	private long numberOfPairs = 0;
+
+	public BlockedPairs(ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
+		super(null);
+		this.schemaCorrespondences = schemaCorrespondences;
+		this.elements = new PairCollection();
+	}
+
+	/**
+	 * Adds a block with records from two data sets. Every record of the first
+	 * collection will be paired with every record of the second collection.
+	 *
+	 * @param first
+	 * @param second
+	 */
+	public void addBlock(Collection<RecordType> first, Collection<RecordType> second) {
+		if (first.size() > 0 && second.size() > 0) {
+			blocks.add(new Pair<>(first, second));
+			numberOfPairs += (long) first.size() * (long) second.size();
+		}
+	}
+
+	/**
+	 * Adds a block with records from a single data set. Every unordered pair of
+	 * records is generated once.
+	 *
+	 * @param block
+	 */
+	public void addBlock(Collection<RecordType> block) {
+		if (block.size() > 1) {
+			blocks.add(new Pair<Collection<RecordType>, Collection<RecordType>>(new ArrayList<>(block), null));
+			numberOfPairs += (long) block.size() * (long) (block.size() - 1) / 2;
+		}
+	}
+
+	/**
+	 * @return the blocks, a block from a single data set has null as second
+	 *         element
+	 */
+	public List<Pair<Collection<RecordType>, Collection<RecordType>>> getBlocks() {
+		return Collections.unmodifiableList(blocks);
+	}
+
+	/**
+	 * @return the number of pairs that are generated when iterating this result
+	 *         set
+	 */
+	public long getNumberOfPairs() {
+		return numberOfPairs;
+	}
+
+	/**
+	 * Returns the number of pairs, or Integer.MAX_VALUE if there are more pairs.
+	 * Use {@link #getNumberOfPairs()} to get the exact value.
+	 */
+	@Override
+	public int size() {
+		return (int) Math.min(numberOfPairs, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public void add(BlockedMatchable<RecordType, SchemaElementType> element) {
+		throw new UnsupportedOperationException("Pairs cannot be added to BlockedPairs, use addBlock instead.");
+	}
+
+	@Override
+	public void remove(BlockedMatchable<RecordType, SchemaElementType> element) {
+		throw new UnsupportedOperationException("Pairs cannot be removed from BlockedPairs.");
+	}
+
+	@Override
+	public void remove(Collection<BlockedMatchable<RecordType, SchemaElementType>> element) {
+		throw new UnsupportedOperationException("Pairs cannot be removed from BlockedPairs.");
+	}
+
+	@Override
+	public void deduplicate() {
+		throw new UnsupportedOperationException("BlockedPairs cannot be deduplicated.");
+	}
+
+	/**
+	 * Read-only view on the pairs of all blocks.
+	 */
+	private class PairCollection extends AbstractCollection<BlockedMatchable<RecordType, SchemaElementType>> {
+
+		@Override
+		public Iterator<BlockedMatchable<RecordType, SchemaElementType>> iterator() {
+			return new PairIterator();
+		}
+
+		@Override
+		public int size() {
+			return BlockedPairs.this.size();
+		}
+	}
+
+	/**
+	 * Generates the pairs of one block at a time.
+	 */
+	private class PairIterator implements Iterator<BlockedMatchable<RecordType, SchemaElementType>> {
+
+		private Iterator<Pair<Collection<RecordType>, Collection<RecordType>>> blockIterator = blocks.iterator();
+
+		// current block with two sides
+		private Iterator<RecordType> firstIterator;
+		private Collection<RecordType> second;
+		private Iterator<RecordType> secondIterator;
+		private RecordType currentFirst;
+
+		// current block with one side
+		private List<RecordType> single;
+		private int i;
+		private int j;
+
+		private BlockedMatchable<RecordType, SchemaElementType> next = advance();
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public BlockedMatchable<RecordType, SchemaElementType> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			BlockedMatchable<RecordType, SchemaElementType> current = next;
+			next = advance();
+			return current;
+		}
+
+		private BlockedMatchable<RecordType, SchemaElementType> advance() {
+			while (true) {
+				if (single != null) {
+					if (j >= single.size()) {
+						i++;
+						j = i + 1;
+					}
+					if (j < single.size()) {
+						return new MatchingTask<RecordType, SchemaElementType>(single.get(i), single.get(j++), schemaCorrespondences);
+					}
+				} else if (firstIterator != null) {
+					if (secondIterator != null && secondIterator.hasNext()) {
+						return new MatchingTask<RecordType, SchemaElementType>(currentFirst, secondIterator.next(), schemaCorrespondences);
+					}
+					if (firstIterator.hasNext()) {
+						currentFirst = firstIterator.next();
+						secondIterator = second.iterator();
+						continue;
+					}
+				}
+
+				// current block is exhausted, continue with the next block
+				if (!blockIterator.hasNext()) {
+					return null;
+				}
+				Pair<Collection<RecordType>, Collection<RecordType>> block = blockIterator.next();
+				if (block.getSecond() == null) {
+					single = (List<RecordType>) block.getFirst();
+					i = 0;
+					j = 1;
+					firstIterator = null;
+				} else {
+					single = null;
+					firstIterator = block.getFirst().iterator();
+					second = block.getSecond();
+					secondIterator = null;
+				}
+			}
+		}
+	}
+}
@@ -78,11 +78,29 @@ public abstract class Blocker<RecordType extends Matchable, SchemaElementType ex
 	protected void calculatePerformance(DataSet<RecordType, SchemaElementType> dataset1,
 			DataSet<RecordType, SchemaElementType> dataset2,
 			ResultSet<BlockedMatchable<RecordType, SchemaElementType>> blocked) {
+		calculatePerformance(dataset1, dataset2, (long) blocked.size());
+	}
+	
+	/**
+	 * Calculates the reduction ratio from the number of blocked pairs. Can be
+	 * used by sub classes that do not materialise the pairs (see
+	 * {@link BlockedPairs}).
+	 * 
+	 * @param dataset1
+	 *            the first data set
+	 * @param dataset2
+	 *            the second data set
+	 * @param numberOfPairs
+	 *            the number of pairs that resulted from the blocking
+	 */
+	protected void calculatePerformance(DataSet<RecordType, SchemaElementType> dataset1,
+			DataSet<RecordType, SchemaElementType> dataset2,
+			long numberOfPairs) {
 		long size1 = (long) dataset1.getSize();
 		long size2 = (long) dataset2.getSize();
 		long maxPairs = size1 * size2;
 
 //		reductionRatio = (double) maxPairs / (double) blocked.size();
-		reductionRatio = 1.0 - ((double)blocked.size() / (double)maxPairs);
+		reductionRatio = 1.0 - ((double)numberOfPairs / (double)maxPairs);
 	}
 }
@@ -23,6 +23,11 @@ public class BlockingFunction {
                 }
                 return keys;
             }
+
+            @Override
+            public String getDescription() {
+                return "tokens of all attribute values";
+            }
         };
         return standardBlocking;
     }
@@ -39,4 +44,69 @@ public class BlockingFunction {
         };
         return firstLabel;
     }
+
+    /**
+     * @return the first lowercase striped URI, or null if the event has no URI
+     */
+    public static BlockingKeyGenerator<Event> getFirstStripedURI() {
+        BlockingKeyGenerator<Event> firstStripedURI = new BlockingKeyGenerator<Event>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getBlockingKey(Event event) {
+                String[] uris = event.features().getStripedLowercaseURIs();
+                return uris.length == 0 ? null : uris[0];
+            }
+        };
+        return firstStripedURI;
+    }
+
+    /**
+     * @return the year of the first date followed by the lowercase first label, or null if the event has no date or
+     * no label
+     */
+    public static BlockingKeyGenerator<Event> getYearAndFirstLabel() {
+        BlockingKeyGenerator<Event> yearAndFirstLabel = new BlockingKeyGenerator<Event>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getBlockingKey(Event event) {
+                if (event.getDates().isEmpty() || event.getLabels().isEmpty()) {
+                    return null;
+                }
+                return event.getDates().get(0).getYear() + " " + event.getLabels().get(0).toLowerCase();
+            }
+        };
+        return yearAndFirstLabel;
+    }
+
+    /**
+     * @return the token sets of the labels, for a {@link SetSimilarityBlocker}
+     */
+    public static TokenSetGenerator<Event> getLabelTokenSets() {
+        TokenSetGenerator<Event> labelTokens = new TokenSetGenerator<Event>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public int[][] getTokenSets(Event event) {
+                return event.features().getLabelTokens();
+            }
+        };
+        return labelTokens;
+    }
+
+    /**
+     * @return the token sets of the striped URIs, for a {@link SetSimilarityBlocker}
+     */
+    public static TokenSetGenerator<Event> getStripedURITokenSets() {
+        TokenSetGenerator<Event> uriTokens = new TokenSetGenerator<Event>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public int[][] getTokenSets(Event event) {
+                return event.features().getStripedURITokens();
+            }
+        };
+        return uriTokens;
+    }
 }
@@ -0,0 +1,181 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import de.uni_mannheim.informatik.wdi.matching.MatchingTask;
+import de.uni_mannheim.informatik.wdi.matching.blocking.MetaBlocking.PruningAlgorithm;
+import de.uni_mannheim.informatik.wdi.matching.blocking.MetaBlocking.WeightingScheme;
+import de.uni_mannheim.informatik.wdi.matching.blocking.recordmappers.MultiBlockingKeyRecordMapper;
+import de.uni_mannheim.informatik.wdi.model.Correspondence;
+import de.uni_mannheim.informatik.wdi.model.DataSet;
+import de.uni_mannheim.informatik.wdi.model.IndexPairResultSet;
+import de.uni_mannheim.informatik.wdi.model.Matchable;
+import de.uni_mannheim.informatik.wdi.model.Pair;
+import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.processing.DataProcessingEngine;
+import de.uni_mannheim.informatik.wdi.processing.Group;
+import de.uni_mannheim.informatik.wdi.processing.GroupJoinKeyGenerator;
+
+/**
+ * A {@link MultiKeyBlocker} followed by {@link MetaBlocking}: the blocks are
+ * created from the blocking keys (and optionally filtered with
+ * {@link BlockFiltering}), then only the pairs kept by meta-blocking are
+ * compared.
+ *
+ * Supports blocking between two data sets and within one data set (without
+ * block filtering).
+ *
+ * @author Daniel Ringler
+ *
+ * @param <RecordType>
+ * @param <SchemaElementType>
+ */
+public class MetaBlocker<RecordType extends Matchable, SchemaElementType extends Matchable> extends Blocker<RecordType, SchemaElementType> {
+
+	private MultiBlockingKeyGenerator<RecordType> blockingFunction;
+	private MultiBlockingKeyGenerator<RecordType> secondBlockingFunction;
+	private MetaBlocking metaBlocking;
+
+	private int numberOfBlocks;
+	private long metaBlockingTime;
+
+	public MetaBlocker(MultiBlockingKeyGenerator<RecordType> blockingFunction, WeightingScheme weightingScheme, PruningAlgorithm pruningAlgorithm) {
+		this(blockingFunction, null, weightingScheme, pruningAlgorithm);
+	}
+
+	/**
+	 * @param blockingFunction
+	 * @param secondBlockingFunction
+	 *            used for the second data set, if null blockingFunction is used
+	 *            for both data sets
+	 * @param weightingScheme
+	 * @param pruningAlgorithm
+	 */
+	public MetaBlocker(MultiBlockingKeyGenerator<RecordType> blockingFunction, MultiBlockingKeyGenerator<RecordType> secondBlockingFunction,
+			WeightingScheme weightingScheme, PruningAlgorithm pruningAlgorithm) {
+		this.blockingFunction = blockingFunction;
+		this.secondBlockingFunction = secondBlockingFunction == null ? blockingFunction : secondBlockingFunction;
+		this.metaBlocking = new MetaBlocking(weightingScheme, pruningAlgorithm);
+	}
+
+	/**
+	 * @return the number of blocks meta-blocking was applied to in the last
+	 *         blocking operation (after block filtering)
+	 */
+	public int getNumberOfBlocks() {
+		return numberOfBlocks;
+	}
+
+	/**
+	 * @return the time meta-blocking took in the last blocking operation (in
+	 *         milliseconds, without building and filtering the blocks)
+	 */
+	public long getMetaBlockingTime() {
+		return metaBlockingTime;
+	}
+
+	@Override
+	public ResultSet<BlockedMatchable<RecordType, SchemaElementType>> runBlocking(
+			DataSet<RecordType, SchemaElementType> dataset1,
+			DataSet<RecordType, SchemaElementType> dataset2,
+			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
+			DataProcessingEngine engine, boolean blockFiltering, double r) {
+
+		ResultSet<Group<String, RecordType>> grouped1 = engine.groupRecords(dataset1, new MultiBlockingKeyRecordMapper<>(blockingFunction));
+		ResultSet<Group<String, RecordType>> grouped2 = engine.groupRecords(dataset2, new MultiBlockingKeyRecordMapper<>(secondBlockingFunction));
+
+		ResultSet<Pair<Group<String, RecordType>, Group<String, RecordType>>> blockedData = engine.join(grouped1, grouped2,
+				new GroupJoinKeyGenerator<String, RecordType>(), blockFiltering, r);
+
+		// blocks as int arrays of record ids
+		RecordIndex<RecordType> index1 = new RecordIndex<>();
+		RecordIndex<RecordType> index2 = new RecordIndex<>();
+		int[][] blockMembers1 = new int[blockedData.size()][];
+		int[][] blockMembers2 = new int[blockedData.size()][];
+		int b = 0;
+		numberOfBlocks = 0;
+		for (Pair<Group<String, RecordType>, Group<String, RecordType>> block : blockedData.get()) {
+			blockMembers1[b] = index1.intern(block.getFirst().getRecords().get());
+			blockMembers2[b] = index2.intern(block.getSecond().getRecords().get());
+			if (blockMembers1[b].length > 0 && blockMembers2[b].length > 0) {
+				numberOfBlocks++;
+			}
+			b++;
+		}
+
+		long start = System.currentTimeMillis();
+		IndexPairResultSet pairs = metaBlocking.run(blockMembers1, blockMembers2, index1.size(), index2.size());
+		metaBlockingTime = System.currentTimeMillis() - start;
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = engine.createResultSet((BlockedMatchable<RecordType, SchemaElementType>) null, pairs.size());
+		for (int i = 0; i < pairs.size(); i++) {
+			result.add(new MatchingTask<RecordType, SchemaElementType>(index1.getRecord(pairs.getFirst(i)), index2.getRecord(pairs.getSecond(i)), schemaCorrespondences));
+		}
+
+		calculatePerformance(dataset1, dataset2, result);
+
+		return result;
+	}
+
+	/**
+	 * Blocks the records of one data set, every retained pair is returned once
+	 * (if isSymmetric) or in both orders.
+	 */
+	@Override
+	public ResultSet<BlockedMatchable<RecordType, SchemaElementType>> runBlocking(
+			DataSet<RecordType, SchemaElementType> dataset,
+			boolean isSymmetric,
+			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
+			DataProcessingEngine engine) {
+
+		ResultSet<Group<String, RecordType>> grouped = engine.groupRecords(dataset, new MultiBlockingKeyRecordMapper<>(blockingFunction));
+
+		// blocks as int arrays of record ids
+		RecordIndex<RecordType> index = new RecordIndex<>();
+		int[][] blockMembers = new int[grouped.size()][];
+		int b = 0;
+		numberOfBlocks = 0;
+		for (Group<String, RecordType> block : grouped.get()) {
+			blockMembers[b] = index.intern(block.getRecords().get());
+			if (blockMembers[b].length > 1) {
+				numberOfBlocks++;
+			}
+			b++;
+		}
+
+		long start = System.currentTimeMillis();
+		IndexPairResultSet pairs = metaBlocking.run(blockMembers, index.size());
+		metaBlockingTime = System.currentTimeMillis() - start;
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = engine.createResultSet((BlockedMatchable<RecordType, SchemaElementType>) null,
+				isSymmetric ? pairs.size() : 2 * pairs.size());
+		for (int i = 0; i < pairs.size(); i++) {
+			RecordType record1 = index.getRecord(pairs.getFirst(i));
+			RecordType record2 = index.getRecord(pairs.getSecond(i));
+			result.add(new MatchingTask<RecordType, SchemaElementType>(record1, record2, schemaCorrespondences));
+			if (!isSymmetric) {
+				result.add(new MatchingTask<RecordType, SchemaElementType>(record2, record1, schemaCorrespondences));
+			}
+		}
+
+		calculatePerformance(dataset, dataset, result);
+
+		return result;
+	}
+
+}
@@ -0,0 +1,607 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import de.uni_mannheim.informatik.wdi.matching.blocking.BlockFiltering.EntityBlockAssignment;
+import de.uni_mannheim.informatik.wdi.model.IndexPairResultSet;
+
+/**
+ * Meta-blocking for two data sets (Clean-Clean ER) or one data set (Dirty ER),
+ * based on MetaBlocking by http://l3s.de/~papadakis/erFramework.html
+ *
+ * The blocks define a graph: every entity is a node and two entities from
+ * different data sets (or two different entities of the data set) are
+ * connected by an edge if they share at least one block. The edges are weighted by the {@link WeightingScheme} and the
+ * {@link PruningAlgorithm} decides which edges are kept as candidate pairs.
+ *
+ * The graph is never materialised. The edges of one entity are computed from
+ * its blocks when needed (entity-centric), in parallel for all entities, with
+ * int arrays of entity ids as blocks.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class MetaBlocking {
+
+	public enum WeightingScheme {
+		/** Aggregate Reciprocal Comparisons Scheme: sum of 1/cardinality of the common blocks */
+		ARCS,
+		/** Common Blocks Scheme: number of common blocks */
+		CBS,
+		/** Enhanced Common Blocks Scheme: CBS weighted by the inverse frequency of the blocks of both entities */
+		ECBS,
+		/** Jaccard Scheme: common blocks / all blocks of both entities */
+		JS,
+		/** Enhanced Jaccard Scheme: JS weighted by the inverse frequency of the edges of both entities */
+		EJS
+	}
+
+	public enum PruningAlgorithm {
+		/** Weighted Edge Pruning: keeps all edges with at least the average weight */
+		WEP,
+		/** Cardinality Edge Pruning: keeps the K edges with the highest weights */
+		CEP,
+		/** Weighted Node Pruning: keeps the edges with at least the average weight of one of their nodes */
+		WNP,
+		/** Cardinality Node Pruning: keeps the k edges with the highest weights of every node */
+		CNP,
+		/** Reciprocal Weighted Node Pruning: keeps the edges with at least the average weight of both of their nodes */
+		RECIPROCAL_WNP,
+		/** Reciprocal Cardinality Node Pruning: keeps the edges that are among the k best edges of both of their nodes */
+		RECIPROCAL_CNP
+	}
+
+	private WeightingScheme weightingScheme;
+	private PruningAlgorithm pruningAlgorithm;
+
+	public MetaBlocking(WeightingScheme weightingScheme, PruningAlgorithm pruningAlgorithm) {
+		this.weightingScheme = weightingScheme;
+		this.pruningAlgorithm = pruningAlgorithm;
+	}
+
+	public WeightingScheme getWeightingScheme() {
+		return weightingScheme;
+	}
+
+	public PruningAlgorithm getPruningAlgorithm() {
+		return pruningAlgorithm;
+	}
+
+	/**
+	 * Applies meta-blocking to the given blocks.
+	 *
+	 * @param blockMembers1
+	 *            the ids of the entities of the first data set in every block
+	 *            (null if the block does not exist in the first data set)
+	 * @param blockMembers2
+	 *            the ids of the entities of the second data set in every block
+	 *            (null if the block does not exist in the second data set)
+	 * @param numberOfEntities1
+	 *            the number of entities in the first data set (ids must be
+	 *            smaller)
+	 * @param numberOfEntities2
+	 *            the number of entities in the second data set (ids must be
+	 *            smaller)
+	 * @return the retained pairs of (id in first data set, id in second data set)
+	 */
+	public IndexPairResultSet run(int[][] blockMembers1, int[][] blockMembers2, int numberOfEntities1, int numberOfEntities2) {
+		return prune(new BlockingGraph(blockMembers1, blockMembers2, numberOfEntities1, numberOfEntities2));
+	}
+
+	/**
+	 * Applies meta-blocking to the blocks of one data set.
+	 *
+	 * @param blockMembers
+	 *            the ids of the entities in every block
+	 * @param numberOfEntities
+	 *            the number of entities (ids must be smaller)
+	 * @return the retained pairs of entity ids, the smaller id first
+	 */
+	public IndexPairResultSet run(int[][] blockMembers, int numberOfEntities) {
+		return prune(new BlockingGraph(blockMembers, numberOfEntities));
+	}
+
+	private IndexPairResultSet prune(BlockingGraph graph) {
+		switch (pruningAlgorithm) {
+		case WEP:
+			return graph.weightedEdgePruning();
+		case CEP:
+			return graph.cardinalityEdgePruning();
+		case WNP:
+			return graph.weightedNodePruning(false);
+		case CNP:
+			return graph.cardinalityNodePruning(false);
+		case RECIPROCAL_WNP:
+			return graph.weightedNodePruning(true);
+		case RECIPROCAL_CNP:
+			return graph.cardinalityNodePruning(true);
+		default:
+			throw new IllegalArgumentException("Unknown pruning algorithm " + pruningAlgorithm);
+		}
+	}
+
+	/**
+	 * The implicit blocking graph. Side 0 are the entities of the first data set,
+	 * side 1 the entities of the second data set. For one data set both sides are
+	 * the same entities and every edge is only visited from its smaller entity.
+	 */
+	private class BlockingGraph {
+
+		private boolean dirty;
+
+		// only blocks with at least one comparison
+		private int[][][] members = new int[2][][];
+		private double[] blockCardinalities;
+		private EntityBlockAssignment[] assignments = new EntityBlockAssignment[2];
+		private int[] numberOfEntities;
+		private long blockAssignments = 0;
+
+		// number of edges of every node and of the whole graph (only for EJS)
+		private int[][] degrees = new int[2][];
+		private long numberOfEdges;
+
+		private ThreadLocal<Neighbourhood[]> neighbourhoods = ThreadLocal.withInitial(() -> new Neighbourhood[] {
+				new Neighbourhood(0), new Neighbourhood(1) });
+
+		public BlockingGraph(int[][] blockMembers1, int[][] blockMembers2, int numberOfEntities1, int numberOfEntities2) {
+			List<int[]> blocks1 = new ArrayList<>();
+			List<int[]> blocks2 = new ArrayList<>();
+			for (int b = 0; b < blockMembers1.length; b++) {
+				if (blockMembers1[b] != null && blockMembers2[b] != null && blockMembers1[b].length > 0 && blockMembers2[b].length > 0) {
+					blocks1.add(blockMembers1[b]);
+					blocks2.add(blockMembers2[b]);
+					blockAssignments += blockMembers1[b].length + blockMembers2[b].length;
+				}
+			}
+			members[0] = blocks1.toArray(new int[blocks1.size()][]);
+			members[1] = blocks2.toArray(new int[blocks2.size()][]);
+
+			blockCardinalities = new double[members[0].length];
+			for (int b = 0; b < blockCardinalities.length; b++) {
+				blockCardinalities[b] = (double) members[0][b].length * (double) members[1][b].length;
+			}
+
+			numberOfEntities = new int[] { numberOfEntities1, numberOfEntities2 };
+			assignments[0] = new EntityBlockAssignment(members[0], numberOfEntities1);
+			assignments[1] = new EntityBlockAssignment(members[1], numberOfEntities2);
+
+			computeDegrees();
+		}
+
+		public BlockingGraph(int[][] blockMembers, int numberOfEntities) {
+			dirty = true;
+			List<int[]> blocks = new ArrayList<>();
+			for (int[] block : blockMembers) {
+				if (block != null && block.length > 1) {
+					blocks.add(block);
+					blockAssignments += block.length;
+				}
+			}
+			members[0] = blocks.toArray(new int[blocks.size()][]);
+			members[1] = members[0];
+
+			blockCardinalities = new double[members[0].length];
+			for (int b = 0; b < blockCardinalities.length; b++) {
+				blockCardinalities[b] = (double) members[0][b].length * (double) (members[0][b].length - 1) / 2.0;
+			}
+
+			this.numberOfEntities = new int[] { numberOfEntities, numberOfEntities };
+			assignments[0] = new EntityBlockAssignment(members[0], numberOfEntities);
+			assignments[1] = assignments[0];
+
+			computeDegrees();
+		}
+
+		/**
+		 * Counts the edges of every node and of the whole graph (only for EJS).
+		 */
+		private void computeDegrees() {
+			if (weightingScheme == WeightingScheme.EJS) {
+				for (int side = 0; side < getNumberOfSides(); side++) {
+					final int s = side;
+					degrees[s] = new int[numberOfEntities[s]];
+					IntStream.range(0, numberOfEntities[s]).parallel().forEach(e -> {
+						Neighbourhood neighbourhood = neighbourhoods.get()[s];
+						neighbourhood.compute(e);
+						degrees[s][e] = neighbourhood.size;
+					});
+				}
+				numberOfEdges = Arrays.stream(degrees[0]).asLongStream().sum();
+				if (dirty) {
+					degrees[1] = degrees[0];
+					// every edge was counted for both of its nodes
+					numberOfEdges /= 2;
+				}
+			}
+		}
+
+		/**
+		 * @return the number of sides with different entities
+		 */
+		private int getNumberOfSides() {
+			return dirty ? 1 : 2;
+		}
+
+		/**
+		 * @return true if the edge to the k-th neighbour is visited from this
+		 *         entity (every edge of one data set is visited from its smaller
+		 *         entity only)
+		 */
+		private boolean isVisited(Neighbourhood neighbourhood, int k) {
+			return !dirty || neighbourhood.neighbours[k] > neighbourhood.entity;
+		}
+
+		public IndexPairResultSet weightedEdgePruning() {
+			// the threshold is the average weight of all edges
+			double[] weightSums = new double[numberOfEntities[0]];
+			int[] edgeCounts = new int[numberOfEntities[0]];
+			IntStream.range(0, numberOfEntities[0]).parallel().forEach(e -> {
+				Neighbourhood neighbourhood = neighbourhoods.get()[0];
+				neighbourhood.compute(e);
+				for (int k = 0; k < neighbourhood.size; k++) {
+					if (isVisited(neighbourhood, k)) {
+						weightSums[e] += neighbourhood.getWeight(k);
+						edgeCounts[e]++;
+					}
+				}
+			});
+			double sum = 0;
+			long count = 0;
+			for (int e = 0; e < weightSums.length; e++) {
+				sum += weightSums[e];
+				count += edgeCounts[e];
+			}
+			double threshold = count == 0 ? 0.0 : sum / count;
+
+			return retainEdges((neighbourhood, k) -> reachesAverage(neighbourhood.getWeight(k), threshold));
+		}
+
+		public IndexPairResultSet cardinalityEdgePruning() {
+			// keeps the K edges with the highest weight, K is half the number of block assignments
+			int maxEdges = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, blockAssignments / 2));
+
+			List<TopEdges> partialResults = new ArrayList<>();
+			ThreadLocal<TopEdges> topEdges = ThreadLocal.withInitial(() -> {
+				TopEdges top = new TopEdges(maxEdges);
+				synchronized (partialResults) {
+					partialResults.add(top);
+				}
+				return top;
+			});
+
+			IntStream.range(0, numberOfEntities[0]).parallel().forEach(e -> {
+				Neighbourhood neighbourhood = neighbourhoods.get()[0];
+				neighbourhood.compute(e);
+				TopEdges top = topEdges.get();
+				for (int k = 0; k < neighbourhood.size; k++) {
+					if (isVisited(neighbourhood, k)) {
+						top.offer(neighbourhood.getWeight(k), IndexPairResultSet.pack(e, neighbourhood.neighbours[k]));
+					}
+				}
+			});
+
+			TopEdges result = new TopEdges(maxEdges);
+			for (TopEdges partial : partialResults) {
+				for (int i = 0; i < partial.size; i++) {
+					result.offer(partial.weights[i], partial.edges[i]);
+				}
+			}
+
+			IndexPairResultSet pairs = new IndexPairResultSet();
+			for (int i = 0; i < result.size; i++) {
+				pairs.addPacked(result.edges[i]);
+			}
+			// sorts the pairs by entity ids
+			pairs.deduplicate();
+			return pairs;
+		}
+
+		/**
+		 * @param reciprocal
+		 *            if true, an edge must reach the thresholds of both nodes,
+		 *            otherwise of one node
+		 */
+		public IndexPairResultSet weightedNodePruning(boolean reciprocal) {
+			// the threshold of a node is the average weight of its edges
+			double[][] thresholds = new double[2][];
+			for (int side = 0; side < getNumberOfSides(); side++) {
+				final int s = side;
+				thresholds[s] = new double[numberOfEntities[s]];
+				IntStream.range(0, numberOfEntities[s]).parallel().forEach(e -> {
+					Neighbourhood neighbourhood = neighbourhoods.get()[s];
+					neighbourhood.compute(e);
+					double sum = 0;
+					for (int k = 0; k < neighbourhood.size; k++) {
+						sum += neighbourhood.getWeight(k);
+					}
+					thresholds[s][e] = neighbourhood.size == 0 ? 0.0 : sum / neighbourhood.size;
+				});
+			}
+			if (dirty) {
+				thresholds[1] = thresholds[0];
+			}
+
+			return retainEdges((neighbourhood, k) -> {
+				double weight = neighbourhood.getWeight(k);
+				boolean retained1 = reachesAverage(weight, thresholds[0][neighbourhood.entity]);
+				boolean retained2 = reachesAverage(weight, thresholds[1][neighbourhood.neighbours[k]]);
+				return reciprocal ? retained1 && retained2 : retained1 || retained2;
+			});
+		}
+
+		/**
+		 * @param reciprocal
+		 *            if true, an edge must be among the k best edges of both
+		 *            nodes, otherwise of one node
+		 */
+		public IndexPairResultSet cardinalityNodePruning(boolean reciprocal) {
+			// the threshold of a node is the weight of its k-th best edge, k is the average number of blocks per entity
+			int numberOfNodes = dirty ? numberOfEntities[0] : numberOfEntities[0] + numberOfEntities[1];
+			int k = (int) Math.max(1, blockAssignments / Math.max(1, numberOfNodes));
+
+			double[][] thresholds = new double[2][];
+			for (int side = 0; side < getNumberOfSides(); side++) {
+				final int s = side;
+				thresholds[s] = new double[numberOfEntities[s]];
+				IntStream.range(0, numberOfEntities[s]).parallel().forEach(e -> {
+					Neighbourhood neighbourhood = neighbourhoods.get()[s];
+					neighbourhood.compute(e);
+					if (neighbourhood.size <= k) {
+						thresholds[s][e] = 0.0;
+					} else {
+						double[] weights = new double[neighbourhood.size];
+						for (int i = 0; i < neighbourhood.size; i++) {
+							weights[i] = neighbourhood.getWeight(i);
+						}
+						Arrays.sort(weights);
+						thresholds[s][e] = weights[weights.length - k];
+					}
+				});
+			}
+			if (dirty) {
+				thresholds[1] = thresholds[0];
+			}
+
+			return retainEdges((neighbourhood, i) -> {
+				double weight = neighbourhood.getWeight(i);
+				boolean retained1 = weight >= thresholds[0][neighbourhood.entity];
+				boolean retained2 = weight >= thresholds[1][neighbourhood.neighbours[i]];
+				return reciprocal ? retained1 && retained2 : retained1 || retained2;
+			});
+		}
+
+		/**
+		 * Compares a weight to an average weight. The average of equal weights can
+		 * be slightly larger than the weights because of rounding errors, so a
+		 * small tolerance is used.
+		 */
+		private boolean reachesAverage(double weight, double average) {
+			return weight >= average - Math.abs(average) * 1e-9;
+		}
+
+		/**
+		 * Visits all edges (from the entities of the first data set) in parallel
+		 * and returns the edges accepted by the filter, ordered by entity ids.
+		 */
+		private IndexPairResultSet retainEdges(EdgeFilter filter) {
+			long[][] retained = new long[numberOfEntities[0]][];
+			IntStream.range(0, numberOfEntities[0]).parallel().forEach(e -> {
+				Neighbourhood neighbourhood = neighbourhoods.get()[0];
+				neighbourhood.compute(e);
+				long[] edges = new long[neighbourhood.size];
+				int count = 0;
+				for (int k = 0; k < neighbourhood.size; k++) {
+					if (isVisited(neighbourhood, k) && filter.retain(neighbourhood, k)) {
+						edges[count++] = IndexPairResultSet.pack(e, neighbourhood.neighbours[k]);
+					}
+				}
+				Arrays.sort(edges, 0, count);
+				retained[e] = Arrays.copyOf(edges, count);
+			});
+
+			IndexPairResultSet pairs = new IndexPairResultSet();
+			for (long[] edges : retained) {
+				for (long edge : edges) {
+					pairs.addPacked(edge);
+				}
+			}
+			return pairs;
+		}
+
+		/**
+		 * The edges of one entity. An instance is used by one thread only and
+		 * reused for all entities of its side.
+		 */
+		private class Neighbourhood {
+
+			private int side;
+			private int entity;
+
+			// the entities of the other side this entity shares blocks with
+			private int[] neighbours;
+			private int size;
+
+			// indexed by the id of the neighbour
+			private int[] commonBlocks;
+			private double[] reciprocalCardinalities;
+
+			public Neighbourhood(int side) {
+				this.side = side;
+				int others = numberOfEntities[1 - side];
+				neighbours = new int[others];
+				commonBlocks = new int[others];
+				if (weightingScheme == WeightingScheme.ARCS) {
+					reciprocalCardinalities = new double[others];
+				}
+			}
+
+			public void compute(int entity) {
+				// reset the counters of the previous entity
+				for (int k = 0; k < size; k++) {
+					commonBlocks[neighbours[k]] = 0;
+					if (reciprocalCardinalities != null) {
+						reciprocalCardinalities[neighbours[k]] = 0.0;
+					}
+				}
+				size = 0;
+				this.entity = entity;
+
+				EntityBlockAssignment assignment = assignments[side];
+				int[][] otherMembers = members[1 - side];
+				for (int i = assignment.offsets[entity]; i < assignment.offsets[entity + 1]; i++) {
+					int block = assignment.blocks[i];
+					for (int neighbour : otherMembers[block]) {
+						if (dirty && neighbour == entity) {
+							continue;
+						}
+						if (commonBlocks[neighbour]++ == 0) {
+							neighbours[size++] = neighbour;
+						}
+						if (reciprocalCardinalities != null) {
+							reciprocalCardinalities[neighbour] += 1.0 / blockCardinalities[block];
+						}
+					}
+				}
+			}
+
+			/**
+			 * @return the weight of the edge to the k-th neighbour
+			 */
+			public double getWeight(int k) {
+				int neighbour = neighbours[k];
+				double common = commonBlocks[neighbour];
+
+				// always calculate in the same order, so both nodes of an edge get exactly the same weight
+				int entity1;
+				int entity2;
+				if (dirty) {
+					entity1 = Math.min(entity, neighbour);
+					entity2 = Math.max(entity, neighbour);
+				} else {
+					entity1 = side == 0 ? entity : neighbour;
+					entity2 = side == 0 ? neighbour : entity;
+				}
+
+				switch (weightingScheme) {
+				case ARCS:
+					return reciprocalCardinalities[neighbour];
+				case CBS:
+					return common;
+				case ECBS:
+					double numberOfBlocks = blockCardinalities.length;
+					return common * Math.log10(numberOfBlocks / getNumberOfBlocks(0, entity1))
+							* Math.log10(numberOfBlocks / getNumberOfBlocks(1, entity2));
+				case JS:
+					return common / (getNumberOfBlocks(0, entity1) + getNumberOfBlocks(1, entity2) - common);
+				case EJS:
+					double js = common / (getNumberOfBlocks(0, entity1) + getNumberOfBlocks(1, entity2) - common);
+					return js * Math.log10((double) numberOfEdges / degrees[0][entity1])
+							* Math.log10((double) numberOfEdges / degrees[1][entity2]);
+				default:
+					throw new IllegalArgumentException("Unknown weighting scheme " + weightingScheme);
+				}
+			}
+
+			private double getNumberOfBlocks(int side, int entity) {
+				return assignments[side].offsets[entity + 1] - assignments[side].offsets[entity];
+			}
+		}
+	}
+
+	private interface EdgeFilter {
+		boolean retain(BlockingGraph.Neighbourhood neighbourhood, int k);
+	}
+
+	/**
+	 * A bounded min-heap of edges, keeps the edges with the highest weights.
+	 */
+	private static class TopEdges {
+
+		private double[] weights;
+		private long[] edges;
+		private int size = 0;
+		private int capacity;
+
+		public TopEdges(int capacity) {
+			this.capacity = capacity;
+			weights = new double[Math.min(capacity, 1024)];
+			edges = new long[weights.length];
+		}
+
+		public void offer(double weight, long edge) {
+			if (size < capacity) {
+				if (size == weights.length) {
+					int newLength = (int) Math.min(capacity, 2L * weights.length);
+					weights = Arrays.copyOf(weights, newLength);
+					edges = Arrays.copyOf(edges, newLength);
+				}
+				weights[size] = weight;
+				edges[size] = edge;
+				siftUp(size++);
+			} else if (weight > weights[0]) {
+				weights[0] = weight;
+				edges[0] = edge;
+				siftDown(0);
+			}
+		}
+
+		private void siftUp(int i) {
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (weights[parent] <= weights[i]) {
+					break;
+				}
+				swap(i, parent);
+				i = parent;
+			}
+		}
+
+		private void siftDown(int i) {
+			while (true) {
+				int smallest = i;
+				int left = 2 * i + 1;
+				int right = left + 1;
+				if (left < size && weights[left] < weights[smallest]) {
+					smallest = left;
+				}
+				if (right < size && weights[right] < weights[smallest]) {
+					smallest = right;
+				}
+				if (smallest == i) {
+					return;
+				}
+				swap(i, smallest);
+				i = smallest;
+			}
+		}
+
+		private void swap(int i, int j) {
+			double w = weights[i];
+			weights[i] = weights[j];
+			weights[j] = w;
+			long e = edges[i];
+			edges[i] = edges[j];
+			edges[j] = e;
+		}
+	}
+}
@@ -16,4 +16,14 @@ public abstract class MultiBlockingKeyGenerator<RecordType extends Matchable> im
 	 */
 	
 	public abstract Collection<String> getMultiBlockingKey(RecordType instance);
+
+	/**
+	 * Returns a description of the blocking keys. Stored blocks (e.g. of a
+	 * resolution index) are only reused with the same description.
+	 * 
+	 * @return the name of the class by default
+	 */
+	public String getDescription() {
+		return getClass().getName();
+	}
 }
@@ -1,6 +1,5 @@
 package de.uni_mannheim.informatik.wdi.matching.blocking;
 
-import de.uni_mannheim.informatik.wdi.matching.blocking.recordmappers.JoinedGroupsToMatchingTaskMapper;
 import de.uni_mannheim.informatik.wdi.matching.blocking.recordmappers.MultiBlockingKeyRecordMapper;
 import de.uni_mannheim.informatik.wdi.model.Correspondence;
 import de.uni_mannheim.informatik.wdi.model.DataSet;
@@ -46,7 +45,7 @@ public class MultiKeyBlocker<RecordType extends Matchable, SchemaElementType ext
             final ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
             DataProcessingEngine engine, boolean blockFiltering, double r) {
 		
-		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = new ResultSet<>();
+		BlockedPairs<RecordType, SchemaElementType> result = new BlockedPairs<>(schemaCorrespondences);
 		
 		MultiBlockingKeyRecordMapper<RecordType> mapper1 = new MultiBlockingKeyRecordMapper<>(blockingFunction);
 		ResultSet<Group<String, RecordType>> grouped1 = engine.groupRecords(dataset1, mapper1);
@@ -109,9 +108,11 @@ public class MultiKeyBlocker<RecordType extends Matchable, SchemaElementType ext
 		
 		ResultSet<Pair<Group<String,RecordType>,Group<String,RecordType>>> blockedData = engine.join(grouped1, grouped2, joinKeyGenerator, blockFiltering, r);
 		
-		JoinedGroupsToMatchingTaskMapper<String, RecordType, SchemaElementType> groupsToMatchingTaskMapper = new JoinedGroupsToMatchingTaskMapper<>(schemaCorrespondences);
-		
-		result = engine.transform(blockedData, groupsToMatchingTaskMapper);
+		// keep the blocks, the pairs are generated when the result is iterated
+		// (JoinedGroupsToMatchingTaskMapper would create all pairs at once)
+		for(Pair<Group<String,RecordType>,Group<String,RecordType>> block : blockedData.get()) {
+			result.addBlock(block.getFirst().getRecords().get(), block.getSecond().getRecords().get());
+		}
 		
 //		result = engine.transform(blockedData, new RecordMapper<Pair<Group<String,RecordType>,Group<String,RecordType>>, BlockedMatchable<RecordType, SchemaElementType>>() {
 //
@@ -132,7 +133,7 @@ public class MultiKeyBlocker<RecordType extends Matchable, SchemaElementType ext
 //			}
 //		});
 
-		calculatePerformance(dataset1, dataset2, result);
+		calculatePerformance(dataset1, dataset2, result.getNumberOfPairs());
 		
 		return result;
 	}
@@ -0,0 +1,76 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Assigns dense int ids (0, 1, 2, ...) to the records of a data set, so blocks
+ * can be represented as int arrays instead of collections of records. Records
+ * are identified by reference, two different record objects always get
+ * different ids.
+ *
+ * @author Daniel Ringler
+ *
+ * @param <RecordType>
+ */
+public class RecordIndex<RecordType> {
+
+	private IdentityHashMap<RecordType, Integer> ids = new IdentityHashMap<>();
+	private List<RecordType> records = new ArrayList<>();
+
+	/**
+	 * @return the id of the record, a new id is assigned if the record was not
+	 *         seen before
+	 */
+	public int intern(RecordType record) {
+		Integer id = ids.get(record);
+		if (id == null) {
+			id = records.size();
+			ids.put(record, id);
+			records.add(record);
+		}
+		return id;
+	}
+
+	/**
+	 * @return the ids of all records in the block, in the order of the block
+	 */
+	public int[] intern(Collection<RecordType> block) {
+		int[] result = new int[block.size()];
+		int i = 0;
+		for (RecordType record : block) {
+			result[i++] = intern(record);
+		}
+		return result;
+	}
+
+	public RecordType getRecord(int id) {
+		return records.get(id);
+	}
+
+	/**
+	 * @return the number of records with an id
+	 */
+	public int size() {
+		return records.size();
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_mannheim.informatik.wdi.matching.MatchingTask;
+import de.uni_mannheim.informatik.wdi.model.Correspondence;
+import de.uni_mannheim.informatik.wdi.model.DataSet;
+import de.uni_mannheim.informatik.wdi.model.IndexPairResultSet;
+import de.uni_mannheim.informatik.wdi.model.Matchable;
+import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.processing.DataProcessingEngine;
+
+/**
+ * Creates the pairs of records that have at least one pair of token sets with
+ * a Jaccard similarity of at least the threshold, using a
+ * {@link SetSimilarityJoin}. Unlike a {@link MultiKeyBlocker} on the same
+ * tokens, pairs that only share frequent tokens are never created.
+ *
+ * Block filtering is not applied. Only supports blocking between two data
+ * sets.
+ *
+ * @author Daniel Ringler
+ *
+ * @param <RecordType>
+ * @param <SchemaElementType>
+ */
+public class SetSimilarityBlocker<RecordType extends Matchable, SchemaElementType extends Matchable> extends Blocker<RecordType, SchemaElementType> {
+
+	private TokenSetGenerator<RecordType> tokenSetGenerator;
+	private TokenSetGenerator<RecordType> secondTokenSetGenerator;
+	private SetSimilarityJoin join;
+
+	public SetSimilarityBlocker(TokenSetGenerator<RecordType> tokenSetGenerator, double threshold) {
+		this(tokenSetGenerator, null, threshold);
+	}
+
+	/**
+	 * @param tokenSetGenerator
+	 * @param secondTokenSetGenerator
+	 *            used for the second data set, if null tokenSetGenerator is
+	 *            used for both data sets
+	 * @param threshold
+	 *            the minimum Jaccard similarity of two token sets
+	 */
+	public SetSimilarityBlocker(TokenSetGenerator<RecordType> tokenSetGenerator, TokenSetGenerator<RecordType> secondTokenSetGenerator,
+			double threshold) {
+		this.tokenSetGenerator = tokenSetGenerator;
+		this.secondTokenSetGenerator = secondTokenSetGenerator == null ? tokenSetGenerator : secondTokenSetGenerator;
+		this.join = new SetSimilarityJoin(threshold);
+	}
+
+	@Override
+	public ResultSet<BlockedMatchable<RecordType, SchemaElementType>> runBlocking(
+			DataSet<RecordType, SchemaElementType> dataset1,
+			DataSet<RecordType, SchemaElementType> dataset2,
+			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
+			DataProcessingEngine engine, boolean blockFiltering, double r) {
+
+		RecordIndex<RecordType> index1 = new RecordIndex<>();
+		RecordIndex<RecordType> index2 = new RecordIndex<>();
+		List<int[]> sets1 = new ArrayList<>();
+		List<int[]> sets2 = new ArrayList<>();
+		int[] owners1 = getTokenSets(dataset1, tokenSetGenerator, index1, sets1);
+		int[] owners2 = getTokenSets(dataset2, secondTokenSetGenerator, index2, sets2);
+
+		IndexPairResultSet pairs = join.run(sets1.toArray(new int[0][]), owners1, sets2.toArray(new int[0][]), owners2);
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = engine.createResultSet((BlockedMatchable<RecordType, SchemaElementType>) null, pairs.size());
+		for (int i = 0; i < pairs.size(); i++) {
+			result.add(new MatchingTask<RecordType, SchemaElementType>(index1.getRecord(pairs.getFirst(i)), index2.getRecord(pairs.getSecond(i)), schemaCorrespondences));
+		}
+
+		calculatePerformance(dataset1, dataset2, result);
+
+		return result;
+	}
+
+	/**
+	 * Adds the token sets of all records to sets.
+	 *
+	 * @return the record id (in index) of every token set
+	 */
+	private int[] getTokenSets(DataSet<RecordType, SchemaElementType> dataset, TokenSetGenerator<RecordType> generator,
+			RecordIndex<RecordType> index, List<int[]> sets) {
+		List<Integer> owners = new ArrayList<>();
+		for (RecordType record : dataset.getRecords()) {
+			int id = index.intern(record);
+			for (int[] set : generator.getTokenSets(record)) {
+				sets.add(set);
+				owners.add(id);
+			}
+		}
+		return owners.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	@Override
+	public ResultSet<BlockedMatchable<RecordType, SchemaElementType>> runBlocking(
+			DataSet<RecordType, SchemaElementType> dataset,
+			boolean isSymmetric,
+			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
+			DataProcessingEngine engine) {
+		throw new UnsupportedOperationException("SetSimilarityBlocker only supports blocking between two data sets.");
+	}
+
+}
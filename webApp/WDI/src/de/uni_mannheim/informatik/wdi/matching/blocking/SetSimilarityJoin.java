@@ -0,0 +1,320 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import de.uni_mannheim.informatik.wdi.model.IndexPairResultSet;
+
+/**
+ * Finds all pairs of token sets from two collections whose Jaccard similarity
+ * reaches a threshold (PPJoin, Xiao et al.: Efficient Similarity Joins for Near
+ * Duplicate Detection).
+ *
+ * The tokens are ordered by their frequency (rare tokens first). Two sets can
+ * only reach the threshold if they share a token in their prefixes, so only the
+ * prefixes of the second collection are indexed and only the prefixes of the
+ * first collection are probed. Candidates are pruned by their length and by
+ * the position of the shared tokens, the remaining candidates are verified. The
+ * sets of the first collection are probed in parallel.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class SetSimilarityJoin {
+
+	// tolerance for rounding errors, the filters are relaxed by it
+	private static final double EPSILON = 1e-9;
+
+	private double threshold;
+
+	/**
+	 * @param threshold
+	 *            the minimum Jaccard similarity, larger than 0
+	 */
+	public SetSimilarityJoin(double threshold) {
+		if (threshold <= 0.0 || threshold > 1.0) {
+			throw new IllegalArgumentException("The threshold must be larger than 0 and at most 1, but is " + threshold);
+		}
+		this.threshold = threshold;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Joins two collections of token sets. Every set belongs to an owner (e.g.
+	 * a record), the result contains the pairs of owners that have at least one
+	 * pair of sets with a Jaccard similarity of at least the threshold.
+	 *
+	 * @param sets1
+	 *            the first collection, arrays of distinct tokens
+	 * @param owners1
+	 *            the owner of every set in the first collection
+	 * @param sets2
+	 *            the second collection, arrays of distinct tokens
+	 * @param owners2
+	 *            the owner of every set in the second collection
+	 * @return the distinct pairs of (owner in first collection, owner in second
+	 *         collection), sorted
+	 */
+	public IndexPairResultSet run(int[][] sets1, int[] owners1, int[][] sets2, int[] owners2) {
+		int[][] ordered1 = new int[sets1.length][];
+		int[][] ordered2 = new int[sets2.length][];
+		orderTokens(sets1, sets2, ordered1, ordered2);
+
+		PrefixIndex index = new PrefixIndex(ordered2);
+
+		ThreadLocal<Candidates> candidates = ThreadLocal.withInitial(() -> new Candidates(sets2.length));
+		List<long[]> matches = IntStream.range(0, ordered1.length).parallel()
+				.mapToObj(x -> probe(ordered1[x], owners1[x], ordered2, owners2, index, candidates.get()))
+				.collect(Collectors.toList());
+
+		IndexPairResultSet result = new IndexPairResultSet();
+		for (long[] pairs : matches) {
+			for (long pair : pairs) {
+				result.addPacked(pair);
+			}
+		}
+		result.deduplicate();
+		return result;
+	}
+
+	/**
+	 * Replaces the tokens by their rank in the global order (ascending
+	 * frequency in both collections, ties broken by token), the tokens of
+	 * every set are sorted by rank. Empty sets are replaced by null.
+	 */
+	private void orderTokens(int[][] sets1, int[][] sets2, int[][] ordered1, int[][] ordered2) {
+		int numberOfTokens = 0;
+		for (int[] set : sets1) {
+			numberOfTokens += set.length;
+		}
+		for (int[] set : sets2) {
+			numberOfTokens += set.length;
+		}
+		int[] allTokens = new int[numberOfTokens];
+		int t = 0;
+		for (int[] set : sets1) {
+			System.arraycopy(set, 0, allTokens, t, set.length);
+			t += set.length;
+		}
+		for (int[] set : sets2) {
+			System.arraycopy(set, 0, allTokens, t, set.length);
+			t += set.length;
+		}
+		Arrays.sort(allTokens);
+
+		// distinct tokens (sorted) and their frequencies
+		int distinct = 0;
+		int[] frequencies = new int[numberOfTokens];
+		for (int i = 0; i < numberOfTokens; i++) {
+			if (distinct == 0 || allTokens[i] != allTokens[distinct - 1]) {
+				allTokens[distinct++] = allTokens[i];
+			}
+			frequencies[distinct - 1]++;
+		}
+		int[] tokens = Arrays.copyOf(allTokens, distinct);
+
+		int[] byFrequency = IntStream.range(0, distinct).boxed()
+				.sorted((i1, i2) -> frequencies[i1] != frequencies[i2] ? Integer.compare(frequencies[i1], frequencies[i2])
+						: Integer.compare(tokens[i1], tokens[i2]))
+				.mapToInt(Integer::intValue).toArray();
+		int[] rank = new int[distinct];
+		for (int r = 0; r < distinct; r++) {
+			rank[byFrequency[r]] = r;
+		}
+
+		replaceByRanks(sets1, ordered1, tokens, rank);
+		replaceByRanks(sets2, ordered2, tokens, rank);
+	}
+
+	private void replaceByRanks(int[][] sets, int[][] ordered, int[] tokens, int[] rank) {
+		IntStream.range(0, sets.length).parallel().forEach(s -> {
+			if (sets[s].length > 0) {
+				int[] ranks = new int[sets[s].length];
+				for (int i = 0; i < ranks.length; i++) {
+					ranks[i] = rank[Arrays.binarySearch(tokens, sets[s][i])];
+				}
+				Arrays.sort(ranks);
+				ordered[s] = ranks;
+			}
+		});
+	}
+
+	/**
+	 * @return the number of tokens of a set that must be indexed or probed
+	 */
+	private int getPrefixLength(int size) {
+		return Math.min(size, size - (int) Math.ceil(threshold * size - EPSILON) + 1);
+	}
+
+	/**
+	 * The inverted index of the prefixes of the second collection: the sets
+	 * (and positions) with token t are sets[offsets[t]] to
+	 * sets[offsets[t+1]-1].
+	 */
+	private class PrefixIndex {
+
+		int[] offsets;
+		int[] sets;
+		int[] positions;
+
+		PrefixIndex(int[][] ordered) {
+			int numberOfTokens = 0;
+			for (int[] set : ordered) {
+				if (set != null) {
+					numberOfTokens = Math.max(numberOfTokens, set[set.length - 1] + 1);
+				}
+			}
+
+			offsets = new int[numberOfTokens + 1];
+			for (int[] set : ordered) {
+				if (set != null) {
+					for (int i = 0; i < getPrefixLength(set.length); i++) {
+						offsets[set[i] + 1]++;
+					}
+				}
+			}
+			for (int t = 0; t < numberOfTokens; t++) {
+				offsets[t + 1] += offsets[t];
+			}
+
+			sets = new int[offsets[numberOfTokens]];
+			positions = new int[offsets[numberOfTokens]];
+			int[] next = Arrays.copyOf(offsets, numberOfTokens);
+			for (int s = 0; s < ordered.length; s++) {
+				if (ordered[s] != null) {
+					for (int i = 0; i < getPrefixLength(ordered[s].length); i++) {
+						int t = ordered[s][i];
+						sets[next[t]] = s;
+						positions[next[t]] = i;
+						next[t]++;
+					}
+				}
+			}
+		}
+
+		int getNumberOfTokens() {
+			return offsets.length - 1;
+		}
+	}
+
+	/**
+	 * The overlap counters of one probing thread, overlap[y] is the number of
+	 * shared prefix tokens with set y so far, or -1 if y was pruned.
+	 */
+	private static class Candidates {
+
+		int[] overlap;
+		int[] touched = new int[16];
+		int numberOfTouched;
+
+		Candidates(int numberOfSets) {
+			overlap = new int[numberOfSets];
+		}
+
+		void touch(int set) {
+			if (numberOfTouched == touched.length) {
+				touched = Arrays.copyOf(touched, touched.length * 2);
+			}
+			touched[numberOfTouched++] = set;
+		}
+	}
+
+	/**
+	 * @return the packed pairs of owners of x and of all sets of the second
+	 *         collection that are similar to x
+	 */
+	private long[] probe(int[] x, int owner, int[][] ordered2, int[] owners2, PrefixIndex index, Candidates candidates) {
+		if (x == null) {
+			return new long[0];
+		}
+
+		// length filter: threshold * |x| <= |y| <= |x| / threshold
+		int minLength = (int) Math.ceil(threshold * x.length - EPSILON);
+		int maxLength = (int) Math.floor(x.length / threshold + EPSILON);
+
+		int[] overlap = candidates.overlap;
+		candidates.numberOfTouched = 0;
+		int prefixLength = getPrefixLength(x.length);
+		for (int i = 0; i < prefixLength; i++) {
+			int t = x[i];
+			if (t >= index.getNumberOfTokens()) {
+				continue;
+			}
+			for (int e = index.offsets[t]; e < index.offsets[t + 1]; e++) {
+				int y = index.sets[e];
+				int yLength = ordered2[y].length;
+				if (yLength < minLength || yLength > maxLength || overlap[y] < 0) {
+					continue;
+				}
+				if (overlap[y] == 0) {
+					candidates.touch(y);
+				}
+
+				// positional filter: the overlap cannot be larger than the
+				// tokens seen so far plus the remaining tokens
+				int required = (int) Math.ceil(threshold / (1.0 + threshold) * (x.length + yLength) - EPSILON);
+				int bound = overlap[y] + 1 + Math.min(x.length - i - 1, yLength - index.positions[e] - 1);
+				if (bound >= required) {
+					overlap[y]++;
+				} else {
+					overlap[y] = -1;
+				}
+			}
+		}
+
+		// verify the candidates
+		long[] result = new long[candidates.numberOfTouched];
+		int numberOfResults = 0;
+		for (int c = 0; c < candidates.numberOfTouched; c++) {
+			int y = candidates.touched[c];
+			if (overlap[y] > 0 && getJaccard(x, ordered2[y]) >= threshold) {
+				result[numberOfResults++] = IndexPairResultSet.pack(owner, owners2[y]);
+			}
+			overlap[y] = 0;
+		}
+		return Arrays.copyOf(result, numberOfResults);
+	}
+
+	/**
+	 * @return the Jaccard similarity of two sorted sets
+	 */
+	private double getJaccard(int[] x, int[] y) {
+		int common = 0;
+		int i = 0;
+		int j = 0;
+		while (i < x.length && j < y.length) {
+			if (x[i] < y[j]) {
+				i++;
+			} else if (x[i] > y[j]) {
+				j++;
+			} else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+		return (double) common / (double) (x.length + y.length - common);
+	}
+}
@@ -18,14 +18,16 @@
 package de.uni_mannheim.informatik.wdi.matching.blocking;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import de.uni_mannheim.informatik.wdi.matching.MatchingTask;
 import de.uni_mannheim.informatik.wdi.model.Correspondence;
 import de.uni_mannheim.informatik.wdi.model.DataSet;
+import de.uni_mannheim.informatik.wdi.model.IndexPairResultSet;
 import de.uni_mannheim.informatik.wdi.model.Matchable;
-import de.uni_mannheim.informatik.wdi.model.Pair;
 import de.uni_mannheim.informatik.wdi.model.Record;
 import de.uni_mannheim.informatik.wdi.model.ResultSet;
 
@@ -34,6 +36,12 @@ import de.uni_mannheim.informatik.wdi.model.ResultSet;
  * the blocking key of the {@link BlockingKeyGenerator} compares only the
  * surrounding {@link Record}s.
  * 
+ * Several blocking functions can be given, then the records are sorted once
+ * per blocking function (multi-pass) and the pairs of all passes are merged.
+ * Records with a null blocking key are left out of a pass. Optionally, the
+ * window is extended as long as the blocking keys are similar (see
+ * {@link #setAdaptiveWindow(int, double)}).
+ * 
  * @author Robert Meusel (robert@dwslab.de)
  * @author Oliver Lehmberg (oli@dwslab.de)
  * 
@@ -42,54 +50,72 @@ import de.uni_mannheim.informatik.wdi.model.ResultSet;
 public class SortedNeighbourhoodBlocker<RecordType extends Matchable, SchemaElementType extends Matchable> extends
 		DatasetLevelBlocker<RecordType, SchemaElementType> {
 
-	private BlockingKeyGenerator<RecordType> blockingFunction;
+	private List<BlockingKeyGenerator<RecordType>> blockingFunctions;
 	private int windowSize;
+	private int maxWindowSize;
+	private double minKeySimilarity;
 
 	public SortedNeighbourhoodBlocker(
 			BlockingKeyGenerator<RecordType> blockingFunction, int windowSize) {
-		this.blockingFunction = blockingFunction;
+		this(Collections.singletonList(blockingFunction), windowSize);
+	}
+
+	/**
+	 * @param blockingFunctions
+	 *            one blocking function per pass
+	 * @param windowSize
+	 */
+	public SortedNeighbourhoodBlocker(
+			List<BlockingKeyGenerator<RecordType>> blockingFunctions, int windowSize) {
+		this.blockingFunctions = new ArrayList<>(blockingFunctions);
 		this.windowSize = windowSize;
+		this.maxWindowSize = windowSize;
+	}
+
+	/**
+	 * Extends the window beyond the window size (up to maxWindowSize) as long
+	 * as the blocking key of the next record is similar to the blocking key of
+	 * the current record. The similarity of two keys is the length of their
+	 * common prefix divided by the length of the longer key.
+	 * 
+	 * @param maxWindowSize
+	 * @param minKeySimilarity
+	 */
+	public void setAdaptiveWindow(int maxWindowSize, double minKeySimilarity) {
+		this.maxWindowSize = Math.max(windowSize, maxWindowSize);
+		this.minKeySimilarity = minKeySimilarity;
 	}
 
 	@Override
 	public ResultSet<BlockedMatchable<RecordType, SchemaElementType>> block(
 			DataSet<RecordType, SchemaElementType> dataset, boolean isSymmetric, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
-		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = new ResultSet<>();
-
-		// add all instances to one list, and compute the keys
-		ArrayList<Pair<String, RecordType>> keyIdentifierList = new ArrayList<Pair<String, RecordType>>();
-		for (RecordType record : dataset.getRecords()) {
-			keyIdentifierList.add(new Pair<String, RecordType>(blockingFunction
-					.getBlockingKey(record), record));
-		}
-		// sort the list by the keys
-		Comparator<Pair<String, RecordType>> pairComparator = new Comparator<Pair<String, RecordType>>() {
-
-			@Override
-			public int compare(Pair<String, RecordType> o1,
-					Pair<String, RecordType> o2) {
-				return o1.getFirst().compareTo(o2.getFirst());
-			}
-
-		};
-		Collections.sort(keyIdentifierList, pairComparator);
-		if (isSymmetric) {
-			for (int i = 0; i < keyIdentifierList.size() - 1; i++) {
-				for (int j = i + 1; ((j - i) < windowSize)
-						&& (j < keyIdentifierList.size()); j++) {
-					result.add(new MatchingTask<RecordType, SchemaElementType>(keyIdentifierList.get(i).getSecond(),
-							keyIdentifierList.get(j).getSecond(), schemaCorrespondences));
-				}
-			}
-		} else {
-			for (int i = 0; i < keyIdentifierList.size() - 1; i++) {
-				for (int j = Math.max(0, i - windowSize + 1); ((j - i) < windowSize)
-						&& (j < keyIdentifierList.size()); j++) {
-					result.add(new MatchingTask<RecordType, SchemaElementType>(keyIdentifierList.get(i).getSecond(),
-							keyIdentifierList.get(j).getSecond(), schemaCorrespondences));
+		List<RecordType> records = new ArrayList<>(dataset.getRecords());
+
+		IndexPairResultSet pairs = new IndexPairResultSet();
+		for (BlockingKeyGenerator<RecordType> blockingFunction : blockingFunctions) {
+			String[] keys = getBlockingKeys(records, blockingFunction);
+			int[] sorted = sortByKey(keys);
+
+			for (int i = 0; i < sorted.length - 1; i++) {
+				int r1 = sorted[i];
+				for (int j = i + 1; j < sorted.length && isInWindow(j - i, keys[r1], keys[sorted[j]]); j++) {
+					int r2 = sorted[j];
+					if (isSymmetric) {
+						pairs.add(Math.min(r1, r2), Math.max(r1, r2));
+					} else {
+						pairs.add(r1, r2);
+						pairs.add(r2, r1);
+					}
 				}
 			}
 		}
+		pairs.deduplicate();
+
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = new ResultSet<>(pairs.size());
+		for (int i = 0; i < pairs.size(); i++) {
+			result.add(new MatchingTask<RecordType, SchemaElementType>(records.get(pairs.getFirst(i)),
+					records.get(pairs.getSecond(i)), schemaCorrespondences));
+		}
 
 		calculatePerformance(dataset, dataset, result);
 		return result;
@@ -98,53 +124,100 @@ public class SortedNeighbourhoodBlocker<RecordType extends Matchable, SchemaElem
 	@Override
 	public ResultSet<BlockedMatchable<RecordType, SchemaElementType>> block(
 			DataSet<RecordType, SchemaElementType> dataset1, DataSet<RecordType, SchemaElementType> dataset2, ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences) {
-		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = new ResultSet<>();
+		// the records of dataset1 are followed by the records of dataset2, so
+		// a record belongs to dataset1 if its index is below size1
+		List<RecordType> records = new ArrayList<>(dataset1.getRecords());
+		int size1 = records.size();
+		records.addAll(dataset2.getRecords());
+
+		IndexPairResultSet pairs = new IndexPairResultSet();
+		for (BlockingKeyGenerator<RecordType> blockingFunction : blockingFunctions) {
+			String[] keys = getBlockingKeys(records, blockingFunction);
+			int[] sorted = sortByKey(keys);
+
+			for (int i = 0; i < sorted.length - 1; i++) {
+				int r1 = sorted[i];
+
+				// make sure r1 belongs to dataset1
+				if (r1 < size1) {
+
+					int counter = 1;
+					int j = i;
+					while (j < (sorted.length - 1)) {
+						int r2 = sorted[++j];
+						// check if they belong *not* to the same dataset
+						if (r2 >= size1) {
+							if (!isInWindow(counter, keys[r1], keys[r2])) {
+								break;
+							}
+							pairs.add(r1, r2);
+							counter++;
+						}
+					}
 
-		// add all instances to one list, and compute the keys
-		ArrayList<Pair<String, RecordType>> keyIdentifierList = new ArrayList<Pair<String, RecordType>>();
-		for (RecordType record : dataset1.getRecords()) {
-			keyIdentifierList.add(new Pair<String, RecordType>(blockingFunction
-					.getBlockingKey(record), record));
+				}
+			}
 		}
+		pairs.deduplicate();
 
-		for (RecordType record : dataset2.getRecords()) {
-			keyIdentifierList.add(new Pair<String, RecordType>(blockingFunction
-					.getBlockingKey(record), record));
+		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = new ResultSet<>(pairs.size());
+		for (int i = 0; i < pairs.size(); i++) {
+			result.add(new MatchingTask<RecordType, SchemaElementType>(records.get(pairs.getFirst(i)),
+					records.get(pairs.getSecond(i)), schemaCorrespondences));
 		}
-		// sort the list by the keys
-		Comparator<Pair<String, RecordType>> pairComparator = new Comparator<Pair<String, RecordType>>() {
 
-			@Override
-			public int compare(Pair<String, RecordType> o1,
-					Pair<String, RecordType> o2) {
-				return o1.getFirst().compareTo(o2.getFirst());
-			}
+		calculatePerformance(dataset1, dataset2, result);
+		return result;
+	}
 
-		};
-		Collections.sort(keyIdentifierList, pairComparator);
-
-		for (int i = 0; i < keyIdentifierList.size() - 1; i++) {
-			RecordType r1 = keyIdentifierList.get(i).getSecond();
-			
-			// make sure r1 belongs to dataset1
-			if(dataset1.getRecord(r1.getIdentifier())!=null) {
-			
-				int counter = 1;
-				int j = i;
-				while ((counter < windowSize)
-						&& (j < (keyIdentifierList.size() - 1))) {
-					RecordType r2 = keyIdentifierList.get(++j).getSecond();
-					// check if they belong *not* to the same dataset
-					if (!r2.getProvenance().equals(r1.getProvenance())) {
-						result.add(new MatchingTask<RecordType, SchemaElementType>(r1, r2, schemaCorrespondences));
-						counter++;
-					}
-				}
-			
-			}
+	/**
+	 * @return the blocking keys of all records, computed in parallel
+	 */
+	private String[] getBlockingKeys(List<RecordType> records, BlockingKeyGenerator<RecordType> blockingFunction) {
+		return IntStream.range(0, records.size()).parallel()
+				.mapToObj(i -> blockingFunction.getBlockingKey(records.get(i)))
+				.toArray(String[]::new);
+	}
+
+	/**
+	 * @return the indices of all records with a blocking key, sorted by the
+	 *         key (records with the same key keep their order)
+	 */
+	private int[] sortByKey(String[] keys) {
+		Integer[] sorted = IntStream.range(0, keys.length)
+				.filter(i -> keys[i] != null)
+				.boxed()
+				.toArray(Integer[]::new);
+		Arrays.parallelSort(sorted, (i1, i2) -> keys[i1].compareTo(keys[i2]));
+		return Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * @param distance
+	 *            the number of records from the current record (only counting
+	 *            records that can be paired with it)
+	 * @return true if the record at the given distance is in the window of the
+	 *         current record
+	 */
+	private boolean isInWindow(int distance, String key, String otherKey) {
+		if (distance < windowSize) {
+			return true;
+		} else if (distance < maxWindowSize) {
+			return getKeySimilarity(key, otherKey) >= minKeySimilarity;
+		} else {
+			return false;
 		}
+	}
 
-		calculatePerformance(dataset1, dataset2, result);
-		return result;
+	private double getKeySimilarity(String key, String otherKey) {
+		int length = Math.max(key.length(), otherKey.length());
+		if (length == 0) {
+			return 1.0;
+		}
+		int common = 0;
+		while (common < key.length() && common < otherKey.length() && key.charAt(common) == otherKey.charAt(common)) {
+			common++;
+		}
+		return (double) common / length;
 	}
 }
@@ -17,7 +17,8 @@
  */
 package de.uni_mannheim.informatik.wdi.matching.blocking;
 
-import de.uni_mannheim.informatik.wdi.matching.MatchingTask;
+import java.util.List;
+
 import de.uni_mannheim.informatik.wdi.model.Correspondence;
 import de.uni_mannheim.informatik.wdi.model.DataSet;
 import de.uni_mannheim.informatik.wdi.model.Matchable;
@@ -107,7 +108,7 @@ public class StandardBlocker<RecordType extends Matchable, SchemaElementType ext
 			DataProcessingEngine engine,
             boolean blockFiltering,
             double r){
-		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = new ResultSet<>();
+		BlockedPairs<RecordType, SchemaElementType> result = new BlockedPairs<>(schemaCorrespondences);
 		
 		Function<String, RecordType> joinKeyGenerator1 = new Function<String, RecordType>() {
 
@@ -135,8 +136,9 @@ public class StandardBlocker<RecordType extends Matchable, SchemaElementType ext
 			}
 		};
 		
-		for(Pair<RecordType, RecordType> p : engine.join(dataset1, dataset2, joinKeyGenerator1, joinKeyGenerator2, blockFiltering, r).get()) {
-			result.add(new MatchingTask<RecordType, SchemaElementType>(p.getFirst(), p.getSecond(), schemaCorrespondences));
+		// only the blocks are created here, the pairs are generated when the result is iterated
+		for(Pair<List<RecordType>, List<RecordType>> block : engine.joinBlocks(dataset1, dataset2, joinKeyGenerator1, joinKeyGenerator2, blockFiltering, r).get()) {
+			result.addBlock(block.getFirst(), block.getSecond());
 		}
 		
 //		initializeBlocks(dataset1, dataset2, engine);
@@ -156,10 +158,8 @@ public class StandardBlocker<RecordType extends Matchable, SchemaElementType ext
 //			}
 //			
 //		}
-        ;
-
 
-		calculatePerformance(dataset1, dataset2, result);
+		calculatePerformance(dataset1, dataset2, result.getNumberOfPairs());
 		
 		return result;
 	}
@@ -173,7 +173,7 @@ public class StandardBlocker<RecordType extends Matchable, SchemaElementType ext
 			boolean isSymmetric,
 			ResultSet<Correspondence<SchemaElementType, RecordType>> schemaCorrespondences,
 			DataProcessingEngine engine) {
-		ResultSet<BlockedMatchable<RecordType, SchemaElementType>> result = new ResultSet<>();
+		BlockedPairs<RecordType, SchemaElementType> result = new BlockedPairs<>(schemaCorrespondences);
 		
 		Function<String, RecordType> joinKeyGenerator1 = new Function<String, RecordType>() {
 
@@ -188,8 +188,8 @@ public class StandardBlocker<RecordType extends Matchable, SchemaElementType ext
 			}
 		};
 		
-		for(Pair<RecordType, RecordType> p : engine.symmetricSelfJoin(dataset, joinKeyGenerator1).get()) {
-			result.add(new MatchingTask<RecordType, SchemaElementType>(p.getFirst(), p.getSecond(), schemaCorrespondences));
+		for(List<RecordType> block : engine.symmetricSelfJoinBlocks(dataset, joinKeyGenerator1).get()) {
+			result.addBlock(block);
 		}
 		
 //		initializeBlocks(dataset, engine);
@@ -204,7 +204,7 @@ public class StandardBlocker<RecordType extends Matchable, SchemaElementType ext
 //			}
 //		}
 		//result.deduplicate();
-		calculatePerformance(dataset, dataset, result);
+		calculatePerformance(dataset, dataset, result.getNumberOfPairs());
 		
 		return result;
 	}
@@ -0,0 +1,44 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.matching.blocking;
+
+import java.io.Serializable;
+
+import de.uni_mannheim.informatik.wdi.model.Matchable;
+
+/**
+ * Generates the token sets of a record for the {@link SetSimilarityBlocker}.
+ * A record can have several token sets (e.g. one per label), a pair of records
+ * is a candidate if any of their token sets are similar.
+ *
+ * @author Daniel Ringler
+ *
+ * @param <RecordType>
+ */
+public abstract class TokenSetGenerator<RecordType extends Matchable> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Returns the token sets of the given record
+	 *
+	 * @param instance
+	 * @return the token sets, each one an array of distinct tokens
+	 */
+	public abstract int[][] getTokenSets(RecordType instance);
+}
@@ -0,0 +1,322 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A list that stores its elements in fixed-size arrays (chunks). Appending never
+ * copies more than one chunk, elements are accessed by index in constant time
+ * and the {@link Spliterator} splits at chunk boundaries, so the list can be
+ * processed by parallel streams.
+ *
+ * @author Daniel Ringler
+ *
+ * @param <E>
+ */
+public class ChunkedArrayList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	static final int CHUNK_SHIFT = 12;
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private ArrayList<Object[]> chunks;
+	private int size = 0;
+
+	public ChunkedArrayList() {
+		this(0);
+	}
+
+	/**
+	 * @param sizeHint
+	 *            the expected number of elements
+	 */
+	public ChunkedArrayList(int sizeHint) {
+		chunks = new ArrayList<>((sizeHint >>> CHUNK_SHIFT) + 1);
+		if (sizeHint > 0) {
+			chunks.add(new Object[Math.max(MIN_CAPACITY, Math.min(sizeHint, CHUNK_SIZE))]);
+		}
+	}
+
+	public ChunkedArrayList(Collection<? extends E> elements) {
+		this(elements.size());
+		addAll(elements);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		checkIndex(index, size);
+		return (E) chunks.get(index >>> CHUNK_SHIFT)[index & CHUNK_MASK];
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E set(int index, E element) {
+		checkIndex(index, size);
+		Object[] chunk = chunks.get(index >>> CHUNK_SHIFT);
+		E old = (E) chunk[index & CHUNK_MASK];
+		chunk[index & CHUNK_MASK] = element;
+		return old;
+	}
+
+	@Override
+	public boolean add(E element) {
+		ensureCapacity(size + 1);
+		chunks.get(size >>> CHUNK_SHIFT)[size & CHUNK_MASK] = element;
+		size++;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		checkIndex(index, size + 1);
+		add(element);
+		for (int i = size - 1; i > index; i--) {
+			setUnchecked(i, getUnchecked(i - 1));
+		}
+		setUnchecked(index, element);
+	}
+
+	@Override
+	public E remove(int index) {
+		E old = get(index);
+		for (int i = index + 1; i < size; i++) {
+			setUnchecked(i - 1, getUnchecked(i));
+		}
+		truncate(size - 1);
+		return old;
+	}
+
+	/**
+	 * Removes all elements of the given collection in a single pass over this
+	 * list.
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		Collection<?> toRemove = c.size() > 8 && !(c instanceof Set) ? new HashSet<>(c) : c;
+		int newSize = 0;
+		for (int i = 0; i < size; i++) {
+			Object element = getUnchecked(i);
+			if (!toRemove.contains(element)) {
+				setUnchecked(newSize++, element);
+			}
+		}
+		boolean changed = newSize < size;
+		truncate(newSize);
+		return changed;
+	}
+
+	/**
+	 * Removes all duplicates from this list, the first occurrence of every
+	 * element is kept in its original position.
+	 */
+	public void deduplicate() {
+		HashSet<Object> seen = new HashSet<>(size * 2);
+		int newSize = 0;
+		for (int i = 0; i < size; i++) {
+			Object element = getUnchecked(i);
+			if (seen.add(element)) {
+				setUnchecked(newSize++, element);
+			}
+		}
+		truncate(newSize);
+	}
+
+	@Override
+	public void clear() {
+		chunks.clear();
+		size = 0;
+		modCount++;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super E> action) {
+		int expectedModCount = modCount;
+		for (int c = 0; c < chunks.size(); c++) {
+			Object[] chunk = chunks.get(c);
+			int end = Math.min(CHUNK_SIZE, size - (c << CHUNK_SHIFT));
+			for (int i = 0; i < end; i++) {
+				action.accept((E) chunk[i]);
+			}
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new ChunkSpliterator(0, -1);
+	}
+
+	private Object getUnchecked(int index) {
+		return chunks.get(index >>> CHUNK_SHIFT)[index & CHUNK_MASK];
+	}
+
+	private void setUnchecked(int index, Object element) {
+		chunks.get(index >>> CHUNK_SHIFT)[index & CHUNK_MASK] = element;
+	}
+
+	private void ensureCapacity(int capacity) {
+		while (capacity() < capacity) {
+			if (chunks.isEmpty()) {
+				chunks.add(new Object[MIN_CAPACITY]);
+			} else if (chunks.size() == 1 && chunks.get(0).length < CHUNK_SIZE) {
+				// only the first chunk grows, all others are created with full size
+				Object[] first = chunks.get(0);
+				chunks.set(0, Arrays.copyOf(first, Math.min(CHUNK_SIZE, Math.max(capacity, first.length * 2))));
+			} else {
+				chunks.add(new Object[CHUNK_SIZE]);
+			}
+		}
+	}
+
+	private int capacity() {
+		if (chunks.isEmpty()) {
+			return 0;
+		}
+		return ((chunks.size() - 1) << CHUNK_SHIFT) + chunks.get(chunks.size() - 1).length;
+	}
+
+	/**
+	 * Shrinks the list to the given size, releases chunks that are no longer
+	 * used and clears the references in the last chunk.
+	 */
+	private void truncate(int newSize) {
+		int usedChunks = (newSize + CHUNK_MASK) >>> CHUNK_SHIFT;
+		for (int i = newSize; i < size && i < (usedChunks << CHUNK_SHIFT); i++) {
+			setUnchecked(i, null);
+		}
+		chunks.subList(usedChunks, chunks.size()).clear();
+		size = newSize;
+		modCount++;
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * Iterates over a range of indices, splits are aligned to chunks.
+	 */
+	private class ChunkSpliterator implements Spliterator<E> {
+
+		private int index;
+		private int fence; // -1 until first use
+		private int expectedModCount;
+
+		ChunkSpliterator(int origin, int fence) {
+			this.index = origin;
+			this.fence = fence;
+			this.expectedModCount = modCount;
+		}
+
+		private int getFence() {
+			if (fence < 0) {
+				expectedModCount = modCount;
+				fence = size;
+			}
+			return fence;
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			int hi = getFence();
+			int mid = (index + hi) >>> 1;
+			if (hi - index > CHUNK_SIZE) {
+				// align the split to a chunk boundary
+				mid = Math.max(index + 1, mid & ~CHUNK_MASK);
+			}
+			if (mid <= index || mid >= hi) {
+				return null;
+			}
+			ChunkSpliterator prefix = new ChunkSpliterator(index, mid);
+			prefix.expectedModCount = expectedModCount;
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean tryAdvance(Consumer<? super E> action) {
+			int hi = getFence();
+			if (index < hi) {
+				E element = (E) getUnchecked(index++);
+				action.accept(element);
+				checkForComodification();
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void forEachRemaining(Consumer<? super E> action) {
+			int hi = getFence();
+			while (index < hi) {
+				Object[] chunk = chunks.get(index >>> CHUNK_SHIFT);
+				int end = Math.min(hi - (index & ~CHUNK_MASK), CHUNK_SIZE);
+				for (int i = index & CHUNK_MASK; i < end; i++) {
+					action.accept((E) chunk[i]);
+				}
+				index = (index & ~CHUNK_MASK) + end;
+			}
+			checkForComodification();
+		}
+
+		@Override
+		public long estimateSize() {
+			return getFence() - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+}
@@ -25,6 +25,10 @@ import java.util.*;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -68,7 +72,12 @@ public class DefaultDataSet<RecordType extends Matchable, SchemaElementType> imp
 	}
 
 	/**
-	 * Loads a data set from an XML file
+	 * Loads a data set from an XML file. If the record path is a simple path of
+	 * element names (like "events/event"), the file is read with a StAX parser
+	 * and the records are created one at a time by
+	 * {@link MatchableFactory#createModelFromStream(XMLStreamReader, String)},
+	 * so the file is never loaded into memory completely. Other XPath
+	 * expressions are evaluated on the DOM of the file.
 	 *
 	 * @param dataSource
 	 *            the XML file containing the data
@@ -86,6 +95,98 @@ public class DefaultDataSet<RecordType extends Matchable, SchemaElementType> imp
 			MatchableFactory<RecordType> modelFactory, String recordPath)
 			throws ParserConfigurationException, SAXException, IOException,
 			XPathExpressionException {
+		String[] elementPath = getElementPath(recordPath);
+		if (elementPath == null) {
+			loadFromXMLWithXPath(dataSource, modelFactory, recordPath);
+			return;
+		}
+
+		int elementCounter = 0;
+		int nullCounter = 0;
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		try (InputStream in = new BufferedInputStream(new FileInputStream(dataSource))) {
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			try {
+				// number of open elements, and how many of them match the path
+				int depth = 0;
+				int matchingDepth = 0;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						if (matchingDepth == depth && depth < elementPath.length
+								&& elementPath[depth].equals(MatchableFactory.getElementName(reader))) {
+							matchingDepth++;
+						}
+						depth++;
+
+						if (matchingDepth == elementPath.length) {
+							elementCounter++;
+
+							// create the entry, use file name as provenance
+							// information (the factory reads until the end
+							// element)
+							RecordType record = modelFactory.createModelFromStream(reader, dataSource.getName());
+							depth--;
+							matchingDepth--;
+
+							if (record != null) {
+								// add it to the data set
+								addRecord(record);
+							} else {
+								nullCounter++;
+							}
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						depth--;
+						matchingDepth = Math.min(matchingDepth, depth);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not parse " + dataSource.getAbsolutePath(), e);
+		}
+
+		if (elementCounter == 0) {
+			System.out.println("ERROR: no elements matching the XPath ("
+					+ recordPath + ") found in the input file "
+					+ dataSource.getAbsolutePath());
+		} else {
+			System.out.println(String.format("Loaded %d elements from %s",
+					elementCounter, dataSource.getName()));
+		}
+		if (getSize() > 0) {
+			addAttributes(getRandomRecord().getDefaultSchemaElements());
+		}
+		if (nullCounter > 0) {
+			System.out.println(nullCounter + " records were not be added (date or keyword filter, parseError, etc.).");
+		}
+	}
+
+	/**
+	 * @return the element names of an XPath that only consists of element
+	 *         names (relative or absolute), null for all other XPaths
+	 */
+	private String[] getElementPath(String recordPath) {
+		String path = recordPath.startsWith("/") ? recordPath.substring(1) : recordPath;
+		String[] names = path.split("/", -1);
+		for (String name : names) {
+			if (!name.matches("[\\p{L}_][\\p{L}\\p{N}_.:-]*")) {
+				return null;
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Loads a data set from an XML file by evaluating the XPath on the DOM of
+	 * the file
+	 */
+	private void loadFromXMLWithXPath(File dataSource,
+			MatchableFactory<RecordType> modelFactory, String recordPath)
+			throws ParserConfigurationException, SAXException, IOException,
+			XPathExpressionException {
 		int nullCounter = 0;
 		// create objects for reading the XML file
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
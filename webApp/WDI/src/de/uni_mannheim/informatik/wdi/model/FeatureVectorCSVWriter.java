@@ -0,0 +1,116 @@
+/** 
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.opencsv.CSVWriter;
+
+import de.uni_mannheim.informatik.wdi.processing.DatasetIterator;
+
+/**
+ * Writes feature vectors to a tab separated file while they are generated,
+ * with the same columns as {@link DefaultRecordCSVFormatter} (sorted by
+ * name). The header is written with the first record, when the features of
+ * the matching rule are known.
+ * 
+ * @author Daniel Ringler
+ * 
+ */
+public class FeatureVectorCSVWriter implements DatasetIterator<DefaultRecord>, Closeable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	private final FeatureVectorDataSet features;
+	private final CSVWriter writer;
+	private List<DefaultSchemaElement> columns;
+	private int size = 0;
+
+	/**
+	 * @param file
+	 * @param features
+	 *            the data set that holds the attributes of the feature vectors
+	 * @throws IOException
+	 */
+	public FeatureVectorCSVWriter(File file, FeatureVectorDataSet features) throws IOException {
+		this.features = features;
+		this.writer = new CSVWriter(new FileWriter(file), '\t');
+	}
+
+	@Override
+	public void initialise() {
+	}
+
+	@Override
+	public void next(DefaultRecord record) {
+		if (columns == null) {
+			columns = new ArrayList<>(features.getAttributes());
+			Collections.sort(columns, new Comparator<DefaultSchemaElement>() {
+
+				@Override
+				public int compare(DefaultSchemaElement o1, DefaultSchemaElement o2) {
+					return o1.toString().compareTo(o2.toString());
+				}
+			});
+
+			String[] header = new String[columns.size()];
+			for (int i = 0; i < header.length; i++) {
+				header[i] = columns.get(i).toString();
+			}
+			writer.writeNext(header, false);
+		}
+
+		String[] values = new String[columns.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = record.getValue(columns.get(i));
+		}
+		writer.writeNext(values, false);
+		size++;
+	}
+
+	@Override
+	public void finalise() {
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			throw new RuntimeException("Could not write feature vectors", e);
+		}
+	}
+
+	/**
+	 * @return the number of written feature vectors
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+}
@@ -17,6 +17,9 @@
  */
 package de.uni_mannheim.informatik.wdi.model;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author Oliver Lehmberg (oli@dwslab.de)
  *
@@ -31,6 +34,8 @@ public class FeatureVectorDataSet extends FusableDataSet<DefaultRecord, DefaultS
 	public static final DefaultSchemaElement ATTRIBUTE_IS_MATCH = new DefaultSchemaElement("isMatch");
 	public static final DefaultSchemaElement ATTRIBUTE_LABEL = new DefaultSchemaElement("label");
 	
+	private Map<String, DefaultSchemaElement> attributesByName = new ConcurrentHashMap<>();
+	
 	/**
 	 * 
 	 */
@@ -38,6 +43,34 @@ public class FeatureVectorDataSet extends FusableDataSet<DefaultRecord, DefaultS
 		super();
 		addAttribute(ATTRIBUTE_FINAL_VALUE);
 		addAttribute(ATTRIBUTE_IS_MATCH);
+		addAttribute(ATTRIBUTE_LABEL);
+	}
+	
+	@Override
+	public synchronized void addAttribute(DefaultSchemaElement attribute) {
+		super.addAttribute(attribute);
+		attributesByName.put(attribute.toString(), attribute);
+	}
+	
+	/**
+	 * Returns the attribute (feature) with the given name, a new attribute is
+	 * added if there is none. Can be called by multiple threads.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	public DefaultSchemaElement getAttribute(String name) {
+		DefaultSchemaElement attribute = attributesByName.get(name);
+		if (attribute == null) {
+			synchronized (this) {
+				attribute = attributesByName.get(name);
+				if (attribute == null) {
+					attribute = new DefaultSchemaElement(name);
+					addAttribute(attribute);
+				}
+			}
+		}
+		return attribute;
 	}
 	
 }
@@ -0,0 +1,162 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A {@link ResultSet} of pairs of record indices (for example the positions of
+ * two records in their data sets). Every pair is packed into a single long and
+ * stored in chunked long arrays, so no objects are created per pair.
+ * {@link #get()} returns a read-only view that creates the {@link Pair}s on
+ * access.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class IndexPairResultSet extends ResultSet<Pair<Integer, Integer>> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int CHUNK_SHIFT = ChunkedArrayList.CHUNK_SHIFT;
+	private static final int CHUNK_SIZE = ChunkedArrayList.CHUNK_SIZE;
+	private static final int CHUNK_MASK = ChunkedArrayList.CHUNK_MASK;
+
+	private ArrayList<long[]> chunks = new ArrayList<>();
+	private int size = 0;
+
+	public IndexPairResultSet() {
+		super(null);
+		elements = new PairView();
+	}
+
+	/**
+	 * Packs two indices into a long, the first index is stored in the upper 32
+	 * bits.
+	 */
+	public static long pack(int first, int second) {
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	public static int first(long pair) {
+		return (int) (pair >>> 32);
+	}
+
+	public static int second(long pair) {
+		return (int) pair;
+	}
+
+	public void add(int first, int second) {
+		addPacked(pack(first, second));
+	}
+
+	public void addPacked(long pair) {
+		if ((size & CHUNK_MASK) == 0 && (size >>> CHUNK_SHIFT) == chunks.size()) {
+			chunks.add(new long[CHUNK_SIZE]);
+		}
+		chunks.get(size >>> CHUNK_SHIFT)[size & CHUNK_MASK] = pair;
+		size++;
+	}
+
+	@Override
+	public void add(Pair<Integer, Integer> element) {
+		add(element.getFirst(), element.getSecond());
+	}
+
+	/**
+	 * @return the packed pair at the given position
+	 */
+	public long getPacked(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return chunks.get(index >>> CHUNK_SHIFT)[index & CHUNK_MASK];
+	}
+
+	public int getFirst(int index) {
+		return first(getPacked(index));
+	}
+
+	public int getSecond(int index) {
+		return second(getPacked(index));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return a copy of all packed pairs
+	 */
+	public long[] toPackedArray() {
+		long[] result = new long[size];
+		for (int c = 0; c < chunks.size(); c++) {
+			int offset = c << CHUNK_SHIFT;
+			System.arraycopy(chunks.get(c), 0, result, offset, Math.min(CHUNK_SIZE, size - offset));
+		}
+		return result;
+	}
+
+	/**
+	 * Sorts the pairs and removes duplicates.
+	 */
+	@Override
+	public void deduplicate() {
+		long[] pairs = toPackedArray();
+		Arrays.sort(pairs);
+		chunks.clear();
+		size = 0;
+		for (int i = 0; i < pairs.length; i++) {
+			if (i == 0 || pairs[i] != pairs[i - 1]) {
+				addPacked(pairs[i]);
+			}
+		}
+	}
+
+	@Override
+	public void remove(Pair<Integer, Integer> element) {
+		throw new UnsupportedOperationException("Pairs cannot be removed from an IndexPairResultSet.");
+	}
+
+	@Override
+	public void remove(Collection<Pair<Integer, Integer>> element) {
+		throw new UnsupportedOperationException("Pairs cannot be removed from an IndexPairResultSet.");
+	}
+
+	/**
+	 * Read-only view that boxes the pairs on access.
+	 */
+	private class PairView extends AbstractList<Pair<Integer, Integer>> implements RandomAccess {
+
+		@Override
+		public Pair<Integer, Integer> get(int index) {
+			long pair = getPacked(index);
+			return new Pair<>(first(pair), second(pair));
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
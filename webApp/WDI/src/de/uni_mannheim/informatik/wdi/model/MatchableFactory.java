@@ -23,6 +23,14 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -46,6 +54,26 @@ public abstract class MatchableFactory<RecordType extends Matchable> {
 	 */
 	public abstract RecordType createModelFromElement(Node node,
 			String provenanceInfo);
+
+	/**
+	 * creates a RecordType record from an XML element while the file is read
+	 * with a StAX parser. The reader is positioned at the start element of the
+	 * record and must be left at its end element.
+	 * 
+	 * The default implementation reads the element into a DOM node and calls
+	 * {@link #createModelFromElement(Node, String)}, factories can override it
+	 * to create the record directly from the stream.
+	 * 
+	 * @param reader
+	 *            the reader positioned at the start element
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	public RecordType createModelFromStream(XMLStreamReader reader,
+			String provenanceInfo) throws XMLStreamException {
+		return createModelFromElement(readElementFromStream(reader),
+				provenanceInfo);
+	}
 	/**
 	 * creates a RecordType record from a TSV line
 	 *
@@ -82,6 +110,184 @@ public abstract class MatchableFactory<RecordType extends Matchable> {
 															 boolean filterByKeyword,
 															 String keyword);
 
+	private DocumentBuilder documentBuilder;
+
+	/**
+	 * reads the current element of the reader (and all its children) into a
+	 * DOM node, the reader is left at the end element
+	 * 
+	 * @param reader
+	 *            the reader positioned at a start element
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	protected Element readElementFromStream(XMLStreamReader reader)
+			throws XMLStreamException {
+		if (documentBuilder == null) {
+			try {
+				documentBuilder = DocumentBuilderFactory.newInstance()
+						.newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				throw new XMLStreamException(e);
+			}
+		}
+		Document doc = documentBuilder.newDocument();
+
+		Element root = createElementFromStream(reader, doc);
+		Node current = root;
+		while (current != null) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				current = current.appendChild(createElementFromStream(reader,
+						doc));
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				current = current == root ? null : current.getParentNode();
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				current.appendChild(doc.createTextNode(reader.getText()));
+				break;
+			default:
+				// comments and processing instructions are not needed
+			}
+		}
+		return root;
+	}
+
+	private Element createElementFromStream(XMLStreamReader reader,
+			Document doc) {
+		Element element = doc.createElement(getElementName(reader));
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String prefix = reader.getAttributePrefix(i);
+			String name = reader.getAttributeLocalName(i);
+			element.setAttribute(prefix == null || prefix.isEmpty() ? name
+					: prefix + ":" + name, reader.getAttributeValue(i));
+		}
+		return element;
+	}
+
+	/**
+	 * returns the name of the current element of the reader as in the DOM
+	 * (including the prefix)
+	 */
+	protected static String getElementName(XMLStreamReader reader) {
+		String prefix = reader.getPrefix();
+		if (prefix == null || prefix.isEmpty()) {
+			return reader.getLocalName();
+		} else {
+			return prefix + ":" + reader.getLocalName();
+		}
+	}
+
+	/**
+	 * moves the reader to the next child element of the current element
+	 * 
+	 * @param reader
+	 *            the reader positioned at the start element of the parent or
+	 *            at the end element of the previous child
+	 * @return true if the reader is at the start element of a child, false if
+	 *         it is at the end element of the parent
+	 * @throws XMLStreamException
+	 */
+	protected boolean nextChildElement(XMLStreamReader reader)
+			throws XMLStreamException {
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				return true;
+			case XMLStreamConstants.END_ELEMENT:
+				return false;
+			default:
+				// text between the child elements is ignored
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * returns the text content of the current element of the reader (like
+	 * {@link Node#getTextContent()}), the reader is left at the end element
+	 * 
+	 * @param reader
+	 *            the reader positioned at a start element
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	protected String getTextContentFromStream(XMLStreamReader reader)
+			throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		int depth = 1;
+		while (depth > 0) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				depth++;
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				depth--;
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				text.append(reader.getText());
+				break;
+			default:
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * skips the current element of the reader and all its children, the
+	 * reader is left at the end element
+	 * 
+	 * @param reader
+	 *            the reader positioned at a start element
+	 * @throws XMLStreamException
+	 */
+	protected void skipElement(XMLStreamReader reader)
+			throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * returns a list of records from the current element of the reader, like
+	 * {@link #getObjectListFromChildElement(Node, String, String, MatchableFactory, String)}
+	 * 
+	 * @param reader
+	 *            the reader positioned at the start element of the list
+	 * @param objectNodeName
+	 *            the name of the nodes containing the object data
+	 * @param factory
+	 *            the factory converting child nodes into records of type
+	 *            ItemType
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	protected <ItemType extends Matchable> List<ItemType> getObjectListFromStream(
+			XMLStreamReader reader, String objectNodeName,
+			MatchableFactory<ItemType> factory, String provenanceInfo)
+			throws XMLStreamException {
+		List<ItemType> values = new ArrayList<>();
+		while (nextChildElement(reader)) {
+			if (getElementName(reader).equals(objectNodeName)) {
+				values.add(factory.createModelFromStream(reader, provenanceInfo));
+			} else {
+				skipElement(reader);
+			}
+		}
+		return values;
+	}
+
 	/**
 	 * returns a value from a child node of the first parameter. The child not
 	 * must only have one value (lists will be ignored)
@@ -3,7 +3,7 @@ package de.uni_mannheim.informatik.wdi.model;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Set;
 
 /**
  * Wrapper class for any kind of collection. Can be used to change the way collections are handled internally without modifying other code
@@ -19,7 +19,14 @@ public class ResultSet<ElementType> implements BasicCollection<ElementType> {
 	protected Collection<ElementType> elements;
 	
 	public ResultSet() {
-		elements = new LinkedList<>();
+		elements = new ChunkedArrayList<>();
+	}
+	
+	/**
+	 * @param sizeHint the expected number of elements
+	 */
+	public ResultSet(int sizeHint) {
+		elements = new ChunkedArrayList<>(sizeHint);
 	}
 	
 	public ResultSet(Collection<ElementType> elements) {
@@ -49,11 +56,20 @@ public class ResultSet<ElementType> implements BasicCollection<ElementType> {
 	}
 	
 	public void remove(Collection<ElementType> element) {
-		elements.removeAll(element);
+		if(element.size()>8 && !(element instanceof Set) && !(elements instanceof ChunkedArrayList)) {
+			// avoid a linear search in the argument for every element
+			elements.removeAll(new HashSet<>(element));
+		} else {
+			elements.removeAll(element);
+		}
 	}
 	
 	public void deduplicate() {
-		elements = new ArrayList<>(new HashSet<>(elements));
+		if(elements instanceof ChunkedArrayList) {
+			((ChunkedArrayList<ElementType>)elements).deduplicate();
+		} else {
+			elements = new ArrayList<>(new HashSet<>(elements));
+		}
 	}
 
 }
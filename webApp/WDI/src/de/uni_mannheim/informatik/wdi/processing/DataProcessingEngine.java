@@ -28,11 +28,13 @@ import java.util.Set;
 
 import de.uni_mannheim.informatik.wdi.matching.blocking.BlockFiltering;
 import de.uni_mannheim.informatik.wdi.model.BasicCollection;
+import de.uni_mannheim.informatik.wdi.model.ChunkedArrayList;
 import de.uni_mannheim.informatik.wdi.model.DataSet;
 import de.uni_mannheim.informatik.wdi.model.DefaultDataSet;
 import de.uni_mannheim.informatik.wdi.model.Matchable;
 import de.uni_mannheim.informatik.wdi.model.Pair;
 import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.utils.ProgressReporter;
 
 /**
  * @author Oliver Lehmberg (oli@dwslab.de)
@@ -41,8 +43,23 @@ import de.uni_mannheim.informatik.wdi.model.ResultSet;
  */
 public class DataProcessingEngine {
 	
+	/**
+	 * Creates an empty result set, backed by a {@link ChunkedArrayList}.
+	 * @param dummyForTypeInference
+	 * @return
+	 */
 	public <RecordType> ResultSet<RecordType> createResultSet(RecordType dummyForTypeInference) {
-		return new ResultSet<>();
+		return new ResultSet<>(new ChunkedArrayList<RecordType>());
+	}
+	
+	/**
+	 * Creates an empty result set with room for the given number of elements.
+	 * @param dummyForTypeInference
+	 * @param sizeHint the expected number of elements
+	 * @return
+	 */
+	public <RecordType> ResultSet<RecordType> createResultSet(RecordType dummyForTypeInference, int sizeHint) {
+		return new ResultSet<>(new ChunkedArrayList<RecordType>(sizeHint));
 	}
 	
 	public <RecordType extends Matchable, SchemaElementType> DataSet<RecordType, SchemaElementType> createDataSet(RecordType dummyForTypeInference, SchemaElementType secondDummy) {
@@ -105,21 +122,50 @@ public class DataProcessingEngine {
 	}
 	
 	public <RecordType, OutputRecordType> ResultSet<OutputRecordType> transform(BasicCollection<RecordType> dataset, RecordMapper<RecordType, OutputRecordType> transformation) {
+		return transform(dataset, transformation, null);
+	}
+	
+	/**
+	 * Applies the transformation to all records of the dataset and reports the progress to the given {@link ProgressReporter} (if not null)
+	 * @param dataset
+	 * @param transformation
+	 * @param progress
+	 * @return
+	 */
+	public <RecordType, OutputRecordType> ResultSet<OutputRecordType> transform(BasicCollection<RecordType> dataset, RecordMapper<RecordType, OutputRecordType> transformation, ProgressReporter progress) {
 		
 		ResultSetCollector<OutputRecordType> resultCollector = new ResultSetCollector<>();
 		
 		// the worst line of code ever ... is there a better way to do that in java?
 		resultCollector.setResult(createResultSet((OutputRecordType)null));
 		
+		transform(dataset, transformation, resultCollector, progress);
+		
+		return resultCollector.getResult();
+	}
+	
+	/**
+	 * Applies the transformation to all records of the dataset and passes the results to the collector in the order of the input, 
+	 * so they can be processed (e.g. written to a file) without keeping them in memory. The collector is only called from the calling thread.
+	 * @param dataset
+	 * @param transformation
+	 * @param resultCollector
+	 * @param progress
+	 */
+	public <RecordType, OutputRecordType> void transform(BasicCollection<RecordType> dataset, RecordMapper<RecordType, OutputRecordType> transformation, DatasetIterator<OutputRecordType> resultCollector, ProgressReporter progress) {
+		
 		resultCollector.initialise();
 		
 		for(RecordType record : dataset.get()) {
 			transformation.mapRecord(record, resultCollector);
+			
+			if(progress!=null) {
+				progress.incrementProgress();
+				progress.report();
+			}
 		}
 		
 		resultCollector.finalise();
-		
-		return resultCollector.getResult();
 	}
 	
 	protected <KeyType, RecordType> Map<KeyType, List<RecordType>> hashRecords(BasicCollection<RecordType> dataset, Function<KeyType, RecordType> hash) {
@@ -184,6 +230,25 @@ public class DataProcessingEngine {
 		return collector.getResult();
 	}
 	
+	/**
+	 * Same as {@link #symmetricSelfJoin(BasicCollection, Function)}, but does not create the pairs.
+	 * Returns one block of records for every join key.
+	 * 
+	 * @param dataset
+	 * @param joinKeyGenerator
+	 * @return
+	 */
+	public <KeyType, RecordType> ResultSet<List<RecordType>> symmetricSelfJoinBlocks(BasicCollection<RecordType> dataset, Function<KeyType, RecordType> joinKeyGenerator) {
+		
+		ResultSet<List<RecordType>> result = createResultSet((List<RecordType>)null);
+		
+		for(List<RecordType> block : hashRecords(dataset, joinKeyGenerator).values()) {
+			result.add(block);
+		}
+		
+		return result;
+	}
+	
 	public <KeyType, RecordType> ResultSet<Pair<RecordType,RecordType>> join(BasicCollection<RecordType> dataset1, BasicCollection<RecordType> dataset2, Function<KeyType, RecordType> joinKeyGenerator, boolean blockFiltering, double r) {
 		
 		return join(dataset1, dataset2, joinKeyGenerator, joinKeyGenerator, blockFiltering, r);
@@ -194,6 +259,33 @@ public class DataProcessingEngine {
 		
 		ResultSet<Pair<RecordType, RecordType>> result = createResultSet((Pair<RecordType, RecordType>)null);
 		
+		for(Pair<List<RecordType>, List<RecordType>> block : joinBlocks(dataset1, dataset2, joinKeyGenerator1, joinKeyGenerator2, blockFiltering, r).get()) {
+			for(RecordType r1 : block.getFirst()) {
+				for(RecordType r2 : block.getSecond()) {
+					result.add(new Pair<>(r1, r2));
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Same as {@link #join(BasicCollection, BasicCollection, Function, Function, boolean, double)}, but does not create the pairs.
+	 * Returns one pair of blocks (records of dataset1, records of dataset2) for every join key that exists in both datasets.
+	 * 
+	 * @param dataset1
+	 * @param dataset2
+	 * @param joinKeyGenerator1
+	 * @param joinKeyGenerator2
+	 * @param blockFiltering
+	 * @param r
+	 * @return
+	 */
+	public <KeyType, RecordType> ResultSet<Pair<List<RecordType>,List<RecordType>>> joinBlocks(BasicCollection<RecordType> dataset1, BasicCollection<RecordType> dataset2, Function<KeyType, RecordType> joinKeyGenerator1, Function<KeyType, RecordType> joinKeyGenerator2, boolean blockFiltering, double r) {
+		
+		ResultSet<Pair<List<RecordType>, List<RecordType>>> result = createResultSet((Pair<List<RecordType>, List<RecordType>>)null);
+		
 		Map<KeyType, List<RecordType>> joinKeys1 = hashRecords(dataset1, joinKeyGenerator1);
 		Map<KeyType, List<RecordType>> joinKeys2 = hashRecords(dataset2, joinKeyGenerator2);
 		
@@ -236,13 +328,7 @@ public class DataProcessingEngine {
 			List<RecordType> block2 = joinKeys2.get(key1);
 			
 			if(block2!=null) {
-				
-				for(RecordType r1 : block) {
-					for(RecordType r2 : block2) {
-						result.add(new Pair<>(r1, r2));
-					}
-				}
-				
+				result.add(new Pair<>(block, block2));
 			}
 			
 		}
@@ -409,7 +495,7 @@ public class DataProcessingEngine {
 			}
 		});
 		
-		ResultSet<ElementType> result = new ResultSet<>();
+		ResultSet<ElementType> result = createResultSet((ElementType)null, list.size());
 		for(ElementType elem : list) {
 			result.add(elem);
 		}
@@ -501,7 +587,7 @@ public class DataProcessingEngine {
 	}
 	
 	public <RecordType> ResultSet<RecordType> append(BasicCollection<RecordType> data1, BasicCollection<RecordType> data2) {
-		ResultSet<RecordType> result = new ResultSet<RecordType>();
+		ResultSet<RecordType> result = createResultSet((RecordType)null, data1.size() + data2.size());
 		
 		for(RecordType r : data1.get()) {
 			result.add(r);
@@ -517,7 +603,7 @@ public class DataProcessingEngine {
 	public <RecordType> ResultSet<RecordType> distinct(BasicCollection<RecordType> data) {
 		Set<RecordType> set = new HashSet<>(data.get());
 		
-		ResultSet<RecordType> result = new ResultSet<>();
+		ResultSet<RecordType> result = createResultSet((RecordType)null, set.size());
 		
 		for(RecordType record : set) {
 			result.add(record);
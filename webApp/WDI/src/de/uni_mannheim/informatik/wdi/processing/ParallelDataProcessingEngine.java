@@ -0,0 +1,251 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.processing;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import de.uni_mannheim.informatik.wdi.model.BasicCollection;
+import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.utils.ProgressReporter;
+
+/**
+ * A {@link DataProcessingEngine} that executes transformations on multiple
+ * threads. The input is cut into chunks, every chunk is mapped by a worker into
+ * its own buffer and the buffers are merged in input order, so the result is the
+ * same as for the sequential engine.
+ *
+ * The {@link RecordMapper}s passed to this engine must be thread-safe. An engine
+ * that created its own pool shuts it down in {@link #close()}.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class ParallelDataProcessingEngine extends DataProcessingEngine implements Closeable {
+
+	public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+	private ExecutorService executor;
+	private boolean ownsExecutor;
+	private int numberOfThreads;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Creates an engine that runs on the common {@link ForkJoinPool}.
+	 */
+	public ParallelDataProcessingEngine() {
+		this(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * Creates an engine with its own {@link ForkJoinPool} of the given size. The
+	 * pool is shut down by {@link #close()}.
+	 *
+	 * @param numberOfThreads
+	 */
+	public ParallelDataProcessingEngine(int numberOfThreads) {
+		this(new ForkJoinPool(numberOfThreads), numberOfThreads);
+		ownsExecutor = true;
+	}
+
+	/**
+	 * Creates an engine that runs on the given executor. The executor is not shut
+	 * down by this engine.
+	 *
+	 * @param executor
+	 * @param numberOfThreads
+	 *            the number of threads the executor provides, used to limit the
+	 *            number of chunks that are held in memory at the same time
+	 */
+	public ParallelDataProcessingEngine(ExecutorService executor, int numberOfThreads) {
+		this.executor = executor;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	/**
+	 * @return the number of records that are mapped by one worker at a time
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @param chunkSize
+	 *            the number of records that are mapped by one worker at a time
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	/**
+	 * Shuts down the pool if it was created by this engine, executors passed to
+	 * the constructor and the common pool are not shut down.
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	@Override
+	public <RecordType, OutputRecordType> ResultSet<OutputRecordType> transform(
+			BasicCollection<RecordType> dataset,
+			RecordMapper<RecordType, OutputRecordType> transformation,
+			ProgressReporter progress) {
+
+		final ResultSet<OutputRecordType> result = createResultSet((OutputRecordType) null);
+
+		mapChunks(dataset, transformation, progress, chunkResult -> result.merge(chunkResult));
+
+		return result;
+	}
+
+	@Override
+	public <RecordType, OutputRecordType> void transform(BasicCollection<RecordType> dataset,
+			RecordMapper<RecordType, OutputRecordType> transformation,
+			final DatasetIterator<OutputRecordType> resultCollector, ProgressReporter progress) {
+
+		resultCollector.initialise();
+
+		mapChunks(dataset, transformation, progress, chunkResult -> {
+			for (OutputRecordType record : chunkResult.get()) {
+				resultCollector.next(record);
+			}
+		});
+
+		resultCollector.finalise();
+	}
+
+	/**
+	 * Maps the input in chunks on the worker threads and passes the buffers of
+	 * the chunks to the merge function in input order (on the calling thread).
+	 */
+	private <RecordType, OutputRecordType> void mapChunks(BasicCollection<RecordType> dataset,
+			RecordMapper<RecordType, OutputRecordType> transformation, ProgressReporter progress,
+			Consumer<ResultSet<OutputRecordType>> merge) {
+
+		// chunks are submitted while the input is iterated, at most two chunks per
+		// thread are waiting, so the input does not have to be copied as a whole
+		ArrayDeque<Future<ChunkResultSet<OutputRecordType>>> running = new ArrayDeque<>();
+		int maxRunning = 2 * numberOfThreads;
+
+		List<RecordType> chunk = new ArrayList<>(chunkSize);
+		for (RecordType record : dataset.get()) {
+			chunk.add(record);
+
+			if (chunk.size() == chunkSize) {
+				running.add(executor.submit(new ChunkMapper<>(chunk, transformation)));
+				chunk = new ArrayList<>(chunkSize);
+
+				if (running.size() >= maxRunning) {
+					mergeChunk(running.poll(), merge, progress);
+				}
+			}
+		}
+		if (chunk.size() > 0) {
+			running.add(executor.submit(new ChunkMapper<>(chunk, transformation)));
+		}
+
+		while (!running.isEmpty()) {
+			mergeChunk(running.poll(), merge, progress);
+		}
+	}
+
+	private <OutputRecordType> void mergeChunk(Future<ChunkResultSet<OutputRecordType>> future,
+			Consumer<ResultSet<OutputRecordType>> merge, ProgressReporter progress) {
+		ChunkResultSet<OutputRecordType> chunkResult;
+		try {
+			chunkResult = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for a worker", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Worker failed", e.getCause());
+		}
+
+		merge.accept(chunkResult);
+
+		if (progress != null) {
+			progress.setProcessedElements(progress.getProcessedElements() + chunkResult.getInputSize());
+			progress.report();
+		}
+	}
+
+	/**
+	 * Maps all records of one chunk into a buffer that is only used by the worker
+	 * executing this chunk.
+	 */
+	private static class ChunkMapper<RecordType, OutputRecordType> implements Callable<ChunkResultSet<OutputRecordType>> {
+
+		private List<RecordType> chunk;
+		private RecordMapper<RecordType, OutputRecordType> transformation;
+
+		public ChunkMapper(List<RecordType> chunk, RecordMapper<RecordType, OutputRecordType> transformation) {
+			this.chunk = chunk;
+			this.transformation = transformation;
+		}
+
+		@Override
+		public ChunkResultSet<OutputRecordType> call() throws Exception {
+			ChunkResultSet<OutputRecordType> buffer = new ChunkResultSet<>(chunk.size());
+
+			ResultSetCollector<OutputRecordType> collector = new ResultSetCollector<>();
+			collector.setResult(buffer);
+			collector.initialise();
+
+			for (RecordType record : chunk) {
+				transformation.mapRecord(record, collector);
+			}
+
+			collector.finalise();
+
+			return buffer;
+		}
+	}
+
+	/**
+	 * Worker buffer that remembers how many input records it was created from.
+	 */
+	private static class ChunkResultSet<ElementType> extends ResultSet<ElementType> {
+
+		private static final long serialVersionUID = 1L;
+		private int inputSize;
+
+		public ChunkResultSet(int inputSize) {
+			super(new ArrayList<ElementType>());
+			this.inputSize = inputSize;
+		}
+
+		public int getInputSize() {
+			return inputSize;
+		}
+	}
+}
@@ -3,7 +3,9 @@ package de.uni_mannheim.informatik.wdi.similarity;
 
 import de.uni_mannheim.informatik.wdi.similarity.date.YearSimilarityLocalDate;
 import de.uni_mannheim.informatik.wdi.similarity.date.YearSimilarityYear;
+import de.uni_mannheim.informatik.wdi.similarity.string.BoundedLevenshteinSimilarity;
 import de.uni_mannheim.informatik.wdi.similarity.string.LevenshteinEditDistance;
+import de.uni_mannheim.informatik.wdi.similarity.string.TokenizingJaccardSimilarity;
 import org.joda.time.Years;
 
 import java.time.LocalDate;
@@ -63,21 +65,59 @@ public class BestListSimilarity {
         return bestSimilarity;
     }
 
-    private String stripURIPrefix(String s) {
+    /**
+     * Return best Levenshtein sim score. Only similarities that reach the threshold or the best score found so far are
+     * calculated completely, so the result is exact if it reaches the threshold.
+     */
+    public double getBestLevenshteinSimilarity(BoundedLevenshteinSimilarity sim, String[] strings1, String[] strings2) {
+        double bestSimilarity = 0.0;
+        for (String s1 : strings1) {
+            for (String s2 : strings2) {
+                double similarity = sim.calculate(s1, s2, Math.max(sim.getThreshold(), bestSimilarity));
+                bestSimilarity = getHighestSimilarity(similarity, bestSimilarity);
+                if (bestSimilarity == 1.0) {
+                    return bestSimilarity;
+                }
+            }
+        }
+        return bestSimilarity;
+    }
+
+    /**
+     * Compare all tokenized strings (see {@link TokenizingJaccardSimilarity#tokenize(String)}) and return best Jaccard
+     * sim score
+     */
+    public double getBestTokenSimilarity(int[][] tokens1, int[][] tokens2) {
+        double bestSimilarity = 0.0;
+        for (int[] t1 : tokens1) {
+            for (int[] t2 : tokens2) {
+                double similarity = TokenizingJaccardSimilarity.calculate(t1, t2);
+                bestSimilarity = getHighestSimilarity(similarity, bestSimilarity);
+            }
+        }
+        return bestSimilarity;
+    }
+
+    public static String stripURIPrefix(String s) {
         if (s.contains("resource")) {
             s = s.substring(s.indexOf("resource")+9, s.length());
         }
         return s;
     }
 
-    public double getBestDatesSimilarity(SimilarityMeasure sim, List<LocalDate> dates1, List<LocalDate> dates2) {
+    /**
+     * Compare all dates with a measure for {@link LocalDate}s (e.g. the one of {@link
+     * de.uni_mannheim.informatik.wdi.usecase.events.identityresolution.EventDateComparator}) and return the best sim
+     * score, -1.0 if one of the lists is null
+     */
+    public double getBestDatesSimilarity(SimilarityMeasure<LocalDate> sim, List<LocalDate> dates1, List<LocalDate> dates2) {
         double bestSimilarity = 0.0;
         if (dates1==null || dates2==null) {
             return -1.0;
         }
         for (LocalDate d1 : dates1) {
             for (LocalDate d2 : dates2) {
-                double similarity = sim.calculate(d1.toString(), d2.toString());
+                double similarity = sim.calculate(d1, d2);
                 bestSimilarity = getHighestSimilarity(similarity, bestSimilarity);
             }
         }
@@ -146,6 +186,20 @@ public class BestListSimilarity {
 
     }
 
+    /**
+     * Compare all years (e.g. parsed from tokenized strings) and return best sim score, -1.0 if there are no years
+     */
+    public double getBestYearSimilarity(YearSimilarityYear sim, Year[] years1, Year[] years2) {
+        double bestSimilarity = -1.0;
+        for (Year y1 : years1) {
+            for (Year y2 : years2) {
+                double similarity = sim.calculate(y1, y2);
+                bestSimilarity = getHighestSimilarity(similarity, bestSimilarity);
+            }
+        }
+        return bestSimilarity;
+    }
+
     public double getBestDatesSimilarityWithTokenizedStrings(YearSimilarityYear sim, List<String> strings1, List<String> strings2, double threshold, DateTimeFormatter formatter) {
         double bestSimilarity = -1.0;
         for (String s1 : strings1) {
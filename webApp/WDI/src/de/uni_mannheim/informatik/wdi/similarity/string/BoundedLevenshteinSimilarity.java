@@ -0,0 +1,180 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.similarity.string;
+
+import de.uni_mannheim.informatik.wdi.similarity.SimilarityMeasure;
+
+/**
+ * {@link SimilarityMeasure}, that calculates the same Levenshtein similarity
+ * as {@link LevenshteinSimilarity} (1 - distance / length of the longer
+ * string), but only if it reaches a threshold. Similarities below the threshold
+ * are returned as 0.0.
+ *
+ * The threshold is turned into a maximum edit distance, so pairs whose length
+ * difference is already too large are skipped and for all other pairs only a
+ * band of the dynamic programming matrix is computed, stopping as soon as the
+ * maximum distance is exceeded. The two rows of the matrix are reused per
+ * thread.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class BoundedLevenshteinSimilarity extends SimilarityMeasure<String> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final ThreadLocal<int[][]> rows = ThreadLocal.withInitial(() -> new int[2][64]);
+
+	private double threshold;
+
+	/**
+	 * @param threshold
+	 *            the minimum similarity that is calculated exactly
+	 */
+	public BoundedLevenshteinSimilarity(double threshold) {
+		this.threshold = threshold;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	@Override
+	public double calculate(String first, String second) {
+		return calculate(first, second, threshold);
+	}
+
+	/**
+	 * Calculates the similarity of first and second with another threshold than
+	 * the one of this measure.
+	 *
+	 * @return the similarity of first and second, or 0.0 if it is below the
+	 *         threshold
+	 */
+	public double calculate(String first, String second, double threshold) {
+		if (first == null || second == null) {
+			return 0.0;
+		}
+
+		int length = Math.max(first.length(), second.length());
+		if (length == 0) {
+			return 0.0;
+		}
+
+		// similarity >= threshold <=> distance <= (1 - threshold) * length
+		int maxDistance = threshold <= 0.0 ? length : (int) Math.floor((1.0 - threshold) * length + 1e-9);
+		if (maxDistance < 0) {
+			return 0.0;
+		}
+
+		int distance = distance(first, second, maxDistance);
+		if (distance > maxDistance) {
+			return 0.0;
+		} else {
+			return 1.0 - (double) distance / length;
+		}
+	}
+
+	/**
+	 * Calculates the Levenshtein distance of first and second (Ukkonen's banded
+	 * algorithm).
+	 *
+	 * @return the distance, or maxDistance + 1 if the distance is larger than
+	 *         maxDistance
+	 */
+	public static int distance(String first, String second, int maxDistance) {
+		// s is the shorter string
+		String s = first;
+		String t = second;
+		if (s.length() > t.length()) {
+			s = second;
+			t = first;
+		}
+		if (t.length() - s.length() > maxDistance) {
+			return maxDistance + 1;
+		}
+
+		// common prefixes and suffixes do not change the distance
+		int start = 0;
+		while (start < s.length() && s.charAt(start) == t.charAt(start)) {
+			start++;
+		}
+		int endS = s.length();
+		int endT = t.length();
+		while (endS > start && s.charAt(endS - 1) == t.charAt(endT - 1)) {
+			endS--;
+			endT--;
+		}
+		int n = endS - start;
+		int m = endT - start;
+		if (n == 0) {
+			// m <= maxDistance because of the length check
+			return m;
+		}
+
+		// cells outside of the band (and cells above the bound) have the value k + 1
+		int k = Math.min(maxDistance, m);
+		int outside = k + 1;
+
+		int[][] buffers = rows.get();
+		if (buffers[0].length < m + 1) {
+			buffers = new int[2][Math.max(m + 1, buffers[0].length * 2)];
+			rows.set(buffers);
+		}
+		int[] previous = buffers[0];
+		int[] current = buffers[1];
+
+		for (int j = 0; j <= m; j++) {
+			previous[j] = j <= k ? j : outside;
+		}
+
+		for (int i = 1; i <= n; i++) {
+			int from = Math.max(1, i - k);
+			int to = Math.min(m, i + k);
+			char c = s.charAt(start + i - 1);
+
+			current[from - 1] = from == 1 && i <= k ? i : outside;
+			int rowMinimum = current[from - 1];
+			for (int j = from; j <= to; j++) {
+				int value = previous[j - 1] + (c == t.charAt(start + j - 1) ? 0 : 1);
+				value = Math.min(value, previous[j] + 1);
+				value = Math.min(value, current[j - 1] + 1);
+				if (value > outside) {
+					value = outside;
+				}
+				current[j] = value;
+				rowMinimum = Math.min(rowMinimum, value);
+			}
+			if (to < m) {
+				current[to + 1] = outside;
+			}
+
+			// the values never decrease from one row to the next
+			if (rowMinimum > k) {
+				return maxDistance + 1;
+			}
+
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		return previous[m] <= k ? previous[m] : maxDistance + 1;
+	}
+
+}
@@ -17,6 +17,8 @@
  */
 package de.uni_mannheim.informatik.wdi.similarity.string;
 
+import java.util.Arrays;
+
 import com.wcohen.ss.Jaccard;
 import com.wcohen.ss.tokens.SimpleTokenizer;
 
@@ -43,4 +45,62 @@ public class TokenizingJaccardSimilarity extends SimilarityMeasure<String> {
 		}
 	}
 
+	/**
+	 * Tokenizes a string like the tokenizer of this measure (runs of letters or
+	 * digits, lower case, punctuation removed), so strings can be tokenized
+	 * once and compared with {@link #calculate(int[], int[])}.
+	 * 
+	 * @return the hash codes of the distinct tokens, sorted
+	 */
+	public static int[] tokenize(String value) {
+		int[] tokens = new int[value.length()];
+		int numberOfTokens = 0;
+		int i = 0;
+		while (i < value.length()) {
+			char c = value.charAt(i);
+			if (Character.isLetter(c) || Character.isDigit(c)) {
+				boolean letter = Character.isLetter(c);
+				int start = i;
+				while (i < value.length() && (letter ? Character.isLetter(value.charAt(i)) : Character.isDigit(value.charAt(i)))) {
+					i++;
+				}
+				tokens[numberOfTokens++] = value.substring(start, i).toLowerCase().hashCode();
+			} else {
+				i++;
+			}
+		}
+
+		Arrays.sort(tokens, 0, numberOfTokens);
+		int distinct = 0;
+		for (int t = 0; t < numberOfTokens; t++) {
+			if (distinct == 0 || tokens[t] != tokens[distinct - 1]) {
+				tokens[distinct++] = tokens[t];
+			}
+		}
+		return Arrays.copyOf(tokens, distinct);
+	}
+
+	/**
+	 * Calculates the Jaccard similarity of two tokenized strings (see
+	 * {@link #tokenize(String)}). As for the strings, the similarity of two
+	 * strings without tokens is NaN.
+	 */
+	public static double calculate(int[] first, int[] second) {
+		int common = 0;
+		int i = 0;
+		int j = 0;
+		while (i < first.length && j < second.length) {
+			if (first[i] < second[j]) {
+				i++;
+			} else if (first[i] > second[j]) {
+				j++;
+			} else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+		return (double) common / (double) (first.length + second.length - common);
+	}
+
 }
@@ -0,0 +1,351 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.usecase.events;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+
+import de.uni_mannheim.informatik.wdi.matching.Comparator;
+import de.uni_mannheim.informatik.wdi.matching.LinearCombinationMatchingRule;
+import de.uni_mannheim.informatik.wdi.matching.MatchingRule;
+import de.uni_mannheim.informatik.wdi.matching.MaximumCombinationMatchingRule;
+import de.uni_mannheim.informatik.wdi.matching.MinimumCombinationMatchingRule;
+import de.uni_mannheim.informatik.wdi.model.Correspondence;
+import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
+import de.uni_mannheim.informatik.wdi.model.FusableDataSet;
+import de.uni_mannheim.informatik.wdi.similarity.BestListSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.EqualsSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.SimilarityMeasure;
+import de.uni_mannheim.informatik.wdi.similarity.date.DaySimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.date.NormalisedDateSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.date.WeightedDateSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.date.YearSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.date.YearSimilarityLocalDate;
+import de.uni_mannheim.informatik.wdi.similarity.date.YearSimilarityYear;
+import de.uni_mannheim.informatik.wdi.similarity.list.OverlapSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.modifiers.BiquadraticSimilarityMeasureModifier;
+import de.uni_mannheim.informatik.wdi.similarity.modifiers.QuadraticSimilarityMeasureModifier;
+import de.uni_mannheim.informatik.wdi.similarity.numeric.AbsoluteDifferenceSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.numeric.DeviationSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.numeric.NormalisedNumericSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.numeric.PercentageSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.numeric.UnadjustedDeviationSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.string.BoundedLevenshteinSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.string.JaccardOnNGramsSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.string.LevenshteinEditDistance;
+import de.uni_mannheim.informatik.wdi.similarity.string.LevenshteinSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.string.TokenizingJaccardSimilarity;
+import de.uni_mannheim.informatik.wdi.usecase.events.identityresolution.*;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.EventFactory;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.EventSnapshot;
+import de.uni_mannheim.informatik.wdi.utils.MicroBenchmark;
+
+/**
+ * Micro benchmarks of the similarity measures, the event comparators and the
+ * combination matching rules. The inputs are pairs of events sampled from the
+ * DBpedia and YAGO event files: half of the pairs are random, the other half
+ * share a label token (like the candidates of a token blocker).
+ *
+ * Arguments: [dbpedia xml] [yago xml] [output csv] [milliseconds per
+ * iteration]
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class Events_Benchmark_Main {
+
+	// number of sampled pairs, a power of 2
+	private static final int PAIRS = 4096;
+	private static final int SAMPLE_SIZE = 2000;
+
+	private static Event[] first = new Event[PAIRS];
+	private static Event[] second = new Event[PAIRS];
+
+	public static void main(String[] args) throws Exception {
+		File dbpediaFile = new File(args.length > 0 ? args[0] : "../data/dbpedia_events.xml");
+		File yagoFile = new File(args.length > 1 ? args[1] : "../data/yago_events.xml");
+		File output = args.length > 2 ? new File(args[2]) : null;
+
+		if (!dbpediaFile.exists() || !yagoFile.exists()) {
+			System.err.println("Event files not found: " + dbpediaFile + ", " + yagoFile);
+			return;
+		}
+
+		EventFactory factory = new EventFactory(DateTimeFormatter.ISO_LOCAL_DATE, false, null, false, null, false, "");
+		FusableDataSet<Event, DefaultSchemaElement> dataSetD = new FusableDataSet<>();
+		FusableDataSet<Event, DefaultSchemaElement> dataSetY = new FusableDataSet<>();
+		EventSnapshot.load(dataSetD, dbpediaFile, "events/event", factory);
+		EventSnapshot.load(dataSetY, yagoFile, "events/event", factory);
+		samplePairs(new ArrayList<>(dataSetD.getRecords()), new ArrayList<>(dataSetY.getRecords()), new Random(42));
+
+		MicroBenchmark benchmark = new MicroBenchmark();
+		if (args.length > 3) {
+			benchmark.setIterationMillis(Long.parseLong(args[3]));
+		}
+
+		benchmarkStringSimilarities(benchmark);
+		benchmarkDateSimilarities(benchmark);
+		benchmarkNumericSimilarities(benchmark);
+		benchmarkListSimilarities(benchmark);
+		benchmarkComparators(benchmark);
+		benchmarkMatchingRules(benchmark);
+
+		if (output != null) {
+			benchmark.writeCSV(output);
+		}
+	}
+
+	private static void samplePairs(List<Event> eventsD, List<Event> eventsY, Random random) {
+		List<Event> sampleD = sample(eventsD, random);
+		List<Event> sampleY = sample(eventsY, random);
+
+		// events of the second sample by label token
+		Map<String, List<Event>> byToken = new HashMap<>();
+		for (Event event : sampleY) {
+			for (String token : getLabelTokens(event)) {
+				byToken.computeIfAbsent(token, k -> new ArrayList<>()).add(event);
+			}
+		}
+
+		for (int i = 0; i < PAIRS; i++) {
+			first[i] = sampleD.get(random.nextInt(sampleD.size()));
+			second[i] = sampleY.get(random.nextInt(sampleY.size()));
+			List<String> tokens = getLabelTokens(first[i]);
+			if (i % 2 == 1 && !tokens.isEmpty()) {
+				List<Event> candidates = byToken.get(tokens.get(random.nextInt(tokens.size())));
+				if (candidates != null) {
+					second[i] = candidates.get(random.nextInt(candidates.size()));
+				}
+			}
+		}
+	}
+
+	private static List<Event> sample(List<Event> events, Random random) {
+		List<Event> sample = new ArrayList<>();
+		for (Event event : events) {
+			// all measures need a value of every attribute
+			if (!event.getUris().isEmpty() && !event.getLabels().isEmpty() && !event.getDates().isEmpty()
+					&& !event.getCoordinates().isEmpty()) {
+				sample.add(event);
+			}
+		}
+		Collections.shuffle(sample, random);
+		return sample.subList(0, Math.min(SAMPLE_SIZE, sample.size()));
+	}
+
+	private static List<String> getLabelTokens(Event event) {
+		return Arrays.asList(event.getLabels().get(0).toLowerCase().split("\\s+"));
+	}
+
+	private static <T> void benchmark(MicroBenchmark benchmark, String name, SimilarityMeasure<T> measure, T[] values1,
+			T[] values2) {
+		benchmark.run(name, (i) -> measure.calculate(values1[i & (PAIRS - 1)], values2[i & (PAIRS - 1)]));
+	}
+
+	private static void benchmarkStringSimilarities(MicroBenchmark benchmark) {
+		String[] labels1 = new String[PAIRS];
+		String[] labels2 = new String[PAIRS];
+		String[] uris1 = new String[PAIRS];
+		String[] uris2 = new String[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			labels1[i] = first[i].getLabels().get(0);
+			labels2[i] = second[i].getLabels().get(0);
+			uris1[i] = BestListSimilarity.stripURIPrefix(first[i].getUris().get(0));
+			uris2[i] = BestListSimilarity.stripURIPrefix(second[i].getUris().get(0));
+		}
+
+		for (String attribute : new String[] { "label", "striped URI" }) {
+			String[] values1 = attribute.equals("label") ? labels1 : uris1;
+			String[] values2 = attribute.equals("label") ? labels2 : uris2;
+			benchmark(benchmark, "EqualsSimilarity (" + attribute + ")", new EqualsSimilarity<String>(), values1, values2);
+			benchmark(benchmark, "LevenshteinSimilarity (" + attribute + ")", new LevenshteinSimilarity(), values1, values2);
+			benchmark(benchmark, "BoundedLevenshteinSimilarity 0.9 (" + attribute + ")",
+					new BoundedLevenshteinSimilarity(0.9), values1, values2);
+			benchmark(benchmark, "LevenshteinEditDistance (" + attribute + ")", new LevenshteinEditDistance(), values1,
+					values2);
+			benchmark(benchmark, "JaccardOnNGramsSimilarity 3 (" + attribute + ")", new JaccardOnNGramsSimilarity(3),
+					values1, values2);
+			benchmark(benchmark, "TokenizingJaccardSimilarity (" + attribute + ")", new TokenizingJaccardSimilarity(),
+					values1, values2);
+			benchmark(benchmark, "QuadraticSimilarityMeasureModifier(Levenshtein) (" + attribute + ")",
+					new QuadraticSimilarityMeasureModifier<>(new LevenshteinSimilarity()), values1, values2);
+			benchmark(benchmark, "BiquadraticSimilarityMeasureModifier(Levenshtein) (" + attribute + ")",
+					new BiquadraticSimilarityMeasureModifier<>(new LevenshteinSimilarity()), values1, values2);
+		}
+
+		BestListSimilarity best = new BestListSimilarity();
+		LevenshteinSimilarity levenshtein = new LevenshteinSimilarity();
+		BoundedLevenshteinSimilarity bounded = new BoundedLevenshteinSimilarity(0.9);
+		LevenshteinEditDistance editDistance = new LevenshteinEditDistance();
+		benchmark.run("BestListSimilarity.getBestStringSimilarity (labels)", (i) -> best
+				.getBestStringSimilarity(levenshtein, first[i & (PAIRS - 1)].getLabels(), second[i & (PAIRS - 1)].getLabels()));
+		benchmark.run("BestListSimilarity.getBestStripedStringSimilarity (URIs)", (i) -> best
+				.getBestStripedStringSimilarity(levenshtein, first[i & (PAIRS - 1)].getUris(), second[i & (PAIRS - 1)].getUris()));
+		benchmark.run("BestListSimilarity.getBestLevenshteinSimilarity (URIs)",
+				(i) -> best.getBestLevenshteinSimilarity(bounded, first[i & (PAIRS - 1)].features().getStripedURIs(),
+						second[i & (PAIRS - 1)].features().getStripedURIs()));
+		benchmark.run("BestListSimilarity.getBestTokenSimilarity (labels)",
+				(i) -> best.getBestTokenSimilarity(first[i & (PAIRS - 1)].features().getLabelTokens(),
+						second[i & (PAIRS - 1)].features().getLabelTokens()));
+		benchmark.run("BestListSimilarity.getBestEditDistance (labels)", (i) -> best.getBestEditDistance(editDistance,
+				first[i & (PAIRS - 1)].getLabels(), second[i & (PAIRS - 1)].getLabels(), 3));
+		benchmark.run("BestListSimilarity.getBestEditDistanceStripedLowercase (URIs)",
+				(i) -> best.getBestEditDistanceStripedLowercase(editDistance, first[i & (PAIRS - 1)].getUris(),
+						second[i & (PAIRS - 1)].getUris(), 3));
+	}
+
+	private static void benchmarkDateSimilarities(MicroBenchmark benchmark) {
+		LocalDate[] dates1 = new LocalDate[PAIRS];
+		LocalDate[] dates2 = new LocalDate[PAIRS];
+		DateTime[] dateTimes1 = new DateTime[PAIRS];
+		DateTime[] dateTimes2 = new DateTime[PAIRS];
+		Year[] years1 = new Year[PAIRS];
+		Year[] years2 = new Year[PAIRS];
+		DateTime min = null;
+		DateTime max = null;
+		for (int i = 0; i < PAIRS; i++) {
+			dates1[i] = first[i].getDates().get(0);
+			dates2[i] = second[i].getDates().get(0);
+			dateTimes1[i] = toDateTime(dates1[i]);
+			dateTimes2[i] = toDateTime(dates2[i]);
+			years1[i] = Year.of(dates1[i].getYear());
+			years2[i] = Year.of(dates2[i].getYear());
+			for (DateTime date : new DateTime[] { dateTimes1[i], dateTimes2[i] }) {
+				min = min == null || date.isBefore(min) ? date : min;
+				max = max == null || date.isAfter(max) ? date : max;
+			}
+		}
+
+		benchmark(benchmark, "DaySimilarity 365", new DaySimilarity(365), dateTimes1, dateTimes2);
+		NormalisedDateSimilarity normalised = new NormalisedDateSimilarity();
+		normalised.setValueRange(min, max);
+		benchmark(benchmark, "NormalisedDateSimilarity", normalised, dateTimes1, dateTimes2);
+		benchmark(benchmark, "WeightedDateSimilarity", new WeightedDateSimilarity(), dateTimes1, dateTimes2);
+		benchmark(benchmark, "YearSimilarity 10", new YearSimilarity(10), dateTimes1, dateTimes2);
+		benchmark(benchmark, "YearSimilarityLocalDate 10", new YearSimilarityLocalDate(10), dates1, dates2);
+		benchmark(benchmark, "YearSimilarityYear 10", new YearSimilarityYear(10), years1, years2);
+
+		BestListSimilarity best = new BestListSimilarity();
+		YearSimilarityLocalDate year = new YearSimilarityLocalDate(10);
+		benchmark.run("BestListSimilarity.getBestDatesSimilarity", (i) -> best.getBestDatesSimilarity(year,
+				first[i & (PAIRS - 1)].getDates(), second[i & (PAIRS - 1)].getDates()));
+		LevenshteinEditDistance editDistance = new LevenshteinEditDistance();
+		YearSimilarityYear labelYear = new YearSimilarityYear(10);
+		benchmark.run("BestListSimilarity.getBestDatesSimilarityWithTokenizedStrings (labels)",
+				(i) -> best.getBestDatesSimilarityWithTokenizedStrings(labelYear, first[i & (PAIRS - 1)].getLabels(),
+						second[i & (PAIRS - 1)].getLabels(), 0.9, DateTimeFormatter.ISO_LOCAL_DATE));
+		benchmark.run("BestListSimilarity.getBestDatesEditDistance", (i) -> best.getBestDatesEditDistance(editDistance,
+				first[i & (PAIRS - 1)].getDates(), second[i & (PAIRS - 1)].getDates(), 2));
+	}
+
+	private static DateTime toDateTime(LocalDate date) {
+		return new DateTime(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), 0, 0);
+	}
+
+	private static void benchmarkNumericSimilarities(MicroBenchmark benchmark) {
+		Double[] latitudes1 = new Double[PAIRS];
+		Double[] latitudes2 = new Double[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			latitudes1[i] = first[i].getCoordinates().get(0).getFirst();
+			latitudes2[i] = second[i].getCoordinates().get(0).getFirst();
+		}
+
+		benchmark(benchmark, "AbsoluteDifferenceSimilarity 10 (latitude)", new AbsoluteDifferenceSimilarity(10),
+				latitudes1, latitudes2);
+		benchmark(benchmark, "DeviationSimilarity (latitude)", new DeviationSimilarity(), latitudes1, latitudes2);
+		NormalisedNumericSimilarity normalised = new NormalisedNumericSimilarity();
+		normalised.setValueRange(-90.0, 90.0);
+		benchmark(benchmark, "NormalisedNumericSimilarity (latitude)", normalised, latitudes1, latitudes2);
+		benchmark(benchmark, "PercentageSimilarity 0.1 (latitude)", new PercentageSimilarity(0.1), latitudes1,
+				latitudes2);
+		benchmark(benchmark, "UnadjustedDeviationSimilarity (latitude)", new UnadjustedDeviationSimilarity(),
+				latitudes1, latitudes2);
+	}
+
+	private static void benchmarkListSimilarities(MicroBenchmark benchmark) {
+		List<List<String>> tokens1 = new ArrayList<>(PAIRS);
+		List<List<String>> tokens2 = new ArrayList<>(PAIRS);
+		for (int i = 0; i < PAIRS; i++) {
+			tokens1.add(getLabelTokens(first[i]));
+			tokens2.add(getLabelTokens(second[i]));
+		}
+
+		OverlapSimilarity overlap = new OverlapSimilarity();
+		benchmark.run("OverlapSimilarity (label tokens)",
+				(i) -> overlap.calculate(tokens1.get(i & (PAIRS - 1)), tokens2.get(i & (PAIRS - 1))));
+	}
+
+	private static void benchmarkComparators(MicroBenchmark benchmark) {
+		Map<String, Comparator<Event, DefaultSchemaElement>> comparators = new LinkedHashMap<>();
+		comparators.put("EventDateComparator", new EventDateComparator());
+		comparators.put("EventDateComparatorLevenshteinEditDistance 2", new EventDateComparatorLevenshteinEditDistance(2));
+		comparators.put("EventLabelComparatorDate 0.9", new EventLabelComparatorDate(0.9, DateTimeFormatter.ISO_LOCAL_DATE));
+		comparators.put("EventLabelComparatorJaccard", new EventLabelComparatorJaccard());
+		comparators.put("EventLabelComparatorLevenshtein", new EventLabelComparatorLevenshtein());
+		comparators.put("EventLabelComparatorLevenshteinEditDistance 3", new EventLabelComparatorLevenshteinEditDistance(3));
+		comparators.put("EventURIComparatorJaccard", new EventURIComparatorJaccard());
+		comparators.put("EventURIComparatorLevenshtein", new EventURIComparatorLevenshtein());
+		comparators.put("EventURIComparatorLevenshtein 0.96", new EventURIComparatorLevenshtein(0.96));
+		comparators.put("EventURIComparatorLevenshteinEditDistance 3", new EventURIComparatorLevenshteinEditDistance(3));
+
+		for (Map.Entry<String, Comparator<Event, DefaultSchemaElement>> comparator : comparators.entrySet()) {
+			benchmark.run(comparator.getKey(),
+					(i) -> comparator.getValue().compare(first[i & (PAIRS - 1)], second[i & (PAIRS - 1)], null));
+		}
+	}
+
+	private static void benchmarkMatchingRules(MicroBenchmark benchmark) throws Exception {
+		List<MatchingRule<Event, DefaultSchemaElement>> rules = new ArrayList<>();
+		LinearCombinationMatchingRule<Event, DefaultSchemaElement> linear = new LinearCombinationMatchingRule<>(0.7);
+		MaximumCombinationMatchingRule<Event, DefaultSchemaElement> maximum = new MaximumCombinationMatchingRule<>(0.7);
+		MinimumCombinationMatchingRule<Event, DefaultSchemaElement> minimum = new MinimumCombinationMatchingRule<>(0.7);
+		linear.addComparator(new EventURIComparatorLevenshtein(), 0.5);
+		linear.addComparator(new EventLabelComparatorLevenshtein(), 0.3);
+		linear.addComparator(new EventDateComparator(), 0.2);
+		maximum.addComparator(new EventURIComparatorLevenshtein(), 1);
+		maximum.addComparator(new EventLabelComparatorLevenshtein(), 1);
+		maximum.addComparator(new EventDateComparator(), 1);
+		minimum.addComparator(new EventURIComparatorLevenshtein(), 1);
+		minimum.addComparator(new EventLabelComparatorLevenshtein(), 1);
+		minimum.addComparator(new EventDateComparator(), 1);
+		rules.add(linear);
+		rules.add(maximum);
+		rules.add(minimum);
+
+		for (MatchingRule<Event, DefaultSchemaElement> rule : rules) {
+			benchmark.run(rule.getClass().getSimpleName(), (i) -> {
+				Correspondence<Event, DefaultSchemaElement> correspondence = rule.apply(first[i & (PAIRS - 1)],
+						second[i & (PAIRS - 1)], null);
+				return correspondence == null ? 0.0 : correspondence.getSimilarityScore();
+			});
+		}
+	}
+}
@@ -136,6 +136,7 @@ public class Events_DataFusion_Main {
 		//...
 
 		DataFusionEngine<Event, DefaultSchemaElement> engine = new DataFusionEngine<>(strategy);
+		engine.setParallel(true);
 
 		// calculate cluster consistency
 		engine.printClusterConsistencyReport(correspondencesSet, null);
@@ -34,9 +34,11 @@ import de.uni_mannheim.informatik.wdi.model.FeatureVectorDataSet;
 import de.uni_mannheim.informatik.wdi.model.MatchingGoldStandard;
 import de.uni_mannheim.informatik.wdi.model.Performance;
 import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.processing.ParallelDataProcessingEngine;
 import de.uni_mannheim.informatik.wdi.usecase.events.identityresolution.*;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.EventFactory;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.EventFeatures;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Movie;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.MovieFactory;
 import jdk.nashorn.internal.ir.Block;
@@ -357,14 +359,37 @@ public class Events_IdentityResolution_Main {
 		}
 	}
 
-	public static ResultSet<Correspondence<Event, DefaultSchemaElement>> runIdentityResolution(DefaultDataSet<Event, DefaultSchemaElement> dataSetD, DefaultDataSet<Event, DefaultSchemaElement> dataSetY, char separator) throws Exception {
-		// create a matching rule
+	private static final double THRESHOLD = 0.96;
+	private static final double BLOCK_FILTERING_RATIO = 0.5;
+
+	/**
+	 * @return the matching rule used for the events of DBpedia and YAGO
+	 */
+	public static LinearCombinationMatchingRule<Event, DefaultSchemaElement> createMatchingRule() throws Exception {
 		LinearCombinationMatchingRule<Event, DefaultSchemaElement> matchingRule = new LinearCombinationMatchingRule<>(
-				0.96);
-		// add comparators
-		matchingRule.addComparator(new EventURIComparatorLevenshtein(), 1);
+				THRESHOLD);
+		// add comparators (the only comparator, so it does not need to calculate similarities below the threshold)
+		matchingRule.addComparator(new EventURIComparatorLevenshtein(THRESHOLD), 1);
 		//matchingRule.addComparator(new EventLabelComparatorLevenshtein(), 0.8);
 		//matchingRule.addComparator(new EventDateComparator(), 0.2);
+		return matchingRule;
+	}
+
+	/**
+	 * Loads (or creates) the persistent resolution index with the matching rule and blocking function of
+	 * {@link #runIdentityResolution(DefaultDataSet, DefaultDataSet, char)}.
+	 * 
+	 * @param file
+	 *            the file of the index
+	 */
+	public static EventResolutionIndex loadResolutionIndex(File file) throws Exception {
+		return EventResolutionIndex.load(file, BLOCK_FILTERING_RATIO, createMatchingRule(),
+				BlockingFunction.getStandardBlockingFunctionAllAttributes());
+	}
+
+	public static ResultSet<Correspondence<Event, DefaultSchemaElement>> runIdentityResolution(DefaultDataSet<Event, DefaultSchemaElement> dataSetD, DefaultDataSet<Event, DefaultSchemaElement> dataSetY, char separator) throws Exception {
+		// create a matching rule
+		LinearCombinationMatchingRule<Event, DefaultSchemaElement> matchingRule = createMatchingRule();
 
 		// create a blocker (blocking strategy)
 		//NoBlocker<Event, DefaultSchemaElement> blocker = new NoBlocker<>();
@@ -375,13 +400,17 @@ public class Events_IdentityResolution_Main {
         MultiKeyBlocker<Event, DefaultSchemaElement> blocker = new MultiKeyBlocker<>(tokenizedAttributes);
 
 
-		// Initialize Matching Engine
-		MatchingEngine<Event, DefaultSchemaElement> engine = new MatchingEngine<>();
+		// Initialize Matching Engine (compares the blocked pairs on all available cores)
+		MatchingEngine<Event, DefaultSchemaElement> engine = new MatchingEngine<>(new ParallelDataProcessingEngine());
+
+		// normalize the values used by the comparators once per event
+		EventFeatures.prepare(dataSetD);
+		EventFeatures.prepare(dataSetY);
 
 		// Execute the matching
 		ResultSet<Correspondence<Event, DefaultSchemaElement>> correspondences = engine.runIdentityResolution(
 				dataSetD, dataSetY, null, matchingRule,
-				blocker, true, 0.5);
+				blocker, true, BLOCK_FILTERING_RATIO);
 
 		// write the correspondences to the output file
 		/*engine.writeCorrespondences(
@@ -31,5 +31,12 @@ public class EventDateComparator extends Comparator<Event, DefaultSchemaElement>
         return bestListSimilarity.getBestDatesSimilarity(sim, record1.getDates(), record2.getDates());
     }
 
+    /**
+     * @return the reference for the costs of the event comparators (compares the years of the dates)
+     */
+    @Override
+    public double getCost() {
+        return 1.0;
+    }
 
 }
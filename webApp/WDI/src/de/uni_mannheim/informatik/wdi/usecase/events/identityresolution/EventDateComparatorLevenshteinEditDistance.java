@@ -34,6 +34,14 @@ public class EventDateComparatorLevenshteinEditDistance  extends Comparator<Even
         return bestListSimilarity.getBestDatesEditDistance(sim, record1.getDates(), record2.getDates(), threshold);
     }
 
+    /**
+     * @return about 100 times the cost of the {@link EventDateComparator} (edit distance of the date strings)
+     */
+    @Override
+    public double getCost() {
+        return 100.0;
+    }
+
 }
 
 
@@ -35,7 +35,15 @@ public class EventLabelComparatorDate  extends Comparator<Event, DefaultSchemaEl
             Event record1,
             Event record2,
             Correspondence<DefaultSchemaElement, Event> schemaCorrespondences) {
-        return bestListSimilarity.getBestDatesSimilarityWithTokenizedStrings(sim, record1.getLabels(), record2.getLabels(), threshold, formatter);
+        return bestListSimilarity.getBestYearSimilarity(sim, record1.features().getLabelYears(formatter), record2.features().getLabelYears(formatter));
+    }
+
+    /**
+     * @return about the cost of the {@link EventDateComparator} (compares the cached years of the labels)
+     */
+    @Override
+    public double getCost() {
+        return 1.0;
     }
 
 }
@@ -29,6 +29,14 @@ public class EventLabelComparatorLevenshtein extends Comparator<Event, DefaultSc
         return bestListSimilarity.getBestStringSimilarity(sim, record1.getLabels(), record2.getLabels());
     }
 
+    /**
+     * @return about 250 times the cost of the {@link EventDateComparator} (Levenshtein of the labels)
+     */
+    @Override
+    public double getCost() {
+        return 250.0;
+    }
+
 }
 
 
@@ -34,5 +34,13 @@ public class EventLabelComparatorLevenshteinEditDistance  extends Comparator<Eve
         return bestListSimilarity.getBestEditDistance(sim, record1.getLabels(), record2.getLabels(), threshold);
     }
 
+    /**
+     * @return about 250 times the cost of the {@link EventDateComparator} (edit distance of the labels)
+     */
+    @Override
+    public double getCost() {
+        return 250.0;
+    }
+
 }
 
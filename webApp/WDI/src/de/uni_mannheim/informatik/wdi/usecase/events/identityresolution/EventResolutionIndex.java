@@ -0,0 +1,422 @@
+package de.uni_mannheim.informatik.wdi.usecase.events.identityresolution;
+
+import de.uni_mannheim.informatik.wdi.matching.MatchingRule;
+import de.uni_mannheim.informatik.wdi.matching.blocking.BlockFiltering;
+import de.uni_mannheim.informatik.wdi.matching.blocking.MultiBlockingKeyGenerator;
+import de.uni_mannheim.informatik.wdi.model.Correspondence;
+import de.uni_mannheim.informatik.wdi.model.DataSet;
+import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
+import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A persistent index of the identity resolution between two sources (e.g. DBpedia and YAGO): it stores the events
+ * of both sources, their token blocks and the accepted correspondences on disk.
+ *
+ * When new data sets are resolved, only the events that are new or changed since the last run are blocked and
+ * matched (against the blocks of the other source), the correspondences of changed events are replaced. Events that
+ * are not part of a later pull (e.g. because of a keyword or date filter) stay in the index.
+ *
+ * Like {@link BlockFiltering}, every event keeps only the
+ * ceil(filterRatio * |blocks|) smallest of its blocks (by the number of comparisons), and a pair is only compared
+ * if both events kept a common block. If the sizes of blocks change, the kept blocks of the events in these blocks
+ * are updated: pairs that become candidates are compared and correspondences of pairs that are no longer candidates
+ * are removed. So the correspondences do not depend on the order of the updates and equal the result of block
+ * filtering on all indexed events (blocks of the same size are ordered by their key, block filtering orders them by
+ * the order of the blocks).
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class EventResolutionIndex implements Serializable {
+
+    // 2: kept blocks of the events (indexes of version 1 are not read and created again)
+    private static final long serialVersionUID = 2L;
+
+    private final String configuration;
+    private final double filterRatio;
+
+    // per source: identifier -> event, identifier -> fingerprint of the attribute values, token -> identifiers
+    private final Map<String, Event> records1 = new HashMap<>();
+    private final Map<String, Event> records2 = new HashMap<>();
+    private final Map<String, String> fingerprints1 = new HashMap<>();
+    private final Map<String, String> fingerprints2 = new HashMap<>();
+    private final Map<String, Set<String>> blocks1 = new HashMap<>();
+    private final Map<String, Set<String>> blocks2 = new HashMap<>();
+    // per source: identifier -> the blocks the event is kept in (block filtering)
+    private final Map<String, Set<String>> kept1 = new HashMap<>();
+    private final Map<String, Set<String>> kept2 = new HashMap<>();
+
+    // accepted correspondences: identifier in source 1 -> identifier in source 2 -> similarity, and the reverse
+    private final Map<String, Map<String, Double>> correspondences = new HashMap<>();
+    private final Map<String, Set<String>> reverseCorrespondences = new HashMap<>();
+
+    private transient File file;
+    private transient MatchingRule<Event, DefaultSchemaElement> matchingRule;
+    private transient MultiBlockingKeyGenerator<Event> blockingFunction;
+    private transient boolean modified;
+
+    /**
+     * @param configuration describes the matching rule and the blocking function (see {@link #load}), an index stored
+     *                      with another configuration is not reused
+     * @param filterRatio   the ratio of the blocks of an event (the smallest ones) that are used to find candidates
+     */
+    private EventResolutionIndex(String configuration, double filterRatio) {
+        this.configuration = configuration;
+        this.filterRatio = filterRatio;
+    }
+
+    /**
+     * Loads the index from the file, or creates an empty index if the file does not exist or was written with another
+     * configuration: another filter ratio or other descriptions of the matching rule ({@link
+     * MatchingRule#getDescription()}, with its comparators, weights and threshold) or the blocking function ({@link
+     * MultiBlockingKeyGenerator#getDescription()}).
+     */
+    public static EventResolutionIndex load(File file, double filterRatio,
+                                            MatchingRule<Event, DefaultSchemaElement> matchingRule,
+                                            MultiBlockingKeyGenerator<Event> blockingFunction) {
+        String configuration = matchingRule.getDescription() + "; " + blockingFunction.getDescription();
+        EventResolutionIndex index = null;
+        if (file.exists()) {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+                index = (EventResolutionIndex) in.readObject();
+                if (!index.configuration.equals(configuration) || index.filterRatio != filterRatio) {
+                    System.out.println("Resolution index " + file + " has another configuration, creating a new index");
+                    index = null;
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                System.out.println("Resolution index " + file + " cannot be read (" + e + "), creating a new index");
+                index = null;
+            }
+        }
+        if (index == null) {
+            index = new EventResolutionIndex(configuration, filterRatio);
+        }
+        index.file = file;
+        index.matchingRule = matchingRule;
+        index.blockingFunction = blockingFunction;
+        return index;
+    }
+
+    /**
+     * Writes the index to its file if it was modified (to a temporary file first, so a failed write keeps the old
+     * index).
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))))) {
+            out.writeObject(this);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        modified = false;
+    }
+
+    /**
+     * Adds the new and changed events of both data sets to the index, matches them and returns the correspondences
+     * between the events of the two data sets.
+     */
+    public synchronized ResultSet<Correspondence<Event, DefaultSchemaElement>> resolve(
+            DataSet<Event, DefaultSchemaElement> dataSet1, DataSet<Event, DefaultSchemaElement> dataSet2) {
+        long start = System.currentTimeMillis();
+
+        // blocks whose size changes
+        Set<String> changedKeys = new HashSet<>();
+        List<Event> changed1 = update(dataSet1, records1, fingerprints1, blocks1, changedKeys, true);
+        List<Event> changed2 = update(dataSet2, records2, fingerprints2, blocks2, changedKeys, false);
+
+        if (!changed1.isEmpty() || !changed2.isEmpty()) {
+            modified = true;
+
+            // events with other kept blocks than before -> their kept blocks before (none for changed events)
+            Map<String, Set<String>> previous1 = updateKeptBlocks(changed1, changedKeys, records1, blocks1, kept1);
+            Map<String, Set<String>> previous2 = updateKeptBlocks(changed2, changedKeys, records2, blocks2, kept2);
+
+            removeFilteredCorrespondences(previous1.keySet(), previous2.keySet());
+
+            // pairs of these events that were no candidates before: events of source 1 against all events of source 2,
+            // events of source 2 against the other events of source 1 (the pairs with these were already compared)
+            Map<String, Map<String, Double>> matches1 = match(previous1, kept1, kept2, blocks2, records1, records2,
+                    previous2, Collections.emptySet(), true);
+            Map<String, Map<String, Double>> matches2 = match(previous2, kept2, kept1, blocks1, records2, records1,
+                    previous1, previous1.keySet(), false);
+
+            matches1.forEach((id1, matches) -> matches.forEach((id2, similarity) -> addCorrespondence(id1, id2, similarity)));
+            matches2.forEach((id2, matches) -> matches.forEach((id1, similarity) -> addCorrespondence(id1, id2, similarity)));
+        }
+
+        ResultSet<Correspondence<Event, DefaultSchemaElement>> result = new ResultSet<>();
+        for (Event record1 : dataSet1.getRecords()) {
+            Map<String, Double> matches = correspondences.get(record1.getIdentifier());
+            if (matches != null) {
+                for (Map.Entry<String, Double> match : matches.entrySet()) {
+                    Event record2 = dataSet2.getRecord(match.getKey());
+                    if (record2 != null) {
+                        result.add(new Correspondence<>(record1, record2, match.getValue(), null));
+                    }
+                }
+            }
+        }
+
+        System.out.println(String.format("Resolution index: %,d + %,d new or changed events, %,d correspondences (%,d ms)",
+                changed1.size(), changed2.size(), result.size(), System.currentTimeMillis() - start));
+        return result;
+    }
+
+    /**
+     * Stores the new and changed events of the data set, replaces their blocks and removes their correspondences.
+     *
+     * @param changedKeys the keys of the blocks that changed are added
+     * @return the new and changed events
+     */
+    private List<Event> update(DataSet<Event, DefaultSchemaElement> dataSet, Map<String, Event> records,
+                               Map<String, String> fingerprints, Map<String, Set<String>> blocks,
+                               Set<String> changedKeys, boolean isFirst) {
+        List<Event> changed = new ArrayList<>();
+        for (Event record : dataSet.getRecords()) {
+            String id = record.getIdentifier();
+            String fingerprint = getFingerprint(record);
+            if (fingerprint.equals(fingerprints.get(id))) {
+                continue;
+            }
+
+            Event old = records.get(id);
+            if (old != null) {
+                for (String key : blockingFunction.getMultiBlockingKey(old)) {
+                    changedKeys.add(key);
+                    Set<String> block = blocks.get(key);
+                    if (block != null) {
+                        block.remove(id);
+                        if (block.isEmpty()) {
+                            blocks.remove(key);
+                        }
+                    }
+                }
+                removeCorrespondences(id, isFirst);
+            }
+
+            records.put(id, record);
+            fingerprints.put(id, fingerprint);
+            for (String key : blockingFunction.getMultiBlockingKey(record)) {
+                changedKeys.add(key);
+                blocks.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+            }
+            changed.add(record);
+        }
+        return changed;
+    }
+
+    /**
+     * Updates the kept blocks of the changed events and of all events in the changed blocks (only their ranks can
+     * change).
+     *
+     * @return identifier -> kept blocks before, for the events whose kept blocks changed and the changed events (no
+     * kept blocks before, their correspondences were removed)
+     */
+    private Map<String, Set<String>> updateKeptBlocks(List<Event> changed, Set<String> changedKeys,
+                                                      Map<String, Event> records, Map<String, Set<String>> blocks,
+                                                      Map<String, Set<String>> kept) {
+        Map<String, Set<String>> previous = new HashMap<>();
+        for (Event event : changed) {
+            previous.put(event.getIdentifier(), Collections.emptySet());
+        }
+
+        Set<String> affected = new HashSet<>(previous.keySet());
+        for (String key : changedKeys) {
+            Set<String> block = blocks.get(key);
+            if (block != null) {
+                affected.addAll(block);
+            }
+        }
+
+        for (String id : affected) {
+            Set<String> keptBlocks = getKeptBlocks(records.get(id));
+            Set<String> before = kept.put(id, keptBlocks);
+            if (!previous.containsKey(id) && !keptBlocks.equals(before)) {
+                previous.put(id, before == null ? Collections.emptySet() : before);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * @return the ceil(filterRatio * |blocks|) blocks of the event with the fewest comparisons (blocks that only exist
+     * in one source have no comparisons), like {@link BlockFiltering}
+     */
+    private Set<String> getKeptBlocks(Event event) {
+        List<String> keys = new ArrayList<>(new HashSet<>(blockingFunction.getMultiBlockingKey(event)));
+        Map<String, Long> sizes = new HashMap<>();
+        for (String key : keys) {
+            Set<String> block1 = blocks1.get(key);
+            Set<String> block2 = blocks2.get(key);
+            sizes.put(key, block1 == null || block2 == null ? 0L : (long) block1.size() * block2.size());
+        }
+        keys.sort(Comparator.comparingLong((String key) -> sizes.get(key)).thenComparing(key -> key));
+        int limit = BlockFiltering.getNumberOfKeptBlocks(keys.size(), filterRatio);
+        return new HashSet<>(keys.subList(0, limit));
+    }
+
+    /**
+     * Removes the correspondences of the events whose kept blocks changed if the pair has no common kept block
+     * anymore.
+     */
+    private void removeFilteredCorrespondences(Set<String> ids1, Set<String> ids2) {
+        List<String[]> filtered = new ArrayList<>();
+        for (String id1 : ids1) {
+            Map<String, Double> matches = correspondences.get(id1);
+            if (matches != null) {
+                for (String id2 : matches.keySet()) {
+                    if (Collections.disjoint(kept1.get(id1), kept2.get(id2))) {
+                        filtered.add(new String[]{id1, id2});
+                    }
+                }
+            }
+        }
+        for (String id2 : ids2) {
+            Set<String> matches = reverseCorrespondences.get(id2);
+            if (matches != null) {
+                for (String id1 : matches) {
+                    if (Collections.disjoint(kept1.get(id1), kept2.get(id2))) {
+                        filtered.add(new String[]{id1, id2});
+                    }
+                }
+            }
+        }
+        for (String[] pair : filtered) {
+            removeCorrespondence(pair[0], pair[1]);
+        }
+    }
+
+    /**
+     * Compares the events with the events of the other source that kept a common block (in parallel), if the pair
+     * was no candidate before.
+     *
+     * @param previous      identifier -> kept blocks before, of the events to compare
+     * @param otherPrevious identifier -> kept blocks before, of the events of the other source whose kept blocks
+     *                      changed
+     * @param skip          identifiers of the other source that are not compared
+     * @return identifier of the event -> identifier of the matching event -> similarity
+     */
+    private Map<String, Map<String, Double>> match(Map<String, Set<String>> previous, Map<String, Set<String>> kept,
+                                                   Map<String, Set<String>> otherKept, Map<String, Set<String>> otherBlocks,
+                                                   Map<String, Event> records, Map<String, Event> otherRecords,
+                                                   Map<String, Set<String>> otherPrevious, Set<String> skip,
+                                                   boolean isFirst) {
+        Map<String, Map<String, Double>> result = new ConcurrentHashMap<>();
+        previous.entrySet().parallelStream().forEach(entry -> {
+            String id = entry.getKey();
+            Event event = records.get(id);
+            Map<String, Double> matches = new HashMap<>();
+            for (String otherId : getCandidates(kept.get(id), otherKept, otherBlocks)) {
+                if (skip.contains(otherId)) {
+                    continue;
+                }
+                // the pair was already compared if it had a common kept block before
+                Set<String> otherBefore = otherPrevious.getOrDefault(otherId, otherKept.get(otherId));
+                if (!Collections.disjoint(entry.getValue(), otherBefore)) {
+                    continue;
+                }
+                Event other = otherRecords.get(otherId);
+                Correspondence<Event, DefaultSchemaElement> correspondence = isFirst
+                        ? matchingRule.apply(event, other, null)
+                        : matchingRule.apply(other, event, null);
+                if (correspondence != null) {
+                    matches.put(otherId, correspondence.getSimilarityScore());
+                }
+            }
+            if (!matches.isEmpty()) {
+                result.put(id, matches);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return the identifiers of the other source that kept one of the kept blocks
+     */
+    private Set<String> getCandidates(Set<String> keptBlocks, Map<String, Set<String>> otherKept,
+                                      Map<String, Set<String>> otherBlocks) {
+        Set<String> candidates = new HashSet<>();
+        for (String key : keptBlocks) {
+            Set<String> block = otherBlocks.get(key);
+            if (block != null) {
+                for (String otherId : block) {
+                    if (otherKept.get(otherId).contains(key)) {
+                        candidates.add(otherId);
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void addCorrespondence(String id1, String id2, double similarity) {
+        correspondences.computeIfAbsent(id1, k -> new HashMap<>()).put(id2, similarity);
+        reverseCorrespondences.computeIfAbsent(id2, k -> new HashSet<>()).add(id1);
+    }
+
+    private void removeCorrespondence(String id1, String id2) {
+        Map<String, Double> forward = correspondences.get(id1);
+        forward.remove(id2);
+        if (forward.isEmpty()) {
+            correspondences.remove(id1);
+        }
+        Set<String> reverse = reverseCorrespondences.get(id2);
+        reverse.remove(id1);
+        if (reverse.isEmpty()) {
+            reverseCorrespondences.remove(id2);
+        }
+    }
+
+    private void removeCorrespondences(String id, boolean isFirst) {
+        if (isFirst) {
+            Map<String, Double> matches = correspondences.remove(id);
+            if (matches != null) {
+                for (String id2 : matches.keySet()) {
+                    Set<String> reverse = reverseCorrespondences.get(id2);
+                    reverse.remove(id);
+                    if (reverse.isEmpty()) {
+                        reverseCorrespondences.remove(id2);
+                    }
+                }
+            }
+        } else {
+            Set<String> matches = reverseCorrespondences.remove(id);
+            if (matches != null) {
+                for (String id1 : matches) {
+                    Map<String, Double> forward = correspondences.get(id1);
+                    forward.remove(id);
+                    if (forward.isEmpty()) {
+                        correspondences.remove(id1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all attribute values of the event, used to detect changed events
+     */
+    private String getFingerprint(Event event) {
+        return String.join("\t", event.getAllAttributeValues('+'));
+    }
+
+    public synchronized int getNumberOfEvents() {
+        return records1.size() + records2.size();
+    }
+
+    public synchronized int getNumberOfCorrespondences() {
+        return correspondences.values().stream().mapToInt(Map::size).sum();
+    }
+}
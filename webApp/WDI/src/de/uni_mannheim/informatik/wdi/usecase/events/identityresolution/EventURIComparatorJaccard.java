@@ -18,7 +18,6 @@ public class EventURIComparatorJaccard extends Comparator<Event, DefaultSchemaEl
 
     private static final long serialVersionUID = 1L;
     private BestListSimilarity bestListSimilarity = new BestListSimilarity();
-    private TokenizingJaccardSimilarity sim = new TokenizingJaccardSimilarity();
 
     @Override
     public double compare(
@@ -26,6 +25,15 @@ public class EventURIComparatorJaccard extends Comparator<Event, DefaultSchemaEl
             Event record2,
             Correspondence<DefaultSchemaElement, Event> schemaCorrespondences) {
 
-        return bestListSimilarity.getBestStripedStringSimilarity(sim, record1.getUris(), record2.getUris());
+        return bestListSimilarity.getBestTokenSimilarity(record1.features().getStripedURITokens(), record2.features().getStripedURITokens());
     }
+
+    /**
+     * @return about 3 times the cost of the {@link EventDateComparator} (Jaccard of the cached URI tokens)
+     */
+    @Override
+    public double getCost() {
+        return 3.0;
+    }
+
 }
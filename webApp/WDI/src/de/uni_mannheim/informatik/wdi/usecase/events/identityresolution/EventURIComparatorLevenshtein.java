@@ -4,6 +4,7 @@ import de.uni_mannheim.informatik.wdi.matching.Comparator;
 import de.uni_mannheim.informatik.wdi.model.Correspondence;
 import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
 import de.uni_mannheim.informatik.wdi.similarity.BestListSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.string.BoundedLevenshteinSimilarity;
 import de.uni_mannheim.informatik.wdi.similarity.string.LevenshteinSimilarity;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 
@@ -19,14 +20,40 @@ public class EventURIComparatorLevenshtein extends Comparator<Event, DefaultSche
     private static final long serialVersionUID = 1L;
 
     private BestListSimilarity bestListSimilarity = new BestListSimilarity();
-    private LevenshteinSimilarity sim = new LevenshteinSimilarity();
+    private BoundedLevenshteinSimilarity sim;
+
+    public EventURIComparatorLevenshtein() {
+        this(0.0);
+    }
+
+    /**
+     * @param threshold the similarity the matching rule needs, lower similarities are not calculated exactly and
+     *                  can be returned as 0.0 (use 0.0 to always calculate the exact similarity)
+     */
+    public EventURIComparatorLevenshtein(double threshold) {
+        sim = new BoundedLevenshteinSimilarity(threshold);
+    }
 
     @Override
     public double compare(
             Event record1,
             Event record2,
             Correspondence<DefaultSchemaElement, Event> schemaCorrespondences) {
-        return bestListSimilarity.getBestStripedStringSimilarity(sim, record1.getUris(), record2.getUris());
+        return bestListSimilarity.getBestLevenshteinSimilarity(sim, record1.features().getStripedURIs(), record2.features().getStripedURIs());
+    }
+
+    @Override
+    public String getDescription() {
+        return super.getDescription() + "(threshold=" + sim.getThreshold() + ")";
+    }
+
+    /**
+     * @return about 25 times the cost of the {@link EventDateComparator} (Levenshtein of the striped URIs, less
+     * with a high threshold)
+     */
+    @Override
+    public double getCost() {
+        return 25.0;
     }
 
 }
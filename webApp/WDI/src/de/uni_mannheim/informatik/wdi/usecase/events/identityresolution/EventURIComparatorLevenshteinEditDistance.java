@@ -7,6 +7,8 @@ import de.uni_mannheim.informatik.wdi.similarity.BestListSimilarity;
 import de.uni_mannheim.informatik.wdi.similarity.string.LevenshteinEditDistance;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 
+import java.util.Arrays;
+
 /**
  * {@link Comparator} for {@link Event}s based on the {@link Event#getUris()} ()}
  * value and their {@link LevenshteinEditDistance} value.
@@ -31,7 +33,17 @@ public class EventURIComparatorLevenshteinEditDistance  extends Comparator<Event
             Event record1,
             Event record2,
             Correspondence<DefaultSchemaElement, Event> schemaCorrespondences) {
-        return bestListSimilarity.getBestEditDistanceStripedLowercase(sim, record1.getUris(), record2.getUris(), threshold);
+        return bestListSimilarity.getBestEditDistance(sim, Arrays.asList(record1.features().getStripedLowercaseURIs()),
+                Arrays.asList(record2.features().getStripedLowercaseURIs()), threshold);
+    }
+
+    /**
+     * @return about 500 times the cost of the {@link EventDateComparator} (edit distance of the lowercase
+     * striped URIs)
+     */
+    @Override
+    public double getCost() {
+        return 500.0;
     }
 
 }
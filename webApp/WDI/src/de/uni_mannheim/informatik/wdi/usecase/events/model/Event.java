@@ -31,6 +31,12 @@ public class Event extends Record<DefaultSchemaElement> implements Serializable
     private List<Location> locations = new ArrayList<>();
     //private List<String> participants = new ArrayList<>();
 
+    // computed on first use, reset when the URIs or labels change
+    private transient volatile EventFeatures features;
+
+    // the dates of the XML element could not be parsed (the event has no dates then)
+    private boolean datesNotParsed;
+
 
     public Event(String identifier, String provenance) {
         super(identifier, provenance);
@@ -103,6 +109,33 @@ public class Event extends Record<DefaultSchemaElement> implements Serializable
         return allValues;
     }
 
+    /**
+     * @return the normalized values used by the comparators, computed on first use. Changing the URIs or labels with
+     * the setters and adders of this class resets them. Not named like a getter, so they are not serialized as a
+     * property of the event (e.g. to JSON).
+     */
+    public EventFeatures features() {
+        EventFeatures f = features;
+        if (f == null) {
+            f = new EventFeatures(this);
+            features = f;
+        }
+        return f;
+    }
+
+    /**
+     * @return true if the dates could not be parsed when the event was read from XML, such events are not removed by
+     * the date filters of the {@link EventFactory}. Not named like a getter, so it is not serialized as a property of
+     * the event (e.g. to JSON).
+     */
+    public boolean datesNotParsed() {
+        return datesNotParsed;
+    }
+
+    public void setDatesNotParsed(boolean datesNotParsed) {
+        this.datesNotParsed = datesNotParsed;
+    }
+
     //getter
     public List<String> getUris() {
         return uris;
@@ -134,9 +167,11 @@ public class Event extends Record<DefaultSchemaElement> implements Serializable
     //setter
     public void setURIs(List<String> uris) {
         this.uris = uris;
+        features = null;
     }
     public void setLabels(List<String> labels) {
         this.labels = labels;
+        features = null;
     }
     public void setDates(List<LocalDate> dates) {
         this.dates = dates;
@@ -149,6 +184,7 @@ public class Event extends Record<DefaultSchemaElement> implements Serializable
     public void setSingleURI(String uri) {
         this.uris.clear();
         this.uris.add(uri);
+        features = null;
     }
     /*
     * clear labels and add one new label
@@ -157,6 +193,7 @@ public class Event extends Record<DefaultSchemaElement> implements Serializable
     public void setSingleLabel(String label) {
         this.labels.clear();
         this.labels.add(label);
+        features = null;
     }
 
     public void setSingleDate(LocalDate date) {
@@ -173,12 +210,16 @@ public class Event extends Record<DefaultSchemaElement> implements Serializable
 
     //adder
     public void addURI(String uri) {
-        if (!this.uris.contains(uri))
+        if (!this.uris.contains(uri)) {
             this.uris.add(uri);
+            features = null;
+        }
     }
     public void addLabel(String label) {
-        if (!this.labels.contains(label))
+        if (!this.labels.contains(label)) {
             this.labels.add(label);
+            features = null;
+        }
     }
 
     public void addDate(LocalDate date) {
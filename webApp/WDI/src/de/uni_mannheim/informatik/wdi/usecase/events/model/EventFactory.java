@@ -3,6 +3,9 @@ package de.uni_mannheim.informatik.wdi.usecase.events.model;
 import de.uni_mannheim.informatik.wdi.model.*;
 import org.apache.commons.lang3.StringUtils;
 import org.w3c.dom.Node;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -25,6 +28,8 @@ public class EventFactory extends MatchableFactory<Event> implements
     private boolean applyKeywordSearch;
     private String keyword;
     private int dateNotParsedCounter;
+    // reused for all events, so its document builder is only created once
+    private final LocationFactory locationFactory = new LocationFactory();
 
     public void printDateNotParsedCounter() {
         System.out.println("dataSetD was loaded from XML. " + this.dateNotParsedCounter + " date attributes could not be parsed.");
@@ -47,15 +52,76 @@ public class EventFactory extends MatchableFactory<Event> implements
 
     @Override
     public Event createModelFromElement(Node node, String provenanceInfo) {
-        String uri = getAttributeValueFromNode(node, "uri");
-                //getValueFromChildElement(node, "event");
+        return createEvent(getAttributeValueFromNode(node, "uri"),
+                getListFromChildElement(node, "label"),
+                getListFromChildElement(node, "date"),
+                getListFromChildElement(node, "coordinates"),
+                getListFromChildElement(node, "same"),
+                getObjectListFromChildElement(node, "locations", "location", locationFactory, provenanceInfo),
+                provenanceInfo);
+    }
+
+    /**
+     * Creates the event directly from the XML stream, without a DOM node.
+     */
+    @Override
+    public Event createModelFromStream(XMLStreamReader reader, String provenanceInfo) throws XMLStreamException {
+        String uri = reader.getAttributeValue(null, "uri");
+        List<String> labelList = null;
+        List<String> dateStrings = null;
+        List<String> coordinateStrings = null;
+        List<String> sameList = null;
+        List<Location> locations = null;
+
+        while (nextChildElement(reader)) {
+            switch (getElementName(reader)) {
+                case "label":
+                    labelList = addValue(labelList, getTextContentFromStream(reader).trim());
+                    break;
+                case "date":
+                    dateStrings = addValue(dateStrings, getTextContentFromStream(reader).trim());
+                    break;
+                case "coordinates":
+                    coordinateStrings = addValue(coordinateStrings, getTextContentFromStream(reader).trim());
+                    break;
+                case "same":
+                    sameList = addValue(sameList, getTextContentFromStream(reader).trim());
+                    break;
+                case "locations":
+                    // only the first list of locations is used
+                    if (locations == null) {
+                        locations = getObjectListFromStream(reader, "location", locationFactory, provenanceInfo);
+                    } else {
+                        skipElement(reader);
+                    }
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
 
+        return createEvent(uri == null ? "" : uri, labelList, dateStrings, coordinateStrings, sameList, locations, provenanceInfo);
+    }
+
+    private List<String> addValue(List<String> values, String value) {
+        if (values == null) {
+            values = new ArrayList<>();
+        }
+        values.add(value);
+        return values;
+    }
+
+    /**
+     * Creates the event from the values of the XML element (lists are null if there are no values), returns null if
+     * the event is removed by the keyword or date filters.
+     */
+    private Event createEvent(String uri, List<String> labelList, List<String> dateStrings, List<String> coordinateStrings,
+                              List<String> sameList, List<Location> locations, String provenanceInfo) {
         // create the object with id and provenance information
         Event event = new Event(uri, provenanceInfo);
 
         event.addURI(uri);
         //get all labels, remove the language tag, add to event label list
-        List<String> labelList = getListFromChildElement(node, "label");
         if (labelList != null) {
             for (String label : labelList) {
                 if (label.contains("@"))
@@ -64,20 +130,14 @@ public class EventFactory extends MatchableFactory<Event> implements
             }
 
             //filter labels by keyword
-            if(this.applyKeywordSearch) {
-                if (!event.getLabels().stream().anyMatch(label -> label.trim().toLowerCase().contains(this.keyword.toLowerCase()))) {
-                    //return null if keyword is not found in any label
-                    //System.out.println(event.getLabels().toString() + " does not contain the keyword " + this.keyword + ". return null.");
-                    return null;
-                //} else {
-                    //System.out.println(event.getLabels().toString() + " contains the keyword " + this.keyword);
-                }
+            if (!matchesKeyword(event.getLabels())) {
+                //return null if keyword is not found in any label
+                return null;
             }
         }
 
         //try to convert dates into LocalDate object
         try {
-            List<String> dateStrings= getListFromChildElement(node, "date");
             if (dateStrings != null) {
                 List<LocalDate> localDates = new ArrayList<>();
                 for (String dateString : dateStrings) {
@@ -91,37 +151,24 @@ public class EventFactory extends MatchableFactory<Event> implements
                         localDates.add(localDate);
                     }
                 }
-                if (this.filterFrom) { //&& filterTo) {
-                    //if (localDate.isAfter(toDate) || localDate.isBefore(fromDate)) {
-                    if (localDates.size() == 0 || localDates.stream().anyMatch(localDate -> localDate.isBefore(this.fromDate))) {
-                        //System.out.println(localDates.toString() + " contains a date that is before " + this.fromDate + ". return null.");
-                        return null;
-                    //} else {
-                    //    System.out.println(localDates.toString() + " contains a date that is not before " + this.fromDate);
-                    }
-                }
-                if (this.filterTo) {
-                    if (localDates.size() == 0 || localDates.stream().anyMatch(localDate -> localDate.isAfter(this.toDate))) {
-                    //    System.out.println(localDates.toString() + " contains a date that is after " + this.toDate + ". return null.");
-                        return null;
-                    //} else {
-                    //    System.out.println(localDates.toString() + " contains a date that is not after " + this.toDate);
-                    }
+                if (!matchesDates(localDates)) {
+                    return null;
                 }
                 event.setDates(localDates);
             } else { //dateStrings == null
                 //no date available: return null if date should be filtered
-                if (this.filterFrom || this.filterTo) {
+                if (!matchesDates(Collections.emptyList())) {
                     return null;
                 }
             }
         } catch (Exception e) {
             //e.printStackTrace();
             this.dateNotParsedCounter++;
+            //the date filters are not applied to this event
+            event.setDatesNotParsed(true);
         }
 
         // get coordinates
-        List<String> coordinateStrings = getListFromChildElement(node, "coordinates");
         if (coordinateStrings != null) {
             for (String coordinateString : coordinateStrings) {
                 if (!coordinateString.contains("NAN")) { //check for NAN that can appear in DBpedia
@@ -135,18 +182,46 @@ public class EventFactory extends MatchableFactory<Event> implements
             }
         }
         // get owl:sameAs links
-        List<String> sameList = getListFromChildElement(node, "same");
         if (sameList != null)
             event.setSames(sameList);
 
         // get location
-        List<Location> locations = getObjectListFromChildElement(node, "locations",
-                "location", new LocationFactory(), provenanceInfo);
         if (locations != null)
             event.setLocations(locations);
 
         return event;
     }
+    /**
+     * Applies the keyword and date filters of this factory to an event that was already created (e.g. read from an
+     * {@link EventSnapshot}). Like in {@link #createModelFromStream}, the date filters are not applied to events whose
+     * dates could not be parsed.
+     *
+     * @return false if the filters remove the event
+     */
+    public boolean isAccepted(Event event) {
+        // events without labels are not removed by the keyword search
+        return (event.getLabels().isEmpty() || matchesKeyword(event.getLabels()))
+                && (event.datesNotParsed() || matchesDates(event.getDates()));
+    }
+
+    private boolean matchesKeyword(List<String> labels) {
+        return !this.applyKeywordSearch
+                || labels.stream().anyMatch(label -> label.trim().toLowerCase().contains(this.keyword.toLowerCase()));
+    }
+
+    /**
+     * @return false if a date filter is set and there is no date or one of the dates is out of range
+     */
+    private boolean matchesDates(List<LocalDate> localDates) {
+        if (this.filterFrom && (localDates.isEmpty() || localDates.stream().anyMatch(localDate -> localDate.isBefore(this.fromDate)))) {
+            return false;
+        }
+        if (this.filterTo && (localDates.isEmpty() || localDates.stream().anyMatch(localDate -> localDate.isAfter(this.toDate)))) {
+            return false;
+        }
+        return true;
+    }
+
     public Event createModelFromTSVline(String[] values, String provenanceInfo) {
         //values for basic data file: 0:uri, 1:label, 2:date, 3:lat, 4:long
         Event event = new Event(values[0], provenanceInfo);
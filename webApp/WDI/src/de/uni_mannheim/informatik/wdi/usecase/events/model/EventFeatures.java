@@ -0,0 +1,94 @@
+package de.uni_mannheim.informatik.wdi.usecase.events.model;
+
+import de.uni_mannheim.informatik.wdi.model.DataSet;
+import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
+import de.uni_mannheim.informatik.wdi.similarity.BestListSimilarity;
+import de.uni_mannheim.informatik.wdi.similarity.string.TokenizingJaccardSimilarity;
+
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The normalized values of an {@link Event} that are used by the comparators (striped URIs, token sets, years), so
+ * they are computed once per event instead of once per compared pair. Get them with {@link Event#features()}.
+ *
+ * Tokens are stored as sorted hash codes (see {@link TokenizingJaccardSimilarity#tokenize(String)}).
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class EventFeatures {
+
+    private final String[] stripedURIs;
+    private final String[] stripedLowercaseURIs;
+    private final int[][] stripedURITokens;
+    private final int[][] labelTokens;
+    private final String[] labels;
+    private final Map<DateTimeFormatter, Year[]> labelYears = new ConcurrentHashMap<>();
+
+    EventFeatures(Event event) {
+        List<String> uris = event.getUris();
+        stripedURIs = new String[uris.size()];
+        stripedLowercaseURIs = new String[uris.size()];
+        stripedURITokens = new int[uris.size()][];
+        for (int i = 0; i < uris.size(); i++) {
+            stripedURIs[i] = BestListSimilarity.stripURIPrefix(uris.get(i));
+            stripedLowercaseURIs[i] = stripedURIs[i].toLowerCase();
+            stripedURITokens[i] = TokenizingJaccardSimilarity.tokenize(stripedURIs[i]);
+        }
+
+        labels = event.getLabels().toArray(new String[0]);
+        labelTokens = new int[labels.length][];
+        for (int i = 0; i < labels.length; i++) {
+            labelTokens[i] = TokenizingJaccardSimilarity.tokenize(labels[i]);
+        }
+    }
+
+    /**
+     * Computes the features of all events of the data set in parallel.
+     */
+    public static void prepare(DataSet<Event, DefaultSchemaElement> dataset) {
+        dataset.getRecords().parallelStream().forEach(Event::features);
+    }
+
+    public String[] getStripedURIs() {
+        return stripedURIs;
+    }
+
+    public String[] getStripedLowercaseURIs() {
+        return stripedLowercaseURIs;
+    }
+
+    public int[][] getStripedURITokens() {
+        return stripedURITokens;
+    }
+
+    public int[][] getLabelTokens() {
+        return labelTokens;
+    }
+
+    /**
+     * @return all whitespace separated tokens of the labels that can be parsed as a year with the formatter (parsed on
+     * first use for every formatter)
+     */
+    public Year[] getLabelYears(DateTimeFormatter formatter) {
+        return labelYears.computeIfAbsent(formatter, f -> {
+            List<Year> years = new ArrayList<>();
+            for (String label : labels) {
+                for (String token : label.split("\\s+")) {
+                    try {
+                        years.add(Year.parse(token, f));
+                    } catch (DateTimeParseException e) {
+                        // not a year
+                    }
+                }
+            }
+            return years.toArray(new Year[0]);
+        });
+    }
+}
@@ -0,0 +1,406 @@
+package de.uni_mannheim.informatik.wdi.usecase.events.model;
+
+import de.uni_mannheim.informatik.wdi.model.DataSet;
+import de.uni_mannheim.informatik.wdi.model.DefaultDataSet;
+import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
+import de.uni_mannheim.informatik.wdi.model.Pair;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * A binary snapshot of a data set of {@link Event}s, which is much faster to load than the XML or TSV files.
+ *
+ * The file is column oriented: all strings are stored once in a dictionary and referenced by their number, the
+ * values of every attribute are stored in one array per attribute (string numbers, epoch days or coordinates) with
+ * an offset table that points to the values of every record. The events are sorted by their identifier.
+ *
+ * The snapshot is memory-mapped when it is opened, events are only created when they are requested with
+ * {@link #getEvent(int)} or {@link #getEvent(String)} (or all at once with {@link #loadInto}). Snapshots are limited to
+ * 2 GB.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class EventSnapshot {
+
+    private static final int MAGIC = 0x57444945; // "WDIE"
+    private static final int VERSION = 2;
+
+    private final ByteBuffer buffer;
+    private final String[] strings;
+    private final int stringOffsets;
+    private final int stringBytes;
+    private final Table events;
+    private final Table locations;
+
+    /**
+     * The records of one type: their identifiers and provenance (string numbers) and a list of values per attribute
+     */
+    private static class Table {
+        int size;
+        int identifiers;
+        int provenance;
+        // position of the offset table of every attribute (size + 1 entries), the values follow the offset table
+        int[] columns;
+    }
+
+    // the attributes of an event, in the order they are stored (DATES_NOT_PARSED has one empty value if the dates of
+    // the event could not be parsed)
+    private static final int URIS = 0, LABELS = 1, DATES = 2, COORDINATES = 3, SAMES = 4, LOCATIONS = 5,
+            DATES_NOT_PARSED = 6;
+    // the attributes of a location
+    private static final int LOCATION_LABELS = 0, LOCATION_COORDINATES = 1, LOCATION_SAMES = 2;
+
+    private EventSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an event snapshot (version " + VERSION + ")");
+        }
+        int stringCount = buffer.getInt(8);
+        strings = new String[stringCount];
+        stringOffsets = 12;
+        stringBytes = stringOffsets + 4 * (stringCount + 1);
+        int position = stringBytes + buffer.getInt(stringOffsets + 4 * stringCount);
+
+        events = new Table();
+        position = readTable(events, position, new int[]{4, 4, 8, 16, 4, 4, 0});
+        locations = new Table();
+        readTable(locations, position, new int[]{4, 16, 4});
+    }
+
+    /**
+     * Reads the positions of the table that starts at the given position
+     *
+     * @param valueSizes the number of bytes of a value of every attribute
+     * @return the position after the table
+     */
+    private int readTable(Table table, int position, int[] valueSizes) {
+        table.size = buffer.getInt(position);
+        table.identifiers = position + 4;
+        table.provenance = table.identifiers + 4 * table.size;
+        position = table.provenance + 4 * table.size;
+        table.columns = new int[valueSizes.length];
+        for (int c = 0; c < valueSizes.length; c++) {
+            table.columns[c] = position;
+            int values = buffer.getInt(position + 4 * table.size);
+            position += 4 * (table.size + 1) + valueSizes[c] * values;
+        }
+        return position;
+    }
+
+    /**
+     * Memory-maps the snapshot file.
+     */
+    public static EventSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new EventSnapshot(buffer);
+        }
+    }
+
+    public int size() {
+        return events.size;
+    }
+
+    /**
+     * @return the string with the given number (decoded on first use)
+     */
+    private String getString(int number) {
+        String s = strings[number];
+        if (s == null) {
+            int from = buffer.getInt(stringOffsets + 4 * number);
+            int to = buffer.getInt(stringOffsets + 4 * (number + 1));
+            byte[] bytes = new byte[to - from];
+            ByteBuffer b = buffer.duplicate();
+            b.position(stringBytes + from);
+            b.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[number] = s;
+        }
+        return s;
+    }
+
+    public String getIdentifier(int index) {
+        return getString(buffer.getInt(events.identifiers + 4 * index));
+    }
+
+    /**
+     * @return the event with the given identifier, or null if the snapshot does not contain it
+     */
+    public Event getEvent(String identifier) {
+        int low = 0;
+        int high = events.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int c = getIdentifier(middle).compareTo(identifier);
+            if (c < 0) {
+                low = middle + 1;
+            } else if (c > 0) {
+                high = middle - 1;
+            } else {
+                return getEvent(middle);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the event at the given position (a new object on every call).
+     */
+    public Event getEvent(int index) {
+        Event event = new Event(getIdentifier(index), getString(buffer.getInt(events.provenance + 4 * index)));
+        event.setURIs(getStrings(events, URIS, index));
+        event.setLabels(getStrings(events, LABELS, index));
+
+        int from = getFrom(events, DATES, index);
+        int to = getTo(events, DATES, index);
+        List<LocalDate> dates = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            dates.add(LocalDate.ofEpochDay(buffer.getLong(getValues(events, DATES) + 8 * i)));
+        }
+        event.setDates(dates);
+        event.setDatesNotParsed(getTo(events, DATES_NOT_PARSED, index) > getFrom(events, DATES_NOT_PARSED, index));
+
+        event.setCoordinates(getCoordinates(events, COORDINATES, index));
+        event.setSames(getStrings(events, SAMES, index));
+
+        from = getFrom(events, LOCATIONS, index);
+        to = getTo(events, LOCATIONS, index);
+        List<Location> eventLocations = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            eventLocations.add(getLocation(buffer.getInt(getValues(events, LOCATIONS) + 4 * i)));
+        }
+        event.setLocations(eventLocations);
+        return event;
+    }
+
+    private Location getLocation(int index) {
+        Location location = new Location(getString(buffer.getInt(locations.identifiers + 4 * index)),
+                getString(buffer.getInt(locations.provenance + 4 * index)));
+        location.setLabels(getStrings(locations, LOCATION_LABELS, index));
+        location.setCoordinates(getCoordinates(locations, LOCATION_COORDINATES, index));
+        location.setSames(getStrings(locations, LOCATION_SAMES, index));
+        return location;
+    }
+
+    private int getFrom(Table table, int column, int index) {
+        return buffer.getInt(table.columns[column] + 4 * index);
+    }
+
+    private int getTo(Table table, int column, int index) {
+        return buffer.getInt(table.columns[column] + 4 * (index + 1));
+    }
+
+    private int getValues(Table table, int column) {
+        return table.columns[column] + 4 * (table.size + 1);
+    }
+
+    private List<String> getStrings(Table table, int column, int index) {
+        int from = getFrom(table, column, index);
+        int to = getTo(table, column, index);
+        List<String> values = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            values.add(getString(buffer.getInt(getValues(table, column) + 4 * i)));
+        }
+        return values;
+    }
+
+    private List<Pair<Double, Double>> getCoordinates(Table table, int column, int index) {
+        int from = getFrom(table, column, index);
+        int to = getTo(table, column, index);
+        List<Pair<Double, Double>> values = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int position = getValues(table, column) + 16 * i;
+            values.add(new Pair<>(buffer.getDouble(position), buffer.getDouble(position + 8)));
+        }
+        return values;
+    }
+
+    /**
+     * Adds all events of the snapshot to the data set (the events are created in parallel).
+     *
+     * @param filter only the events accepted by the filters of this factory are added, can be null
+     */
+    public void loadInto(DataSet<Event, DefaultSchemaElement> dataSet, EventFactory filter) {
+        Event[] all = IntStream.range(0, events.size).parallel().mapToObj(this::getEvent).toArray(Event[]::new);
+        for (Event event : all) {
+            if (filter == null || filter.isAccepted(event)) {
+                dataSet.addRecord(event);
+            }
+        }
+    }
+
+    /**
+     * Loads the events of an XML file into the data set. The events are read from the snapshot next to the file
+     * (file name + ".snapshot"), the snapshot is (re)created if it does not exist, is older than the XML file or was
+     * written by another version.
+     *
+     * @param factory the factory for the events, its filters are applied to the events
+     */
+    public static void load(DataSet<Event, DefaultSchemaElement> dataSet, File xmlFile, String recordPath,
+                            EventFactory factory) throws Exception {
+        File snapshotFile = new File(xmlFile.getPath() + ".snapshot");
+        if (!snapshotFile.exists() || snapshotFile.lastModified() < xmlFile.lastModified()
+                || !hasCurrentVersion(snapshotFile)) {
+            // the snapshot contains all events, the filters are applied when it is loaded
+            DefaultDataSet<Event, DefaultSchemaElement> all = new DefaultDataSet<>();
+            all.loadFromXML(xmlFile, new EventFactory(null, false, null, false, null, false, ""), recordPath);
+            try {
+                write(all.getRecords(), snapshotFile);
+            } catch (IOException e) {
+                System.out.println("Snapshot " + snapshotFile + " could not be written (" + e + "), using the XML file");
+                for (Event event : all.getRecords()) {
+                    if (factory.isAccepted(event)) {
+                        dataSet.addRecord(event);
+                    }
+                }
+                return;
+            }
+        }
+        open(snapshotFile).loadInto(dataSet, factory);
+    }
+
+    /**
+     * @return false if the file is not a snapshot of the current version (e.g. written by an older version)
+     */
+    private static boolean hasCurrentVersion(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the events to a snapshot file (to a temporary file first, which then replaces the file).
+     */
+    public static void write(Collection<Event> events, File file) throws IOException {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparing(Event::getIdentifier));
+        List<Location> allLocations = new ArrayList<>();
+        for (Event event : sorted) {
+            allLocations.addAll(event.getLocations());
+        }
+
+        // string dictionary
+        Map<String, Integer> numbers = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        ToIntFunction<String> number = s -> numbers.computeIfAbsent(s, k -> {
+            dictionary.add(k);
+            return dictionary.size() - 1;
+        });
+        for (Event event : sorted) {
+            number.applyAsInt(event.getIdentifier());
+            number.applyAsInt(event.getProvenance());
+            event.getUris().forEach(number::applyAsInt);
+            event.getLabels().forEach(number::applyAsInt);
+            event.getSames().forEach(number::applyAsInt);
+        }
+        for (Location location : allLocations) {
+            number.applyAsInt(location.getIdentifier());
+            number.applyAsInt(location.getProvenance());
+            location.getLabels().forEach(number::applyAsInt);
+            location.getSames().forEach(number::applyAsInt);
+        }
+
+        File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(dictionary.size());
+            List<byte[]> encoded = new ArrayList<>(dictionary.size());
+            int offset = 0;
+            out.writeInt(offset);
+            for (String s : dictionary) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+
+            // events
+            out.writeInt(sorted.size());
+            for (Event event : sorted) {
+                out.writeInt(number.applyAsInt(event.getIdentifier()));
+            }
+            for (Event event : sorted) {
+                out.writeInt(number.applyAsInt(event.getProvenance()));
+            }
+            writeStrings(out, sorted, Event::getUris, number);
+            writeStrings(out, sorted, Event::getLabels, number);
+            writeOffsets(out, sorted, event -> event.getDates().size());
+            for (Event event : sorted) {
+                for (LocalDate date : event.getDates()) {
+                    out.writeLong(date.toEpochDay());
+                }
+            }
+            writeCoordinates(out, sorted, Event::getCoordinates);
+            writeStrings(out, sorted, Event::getSames, number);
+            writeOffsets(out, sorted, event -> event.getLocations().size());
+            for (int i = 0; i < allLocations.size(); i++) {
+                out.writeInt(i);
+            }
+            writeOffsets(out, sorted, event -> event.datesNotParsed() ? 1 : 0);
+
+            // locations
+            out.writeInt(allLocations.size());
+            for (Location location : allLocations) {
+                out.writeInt(number.applyAsInt(location.getIdentifier()));
+            }
+            for (Location location : allLocations) {
+                out.writeInt(number.applyAsInt(location.getProvenance()));
+            }
+            writeStrings(out, allLocations, Location::getLabels, number);
+            writeCoordinates(out, allLocations, Location::getCoordinates);
+            writeStrings(out, allLocations, Location::getSames, number);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static <T> void writeOffsets(DataOutputStream out, List<T> records, ToIntFunction<T> size) throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+        for (T record : records) {
+            offset += size.applyAsInt(record);
+            out.writeInt(offset);
+        }
+    }
+
+    private static <T> void writeStrings(DataOutputStream out, List<T> records,
+                                         Function<T, List<String>> values,
+                                         ToIntFunction<String> number) throws IOException {
+        writeOffsets(out, records, record -> values.apply(record).size());
+        for (T record : records) {
+            for (String value : values.apply(record)) {
+                out.writeInt(number.applyAsInt(value));
+            }
+        }
+    }
+
+    private static <T> void writeCoordinates(DataOutputStream out, List<T> records,
+                                             Function<T, List<Pair<Double, Double>>> values) throws IOException {
+        writeOffsets(out, records, record -> values.apply(record).size());
+        for (T record : records) {
+            for (Pair<Double, Double> coordinates : values.apply(record)) {
+                out.writeDouble(coordinates.getFirst());
+                out.writeDouble(coordinates.getSecond());
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ *
+ * Copyright (C) 2015 Data and Web Science Group, University of Mannheim, Germany (code@dwslab.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package de.uni_mannheim.informatik.wdi.utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opencsv.CSVWriter;
+
+/**
+ * A small harness for micro benchmarks of the hot path (similarity measures,
+ * comparators, matching rules). Every benchmark runs a number of warmup
+ * iterations and then measurement iterations of a fixed duration, and reports
+ * the throughput (operations per second) and the allocation rate of the
+ * benchmark thread.
+ *
+ * The results of the operations are consumed, so the JIT cannot remove them.
+ * Only one benchmark should run at a time and the results should only be
+ * compared if they were measured on the same machine.
+ *
+ * @author Daniel Ringler
+ *
+ */
+public class MicroBenchmark {
+
+	/**
+	 * The measured operation
+	 */
+	public interface Operation {
+		/**
+		 * @param invocation
+		 *            the number of the invocation, e.g. to select the input
+		 * @return the result of the operation (e.g. a similarity), a number so
+		 *         the harness does not allocate
+		 */
+		double run(int invocation);
+	}
+
+	public static class Result {
+
+		private String name;
+		private double operationsPerSecond;
+		private double minOperationsPerSecond;
+		private double maxOperationsPerSecond;
+		private double bytesPerOperation;
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the mean throughput of the measurement iterations
+		 */
+		public double getOperationsPerSecond() {
+			return operationsPerSecond;
+		}
+
+		public double getMinOperationsPerSecond() {
+			return minOperationsPerSecond;
+		}
+
+		public double getMaxOperationsPerSecond() {
+			return maxOperationsPerSecond;
+		}
+
+		/**
+		 * @return the allocated bytes per operation, NaN if the JVM does not
+		 *         measure allocations
+		 */
+		public double getBytesPerOperation() {
+			return bytesPerOperation;
+		}
+
+		/**
+		 * @return the allocated megabytes per second
+		 */
+		public double getAllocationRate() {
+			return bytesPerOperation * operationsPerSecond / (1024.0 * 1024.0);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-60s %,16.1f ops/s [%,.1f - %,.1f] %,12.1f B/op %,10.1f MB/s", name,
+					operationsPerSecond, minOperationsPerSecond, maxOperationsPerSecond, bytesPerOperation,
+					getAllocationRate());
+		}
+	}
+
+	private int warmupIterations = 5;
+	private int measurementIterations = 5;
+	private long iterationMillis = 1000;
+
+	private List<Result> results = new ArrayList<>();
+
+	// the results of the operations end up here
+	private volatile int sink;
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	public void setMeasurementIterations(int measurementIterations) {
+		this.measurementIterations = measurementIterations;
+	}
+
+	public void setIterationMillis(long iterationMillis) {
+		this.iterationMillis = iterationMillis;
+	}
+
+	public List<Result> getResults() {
+		return results;
+	}
+
+	/**
+	 * Measures the operation and prints the result
+	 */
+	public Result run(String name, Operation operation) {
+		for (int i = 0; i < warmupIterations; i++) {
+			runIteration(operation);
+		}
+
+		Result result = new Result();
+		result.name = name;
+		result.minOperationsPerSecond = Double.MAX_VALUE;
+		long operations = 0;
+		long nanos = 0;
+		long bytes = 0;
+		for (int i = 0; i < measurementIterations; i++) {
+			long[] iteration = runIteration(operation);
+			double throughput = iteration[0] * 1e9 / iteration[1];
+			result.minOperationsPerSecond = Math.min(result.minOperationsPerSecond, throughput);
+			result.maxOperationsPerSecond = Math.max(result.maxOperationsPerSecond, throughput);
+			operations += iteration[0];
+			nanos += iteration[1];
+			bytes += iteration[2];
+		}
+		result.operationsPerSecond = operations * 1e9 / nanos;
+		result.bytesPerOperation = bytes < 0 ? Double.NaN : (double) bytes / operations;
+
+		results.add(result);
+		System.out.println(result);
+		return result;
+	}
+
+	/**
+	 * @return the number of operations, the duration in nanoseconds and the
+	 *         allocated bytes (negative if not measured)
+	 */
+	private long[] runIteration(Operation operation) {
+		long deadline = System.nanoTime() + iterationMillis * 1000000L;
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		long now;
+		int operations = 0;
+		int hash = 0;
+		do {
+			// check the time only every 64 operations, System.nanoTime is not free
+			for (int i = 0; i < 64; i++) {
+				hash += (int) Double.doubleToRawLongBits(operation.run(operations++));
+			}
+			now = System.nanoTime();
+		} while (now < deadline);
+		long allocatedAfter = getAllocatedBytes();
+		sink += hash;
+
+		long allocated = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+		return new long[] { operations, now - start, allocated };
+	}
+
+	private long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * Writes the results to a CSV file, to compare them with later runs
+	 */
+	public void writeCSV(File file) throws IOException {
+		try (CSVWriter writer = new CSVWriter(new FileWriter(file))) {
+			writer.writeNext(new String[] { "Benchmark", "ops/s", "min ops/s", "max ops/s", "B/op", "MB/s" });
+			for (Result result : results) {
+				writer.writeNext(new String[] { result.getName(), Double.toString(result.getOperationsPerSecond()),
+						Double.toString(result.getMinOperationsPerSecond()),
+						Double.toString(result.getMaxOperationsPerSecond()),
+						Double.toString(result.getBytesPerOperation()), Double.toString(result.getAllocationRate()) });
+			}
+		}
+	}
+}
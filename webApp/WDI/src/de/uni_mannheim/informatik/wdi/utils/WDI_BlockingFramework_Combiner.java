@@ -8,18 +8,25 @@ import BlockProcessing.BlockRefinement.BlockFiltering;
 import BlockProcessing.ComparisonRefinement.AbstractDuplicatePropagation;
 import BlockProcessing.ComparisonRefinement.BilateralDuplicatePropagation;
 import DataStructures.AbstractBlock;
+import DataStructures.BilateralBlock;
 import DataStructures.EntityProfile;
 import DataStructures.IdDuplicates;
 import Experiments.ComparativeAnalysis.OnTheFlyUtilities;
-import MetaBlocking.AbstractMetablocking;
-import MetaBlocking.WeightingScheme;
 import Utilities.BlockStatistics;
 import Utilities.RepresentationModel;
 import Utilities.StatisticsUtilities;
 import com.opencsv.CSVReader;
+import de.uni_mannheim.informatik.wdi.matching.blocking.BlockFilteringSweep;
+import de.uni_mannheim.informatik.wdi.matching.blocking.BlockedMatchable;
+import de.uni_mannheim.informatik.wdi.matching.blocking.MetaBlocker;
+import de.uni_mannheim.informatik.wdi.matching.blocking.MetaBlocking;
+import de.uni_mannheim.informatik.wdi.matching.blocking.MultiBlockingKeyGenerator;
 import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
 import de.uni_mannheim.informatik.wdi.model.FusableDataSet;
+import de.uni_mannheim.informatik.wdi.model.IndexPairResultSet;
 import de.uni_mannheim.informatik.wdi.model.Pair;
+import de.uni_mannheim.informatik.wdi.model.ResultSet;
+import de.uni_mannheim.informatik.wdi.processing.DataProcessingEngine;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Location;
 
@@ -28,6 +35,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * Created by Daniel on 02/02/17.
@@ -60,55 +68,92 @@ public class WDI_BlockingFramework_Combiner {
                                                                             HashMap<String, Integer> ids,
                                                                             int datasetId) {
         List<EntityProfile> list = new ArrayList<>(dataSet.getSize() + 10);
-        //datasetId: 0=stripedURI, 1=stripedURI+label, 2=stripedURI+same, 3=stripedURI+label+same, 4=all
         int idCounter = 0;
         for (Event event : dataSet.getRecords()) {
             String eventURI = event.getIdentifier();
             EntityProfile entityProfile = new EntityProfile(eventURI);
 
-            entityProfile.addAttribute("stripedURI", stripPrefix(eventURI));
+            forEachAttribute(event, datasetId, entityProfile::addAttribute);
 
-            if (datasetId == 1 || datasetId > 2) {
-                for (String label : event.getLabels()) {
-                    entityProfile.addAttribute("label", label);
-                }
+            list.add(entityProfile);
+            //add to ID HashMap
+            ids.put(eventURI, idCounter);
+            idCounter++;
+
+        }
+        return list;
+
+    }
+
+    /**
+     * Pass the attributes of the event that are used for the given datasetId to the consumer (name, value)
+     * @param event
+     * @param datasetId 0=stripedURI, 1=stripedURI+label, 2=stripedURI+same, 3=stripedURI+label+same, 4=all
+     * @param attributes
+     */
+    private static void forEachAttribute(Event event, int datasetId, BiConsumer<String, String> attributes) {
+        attributes.accept("stripedURI", stripPrefix(event.getIdentifier()));
+
+        if (datasetId == 1 || datasetId > 2) {
+            for (String label : event.getLabels()) {
+                attributes.accept("label", label);
             }
-            if (datasetId > 1) {
-                for (String same : event.getSames()) {
-                    entityProfile.addAttribute("same", same);
-                }
+        }
+        if (datasetId > 1) {
+            for (String same : event.getSames()) {
+                attributes.accept("same", same);
+            }
+        }
+        if (datasetId > 3) {
+            for (LocalDate date : event.getDates()) {
+                attributes.accept("date", date.toString());
             }
-            if (datasetId > 3) {
-                for (LocalDate date : event.getDates()) {
-                    entityProfile.addAttribute("date", date.toString());
+            for (Pair<Double, Double> coordinatePair : event.getCoordinates()) {
+                attributes.accept("lat", coordinatePair.getFirst().toString());
+                attributes.accept("long", coordinatePair.getSecond().toString());
+            }
+
+            for (Location location : event.getLocations()) {
+                for (String label : location.getLabels()) {
+                    attributes.accept("locationLabel", label);
                 }
-                for (Pair<Double, Double> coordinatePair : event.getCoordinates()) {
-                    entityProfile.addAttribute("lat", coordinatePair.getFirst().toString());
-                    entityProfile.addAttribute("long", coordinatePair.getSecond().toString());
+                for (Pair<Double, Double> coordinatePair : location.getCoordinates()) {
+                    attributes.accept("locationLat", coordinatePair.getFirst().toString());
+                    attributes.accept("locationLong", coordinatePair.getSecond().toString());
                 }
-
-                for (Location location : event.getLocations()) {
-                    for (String label : location.getLabels()) {
-                        entityProfile.addAttribute("locationLabel", label);
-                    }
-                    for (Pair<Double, Double> coordinatePair : location.getCoordinates()) {
-                        entityProfile.addAttribute("locationLat", coordinatePair.getFirst().toString());
-                        entityProfile.addAttribute("locationLong", coordinatePair.getSecond().toString());
-                    }
-                    for (String same : location.getSames()) {
-                        entityProfile.addAttribute("locationSame", same);
-                    }
+                for (String same : location.getSames()) {
+                    attributes.accept("locationSame", same);
                 }
             }
+        }
+    }
 
-            list.add(entityProfile);
-            //add to ID HashMap
-            ids.put(eventURI, idCounter);
-            idCounter++;
+    /**
+     * Token Blocking on the attributes of the given datasetId: every token of the attribute values is a blocking key,
+     * like TokenBlocking of the framework on the converted entity profiles
+     */
+    private static class TokenBlockingKeyGenerator extends MultiBlockingKeyGenerator<Event> {
+
+        private static final long serialVersionUID = 1L;
 
+        private final int datasetId;
+
+        TokenBlockingKeyGenerator(int datasetId) {
+            this.datasetId = datasetId;
         }
-        return list;
 
+        @Override
+        public Collection<String> getMultiBlockingKey(Event event) {
+            Set<String> tokens = new HashSet<>();
+            forEachAttribute(event, datasetId, (name, value) -> {
+                for (String token : value.split("[\\W_]")) {
+                    if (!token.isEmpty()) {
+                        tokens.add(token.toLowerCase());
+                    }
+                }
+            });
+            return tokens;
+        }
     }
 
     /**
@@ -188,6 +233,7 @@ public class WDI_BlockingFramework_Combiner {
                 //gold standard
                 Set<IdDuplicates> goldStandardMatches = WDI_BlockingFramework_Combiner.convertGoldStandardToIdDuplicatesSet(goldStandardFilePath);
                 AbstractDuplicatePropagation abp = new BilateralDuplicatePropagation(goldStandardMatches);
+                Set<Long> duplicates = toSet(packDuplicates(goldStandardMatches));
 
 
                 for (int methodId = 0; methodId < NO_OF_BLOCKING_METHODS; methodId++) {
@@ -219,9 +265,7 @@ public class WDI_BlockingFramework_Combiner {
                                 methodName = "StBl+BlFi(r="+tbBestRatios+")";
                                 break;
                             case 2:
-                                method = new TokenBlocking(profiles);
-                                bcMethod = new BlockFiltering(tbBestRatios);
-                                ccMethod = OnTheFlyUtilities.getCleaningMethod(true, tbBestMbMethodId, abp);
+                                //Meta-Blocking of WDI (MetaBlocker), see runMetaBlocker
                                 methodName = "StBl+BlFi(r="+tbBestRatios+")+MeBl(" + getPruningAlgorithmName(tbBestMbMethodId) + "-" + getWeightingSchemeName(tbBestMbMethodId) +")";
                                 break;
                             case 3:
@@ -229,33 +273,47 @@ public class WDI_BlockingFramework_Combiner {
                                 methodName = "ACl("+ ACL_BEST_MODEL.toString() +")";
                                 break;
                         }
-                        //BLOCK BUILDING
-                        long time1 = System.currentTimeMillis();
-                        List<AbstractBlock> blocks = method.buildBlocks();
-                        long time2 = System.currentTimeMillis();
-
-                        //BLOCK CLEANING
-                        if (bcMethod != null) {
-                            bcMethod.applyProcessing(blocks);
-                        }
-                        long time3 = System.currentTimeMillis();
-
-                        //COMPARISON CLEANING
-                        if (ccMethod != null) {
-                            ccMethod.applyProcessing(blocks);
+                        double[] results;
+                        double blbuTime;
+                        double blclTime;
+                        double coclTime;
+                        if (method == null) {
+                            results = runMetaBlocker(dataSetD, dataSetY, datasetID, tbBestRatios, tbBestMbMethodId, duplicates);
+                            blbuTime = results[5];
+                            System.out.println("BlBu+BlCl time\t:\t" + blbuTime);
+                            //Block Filtering is part of the block building of the MetaBlocker
+                            blclTime = -1.0;
+                            coclTime = results[6];
+                            System.out.println("CoCl time\t:\t" + coclTime);
+                        } else {
+                            //BLOCK BUILDING
+                            long time1 = System.currentTimeMillis();
+                            List<AbstractBlock> blocks = method.buildBlocks();
+                            long time2 = System.currentTimeMillis();
+
+                            //BLOCK CLEANING
+                            if (bcMethod != null) {
+                                bcMethod.applyProcessing(blocks);
+                            }
+                            long time3 = System.currentTimeMillis();
+
+                            //COMPARISON CLEANING
+                            if (ccMethod != null) {
+                                ccMethod.applyProcessing(blocks);
+                            }
+                            long time4 = System.currentTimeMillis();
+
+
+                            blbuTime = time2 - time1;
+                            System.out.println("BlBu time\t:\t" + blbuTime);
+                            blclTime = time3 - time2;
+                            System.out.println("BlCl time\t:\t" + blclTime);
+                            coclTime = time4 - time3;
+                            System.out.println("CoCl time\t:\t" + coclTime);
+
+                            BlockStatistics bStats = new BlockStatistics(blocks, abp);
+                            results = bStats.applyProcessing();
                         }
-                        long time4 = System.currentTimeMillis();
-
-
-                        double blbuTime = time2 - time1;
-                        System.out.println("BlBu time\t:\t" + blbuTime);
-                        double blclTime = time3 - time2;
-                        System.out.println("BlCl time\t:\t" + blclTime);
-                        double coclTime = time4 - time3;
-                        System.out.println("CoCl time\t:\t" + coclTime);
-
-                        BlockStatistics bStats = new BlockStatistics(blocks, abp);
-                        double[] results = bStats.applyProcessing();
 
                         comparisons[methodId].add(results[2]);
                         pc[methodId].add(results[0]);
@@ -413,7 +471,9 @@ public class WDI_BlockingFramework_Combiner {
     }
     /**
      * Analyze Block Filtering ratios
-     * One run for each parameter. Runtime might not be accurate (no iterations and no test runs)
+     * The blocks are built once per dataset and all ratios are evaluated in one sweep (see {@link BlockFilteringSweep}),
+     * which gives the same results as the framework's BlockFiltering used by runBlocking and analyzeRuntimeForBlFi.
+     * Runtime might not be accurate (no iterations and no test runs, BlCl time is the sweep time divided by the number of ratios)
      * @param dataSetD
      * @param dataSetY
      * @param goldStandardFilePath
@@ -503,11 +563,28 @@ public class WDI_BlockingFramework_Combiner {
 
                 //ANALYZE BLOCK-REFINEMENT METHODS
 
-                for (int i = 0; i < 20; i++) {
-                    //init Block Filtering (BlFi) parameters
-                    r = getRatio(i);
+                //BLOCK BUILDING (once for all ratios)
+                time1 = System.currentTimeMillis();
+                blocks = method.buildBlocks();
+                time2 = System.currentTimeMillis();
+
+                //BLOCK CLEANING: all Block Filtering (BlFi) ratios in one sweep over the same blocks
+                double[] ratios = new double[20];
+                for (int i = 0; i < ratios.length; i++) {
+                    ratios[i] = getRatio(i);
+                }
+                BlockFilteringSweep.Result[] sweepResults = createBlockFilteringSweep(blocks, dSize, ySize).run(ratios, packDuplicates(goldStandardMatches));
+                time3 = System.currentTimeMillis();
+
+                blbuTime = time2 - time1;
+                System.out.println("BlBu time\t:\t" + blbuTime);
+                //the sweep time is shared by all ratios
+                blclTime = (double) (time3 - time2) / ratios.length;
+                System.out.println("BlCl time\t:\t" + blclTime);
+
+                for (int i = 0; i < ratios.length; i++) {
+                    r = ratios[i];
                     methodName = blbiM + "+BlFi (r=" + r + ")";
-                    bcMethod = new BlockFiltering(r);
 
                     //params
                     comparisons = new List[1];
@@ -525,34 +602,13 @@ public class WDI_BlockingFramework_Combiner {
                     blbuTimes[0] = new ArrayList<>();
                     blclTimes[0] = new ArrayList<>();
 
-                    //for (int iterations = 0; iterations < NO_OF_ITERATIONS; iterations++) {
-
-                    //BLOCK BUILDING
-                    time1 = System.currentTimeMillis();
-                    blocks = method.buildBlocks();
-                    time2 = System.currentTimeMillis();
-                    //BLOCK CLEANING
-                    if (bcMethod != null) {
-                        bcMethod.applyProcessing(blocks);
-                    }
-                    time3 = System.currentTimeMillis();
-
-                    blbuTime = time2 - time1;
-                    System.out.println("BlBu time\t:\t" + blbuTime);
-                    blclTime = time3 - time2;
-                    System.out.println("BlCl time\t:\t" + blclTime);
-
-                    bStats = new BlockStatistics(blocks, abp);
-                    results = bStats.applyProcessing();
-
-                    comparisons[0].add(results[2]);
-                    pc[0].add(results[0]);
-                    pq[0].add(results[1]);
-                    rr[0].add(results[3]);
-                    nBlocks[0].add(results[4]);
+                    comparisons[0].add((double) sweepResults[i].getComparisons());
+                    pc[0].add(sweepResults[i].getPairCompleteness());
+                    pq[0].add(sweepResults[i].getPairQuality());
+                    rr[0].add(sweepResults[i].getReductionRatio());
+                    nBlocks[0].add((double) sweepResults[i].getNumberOfBlocks());
                     blbuTimes[0].add(blbuTime);
                     blclTimes[0].add(blclTime);
-                //}//end for iterations
 
                     printOutputAndWriteToFile(writer, dSize, ySize, dataSetAttributes, methodName, 0, datasetID, nBlocks, comparisons, pc, pq, rr, blbuTimes, blclTimes, null, r, -1);
                 }
@@ -563,6 +619,106 @@ public class WDI_BlockingFramework_Combiner {
         }
     }
 
+    /**
+     * Converts the (bilateral) blocks of the blocking framework into a sweep that evaluates Block Filtering for many ratios
+     * @param blocks
+     * @param dSize
+     * @param ySize
+     * @return sweep over the blocks
+     */
+    private static BlockFilteringSweep createBlockFilteringSweep(List<AbstractBlock> blocks, int dSize, int ySize) {
+        int[][] blockMembers1 = new int[blocks.size()][];
+        int[][] blockMembers2 = new int[blocks.size()][];
+        for (int b = 0; b < blocks.size(); b++) {
+            BilateralBlock block = (BilateralBlock) blocks.get(b);
+            blockMembers1[b] = block.getIndex1Entities();
+            blockMembers2[b] = block.getIndex2Entities();
+        }
+        return new BlockFilteringSweep(blockMembers1, blockMembers2, dSize, ySize);
+    }
+
+    private static Set<Long> toSet(long[] packedPairs) {
+        Set<Long> set = new HashSet<>(packedPairs.length * 2);
+        for (long packedPair : packedPairs) {
+            set.add(packedPair);
+        }
+        return set;
+    }
+
+    /**
+     * Token Blocking, Block Filtering and Meta-Blocking with the MetaBlocker of WDI on the events.
+     * Block Filtering keeps ceil(r*|blocks|) blocks per event (framework: round), the detected duplicates are
+     * counted with the ids of dIDs and yIDs.
+     * @param dataSetD
+     * @param dataSetY
+     * @param datasetID attributes used for the blocking keys
+     * @param r ratio of Block Filtering
+     * @param i meta-blocking method id of the framework (WEP, CEP, rWNP or recipCNP)
+     * @param duplicates packed gold standard pairs
+     * @return PC, PQ, comparisons, RR, #blocks, BlBu+BlCl time, CoCl time
+     */
+    private static double[] runMetaBlocker(FusableDataSet<Event, DefaultSchemaElement> dataSetD, FusableDataSet<Event, DefaultSchemaElement> dataSetY,
+                                           int datasetID, double r, int i, Set<Long> duplicates) {
+        MetaBlocker<Event, DefaultSchemaElement> blocker = new MetaBlocker<>(new TokenBlockingKeyGenerator(datasetID),
+                getWeightingScheme(i), getPruningAlgorithm(i));
+
+        long time1 = System.currentTimeMillis();
+        ResultSet<BlockedMatchable<Event, DefaultSchemaElement>> pairs = blocker.runBlocking(dataSetD, dataSetY, null,
+                new DataProcessingEngine(), true, r);
+        long time2 = System.currentTimeMillis();
+
+        int detectedDuplicates = 0;
+        for (BlockedMatchable<Event, DefaultSchemaElement> pair : pairs.get()) {
+            int id1 = dIDs.get(pair.getFirstRecord().getIdentifier());
+            int id2 = yIDs.get(pair.getSecondRecord().getIdentifier());
+            if (duplicates.contains(IndexPairResultSet.pack(id1, id2))) {
+                detectedDuplicates++;
+            }
+        }
+        double comparisons = pairs.size();
+
+        double[] results = new double[7];
+        results[0] = (double) detectedDuplicates / duplicates.size();
+        results[1] = comparisons == 0 ? 0.0 : detectedDuplicates / comparisons;
+        results[2] = comparisons;
+        results[3] = 1.0 - comparisons / ((double) dataSetD.size() * dataSetY.size());
+        results[4] = blocker.getNumberOfBlocks();
+        results[5] = time2 - time1 - blocker.getMetaBlockingTime();
+        results[6] = blocker.getMetaBlockingTime();
+        return results;
+    }
+
+    private static MetaBlocking.WeightingScheme getWeightingScheme(int i) {
+        return MetaBlocking.WeightingScheme.values()[i % 5];
+    }
+
+    /**
+     * Pruning algorithm of WDI for the meta-blocking method id of the framework, rWNP (redefined WNP) is WNP
+     * @param i
+     * @return
+     */
+    private static MetaBlocking.PruningAlgorithm getPruningAlgorithm(int i) {
+        if (i < 5) {
+            return MetaBlocking.PruningAlgorithm.WEP;
+        } else if (i < 10) {
+            return MetaBlocking.PruningAlgorithm.CEP;
+        } else if (i < 15) {
+            return MetaBlocking.PruningAlgorithm.WNP;
+        } else if (i < 20) {
+            return MetaBlocking.PruningAlgorithm.RECIPROCAL_CNP;
+        }
+        throw new IllegalArgumentException("No pruning algorithm of WDI for meta-blocking method " + i);
+    }
+
+    private static long[] packDuplicates(Set<IdDuplicates> duplicates) {
+        long[] result = new long[duplicates.size()];
+        int i = 0;
+        for (IdDuplicates duplicate : duplicates) {
+            result[i++] = IndexPairResultSet.pack(duplicate.getEntityId1(), duplicate.getEntityId2());
+        }
+        return result;
+    }
+
     private String getBlBiMethodName(int m) {
         if (m==0) {
             return "StBl";
@@ -1074,6 +1230,90 @@ public class WDI_BlockingFramework_Combiner {
 
 
 
+    /**
+     * Analyze Meta-Blocking of WDI (MetaBlocker) with Token Blocking and the best Block Filtering ratio:
+     * parameter tuning runs all meta-blocking methods of WDI (WEP, CEP, rWNP and recipCNP with the five weighting
+     * schemes) once, otherwise the best method is measured with test-runs and several iterations
+     * @param getBestParameter
+     * @param dataSetD
+     * @param dataSetY
+     * @param goldStandardFilePath
+     */
+    public void analyzeMetaBlocker(boolean getBestParameter, FusableDataSet<Event, DefaultSchemaElement> dataSetD, FusableDataSet<Event, DefaultSchemaElement> dataSetY, String goldStandardFilePath) {
+        try {
+            Date date = new Date();
+            String fileName = (getBestParameter ? "bestParam" : "runtime") + "MeBl_StBl_bestBlFi_WDI_" + df.format(date) + ".csv";
+            BufferedWriter writer = new BufferedWriter(new FileWriter("./out/"+fileName));
+            String header = "#iD, #iY, #iD*#iY , #attr, attr, methodId, methodName, #blocks, total comparisons, avg comparisons/block, PC, PQ, RR, a (RR*PC), BlBu time, BlCl time, CoCl time";
+            writer.write(header + "\n");
+
+            int iterations = getBestParameter ? 1 : NO_OF_ITERATIONS;
+
+            for  (int datasetID = 0; datasetID < NO_OF_DATASETS; datasetID++){
+                String[] dataSetAttributes = getDatasetAttributes(datasetID);
+
+                //init HashMaps with <URI, ID>
+                dIDs = new HashMap<>(dataSetD.size() + 10, 1.0f);
+                yIDs = new HashMap<>(dataSetY.size() + 10, 1.0f);
+                WDI_BlockingFramework_Combiner.convertFusableDataSetToEntityProfile(dataSetD, dIDs, datasetID);
+                WDI_BlockingFramework_Combiner.convertFusableDataSetToEntityProfile(dataSetY, yIDs, datasetID);
+                int dSize = dataSetD.size();
+                int ySize = dataSetY.size();
+
+                //gold standard
+                Set<Long> duplicates = toSet(packDuplicates(WDI_BlockingFramework_Combiner.convertGoldStandardToIdDuplicatesSet(goldStandardFilePath)));
+
+                double r = getBestBlFiRatio(0, datasetID);
+
+                int firstMethod = getBestParameter ? 0 : getBestMeBlMethod(0, datasetID);
+                int lastMethod = getBestParameter ? 19 : firstMethod;
+
+                if (!getBestParameter && datasetID == 0) {
+                    for (int t = 0; t < NO_OF_TEST_RUNS; t++) {
+                        runMetaBlocker(dataSetD, dataSetY, datasetID, r, firstMethod, duplicates);
+                    }
+                    System.out.println("Test run complete.");
+                }
+
+                for (int i = firstMethod; i <= lastMethod; i++) {
+                    String methodName = "StBl+BlFi(r="+r+")+MeBl(" + getPruningAlgorithmName(i) + "-" + getWeightingSchemeName(i) +", WDI)";
+
+                    List<Double>[] comparisons = newLists();
+                    List<Double>[] pc = newLists();
+                    List<Double>[] pq = newLists();
+                    List<Double>[] rr = newLists();
+                    List<Double>[] nBlocks = newLists();
+                    List<Double>[] blbuTimes = newLists();
+                    List<Double>[] coclTimes = newLists();
+
+                    for (int iteration = 0; iteration < iterations; iteration++) {
+                        double[] results = runMetaBlocker(dataSetD, dataSetY, datasetID, r, i, duplicates);
+                        pc[0].add(results[0]);
+                        pq[0].add(results[1]);
+                        comparisons[0].add(results[2]);
+                        rr[0].add(results[3]);
+                        nBlocks[0].add(results[4]);
+                        blbuTimes[0].add(results[5]);
+                        coclTimes[0].add(results[6]);
+                    }
+
+                    //Block Filtering is part of the block building of the MetaBlocker: no BlCl time
+                    printOutputAndWriteToFile(writer, dSize, ySize, dataSetAttributes, methodName, 0, datasetID, nBlocks, comparisons, pc, pq, rr, blbuTimes, null, coclTimes, r, i);
+                }
+            } //end for NUMBER_OF_DATASETS
+            closeWriter(writer, fileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Double>[] newLists() {
+        List<Double>[] lists = new List[1];
+        lists[0] = new ArrayList<>();
+        return lists;
+    }
+
     private static void closeWriter(BufferedWriter writer, String fileName) throws IOException {
         writer.close();
         System.out.println("results written to " + fileName);
@@ -2,6 +2,7 @@ import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
 import de.uni_mannheim.informatik.wdi.model.FusableDataSet;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.EventFactory;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.EventSnapshot;
 import de.uni_mannheim.informatik.wdi.utils.WDI_BlockingFramework_Combiner;
 
 import java.io.File;
@@ -32,14 +33,12 @@ public class BlockingAnalysis {
         FusableDataSet<Event, DefaultSchemaElement> dataSetD = new FusableDataSet<>();
         FusableDataSet<Event, DefaultSchemaElement> dataSetY = new FusableDataSet<>();
 
-        //load XML data sets
-        dataSetD.loadFromXML(new File(paths[0]),
-                new EventFactory(null, false, null, false, null, false, ""),
-                "events/event");
+        //load XML data sets (from their binary snapshots after the first run)
+        EventSnapshot.load(dataSetD, new File(paths[0]), "events/event",
+                new EventFactory(null, false, null, false, null, false, ""));
 
-        dataSetY.loadFromXML(new File(paths[1]),
-                new EventFactory(null, false, null, false, null, false, ""),
-                "events/event");
+        EventSnapshot.load(dataSetY, new File(paths[1]), "events/event",
+                new EventFactory(null, false, null, false, null, false, ""));
 
         /*if (s>0) {
             dataSetD.sampleRecords(s);
@@ -87,6 +86,10 @@ public class BlockingAnalysis {
                     System.out.println("Measure runtime for Meta Blocking with Blocking Method " + blockingMethod + " and Block Filtering.");
                     blockingFramework.analyzeRuntimeForMeBl_preSteps_StBl_bestBlFi(blockingMethod,dataSetD, dataSetY, paths[2]);
                 }
+                if (blockingMethod==0) {
+                    System.out.println("Compare with Meta Blocking of WDI (MetaBlocker).");
+                    blockingFramework.analyzeMetaBlocker(getBestParameter, dataSetD, dataSetY, paths[2]);
+                }
                 break;
 
 
@@ -0,0 +1,171 @@
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.uni_mannheim.informatik.wdi.model.Pair;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Writes events as compact JSON to a stream, one event at a time: either as a JSON array or newline-delimited (one
+ * event per line, so a client can parse the events while they arrive). The output is flushed every few hundred
+ * events.
+ *
+ * @author Daniel Ringler
+ */
+public class EventJsonWriter implements Closeable {
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    static {
+        mapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Selects the events that are written: events with coordinates in a bounding box and dates in a range, of these
+     * the events from offset to offset + limit
+     */
+    public static class Page {
+        private int offset = 0;
+        private int limit = Integer.MAX_VALUE;
+        private double[] boundingBox;
+        private LocalDate from;
+        private LocalDate to;
+
+        public void setOffset(int offset) {
+            this.offset = offset;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Only events with coordinates in the box are selected
+         */
+        public void setBoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+            boundingBox = new double[]{minLatitude, minLongitude, maxLatitude, maxLongitude};
+        }
+
+        /**
+         * Only events with a date in the range are selected
+         *
+         * @param from first date, null if the range is open
+         * @param to   last date, null if the range is open
+         */
+        public void setDateRange(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        boolean matches(Event event) {
+            if (boundingBox != null && event.getCoordinates().stream().noneMatch(this::isInBoundingBox)) {
+                return false;
+            }
+            if ((from != null || to != null) && event.getDates().stream().noneMatch(this::isInDateRange)) {
+                return false;
+            }
+            return true;
+        }
+
+        private boolean isInBoundingBox(Pair<Double, Double> coordinates) {
+            return coordinates.getFirst() >= boundingBox[0] && coordinates.getSecond() >= boundingBox[1]
+                    && coordinates.getFirst() <= boundingBox[2] && coordinates.getSecond() <= boundingBox[3];
+        }
+
+        private boolean isInDateRange(LocalDate date) {
+            return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+        }
+    }
+
+    private final JsonGenerator generator;
+    private final boolean newlineDelimited;
+    private final Page page;
+    private int selected;
+    private int written;
+
+    /**
+     * @param newlineDelimited write one event per line instead of a JSON array
+     * @param page             selects the events that are written, null to write all events
+     */
+    public EventJsonWriter(OutputStream out, boolean newlineDelimited, Page page) throws IOException {
+        this.generator = mapper.getFactory().createGenerator(out);
+        this.newlineDelimited = newlineDelimited;
+        this.page = page == null ? new Page() : page;
+        if (newlineDelimited) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+        } else {
+            generator.writeStartArray();
+        }
+    }
+
+    /**
+     * Writes the event if it is selected by the page
+     *
+     * @return false if the page is complete, later events are not written
+     */
+    public boolean write(Event event) throws IOException {
+        if (written >= page.limit) {
+            return false;
+        }
+        if (!page.matches(event) || selected++ < page.offset) {
+            return true;
+        }
+        mapper.writeValue(generator, event);
+        written++;
+        if (written % FLUSH_INTERVAL == 0) {
+            generator.flush();
+        }
+        return written < page.limit;
+    }
+
+    /**
+     * Writes the events until the page is complete
+     */
+    public void writeAll(Iterable<Event> events) throws IOException {
+        for (Event event : events) {
+            if (!write(event)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the number of written events
+     */
+    public int getWritten() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (newlineDelimited) {
+            if (written > 0) {
+                generator.writeRaw('\n');
+            }
+        } else {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+
+    /**
+     * @return the events as a JSON array
+     */
+    public static String toJson(Collection<Event> events) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EventJsonWriter writer = new EventJsonWriter(out, false, null)) {
+            writer.writeAll(events);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
+import org.apache.log4j.Logger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Streams the events of a query to the web app (instead of returning one JSON string via DWR), so the map can draw
+ * the first events while the rest is still sent.
+ *
+ * Parameters: local, onlyFused, d, y, keyword, from, to (as for {@link QueryProcessor#getUserData}), format (json
+ * or ndjson) and optionally the page: offset, limit, bbox (minLat,minLong,maxLat,maxLong), pageFrom and pageTo.
+ *
+ * @author Daniel Ringler
+ */
+public class EventStreamServlet extends HttpServlet {
+
+    final static Logger logger = Logger.getLogger(EventStreamServlet.class);
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        boolean newlineDelimited = "ndjson".equals(request.getParameter("format"));
+        EventJsonWriter.Page page;
+        try {
+            page = getPage(request);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        // the events are computed before the response is opened, so errors of the query (e.g. a missing data file)
+        // are sent as errors and not as an empty result
+        QueryProcessor queryProcessor = new QueryProcessor();
+        List<Event> events;
+        try {
+            events = queryProcessor.getEvents(getFlag(request, "local"), getFlag(request, "onlyFused"),
+                    getFlag(request, "d"), getFlag(request, "y"), getString(request, "keyword"),
+                    getString(request, "from"), getString(request, "to"));
+        } catch (Exception e) {
+            logger.error("Query failed", e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+
+        response.setContentType(newlineDelimited ? "application/x-ndjson" : "application/json");
+        response.setCharacterEncoding("UTF-8");
+        try {
+            queryProcessor.writeEvents(events, response.getOutputStream(), newlineDelimited, page);
+        } catch (IOException e) {
+            // the client closed the connection
+            logger.debug("Streaming the events failed", e);
+        }
+    }
+
+    private EventJsonWriter.Page getPage(HttpServletRequest request) {
+        EventJsonWriter.Page page = new EventJsonWriter.Page();
+        if (request.getParameter("offset") != null) {
+            page.setOffset(Integer.parseInt(request.getParameter("offset")));
+        }
+        if (request.getParameter("limit") != null) {
+            page.setLimit(Integer.parseInt(request.getParameter("limit")));
+        }
+        if (request.getParameter("bbox") != null) {
+            String[] values = request.getParameter("bbox").split(",");
+            if (values.length != 4) {
+                throw new IllegalArgumentException("bbox must be minLat,minLong,maxLat,maxLong");
+            }
+            page.setBoundingBox(Double.parseDouble(values[0]), Double.parseDouble(values[1]),
+                    Double.parseDouble(values[2]), Double.parseDouble(values[3]));
+        }
+        String pageFrom = getString(request, "pageFrom");
+        String pageTo = getString(request, "pageTo");
+        if (!pageFrom.equals("") || !pageTo.equals("")) {
+            page.setDateRange(pageFrom.equals("") ? null : LocalDate.parse(pageFrom),
+                    pageTo.equals("") ? null : LocalDate.parse(pageTo));
+        }
+        return page;
+    }
+
+    private boolean getFlag(HttpServletRequest request, String name) {
+        return Boolean.parseBoolean(request.getParameter(name));
+    }
+
+    private String getString(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        return value == null ? "" : value;
+    }
+}
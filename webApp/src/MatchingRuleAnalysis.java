@@ -3,10 +3,13 @@ import de.uni_mannheim.informatik.wdi.matching.blocking.BlockingFunction;
 import de.uni_mannheim.informatik.wdi.matching.blocking.MultiBlockingKeyGenerator;
 import de.uni_mannheim.informatik.wdi.matching.blocking.MultiKeyBlocker;
 import de.uni_mannheim.informatik.wdi.matching.blocking.NoBlocker;
+import de.uni_mannheim.informatik.wdi.matching.blocking.SetSimilarityBlocker;
 import de.uni_mannheim.informatik.wdi.model.*;
+import de.uni_mannheim.informatik.wdi.processing.ParallelDataProcessingEngine;
 import de.uni_mannheim.informatik.wdi.usecase.events.identityresolution.*;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.EventFactory;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.EventSnapshot;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -15,8 +18,10 @@ import java.io.IOException;
 import java.lang.reflect.Array;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 /**
  * Created by Daniel on 08/02/17.
@@ -45,13 +50,11 @@ public class MatchingRuleAnalysis {
         FusableDataSet<Event, DefaultSchemaElement> dataSetD = new FusableDataSet<>();
         FusableDataSet<Event, DefaultSchemaElement> dataSetY = new FusableDataSet<>();
 
-        //load XML data sets
-        dataSetD.loadFromXML(new File(paths[0]),
-                new EventFactory(null, false, null, false, null, false, ""),
-                "events/event");
-        dataSetY.loadFromXML(new File(paths[1]),
-                new EventFactory(null, false, null, false, null, false, ""),
-                "events/event");
+        //load XML data sets (from their binary snapshots after the first run)
+        EventSnapshot.load(dataSetD, new File(paths[0]), "events/event",
+                new EventFactory(null, false, null, false, null, false, ""));
+        EventSnapshot.load(dataSetY, new File(paths[1]), "events/event",
+                new EventFactory(null, false, null, false, null, false, ""));
 
         if (s>0) {
             dataSetD.sampleRecords(s);
@@ -61,6 +64,13 @@ public class MatchingRuleAnalysis {
         dataSetD.printDataSetDensityReport();
         dataSetY.printDataSetDensityReport();
 
+        //evaluate thresholds, weights and combinations of the comparators in one run
+        boolean sweep = false;
+        if (sweep) {
+            runSweep(dataSetD, dataSetY, paths, "mr_sweep.csv");
+            return;
+        }
+
         //BASELINE TESTING
      /*
         for (int i = 10; i >= 0; i--) {
@@ -88,6 +98,53 @@ public class MatchingRuleAnalysis {
 
     }
 
+    /**
+     * Blocks once, computes the similarities of all comparators once per blocked pair and evaluates
+     * all linear, maximum and minimum combinations of them with thresholds in [0,1] (0.01 steps)
+     */
+    private static void runSweep(FusableDataSet<Event, DefaultSchemaElement> dataSetD, FusableDataSet<Event, DefaultSchemaElement> dataSetY, String[] paths, String fileName) throws Exception {
+        MatchingRuleSweep<Event, DefaultSchemaElement> sweep = new MatchingRuleSweep<>(new ParallelDataProcessingEngine());
+        //exact similarities (no thresholds) for the similarity based comparators
+        sweep.addComparator("levURI", new EventURIComparatorLevenshtein());
+        sweep.addComparator("jaccardURI", new EventURIComparatorJaccard());
+        //edit distance comparators with the thresholds of RR and LR (1 for matches, 0 for non-matches)
+        sweep.addComparator("editDistanceURI", new EventURIComparatorLevenshteinEditDistance(0.6308));
+        sweep.addComparator("editDistanceLabel", new EventLabelComparatorLevenshteinEditDistance(1.5937));
+        sweep.addComparator("editDistanceDate", new EventDateComparatorLevenshteinEditDistance(2.2752));
+
+        sweep.addWeightGrid(MatchingRuleSweep.Combination.LINEAR, 0, 1, 2);
+        sweep.addWeightGrid(MatchingRuleSweep.Combination.MAXIMUM, 0, 1);
+        sweep.addWeightGrid(MatchingRuleSweep.Combination.MINIMUM, 0, 1);
+        sweep.setThresholds(0.0, 1.0, 0.01);
+
+        MatchingGoldStandard gs = new MatchingGoldStandard();
+        gs.loadFromTSVFile(new File(paths[2]));
+
+        MultiBlockingKeyGenerator<Event> tokenizedAttributes = BlockingFunction.getStandardBlockingFunctionAllAttributes();
+        MultiKeyBlocker<Event, DefaultSchemaElement> blocker = new MultiKeyBlocker<Event, DefaultSchemaElement>(tokenizedAttributes);
+
+        long time1 = System.currentTimeMillis();
+        sweep.computeColumns(dataSetD, dataSetY, blocker, true, 0.5, gs);
+        List<MatchingRuleSweep.Result> results = sweep.evaluate();
+        long time2 = System.currentTimeMillis();
+        System.out.println("Done with Sweep: " + results.size() + " results in " + (time2 - time1) + " ms");
+
+        MatchingRuleSweep.Result best = null;
+        for (MatchingRuleSweep.Result result : results) {
+            if (best == null || result.getPerformance().getF1() > best.getPerformance().getF1()) {
+                best = result;
+            }
+        }
+        if (best != null) {
+            System.out.println(String.format("Best F1: %.4f (Precision: %.4f, Recall: %.4f) for %s with threshold: %s",
+                    best.getPerformance().getF1(), best.getPerformance().getPrecision(), best.getPerformance().getRecall(),
+                    best.getConfiguration().getName(), best.getThreshold()));
+        }
+
+        sweep.writeCSV(results, new File("./out/" + fileName));
+        System.out.println("results written to " + fileName);
+    }
+
     private static void saveCorrectRecordsToDisk(HashMap<Integer, HashSet<String>> correctRecordsMap, int mrC) throws IOException{
         String fileName = "correctRecordsMr"+mrC+".csv";
         HashSet<String> correctRecords = correctRecordsMap.get(mrC);
@@ -149,7 +206,7 @@ public class MatchingRuleAnalysis {
             //baseline
             ft = 0.96;
             LinearCombinationMatchingRule<Event, DefaultSchemaElement> matchingRule = new LinearCombinationMatchingRule<>(ft); //0.96
-            matchingRule.addComparator(new EventURIComparatorLevenshtein(), 1);
+            matchingRule.addComparator(new EventURIComparatorLevenshtein(ft), 1);
             mr = "Baseline Lev on stripedURI with " + ft;
 
             MultiBlockingKeyGenerator<Event> tokenizedAttributes = BlockingFunction.getStandardBlockingFunctionAllAttributes();
@@ -249,8 +306,8 @@ public class MatchingRuleAnalysis {
             matchingRule.addComparator(new EventURIComparatorJaccard(), 1);
             mr = "RH: Jaccard on stripedURI with " + ft;
 
-            MultiBlockingKeyGenerator<Event> tokenizedAttributes = BlockingFunction.getStandardBlockingFunctionAllAttributes();
-            MultiKeyBlocker<Event, DefaultSchemaElement> blocker = new MultiKeyBlocker<Event, DefaultSchemaElement>(tokenizedAttributes);
+            // only pairs whose striped URI tokens can reach the threshold
+            SetSimilarityBlocker<Event, DefaultSchemaElement> blocker = new SetSimilarityBlocker<Event, DefaultSchemaElement>(BlockingFunction.getStripedURITokenSets(), ft);
             //NoBlocker<Event, DefaultSchemaElement> blocker = new NoBlocker<>();
 
             // Initialize Matching Engine
@@ -293,6 +350,8 @@ public class MatchingRuleAnalysis {
             LinearCombinationMatchingRule<Event, DefaultSchemaElement> matchingRule = new LinearCombinationMatchingRule<>(ft);
             matchingRule.addComparator(new EventLabelComparatorLevenshteinEditDistance(1.1275), 16);
             matchingRule.addComparator(new EventDateComparatorLevenshteinEditDistance(2.2752), 18);
+            // stop comparing a pair as soon as the threshold cannot be reached anymore
+            matchingRule.setCostAware(true);
             mr = "LR: Edit Distance on Labels and Dates with " + ft;
 
             MultiBlockingKeyGenerator<Event> tokenizedAttributes = BlockingFunction.getStandardBlockingFunctionAllAttributes();
@@ -312,6 +371,7 @@ public class MatchingRuleAnalysis {
             long time2 = System.currentTimeMillis();
             double matchingTime = time2-time1;
             System.out.println("Done with Matching: " + matchingTime + " ms");
+            System.out.println("Skipped comparisons per comparator: " + Arrays.toString(matchingRule.getSkippedComparisons()));
 
             // load the gold standard (test set)
             MatchingGoldStandard gs = new MatchingGoldStandard();
@@ -343,6 +403,8 @@ public class MatchingRuleAnalysis {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy");
             matchingRule.addComparator(new EventLabelComparatorDate(t1, formatter), 7);
             matchingRule.addComparator(new EventDateComparatorLevenshteinEditDistance(t2), 13);
+            // stop comparing a pair as soon as the threshold cannot be reached anymore
+            matchingRule.setCostAware(true);
             mr = "LR: Edit Distance on Date("+t2+") and Date Comparator on Labels("+t1+") with " + ft;
 
             MultiBlockingKeyGenerator<Event> tokenizedAttributes = BlockingFunction.getStandardBlockingFunctionAllAttributes();
@@ -362,6 +424,7 @@ public class MatchingRuleAnalysis {
             long time2 = System.currentTimeMillis();
             double matchingTime = time2-time1;
             System.out.println("Done with Matching: " + matchingTime + " ms");
+            System.out.println("Skipped comparisons per comparator: " + Arrays.toString(matchingRule.getSkippedComparisons()));
 
             // load the gold standard (test set)
             MatchingGoldStandard gs = new MatchingGoldStandard();
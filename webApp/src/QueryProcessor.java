@@ -1,10 +1,9 @@
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import de.uni_mannheim.informatik.wdi.model.*;
 import de.uni_mannheim.informatik.wdi.usecase.events.dataanalysis.EventAnalyzer;
+import de.uni_mannheim.informatik.wdi.usecase.events.identityresolution.EventResolutionIndex;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
 import de.uni_mannheim.informatik.wdi.usecase.events.model.EventFactory;
-import de.uni_mannheim.informatik.wdi.utils.WDI_BlockingFramework_Combiner;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.EventSnapshot;
 import org.apache.jena.query.*;
 
 import de.uni_mannheim.informatik.wdi.usecase.events.Events_IdentityResolution_Main;
@@ -13,6 +12,8 @@ import org.apache.jena.query.ResultSet;
 import org.apache.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -25,6 +26,27 @@ import java.util.stream.Collectors;
 public class QueryProcessor {
 
     final static Logger logger = Logger.getLogger(QueryProcessor.class);
+
+    private static final String DBPEDIA_FILE = "../data/dbpedia_events.xml";
+    private static final String YAGO_FILE = "../data/yago_events.xml";
+
+    // results of previous requests (DWR creates a new QueryProcessor for every request), at most 256 MB
+    private static final QueryResultCache resultCache = new QueryResultCache(256L * 1024 * 1024);
+    // results of the SPARQL endpoints are cached for 10 minutes
+    private static final long REMOTE_TIME_TO_LIVE = 10 * 60 * 1000;
+
+    // shared by all requests, loaded from disk on first use. Block filtering in the index uses the blocks of all events
+    // indexed so far, not only of the events of the current query: the correspondences of a query can change after
+    // other queries added events (and the cached result of a query keeps the correspondences of the time it was run)
+    private static EventResolutionIndex resolutionIndex;
+
+    private static synchronized EventResolutionIndex getResolutionIndex() throws Exception {
+        if (resolutionIndex == null) {
+            resolutionIndex = Events_IdentityResolution_Main.loadResolutionIndex(new File("../data/resolution_index.ser.gz"));
+        }
+        return resolutionIndex;
+    }
+
     /**
      * Get user parameters from Web App and trigger the Data Integration Process
      * @param useLocalData use local data or query the SPARQL endpoints
@@ -37,7 +59,62 @@ public class QueryProcessor {
      * @return JSON to update the D3.JS chart
      */
     public String getUserData(boolean useLocalData, boolean includeOnlyFusedEvents, boolean d, boolean y, String keyword, String fD, String tD) throws Exception {
-        String jsonString = null;
+        List<Event> events = getEvents(useLocalData, includeOnlyFusedEvents, d, y, keyword, fD, tD);
+        if (events == null) {
+            return null;
+        }
+        return EventJsonWriter.toJson(events);
+    }
+
+    /**
+     * Like {@link #getUserData}, but writes the events directly to the stream (see {@link EventJsonWriter})
+     * @param events of {@link #getEvents}
+     * @param newlineDelimited one event per line instead of a JSON array
+     * @param page selects the events that are written, null for all events
+     * @return the number of written events
+     * @throws IOException only if writing to the stream fails (the events are already computed)
+     */
+    public int writeEvents(List<Event> events, OutputStream out, boolean newlineDelimited, EventJsonWriter.Page page) throws IOException {
+        try (EventJsonWriter writer = new EventJsonWriter(out, newlineDelimited, page)) {
+            if (events != null) {
+                writer.writeAll(events);
+            }
+            return writer.getWritten();
+        }
+    }
+
+    /**
+     * Run the query for the user parameters (see {@link #getUserData}), or get its cached result
+     * @return the events to update the D3.JS chart (null if there are none)
+     */
+    public List<Event> getEvents(boolean useLocalData, boolean includeOnlyFusedEvents, boolean d, boolean y, String keyword, String fD, String tD) throws Exception {
+        //the keyword search ignores the case
+        List<Object> key = Arrays.asList(getDataVersion(useLocalData), useLocalData, includeOnlyFusedEvents, d, y,
+                keyword.toLowerCase(), fD, tD);
+        QueryResultCache.Entry result = resultCache.get(key, useLocalData ? 0 : REMOTE_TIME_TO_LIVE,
+                () -> runDataIntegration(useLocalData, includeOnlyFusedEvents, d, y, keyword, fD, tD));
+        return result.getEvents();
+    }
+
+    /**
+     * @return the version of the data: the modification times and sizes of the local files, or a constant for the
+     * SPARQL endpoints (their results expire instead)
+     */
+    private String getDataVersion(boolean useLocalData) {
+        if (!useLocalData) {
+            return "sparql";
+        }
+        File dbpedia = new File(DBPEDIA_FILE);
+        File yago = new File(YAGO_FILE);
+        return dbpedia.lastModified() + "/" + dbpedia.length() + "/" + yago.lastModified() + "/" + yago.length();
+    }
+
+    /**
+     * Run the Data Integration Process for the user parameters (see {@link #getUserData})
+     * @return the fused data set and the events to update the D3.JS chart
+     */
+    private QueryResultCache.Entry runDataIntegration(boolean useLocalData, boolean includeOnlyFusedEvents, boolean d, boolean y, String keyword, String fD, String tD) throws Exception {
+        List<Event> events = null;
         List<Event> eventList = new ArrayList<>();
 
         boolean applyKeywordSearch = false;
@@ -64,9 +141,6 @@ public class QueryProcessor {
         FusableDataSet<Event, DefaultSchemaElement> dataSetY = new FusableDataSet<>();
         FusableDataSet<Event, DefaultSchemaElement> fusedDataSet = null;
 
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-
         //DATA ANALYSIS
         if (false) {
             EventAnalyzer eventAnalyzer = new EventAnalyzer();
@@ -109,20 +183,18 @@ public class QueryProcessor {
 
 
             } else { //use local data
-                //step 1+2: data collection and translation
+                //step 1+2: data collection and translation (from the binary snapshots of the XML files)
                 if (d) {
                     //dataSetD.loadFromTSV(new File("../data/dbpedia-1.tsv"),
                     //       new EventFactory(), "events/event", separator, dateTimeFormatter, filterFrom, fromDate, filterTo, toDate, applyKeywordSearch, keyword);
-                    dataSetD.loadFromXML(new File("../data/dbpedia_events.xml"),
-                            new EventFactory(dateTimeFormatter, filterFrom, fromDate, filterTo, toDate, applyKeywordSearch, keyword),
-                            "events/event");//, dateTimeFormatter, filterFrom, fromDate, filterTo, toDate, applyKeywordSearch, keyword);
+                    EventSnapshot.load(dataSetD, new File(DBPEDIA_FILE), "events/event",
+                            new EventFactory(dateTimeFormatter, filterFrom, fromDate, filterTo, toDate, applyKeywordSearch, keyword));
                 }
                 if (y) {
                     //dataSetY.loadFromTSV(new File("../data/yago-1.tsv"),
                     //       new EventFactory(), "events/event", separator, dateTimeFormatter, filterFrom, fromDate, filterTo, toDate, applyKeywordSearch, keyword);
-                    dataSetY.loadFromXML(new File("../data/yago_events.xml"),
-                            new EventFactory(dateTimeFormatter, filterFrom, fromDate, filterTo, toDate, applyKeywordSearch, keyword),
-                            "events/event");
+                    EventSnapshot.load(dataSetY, new File(YAGO_FILE), "events/event",
+                            new EventFactory(dateTimeFormatter, filterFrom, fromDate, filterTo, toDate, applyKeywordSearch, keyword));
                 }
             }
 
@@ -134,14 +206,17 @@ public class QueryProcessor {
             //step 3: identity resolution
             if (d && y && dHasItems && yHasItems) {
 
-                //BLOCKING FRAMEWORK
-                WDI_BlockingFramework_Combiner blockingFramework = new WDI_BlockingFramework_Combiner();
-                blockingFramework.runBlocking(dataSetD, dataSetY, "../data/sameAs_combined_with_negative_len3.tsv");//dbpedia_2_yago_s.tsv
-
-
                 //WDI FRAMEWORK
+                //only new or changed events are matched, the correspondences of all other events come from the index
+                //(they depend on the events indexed by previous queries, see resolutionIndex)
+                EventResolutionIndex resolutionIndex = getResolutionIndex();
                 de.uni_mannheim.informatik.wdi.model.ResultSet<Correspondence<Event, DefaultSchemaElement>> correspondences =
-                        Events_IdentityResolution_Main.runIdentityResolution(dataSetD, dataSetY, separator);
+                        resolutionIndex.resolve(dataSetD, dataSetY);
+                try {
+                    resolutionIndex.save();
+                } catch (IOException e) {
+                    logger.error("Resolution index could not be saved", e);
+                }
 
                 //step 4: data fusion
                 if (correspondences.size() > 0) {
@@ -187,11 +262,11 @@ public class QueryProcessor {
             }
 
             System.out.println(eventList.size() + " of the records in the eventList have valid coordinates");
-            // convert data to JSON
-            jsonString = mapper.writeValueAsString(eventList);
+            // the events are converted to JSON when they are sent
+            events = eventList;
         }
 
-        return jsonString;
+        return new QueryResultCache.Entry(fusedDataSet, events);
     }
 
     private boolean checkDataSetSize(FusableDataSet<Event, DefaultSchemaElement> dataSet) {
@@ -0,0 +1,168 @@
+import de.uni_mannheim.informatik.wdi.model.DefaultSchemaElement;
+import de.uni_mannheim.informatik.wdi.model.FusableDataSet;
+import de.uni_mannheim.informatik.wdi.usecase.events.model.Event;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded cache for the results of {@link QueryProcessor#getUserData}: the fused data set and the events sent to the
+ * web app. The least recently used results are evicted when the estimated size exceeds the maximum, results can
+ * expire after a time to live. Concurrent requests for the same key wait for a single computation.
+ *
+ * @author Daniel Ringler
+ */
+public class QueryResultCache {
+
+    // rough size of a fused record in memory, used to weigh the cached data sets
+    private static final long ESTIMATED_RECORD_BYTES = 1024;
+
+    /**
+     * The result of a query
+     */
+    public static class Entry {
+        private final FusableDataSet<Event, DefaultSchemaElement> fusedDataSet;
+        private final List<Event> events;
+        private long expires;
+
+        public Entry(FusableDataSet<Event, DefaultSchemaElement> fusedDataSet, List<Event> events) {
+            this.fusedDataSet = fusedDataSet;
+            this.events = events;
+        }
+
+        public FusableDataSet<Event, DefaultSchemaElement> getFusedDataSet() {
+            return fusedDataSet;
+        }
+
+        /**
+         * @return the events for the web app, null if there is no result
+         */
+        public List<Event> getEvents() {
+            return events;
+        }
+
+        long getSize() {
+            long size = events.size() * ESTIMATED_RECORD_BYTES;
+            if (fusedDataSet != null) {
+                size += fusedDataSet.getSize() * ESTIMATED_RECORD_BYTES;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Computes the result of a query on a cache miss
+     */
+    public interface Loader {
+        Entry load() throws Exception;
+    }
+
+    private final long maxSize;
+    private long size;
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<List<Object>, CompletableFuture<Entry>> running = new ConcurrentHashMap<>();
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxSize the maximum estimated size of all results in bytes
+     */
+    public QueryResultCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached result for the key, or computes it with the loader. If the same key is already computed by
+     * another thread, waits for that result instead.
+     *
+     * @param key        the normalized query parameters and the version of the data
+     * @param timeToLive milliseconds until the result expires, 0 if it does not expire
+     */
+    public Entry get(List<Object> key, long timeToLive, Loader loader) throws Exception {
+        Entry entry = getCached(key);
+        if (entry != null) {
+            return entry;
+        }
+
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> other = running.putIfAbsent(key, future);
+        if (other != null) {
+            try {
+                return other.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            // another thread may have finished the same key in the meantime
+            entry = getCached(key);
+            if (entry == null) {
+                synchronized (this) {
+                    misses++;
+                }
+                entry = loader.load();
+                put(key, entry, timeToLive);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, future);
+        }
+    }
+
+    private synchronized Entry getCached(List<Object> key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expires < System.currentTimeMillis()) {
+            remove(key);
+            entry = null;
+        }
+        if (entry != null) {
+            hits++;
+        }
+        return entry;
+    }
+
+    private synchronized void put(List<Object> key, Entry entry, long timeToLive) {
+        if (entry.events == null || entry.getSize() > maxSize) {
+            return;
+        }
+        entry.expires = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE;
+        remove(key);
+        entries.put(key, entry);
+        size += entry.getSize();
+
+        // evict the least recently used results
+        Iterator<Entry> it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            size -= it.next().getSize();
+            it.remove();
+        }
+    }
+
+    private void remove(List<Object> key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            size -= old.getSize();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -39,6 +39,10 @@ $('#sendQueryID').on('click', function (e) {
             document.getElementById("wrongInputID").style.display = "none";
 
             myMap.clearEvents();
+            if (window.fetch && window.TextDecoder && window.ReadableStream) {
+                streamEvents($('#localDataID').is(':checked'), $('#onlyFusedID').is(':checked'), $('#dID').is(':checked'), $('#yID').is(':checked'), $('#keywordID').val(), $('#fromYearID').val(), $('#toYearID').val());
+                return;
+            }
             QueryProcessor.getUserData($('#localDataID').is(':checked'), $('#onlyFusedID').is(':checked'), $('#dID').is(':checked'), $('#yID').is(':checked'), $('#keywordID').val(), $('#fromYearID').val(), $('#toYearID').val(), {//$('#wID').is(':checked'),
                 callback: function(str) {
                     //console.log(str);
@@ -62,3 +66,66 @@ $('#sendQueryID').on('click', function (e) {
         }
     }
 })
+
+// the request of the current query, aborted when the next query starts
+var streamController = null;
+
+// receive the events line by line (see EventStreamServlet) and draw every part as soon as it arrives
+function streamEvents(local, onlyFused, d, y, keyword, from, to) {
+    var url = "events?" + $.param({local: local, onlyFused: onlyFused, d: d, y: y, keyword: keyword, from: from, to: to, format: "ndjson"});
+    var received = 0;
+    if (streamController !== null) {
+        streamController.abort();
+    }
+    // without AbortController the old request runs to the end, but its events are dropped
+    var controller = window.AbortController ? new AbortController() : {signal: undefined, abort: function () {}};
+    streamController = controller;
+    function isStale() {
+        return streamController !== controller;
+    }
+    fetch(url, {signal: controller.signal}).then(function (response) {
+        if (isStale()) {
+            return;
+        }
+        if (!response.ok) {
+            throw new Error("query failed: " + response.status);
+        }
+        var reader = response.body.getReader();
+        var decoder = new TextDecoder("utf-8");
+        var buffer = "";
+
+        function read() {
+            return reader.read().then(function (result) {
+                if (isStale()) {
+                    // a newer query started, drop the rest of this one
+                    reader.cancel();
+                    return;
+                }
+                buffer += decoder.decode(result.value || new Uint8Array(0), {stream: !result.done});
+                var lines = buffer.split("\n");
+                // the last line may be incomplete
+                buffer = result.done ? "" : lines.pop();
+                var events = lines.filter(function (line) {
+                    return line !== "";
+                }).map(JSON.parse);
+                if (events.length > 0) {
+                    received += events.length;
+                    myMap.appendEvents(events);
+                }
+                if (result.done) {
+                    if (received === 0) {
+                        document.getElementById("noEventsReceivedID").style.display = "block";
+                    }
+                } else {
+                    return read();
+                }
+            });
+        }
+        return read();
+    }).catch(function (err) {
+        if (isStale() || err.name === "AbortError") {
+            return;
+        }
+        alert(err);
+    });
+}
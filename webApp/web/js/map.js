@@ -224,6 +224,7 @@ function mapInit() {
     this.clearEvents = function () {
         //remove points
         svg.selectAll("circle").remove();
+        svg.selectAll("g.events").remove();
     };
     this.insertEvents = function(str) {
         //remove points
@@ -235,11 +236,15 @@ function mapInit() {
         //var jsonCoordinates = [parseFloat(jsonObject.coordinates[0].second), parseFloat(jsonObject.coordinates[0].first)]
         //var jsonCoordinates = [parseFloat(jsonObject[0].coordinates[0].second), parseFloat(jsonObject[0].coordinates[0].first)]
         //console.log(projection(jsonCoordinates))
-
-
+        this.appendEvents(jsonObject);
+    };
+    //draw events in addition to the ones on the map (e.g. the next part of a stream)
+    this.appendEvents = function(events) {
         //draw point
-        svg.selectAll("circle")
-            .data(jsonObject)
+        svg.append("g")
+            .classed("events", true)
+            .selectAll("circle")
+            .data(events)
             .enter()
             .append("circle")
             //.attr("cx", function(d) { return projection(d.coordinates[0].second); })